@@ -0,0 +1,57 @@
+package com.library.config;
+
+import com.library.domain.NotificationType;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Retention settings for the notifications table.
+ *
+ * Example (application.properties):
+ *   notification.retention.read-ttl-days.BOOK_REMINDER=30
+ *   notification.retention.read-ttl-days.SYSTEM_NOTIFICATION=365
+ *   notification.retention.unread-ttl-days.MARKETING=60
+ *   notification.retention.batch-size=1000
+ *
+ * Types without an explicit entry fall back to the default TTLs.
+ */
+@Component
+@ConfigurationProperties(prefix = "notification.retention")
+@Getter
+@Setter
+public class NotificationRetentionProperties {
+
+    private boolean enabled = true;
+
+    // Rows deleted per statement; each batch commits on its own
+    private int batchSize = 1000;
+
+    private int defaultReadTtlDays = 90;
+
+    private int defaultUnreadTtlDays = 365;
+
+    private Map<NotificationType, Integer> readTtlDays = new EnumMap<>(Map.of(
+            NotificationType.DUE_DATE_ALERT, 30,
+            NotificationType.BOOK_REMINDER, 30,
+            NotificationType.BOOK_RETURNED, 30,
+            NotificationType.MARKETING, 30,
+            NotificationType.FINE_NOTIFICATION, 365,
+            NotificationType.SUBSCRIPTION_EXPIRING, 180,
+            NotificationType.SYSTEM_NOTIFICATION, 365
+    ));
+
+    private Map<NotificationType, Integer> unreadTtlDays = new EnumMap<>(NotificationType.class);
+
+    public int getReadTtlDays(NotificationType type) {
+        return readTtlDays.getOrDefault(type, defaultReadTtlDays);
+    }
+
+    public int getUnreadTtlDays(NotificationType type) {
+        return unreadTtlDays.getOrDefault(type, defaultUnreadTtlDays);
+    }
+}
@@ -0,0 +1,42 @@
+package com.library.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.orm.jpa.support.OpenEntityManagerInViewInterceptor;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Configuration for the open-entity-manager-in-view interceptor.
+ *
+ * Replaces Spring Boot's default registration, which backs off when this bean
+ * exists, so that long-lived async endpoints can be excluded. With OSIV the
+ * EntityManager of an async request stays open until the request completes,
+ * and once it has touched the database it holds a pooled connection for the
+ * life of the stream or long poll. The excluded endpoints do their reads in
+ * service calls with their own short transactions instead.
+ */
+@Configuration
+public class OpenInViewConfiguration implements WebMvcConfigurer {
+
+    /**
+     * Async endpoints that must not hold an EntityManager while parked:
+     * - GET /api/notifications/stream (SSE, open up to 30 minutes)
+     * - GET /api/payments/{id}/await  (long poll)
+     */
+    private static final String[] ASYNC_PATHS = {
+            "/api/notifications/stream",
+            "/api/payments/*/await"
+    };
+
+    @Bean
+    public OpenEntityManagerInViewInterceptor openEntityManagerInViewInterceptor() {
+        return new OpenEntityManagerInViewInterceptor();
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addWebRequestInterceptor(openEntityManagerInViewInterceptor())
+                .excludePathPatterns(ASYNC_PATHS);
+    }
+}
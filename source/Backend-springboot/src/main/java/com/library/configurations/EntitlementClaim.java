@@ -0,0 +1,94 @@
+package com.library.configurations;
+
+import com.library.service.cache.SubscriptionEntitlement;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Compact subscription entitlement carried in the JWT ("ent" claim).
+ *
+ * The claim is only a shortcut: it is trusted while it is unexpired, the
+ * subscription has not ended and its version still matches the user's
+ * entitlement version. Anything else falls back to the database.
+ *
+ * @param subscriptionId  Active subscription ID
+ * @param planCode        Plan code
+ * @param planName        Plan display name
+ * @param maxBooksAllowed Maximum concurrent loans
+ * @param maxDaysPerBook  Maximum loan length in days
+ * @param endDate         Last day the subscription is valid
+ * @param version         User's entitlement version when issued
+ * @param expiresAt       When the claim stops being trusted
+ */
+public record EntitlementClaim(Long subscriptionId,
+                               String planCode,
+                               String planName,
+                               int maxBooksAllowed,
+                               int maxDaysPerBook,
+                               LocalDate endDate,
+                               long version,
+                               Instant expiresAt) {
+
+    public static final String CLAIM_NAME = "ent";
+
+    public static EntitlementClaim of(SubscriptionEntitlement entitlement, long version, Instant expiresAt) {
+        return new EntitlementClaim(entitlement.subscriptionId(), entitlement.planCode(),
+                entitlement.planName(), entitlement.maxBooksAllowed(), entitlement.maxDaysPerBook(), entitlement.endDate(),
+                version, expiresAt);
+    }
+
+    /**
+     * Whether the claim can stand in for a database lookup right now
+     */
+    public boolean isUsable(Long currentVersion, Instant now, LocalDate today) {
+        return currentVersion != null
+                && currentVersion == version
+                && now.isBefore(expiresAt)
+                && !today.isAfter(endDate);
+    }
+
+    public SubscriptionEntitlement toEntitlement() {
+        // Claims issued before the plan name was carried fall back to the code
+        return new SubscriptionEntitlement(subscriptionId, planCode, planName != null ? planName : planCode,
+                maxBooksAllowed, maxDaysPerBook, endDate);
+    }
+
+    public Map<String, Object> toClaim() {
+        Map<String, Object> claim = new LinkedHashMap<>();
+        claim.put("sid", subscriptionId);
+        claim.put("plan", planCode);
+        claim.put("pn", planName);
+        claim.put("mb", maxBooksAllowed);
+        claim.put("md", maxDaysPerBook);
+        claim.put("end", endDate.toString());
+        claim.put("ver", version);
+        claim.put("exp", expiresAt.getEpochSecond());
+        return claim;
+    }
+
+    /**
+     * Read the claim from a verified token payload
+     * @return The claim, or null if absent or malformed
+     */
+    public static EntitlementClaim fromClaim(Object value) {
+        if (!(value instanceof Map<?, ?> claim)) {
+            return null;
+        }
+        try {
+            return new EntitlementClaim(
+                    ((Number) claim.get("sid")).longValue(),
+                    (String) claim.get("plan"),
+                    (String) claim.get("pn"),
+                    ((Number) claim.get("mb")).intValue(),
+                    ((Number) claim.get("md")).intValue(),
+                    LocalDate.parse((String) claim.get("end")),
+                    ((Number) claim.get("ver")).longValue(),
+                    Instant.ofEpochSecond(((Number) claim.get("exp")).longValue()));
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+}
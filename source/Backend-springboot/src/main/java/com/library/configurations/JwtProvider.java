@@ -1,6 +1,7 @@
 package com.library.configurations;
 
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtBuilder;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.security.Keys;
 import org.springframework.security.core.Authentication;
@@ -18,15 +19,32 @@ public class JwtProvider {
 	static SecretKey key = Keys.hmacShaKeyFor(JwtConstant.SECRET_KEY.getBytes());
 
 	public String generateToken(Authentication auth){
+		return generateToken(auth, null);
+	}
+
+	/**
+	 * Generate a token, optionally carrying the user's entitlement claim
+	 */
+	public String generateToken(Authentication auth, EntitlementClaim entitlement){
+		return generateToken(auth, entitlement, new Date(new Date().getTime() + 86400000));
+	}
+
+	/**
+	 * Generate a token that expires at the given time (a refreshed token
+	 * keeps the expiry of the one it replaces)
+	 */
+	public String generateToken(Authentication auth, EntitlementClaim entitlement, Date expiresAt){
 		Collection<? extends GrantedAuthority> authorities = auth.getAuthorities();
 		String roles = populateAuthorities(authorities);
 
-        return Jwts.builder().issuedAt(new Date())
-				.expiration(new Date(new Date().getTime() + 86400000))
+		JwtBuilder builder = Jwts.builder().issuedAt(new Date())
+				.expiration(expiresAt)
 				.claim("email",auth.getName())
-				.claim("authorities",roles)
-				.signWith(key)
-				.compact();
+				.claim("authorities",roles);
+		if (entitlement != null) {
+			builder.claim(EntitlementClaim.CLAIM_NAME, entitlement.toClaim());
+		}
+		return builder.signWith(key).compact();
 	}
 
 	public String getEmailFromJwtToken(String jwt){
@@ -36,6 +54,13 @@ public class JwtProvider {
         return String.valueOf(claims.get("email"));
 	}
 
+	public Date getExpirationFromJwtToken(String jwt){
+		jwt = jwt.substring(7);
+		Claims claims = Jwts.parser().verifyWith(key).build().parseSignedClaims(jwt).getPayload();
+
+		return claims.getExpiration();
+	}
+
 	private String populateAuthorities(Collection<? extends GrantedAuthority> authorities) {
 		Set<String> auths = new HashSet<>();
 
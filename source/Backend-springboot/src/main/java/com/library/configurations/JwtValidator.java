@@ -9,7 +9,6 @@ import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
-import org.springframework.security.core.Authentication;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.AuthorityUtils;
 import org.springframework.security.core.context.SecurityContextHolder;
@@ -36,7 +35,9 @@ public class JwtValidator extends OncePerRequestFilter {
 				String authorities = String.valueOf(claims.get("authorities"));
 
 				List<GrantedAuthority> auths = AuthorityUtils.commaSeparatedStringToAuthorityList(authorities);
-				Authentication authentication = new UsernamePasswordAuthenticationToken(email, null, auths);
+				UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(email, null, auths);
+				// Verified entitlement claim (if any) for checkout to use instead of a lookup
+				authentication.setDetails(EntitlementClaim.fromClaim(claims.get(EntitlementClaim.CLAIM_NAME)));
 				SecurityContextHolder.getContext().setAuthentication(authentication);
 			}catch (Exception e){
 				throw new BadCredentialsException("Invalid token....");
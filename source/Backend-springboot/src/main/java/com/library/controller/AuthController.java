@@ -15,6 +15,7 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
@@ -49,6 +50,16 @@ public class AuthController {
         );
     }
 
+    /**
+     * Re-issue the token with a fresh entitlement claim and the same expiry
+     * POST /auth/refresh (with the current token)
+     */
+    @PostMapping("/refresh")
+    public ResponseEntity<AuthResponse> refreshHandler(
+            @RequestHeader("Authorization") String jwt) throws UserException {
+        return ResponseEntity.ok(authService.refreshToken(jwt));
+    }
+
     @PostMapping("/forgot-password")
     public ResponseEntity<ApiResponse> forgotPassword(
             @RequestBody ForgotPasswordRequest request
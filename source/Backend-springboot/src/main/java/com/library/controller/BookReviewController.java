@@ -9,7 +9,9 @@ import com.library.payload.request.CreateReviewRequest;
 import com.library.payload.request.UpdateReviewRequest;
 import com.library.payload.response.ApiResponse;
 import com.library.payload.response.PageResponse;
+import com.library.payload.response.RatingRecomputeReport;
 import com.library.service.BookReviewService;
+import com.library.service.impl.BookRatingAggregateService;
 import jakarta.validation.Valid;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -30,9 +32,12 @@ import org.springframework.web.bind.annotation.*;
 public class BookReviewController {
 
     private final BookReviewService bookReviewService;
+    private final BookRatingAggregateService ratingAggregateService;
 
-    public BookReviewController(BookReviewService bookReviewService) {
+    public BookReviewController(BookReviewService bookReviewService,
+                                BookRatingAggregateService ratingAggregateService) {
         this.bookReviewService = bookReviewService;
+        this.ratingAggregateService = ratingAggregateService;
     }
 
     // ==================== REVIEW CRUD OPERATIONS ====================
@@ -276,6 +281,35 @@ public class BookReviewController {
         return ResponseEntity.ok(new ReviewStatisticsResponse(totalReviews));
     }
 
+    /**
+     * Report of the last rating aggregate recompute (Admin only)
+     * GET /api/reviews/admin/rating-recompute
+     */
+    @GetMapping("/admin/rating-recompute")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> getLastRatingRecompute() {
+        RatingRecomputeReport report = ratingAggregateService.getLastReport();
+        if (report == null) {
+            return ResponseEntity.ok(new ApiResponse("No rating recompute has run yet", true));
+        }
+        return ResponseEntity.ok(report);
+    }
+
+    /**
+     * Recompute all book rating aggregates from the reviews now (Admin only)
+     * POST /api/reviews/admin/rating-recompute/run
+     */
+    @PostMapping("/admin/rating-recompute/run")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> runRatingRecompute() {
+        RatingRecomputeReport report = ratingAggregateService.recompute();
+        if (report == null) {
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                    .body(new ApiResponse("Rating recompute is already running", false));
+        }
+        return ResponseEntity.ok(report);
+    }
+
     // ==================== RESPONSE DTOs ====================
 
     /**
@@ -0,0 +1,44 @@
+package com.library.controller;
+
+import com.library.event.bus.DomainEventBus;
+import com.library.payload.response.ApiResponse;
+import com.library.payload.response.EventBusMetricsResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Admin endpoints for the domain event bus
+ *
+ * Endpoints:
+ * - GET  /api/events/admin/metrics       → Backlog, lag and per-consumer counters
+ * - POST /api/events/admin/{id}/requeue  → Retry a dead event
+ */
+@RestController
+@RequestMapping("/api/events/admin")
+@RequiredArgsConstructor
+@PreAuthorize("hasRole('ADMIN')")
+public class EventBusController {
+
+    private final DomainEventBus domainEventBus;
+
+    @GetMapping("/metrics")
+    public ResponseEntity<EventBusMetricsResponse> getMetrics() {
+        return ResponseEntity.ok(domainEventBus.getMetrics());
+    }
+
+    @PostMapping("/{id}/requeue")
+    public ResponseEntity<ApiResponse> requeue(@PathVariable Long id) {
+        if (!domainEventBus.requeue(id)) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .body(new ApiResponse("No dead event with ID " + id, false));
+        }
+        return ResponseEntity.ok(new ApiResponse("Event " + id + " queued for delivery", true));
+    }
+}
@@ -9,6 +9,7 @@ import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
@@ -19,12 +20,19 @@ import com.library.domain.FineType;
 import com.library.exception.FineException;
 import com.library.exception.PaymentException;
 import com.library.payload.dto.FineDTO;
+import com.library.payload.dto.FinePolicyDTO;
+import com.library.payload.request.BulkFineRequest;
 import com.library.payload.request.CreateFineRequest;
 import com.library.payload.request.WaiveFineRequest;
 import com.library.payload.response.ApiResponse;
+import com.library.payload.response.BulkFineOperationResponse;
+import com.library.payload.response.FineBalanceReconciliationReport;
 import com.library.payload.response.PageResponse;
 import com.library.payload.response.PaymentInitiateResponse;
 import com.library.service.FineService;
+import com.library.service.cache.FinePolicyTable;
+import com.library.service.impl.FineBalanceService;
+import com.library.service.impl.FinePolicyService;
 
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
@@ -41,6 +49,9 @@ import lombok.extern.slf4j.Slf4j;
 public class FineController {
 
     private final FineService fineService;
+    private final FineBalanceService fineBalanceService;
+    private final FinePolicyService finePolicyService;
+    private final FinePolicyTable finePolicyTable;
 
     // ==================== CREATE OPERATIONS ====================
 
@@ -271,6 +282,158 @@ public class FineController {
         }
     }
 
+    /**
+     * Report of the last fine balance reconciliation (Admin only)
+     * GET /api/fines/admin/balance-reconciliation
+     */
+    @GetMapping("/admin/balance-reconciliation")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> getLastBalanceReconciliation() {
+        FineBalanceReconciliationReport report = fineBalanceService.getLastReport();
+        if (report == null) {
+            return ResponseEntity.ok(new ApiResponse("No balance reconciliation has run yet", true));
+        }
+        return ResponseEntity.ok(report);
+    }
+
+    /**
+     * Reconcile fine balances with the fines table now (Admin only)
+     * POST /api/fines/admin/balance-reconciliation/run
+     */
+    @PostMapping("/admin/balance-reconciliation/run")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> runBalanceReconciliation() {
+        FineBalanceReconciliationReport report = fineBalanceService.reconcile();
+        if (report == null) {
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                    .body(new ApiResponse("Balance reconciliation is already running", false));
+        }
+        return ResponseEntity.ok(report);
+    }
+
+    // ==================== BULK OPERATIONS ====================
+
+    /**
+     * Waive all unpaid fines matching an ID list and/or filter (Admin only)
+     * POST /api/fines/admin/bulk/waive
+     */
+    @PostMapping("/admin/bulk/waive")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> bulkWaiveFines(@RequestBody BulkFineRequest request) {
+        try {
+            BulkFineOperationResponse response = fineService.bulkWaiveFines(request);
+            return ResponseEntity.ok(response);
+        } catch (FineException e) {
+            log.error("Bulk waive failed", e);
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                .body(new ApiResponse(e.getMessage(), false));
+        }
+    }
+
+    /**
+     * Adjust the amount of all unpaid fines matching an ID list and/or filter (Admin only)
+     * POST /api/fines/admin/bulk/adjust
+     */
+    @PostMapping("/admin/bulk/adjust")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> bulkAdjustFines(@RequestBody BulkFineRequest request) {
+        try {
+            BulkFineOperationResponse response = fineService.bulkAdjustFines(request);
+            return ResponseEntity.ok(response);
+        } catch (FineException e) {
+            log.error("Bulk adjust failed", e);
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                .body(new ApiResponse(e.getMessage(), false));
+        }
+    }
+
+    /**
+     * Record full payment of all unpaid fines matching an ID list and/or filter (Admin only)
+     * POST /api/fines/admin/bulk/pay
+     */
+    @PostMapping("/admin/bulk/pay")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> bulkPayFines(@RequestBody BulkFineRequest request) {
+        try {
+            BulkFineOperationResponse response = fineService.bulkPayFines(request);
+            return ResponseEntity.ok(response);
+        } catch (FineException e) {
+            log.error("Bulk payment failed", e);
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                .body(new ApiResponse(e.getMessage(), false));
+        }
+    }
+
+    // ==================== FINE POLICIES ====================
+
+    /**
+     * List fine policy rules (Admin only)
+     * GET /api/fines/admin/policies
+     */
+    @GetMapping("/admin/policies")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<List<FinePolicyDTO>> getFinePolicies() {
+        return ResponseEntity.ok(finePolicyService.getAllPolicies());
+    }
+
+    /**
+     * Create a fine policy rule (Admin only)
+     * POST /api/fines/admin/policies
+     */
+    @PostMapping("/admin/policies")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> createFinePolicy(@Valid @RequestBody FinePolicyDTO request) {
+        try {
+            return ResponseEntity.status(HttpStatus.CREATED).body(finePolicyService.createPolicy(request));
+        } catch (FineException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                .body(new ApiResponse(e.getMessage(), false));
+        }
+    }
+
+    /**
+     * Update a fine policy rule (Admin only)
+     * PUT /api/fines/admin/policies/{id}
+     */
+    @PutMapping("/admin/policies/{id}")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> updateFinePolicy(@PathVariable Long id,
+                                              @Valid @RequestBody FinePolicyDTO request) {
+        try {
+            return ResponseEntity.ok(finePolicyService.updatePolicy(id, request));
+        } catch (FineException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                .body(new ApiResponse(e.getMessage(), false));
+        }
+    }
+
+    /**
+     * Delete a fine policy rule (Admin only)
+     * DELETE /api/fines/admin/policies/{id}
+     */
+    @DeleteMapping("/admin/policies/{id}")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> deleteFinePolicy(@PathVariable Long id) {
+        try {
+            finePolicyService.deletePolicy(id);
+            return ResponseEntity.ok(new ApiResponse("Fine policy deleted successfully", true));
+        } catch (FineException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                .body(new ApiResponse(e.getMessage(), false));
+        }
+    }
+
+    /**
+     * Recompile the fine policy table from the database now (Admin only)
+     * POST /api/fines/admin/policies/reload
+     */
+    @PostMapping("/admin/policies/reload")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ApiResponse> reloadFinePolicies() {
+        finePolicyTable.reload();
+        return ResponseEntity.ok(new ApiResponse("Fine policies reloaded", true));
+    }
+
     /**
      * Delete a fine (Admin only - use with caution)
      * DELETE /api/fines/{id}
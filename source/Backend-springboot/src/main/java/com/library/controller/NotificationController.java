@@ -2,20 +2,28 @@ package com.library.controller;
 
 import com.library.exception.UserException;
 import com.library.model.User;
+import com.library.payload.dto.NotificationBroadcastDTO;
 import com.library.payload.dto.NotificationDTO;
+import com.library.payload.request.BroadcastNotificationRequest;
 import com.library.payload.request.PushTokenRequest;
 import com.library.payload.response.ApiResponse;
 import com.library.service.NotificationService;
 import com.library.service.PushTokenService;
 import com.library.service.UserService;
+import com.library.service.impl.NotificationBroadcastService;
+import com.library.service.impl.NotificationStreamService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -25,12 +33,16 @@ import java.util.Map;
  * - GET    /api/notifications          → List user notifications (paged)
  * - GET    /api/notifications/unread   → List unread notifications
  * - GET    /api/notifications/count    → Get unread notification count
+ * - GET    /api/notifications/stream   → Server-sent events: new notifications and unread count
  * - PUT    /api/notifications/{id}/read → Mark notification as read
  * - PUT    /api/notifications/read-all  → Mark all as read
  * - DELETE /api/notifications/{id}      → Delete notification
  * - DELETE /api/notifications/all       → Delete all notifications
  * - POST   /api/notifications/push-token → Register push notification token
  * - DELETE /api/notifications/push-token → Delete push notification token
+ * - POST   /api/notifications/admin/broadcast      → Broadcast NEW_ARRIVAL / RECOMMENDATION (admin)
+ * - GET    /api/notifications/admin/broadcast      → List recent broadcasts (admin)
+ * - GET    /api/notifications/admin/broadcast/{id} → Broadcast progress (admin)
  */
 @RestController
 @RequestMapping("/api/notifications")
@@ -40,6 +52,8 @@ public class NotificationController {
     private final NotificationService notificationService;
     private final PushTokenService pushTokenService;
     private final UserService userService;
+    private final NotificationStreamService notificationStreamService;
+    private final NotificationBroadcastService notificationBroadcastService;
 
     /**
      * Get user notifications (paginated)
@@ -93,6 +107,22 @@ public class NotificationController {
         return ResponseEntity.ok(response);
     }
 
+    /**
+     * Stream new notifications and unread count changes (server-sent events).
+     * Clients should use this instead of polling /count. The token goes in the
+     * Authorization header like every other endpoint (use a fetch-based SSE client).
+     * Runs outside open-in-view (see OpenInViewConfiguration): the user and count
+     * lookups use their own transactions, so an open stream holds no connection.
+     * GET /api/notifications/stream
+     */
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamNotifications(
+            @RequestHeader("Authorization") String jwt) throws UserException {
+
+        User user = userService.getUserFromJwtToken(jwt);
+        return notificationStreamService.subscribe(user.getId(), notificationService.getUnreadCount(user));
+    }
+
     /**
      * Mark notification as read
      * PUT /api/notifications/{id}/read
@@ -187,4 +217,37 @@ public class NotificationController {
 
         return ResponseEntity.ok(new ApiResponse("Push token deleted successfully", true));
     }
+
+    /**
+     * Broadcast a new arrival or recommendation to all opted-in users
+     * POST /api/notifications/admin/broadcast
+     */
+    @PostMapping("/admin/broadcast")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<NotificationBroadcastDTO> startBroadcast(
+            @Valid @RequestBody BroadcastNotificationRequest request) {
+        return ResponseEntity.status(HttpStatus.ACCEPTED)
+                .body(notificationBroadcastService.startBroadcast(request));
+    }
+
+    /**
+     * List recent broadcasts
+     * GET /api/notifications/admin/broadcast
+     */
+    @GetMapping("/admin/broadcast")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<List<NotificationBroadcastDTO>> getBroadcasts() {
+        return ResponseEntity.ok(notificationBroadcastService.getBroadcasts());
+    }
+
+    /**
+     * Get broadcast progress
+     * GET /api/notifications/admin/broadcast/{id}
+     */
+    @GetMapping("/admin/broadcast/{id}")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<NotificationBroadcastDTO> getBroadcast(@PathVariable String id) {
+        NotificationBroadcastDTO broadcast = notificationBroadcastService.getBroadcast(id);
+        return broadcast != null ? ResponseEntity.ok(broadcast) : ResponseEntity.notFound().build();
+    }
 }
@@ -6,14 +6,21 @@ import com.library.payload.request.PaymentInitiateRequest;
 import com.library.payload.request.PaymentVerifyRequest;
 import com.library.payload.response.ApiResponse;
 import com.library.payload.response.PaymentInitiateResponse;
+import com.library.payload.response.PaymentReconciliationReport;
+import com.library.payload.response.RevenueReportResponse;
 import com.library.payload.response.RevenueStatisticsResponse;
 import com.library.service.PaymentService;
+import com.library.service.impl.PaymentAwaitService;
+import com.library.service.impl.PaymentReconciliationService;
 import com.library.service.impl.PaymentServiceImpl;
+import com.library.service.impl.RevenueRollupService;
+import com.library.service.impl.WebhookInboxService;
 import jakarta.transaction.Transactional;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.json.JSONObject;
+import org.springframework.boot.convert.DurationStyle;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
@@ -23,6 +30,7 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.temporal.ChronoUnit;
 import java.util.Map;
 
 /**
@@ -38,6 +46,10 @@ public class PaymentController {
 
     private final PaymentService paymentService;
     private final PaymentServiceImpl paymentServiceImpl;
+    private final RevenueRollupService revenueRollupService;
+    private final WebhookInboxService webhookInboxService;
+    private final PaymentReconciliationService paymentReconciliationService;
+    private final PaymentAwaitService paymentAwaitService;
 
     /**
      * Initiate a new payment
@@ -49,7 +61,7 @@ public class PaymentController {
      *   "bookLoanId": 5,
      *   "paymentType": "FINE",
      *   "gateway": "RAZORPAY",
-     *   "amount": 100.00,
+     *   "amount": 10000,
      *   "currency": "INR",
      *   "description": "Overdue fine for book loan #5"
      * }
@@ -114,6 +126,28 @@ public class PaymentController {
         }
     }
 
+    /**
+     * Wait for a payment's status to change (long poll)
+     * GET /api/payments/{id}/await?timeout=30s
+     *
+     * Answers as soon as the status changes, immediately if the payment is
+     * already settled, or with the current state when the timeout expires.
+     * Runs outside open-in-view (see OpenInViewConfiguration).
+     */
+    @GetMapping("/{id}/await")
+    public Object awaitPayment(@PathVariable Long id,
+                               @RequestParam(defaultValue = "30s") String timeout) {
+        try {
+            return paymentAwaitService.await(id, DurationStyle.detectAndParse(timeout, ChronoUnit.SECONDS));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest()
+                .body(new ApiResponse("Invalid timeout: " + timeout, false));
+        } catch (PaymentException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                .body(new ApiResponse(e.getMessage(), false));
+        }
+    }
+
     /**
      * Get payment by transaction ID
      * GET /api/payments/transaction/{transactionId}
@@ -212,21 +246,16 @@ public class PaymentController {
      * Events: payment.captured, payment_link.paid, payment.failed
      */
     @PostMapping("/webhook/razorpay")
-    public ResponseEntity<String> handleRazorpayWebhook(@RequestBody String webhookBody) {
+    public ResponseEntity<String> handleRazorpayWebhook(
+            @RequestBody String webhookBody,
+            @RequestHeader(value = "X-Razorpay-Event-Id", required = false) String eventId) {
         try {
-            log.info("Received Razorpay webhook");
-
-            // Parse webhook payload
-            JSONObject webhookPayload = new JSONObject(webhookBody);
-
-            // Process webhook
-            paymentServiceImpl.handleRazorpayWebhook(webhookPayload);
-
-            log.info("Razorpay webhook processed successfully");
-            return ResponseEntity.ok("Webhook processed successfully");
+            // Stored and acknowledged here; processed asynchronously by the webhook inbox
+            boolean stored = webhookInboxService.receiveRazorpay(webhookBody, eventId);
+            return ResponseEntity.ok(stored ? "Webhook received" : "Duplicate webhook ignored");
 
         } catch (Exception e) {
-            log.error("Error processing Razorpay webhook: {}", e.getMessage(), e);
+            log.error("Error storing Razorpay webhook: {}", e.getMessage(), e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                 .body("Webhook processing failed");
         }
@@ -253,6 +282,104 @@ public class PaymentController {
         return ResponseEntity.ok(stats);
     }
 
+    /**
+     * Revenue for one month, from the revenue rollups (Admin only)
+     * GET /api/payments/statistics/revenue/month?year=2025&month=10
+     */
+    @GetMapping("/statistics/revenue/month")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<RevenueReportResponse> getMonthRevenue(
+            @RequestParam int year,
+            @RequestParam int month) {
+        return ResponseEntity.ok(revenueRollupService.getMonthRevenue(year, month, false));
+    }
+
+    /**
+     * Revenue for one quarter (Admin only)
+     * GET /api/payments/statistics/revenue/quarter?year=2025&quarter=4
+     */
+    @GetMapping("/statistics/revenue/quarter")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<RevenueReportResponse> getQuarterRevenue(
+            @RequestParam int year,
+            @RequestParam int quarter) {
+        return ResponseEntity.ok(revenueRollupService.getQuarterRevenue(year, quarter, false));
+    }
+
+    /**
+     * Revenue for one year (Admin only)
+     * GET /api/payments/statistics/revenue/year?year=2025
+     */
+    @GetMapping("/statistics/revenue/year")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<RevenueReportResponse> getYearRevenue(@RequestParam int year) {
+        return ResponseEntity.ok(revenueRollupService.getYearRevenue(year, false));
+    }
+
+    /**
+     * Revenue broken down by currency, payment type and gateway (Admin only)
+     * GET /api/payments/statistics/revenue/breakdown?year=2025            → whole year
+     * GET /api/payments/statistics/revenue/breakdown?year=2025&quarter=4  → one quarter
+     * GET /api/payments/statistics/revenue/breakdown?year=2025&month=10   → one month
+     */
+    @GetMapping("/statistics/revenue/breakdown")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<RevenueReportResponse> getRevenueBreakdown(
+            @RequestParam int year,
+            @RequestParam(required = false) Integer quarter,
+            @RequestParam(required = false) Integer month) {
+        RevenueReportResponse report;
+        if (month != null) {
+            report = revenueRollupService.getMonthRevenue(year, month, true);
+        } else if (quarter != null) {
+            report = revenueRollupService.getQuarterRevenue(year, quarter, true);
+        } else {
+            report = revenueRollupService.getYearRevenue(year, true);
+        }
+        return ResponseEntity.ok(report);
+    }
+
+    /**
+     * Rebuild the revenue rollups from the payments table (Admin only)
+     * POST /api/payments/statistics/revenue/rebuild
+     */
+    @PostMapping("/statistics/revenue/rebuild")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ApiResponse> rebuildRevenueRollups() {
+        int buckets = revenueRollupService.rebuild();
+        return ResponseEntity.ok(new ApiResponse("Rebuilt " + buckets + " revenue rollup bucket(s)", true));
+    }
+
+
+    /**
+     * Report of the last payment reconciliation run (Admin only)
+     * GET /api/payments/admin/reconciliation
+     */
+    @GetMapping("/admin/reconciliation")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> getLastReconciliation() {
+        PaymentReconciliationReport report = paymentReconciliationService.getLastReport();
+        if (report == null) {
+            return ResponseEntity.ok(new ApiResponse("No reconciliation has run yet", true));
+        }
+        return ResponseEntity.ok(report);
+    }
+
+    /**
+     * Run payment reconciliation now (Admin only)
+     * POST /api/payments/admin/reconciliation/run
+     */
+    @PostMapping("/admin/reconciliation/run")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> runReconciliation() {
+        PaymentReconciliationReport report = paymentReconciliationService.reconcile();
+        if (report == null) {
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                    .body(new ApiResponse("Reconciliation is already running", false));
+        }
+        return ResponseEntity.ok(report);
+    }
+
 
     @PostMapping("/stripe/checkout")
     public ResponseEntity<?> createStripeCheckout(@RequestBody Map<String, Object> payload) {
@@ -280,10 +407,13 @@ public class PaymentController {
             @RequestHeader("Stripe-Signature") String sigHeader) {
 
         try {
-            paymentService.handleStripeWebhook(payload, sigHeader);
-            return ResponseEntity.ok("Webhook received");
-        } catch (Exception e) {
+            boolean stored = webhookInboxService.receiveStripe(payload, sigHeader);
+            return ResponseEntity.ok(stored ? "Webhook received" : "Duplicate webhook ignored");
+        } catch (PaymentException e) {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Webhook error");
+        } catch (Exception e) {
+            log.error("Error storing Stripe webhook: {}", e.getMessage(), e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("Webhook error");
         }
     }
 
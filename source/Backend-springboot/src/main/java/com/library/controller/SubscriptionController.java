@@ -19,9 +19,13 @@ import com.library.exception.PaymentException;
 import com.library.exception.SubscriptionException;
 import com.library.exception.UserException;
 import com.library.payload.dto.SubscriptionDTO;
+import com.library.payload.dto.SubscriptionSummaryDTO;
 import com.library.payload.request.SubscribeRequest;
+import com.library.payload.request.SubscriptionSearchRequest;
 import com.library.payload.response.ApiResponse;
+import com.library.payload.response.CursorPageResponse;
 import com.library.payload.response.PaymentInitiateResponse;
+import com.library.payload.response.SubscriptionExpiryReport;
 import com.library.service.SubscriptionService;
 
 import jakarta.validation.Valid;
@@ -199,6 +203,9 @@ public class SubscriptionController {
     /**
      * Get all active subscriptions (Admin)
      * GET /api/subscriptions/admin/active?page=0&size=20
+     *
+     * Kept for the admin dashboard: active subscriptions only, newest first,
+     * at most 100 per page. /admin/search adds filters and keyset paging.
      */
     @GetMapping("/admin/active")
     @PreAuthorize("hasRole('ADMIN')")
@@ -211,6 +218,18 @@ public class SubscriptionController {
         return ResponseEntity.ok(subscriptions);
     }
 
+    /**
+     * Search subscriptions (Admin), active ones by default
+     * GET /api/subscriptions/admin/search?planId=&active=true&expiringBefore=2025-01-31&cursor=&size=20
+     */
+    @GetMapping("/admin/search")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> searchSubscriptions(SubscriptionSearchRequest searchRequest) {
+        CursorPageResponse<SubscriptionSummaryDTO> subscriptions = subscriptionService
+                .searchSubscriptions(searchRequest);
+        return ResponseEntity.ok(subscriptions);
+    }
+
     /**
      * Manually deactivate expired subscriptions (Admin/Scheduler)
      * POST /api/subscriptions/admin/deactivate-expired
@@ -220,10 +239,12 @@ public class SubscriptionController {
     public ResponseEntity<?> deactivateExpiredSubscriptions() {
         try {
             log.info("Admin triggered subscription expiry check");
-            subscriptionService.deactivateExpiredSubscriptions();
-            return ResponseEntity.ok(new ApiResponse(
-                    "Expired subscriptions deactivated successfully"
-                    ,false));
+            SubscriptionExpiryReport report = subscriptionService.deactivateExpiredSubscriptions();
+            if (report == null) {
+                return ResponseEntity.status(HttpStatus.CONFLICT)
+                    .body(new ApiResponse("Subscription expiry check is already running", false));
+            }
+            return ResponseEntity.ok(report);
         } catch (Exception e) {
             log.error("Failed to deactivate expired subscriptions", e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
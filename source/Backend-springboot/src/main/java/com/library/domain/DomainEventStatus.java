@@ -0,0 +1,31 @@
+package com.library.domain;
+
+/**
+ * Delivery state of a domain event in the events table
+ */
+public enum DomainEventStatus {
+    /**
+     * Written with the business change, waiting for dispatch
+     */
+    PENDING,
+
+    /**
+     * Claimed by the dispatcher
+     */
+    PROCESSING,
+
+    /**
+     * Delivered to every consumer
+     */
+    DISPATCHED,
+
+    /**
+     * A consumer failed; retried after a backoff
+     */
+    FAILED,
+
+    /**
+     * Out of attempts; needs a manual retry
+     */
+    DEAD
+}
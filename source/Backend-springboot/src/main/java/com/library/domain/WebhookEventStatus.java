@@ -0,0 +1,26 @@
+package com.library.domain;
+
+/**
+ * Processing state of a gateway webhook event in the inbox
+ */
+public enum WebhookEventStatus {
+    /**
+     * Stored and acknowledged, waiting for a worker
+     */
+    RECEIVED,
+
+    /**
+     * Claimed by a worker
+     */
+    PROCESSING,
+
+    /**
+     * Handled successfully
+     */
+    PROCESSED,
+
+    /**
+     * Handler failed; retried by the sweep until attempts run out
+     */
+    FAILED
+}
@@ -81,4 +81,13 @@ public class PaymentSuccessEvent {
 
     private Long planId;
 
+    /**
+     * User email for notifications
+     */
+    private String userEmail;
+
+    /**
+     * User name for notifications
+     */
+    private String userName;
 }
@@ -0,0 +1,455 @@
+package com.library.event.bus;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.library.domain.DomainEventStatus;
+import com.library.model.DomainEvent;
+import com.library.model.ProcessedEvent;
+import com.library.payload.response.EventBusMetricsResponse;
+import com.library.repository.DomainEventRepository;
+import com.library.repository.ProcessedEventRepository;
+import com.library.service.support.TransactionHooks;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Durable domain event bus on top of the events table (transactional outbox).
+ *
+ * publish() inserts the event in the caller's transaction, so the event exists
+ * if and only if the business change committed. A dispatcher thread, woken
+ * after each commit and on a poll interval, claims due events in ID order,
+ * groups them by aggregate and hands each group to a consumer pool. Events of
+ * one aggregate are delivered one after another; an aggregate with a failed
+ * event in backoff is held back until the retry succeeds or the event is
+ * declared dead.
+ *
+ * Delivery is at-least-once. Each consumer runs in its own transaction that
+ * also records (consumer, event) in processed_events, so a redelivered event
+ * is skipped by consumers that already handled it.
+ */
+@Component
+@Slf4j
+public class DomainEventBus {
+
+    private static final int MAX_ERROR_LENGTH = 2000;
+    private static final int PURGE_BATCH_SIZE = 1000;
+
+    private final DomainEventRepository domainEventRepository;
+    private final ProcessedEventRepository processedEventRepository;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate consumerTransaction;
+
+    private final int consumerParallelism;
+    private final int batchSize;
+    private final long pollIntervalMillis;
+    private final int maxAttempts;
+    private final long retryBaseSeconds;
+    private final long retryMaxSeconds;
+    private final long claimTimeoutMinutes;
+    private final long retentionDays;
+
+    private final Map<String, List<Registration>> registrationsByType = new ConcurrentHashMap<>();
+    private final Map<String, Class<?>> typesByName = new ConcurrentHashMap<>();
+    private final Semaphore wakeUp = new Semaphore(0);
+
+    private final AtomicLong dispatchedTotal = new AtomicLong();
+    private final AtomicLong failedAttemptsTotal = new AtomicLong();
+    private final AtomicLong deadTotal = new AtomicLong();
+    private volatile long lastBatchAvgLatencyMillis;
+    private volatile long lastBatchMaxLatencyMillis;
+
+    private volatile boolean running;
+    private ExecutorService consumerPool;
+    private Thread dispatcherThread;
+
+    public DomainEventBus(DomainEventRepository domainEventRepository,
+                          ProcessedEventRepository processedEventRepository,
+                          ObjectMapper objectMapper,
+                          PlatformTransactionManager transactionManager,
+                          @Value("${event.bus.consumer-parallelism:4}") int consumerParallelism,
+                          @Value("${event.bus.batch-size:200}") int batchSize,
+                          @Value("${event.bus.poll-interval-ms:1000}") long pollIntervalMillis,
+                          @Value("${event.bus.max-attempts:10}") int maxAttempts,
+                          @Value("${event.bus.retry-base-seconds:5}") long retryBaseSeconds,
+                          @Value("${event.bus.retry-max-seconds:3600}") long retryMaxSeconds,
+                          @Value("${event.bus.claim-timeout-minutes:5}") long claimTimeoutMinutes,
+                          @Value("${event.bus.retention-days:7}") long retentionDays) {
+        this.domainEventRepository = domainEventRepository;
+        this.processedEventRepository = processedEventRepository;
+        this.objectMapper = objectMapper;
+        this.consumerTransaction = new TransactionTemplate(transactionManager);
+        this.consumerParallelism = consumerParallelism;
+        this.batchSize = batchSize;
+        this.pollIntervalMillis = pollIntervalMillis;
+        this.maxAttempts = maxAttempts;
+        this.retryBaseSeconds = retryBaseSeconds;
+        this.retryMaxSeconds = retryMaxSeconds;
+        this.claimTimeoutMinutes = claimTimeoutMinutes;
+        this.retentionDays = retentionDays;
+    }
+
+    /**
+     * Register a consumer. Call during startup (e.g. from @PostConstruct).
+     * @param consumer Stable consumer name; used to remember what was handled
+     * @param eventType Event class to receive
+     * @param handler Handler, run in its own transaction
+     */
+    @SuppressWarnings("unchecked")
+    public <T> void subscribe(String consumer, Class<T> eventType, DomainEventHandler<T> handler) {
+        typesByName.put(eventType.getSimpleName(), eventType);
+        registrationsByType.computeIfAbsent(eventType.getSimpleName(), type -> new CopyOnWriteArrayList<>())
+                .add(new Registration(consumer, eventType.getSimpleName(), (DomainEventHandler<Object>) handler,
+                        new LongAdder(), new LongAdder()));
+        log.info("Registered event consumer {} for {}", consumer, eventType.getSimpleName());
+    }
+
+    /**
+     * Record an event in the current transaction (or its own, if none is active)
+     * @param aggregateType e.g. "Payment"
+     * @param aggregateId ID of the aggregate; events of one aggregate are delivered in order
+     * @param event Event payload, serialized as JSON
+     */
+    public void publish(String aggregateType, Object aggregateId, Object event) {
+        String payload;
+        try {
+            payload = objectMapper.writeValueAsString(event);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot serialize " + event.getClass().getSimpleName(), e);
+        }
+
+        domainEventRepository.save(DomainEvent.builder()
+                .eventType(event.getClass().getSimpleName())
+                .aggregateType(aggregateType)
+                .aggregateId(String.valueOf(aggregateId))
+                .payload(payload)
+                .status(DomainEventStatus.PENDING)
+                .attempts(0)
+                .createdAt(LocalDateTime.now())
+                .build());
+
+        TransactionHooks.afterCommit(wakeUp::release);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        AtomicInteger counter = new AtomicInteger();
+        consumerPool = Executors.newFixedThreadPool(consumerParallelism, runnable -> {
+            Thread thread = new Thread(runnable, "event-consumer-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        running = true;
+        dispatcherThread = new Thread(this::dispatchLoop, "event-dispatcher");
+        dispatcherThread.setDaemon(true);
+        dispatcherThread.start();
+        log.info("Domain event bus started with {} consumer thread(s)", consumerParallelism);
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        if (dispatcherThread != null) {
+            dispatcherThread.interrupt();
+        }
+        if (consumerPool != null) {
+            consumerPool.shutdown();
+        }
+    }
+
+    /**
+     * Put claims of a dispatcher that died mid-batch back in the queue.
+     * Runs every minute.
+     */
+    @Scheduled(fixedDelay = 60000)
+    public void releaseStaleClaims() {
+        int released = domainEventRepository.releaseStaleClaims(
+                LocalDateTime.now().minusMinutes(claimTimeoutMinutes));
+        if (released > 0) {
+            log.warn("Released {} domain event(s) stuck in processing", released);
+        }
+    }
+
+    /**
+     * Delete delivered events and their consumer markers after the retention period.
+     * Runs daily at 4:30 AM.
+     */
+    @Scheduled(cron = "0 30 4 * * ?")
+    public void purgeDelivered() {
+        LocalDateTime cutoff = LocalDateTime.now().minusDays(retentionDays);
+        long events = 0;
+        int deleted;
+        do {
+            deleted = domainEventRepository.deleteDispatchedBefore(cutoff, PURGE_BATCH_SIZE);
+            events += deleted;
+        } while (deleted == PURGE_BATCH_SIZE);
+
+        long markers = 0;
+        do {
+            deleted = processedEventRepository.deleteProcessedBefore(cutoff, PURGE_BATCH_SIZE);
+            markers += deleted;
+        } while (deleted == PURGE_BATCH_SIZE);
+
+        log.info("Purged {} delivered event(s) and {} consumer marker(s) older than {} day(s)",
+                events, markers, retentionDays);
+    }
+
+    /**
+     * Give a dead event a fresh set of attempts
+     * @return true if the event was dead and is queued again
+     */
+    public boolean requeue(Long eventId) {
+        boolean requeued = domainEventRepository.requeueDead(eventId) > 0;
+        if (requeued) {
+            wakeUp.release();
+        }
+        return requeued;
+    }
+
+    public EventBusMetricsResponse getMetrics() {
+        Map<DomainEventStatus, Long> counts = new LinkedHashMap<>();
+        for (DomainEventRepository.StatusCount count : domainEventRepository.countUndeliveredByStatus()) {
+            counts.put(count.getStatus(), count.getCount());
+        }
+
+        LocalDateTime oldest = domainEventRepository.findOldestUndeliveredCreatedAt();
+        long lagSeconds = oldest != null
+                ? Math.max(0, Duration.between(oldest, LocalDateTime.now()).getSeconds())
+                : 0;
+
+        Map<String, EventBusMetricsResponse.ConsumerStats> consumers = new LinkedHashMap<>();
+        registrationsByType.values().forEach(registrations -> registrations.forEach(registration ->
+                consumers.put(registration.consumer(), new EventBusMetricsResponse.ConsumerStats(
+                        registration.eventType(), registration.handled().sum(), registration.failures().sum()))));
+
+        return EventBusMetricsResponse.builder()
+                .pending(counts.getOrDefault(DomainEventStatus.PENDING, 0L))
+                .processing(counts.getOrDefault(DomainEventStatus.PROCESSING, 0L))
+                .failed(counts.getOrDefault(DomainEventStatus.FAILED, 0L))
+                .dead(counts.getOrDefault(DomainEventStatus.DEAD, 0L))
+                .lagSeconds(lagSeconds)
+                .lastBatchAvgLatencyMillis(lastBatchAvgLatencyMillis)
+                .lastBatchMaxLatencyMillis(lastBatchMaxLatencyMillis)
+                .dispatchedTotal(dispatchedTotal.get())
+                .failedAttemptsTotal(failedAttemptsTotal.get())
+                .deadTotal(deadTotal.get())
+                .consumers(consumers)
+                .build();
+    }
+
+    // ==================== HELPER METHODS ====================
+
+    private void dispatchLoop() {
+        while (running) {
+            try {
+                int dispatched = dispatchBatch();
+                if (dispatched < batchSize) {
+                    // Caught up: wait for a commit nudge or the poll interval
+                    wakeUp.tryAcquire(pollIntervalMillis, TimeUnit.MILLISECONDS);
+                    wakeUp.drainPermits();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                log.error("Domain event dispatch failed", e);
+                try {
+                    Thread.sleep(pollIntervalMillis);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Claim and deliver one batch
+     * @return Number of events claimed
+     */
+    private int dispatchBatch() throws InterruptedException {
+        LocalDateTime now = LocalDateTime.now();
+        Set<String> held = new HashSet<>();
+        for (DomainEventRepository.AggregateKey key : domainEventRepository.findAggregatesInBackoff(now)) {
+            held.add(key.getAggregateType() + ":" + key.getAggregateId());
+        }
+
+        List<Long> ids = new ArrayList<>();
+        for (DomainEvent event : domainEventRepository.findDue(now, PageRequest.of(0, batchSize))) {
+            if (!held.contains(aggregateKey(event))) {
+                ids.add(event.getId());
+            }
+        }
+        if (ids.isEmpty()) {
+            return 0;
+        }
+
+        String token = UUID.randomUUID().toString();
+        domainEventRepository.claim(ids, token, now);
+        List<DomainEvent> claimed = domainEventRepository.findClaimed(token);
+
+        Map<String, List<DomainEvent>> byAggregate = new LinkedHashMap<>();
+        for (DomainEvent event : claimed) {
+            byAggregate.computeIfAbsent(aggregateKey(event), key -> new ArrayList<>()).add(event);
+        }
+
+        List<Long> latencies = new CopyOnWriteArrayList<>();
+        List<Future<?>> groups = new ArrayList<>(byAggregate.size());
+        for (List<DomainEvent> group : byAggregate.values()) {
+            groups.add(consumerPool.submit(() -> deliverInOrder(group, latencies)));
+        }
+        for (Future<?> group : groups) {
+            try {
+                group.get();
+            } catch (ExecutionException e) {
+                log.error("Domain event consumer task failed", e.getCause());
+            }
+        }
+
+        if (!latencies.isEmpty()) {
+            lastBatchAvgLatencyMillis = (long) latencies.stream().mapToLong(Long::longValue).average().orElse(0);
+            lastBatchMaxLatencyMillis = latencies.stream().mapToLong(Long::longValue).max().orElse(0);
+        }
+        return claimed.size();
+    }
+
+    /**
+     * Deliver one aggregate's events in order, stopping at the first failure
+     */
+    private void deliverInOrder(List<DomainEvent> group, List<Long> latencies) {
+        for (int i = 0; i < group.size(); i++) {
+            if (!deliver(group.get(i), latencies)) {
+                List<Long> rest = group.subList(i + 1, group.size()).stream().map(DomainEvent::getId).toList();
+                if (!rest.isEmpty()) {
+                    domainEventRepository.release(rest);
+                }
+                return;
+            }
+        }
+    }
+
+    /**
+     * @return false if the event failed and later events of its aggregate must wait
+     */
+    private boolean deliver(DomainEvent event, List<Long> latencies) {
+        List<Registration> registrations = registrationsByType.getOrDefault(event.getEventType(), List.of());
+        Class<?> type = typesByName.get(event.getEventType());
+
+        String error = null;
+        if (type != null && !registrations.isEmpty()) {
+            try {
+                Object payload = objectMapper.readValue(event.getPayload(), type);
+                for (Registration registration : registrations) {
+                    String failure = deliverTo(registration, event.getId(), payload);
+                    if (failure != null) {
+                        error = error == null ? failure : error + "; " + failure;
+                    }
+                }
+            } catch (JsonProcessingException e) {
+                error = "Cannot read payload: " + e.getOriginalMessage();
+            }
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        if (error == null) {
+            domainEventRepository.markDispatched(event.getId(), now);
+            dispatchedTotal.incrementAndGet();
+            latencies.add(Duration.between(event.getCreatedAt(), now).toMillis());
+            return true;
+        }
+
+        failedAttemptsTotal.incrementAndGet();
+        String lastError = error.length() > MAX_ERROR_LENGTH ? error.substring(0, MAX_ERROR_LENGTH) : error;
+        int attempts = event.getAttempts() + 1;
+        if (attempts >= maxAttempts) {
+            // Stop holding back the aggregate; the event can be requeued by hand
+            domainEventRepository.markFailed(event.getId(), DomainEventStatus.DEAD, null, lastError);
+            deadTotal.incrementAndGet();
+            log.error("{} {} for {} {} is dead after {} attempt(s): {}", event.getEventType(), event.getId(),
+                    event.getAggregateType(), event.getAggregateId(), attempts, lastError);
+            return true;
+        }
+
+        long backoffSeconds = Math.min(retryMaxSeconds, retryBaseSeconds << Math.min(attempts - 1, 20));
+        domainEventRepository.markFailed(event.getId(), DomainEventStatus.FAILED,
+                now.plusSeconds(backoffSeconds), lastError);
+        log.warn("{} {} failed (attempt {}), retrying in {}s: {}", event.getEventType(), event.getId(),
+                attempts, backoffSeconds, lastError);
+        return false;
+    }
+
+    /**
+     * @return null on success (or already handled), otherwise the failure message
+     */
+    private String deliverTo(Registration registration, Long eventId, Object payload) {
+        if (processedEventRepository.existsByConsumerAndEventId(registration.consumer(), eventId)) {
+            return null;
+        }
+        try {
+            consumerTransaction.executeWithoutResult(tx -> {
+                try {
+                    registration.handler().handle(payload);
+                } catch (RuntimeException e) {
+                    throw e;
+                } catch (Exception e) {
+                    throw new HandlerException(e);
+                }
+                processedEventRepository.save(ProcessedEvent.builder()
+                        .consumer(registration.consumer())
+                        .eventId(eventId)
+                        .processedAt(LocalDateTime.now())
+                        .build());
+            });
+            registration.handled().increment();
+            return null;
+        } catch (Exception e) {
+            registration.failures().increment();
+            Throwable cause = e instanceof HandlerException ? e.getCause() : e;
+            log.warn("Event consumer {} failed on event {}", registration.consumer(), eventId, cause);
+            return registration.consumer() + ": " + cause.getMessage();
+        }
+    }
+
+    private static String aggregateKey(DomainEvent event) {
+        return event.getAggregateType() + ":" + event.getAggregateId();
+    }
+
+    private record Registration(String consumer, String eventType, DomainEventHandler<Object> handler,
+                                LongAdder handled, LongAdder failures) {
+    }
+
+    private static class HandlerException extends RuntimeException {
+        HandlerException(Exception cause) {
+            super(cause);
+        }
+    }
+}
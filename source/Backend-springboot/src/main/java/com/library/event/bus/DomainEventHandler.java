@@ -0,0 +1,12 @@
+package com.library.event.bus;
+
+/**
+ * Consumer callback for DomainEventBus. Runs in its own transaction; throw
+ * to have the event retried. Delivery is at-least-once, so handlers with
+ * side effects outside the database should tolerate a repeat.
+ */
+@FunctionalInterface
+public interface DomainEventHandler<T> {
+
+    void handle(T event) throws Exception;
+}
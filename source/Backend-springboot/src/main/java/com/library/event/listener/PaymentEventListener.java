@@ -2,9 +2,11 @@ package com.library.event.listener;
 
 import com.library.domain.PaymentType;
 import com.library.event.PaymentSuccessEvent;
+import com.library.event.bus.DomainEventBus;
 import com.library.exception.SubscriptionException;
 import com.library.service.FineService;
 import com.library.service.SubscriptionService;
+import jakarta.annotation.PostConstruct;
 import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -56,16 +58,20 @@ import org.springframework.stereotype.Component;
 public class PaymentEventListener {
 
     private final SubscriptionService subscriptionService;
+    private final DomainEventBus domainEventBus;
+
+    @PostConstruct
+    public void register() {
+        domainEventBus.subscribe("subscription-activation", PaymentSuccessEvent.class, this::handlePaymentSuccess);
+    }
 
-    @EventListener
-    @Transactional
     public void handlePaymentSuccess(PaymentSuccessEvent event) throws SubscriptionException {
 
         if (event.getPaymentType() != PaymentType.MEMBERSHIP) {
             return;
         }
 
-        if (event.getUserId() == null || event.getSubscriptionId() == null) {
+        if (event.getUserId() == null || event.getSubscriptionId() == null || event.getPlanId() == null) {
             return;
         }
 
@@ -78,4 +84,3 @@ public class PaymentEventListener {
         );
     }
 }
-
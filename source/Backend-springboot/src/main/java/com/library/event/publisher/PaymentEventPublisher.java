@@ -3,25 +3,28 @@ package com.library.event.publisher;
 import com.library.event.PaymentFailedEvent;
 import com.library.event.PaymentInitiatedEvent;
 import com.library.event.PaymentSuccessEvent;
+import com.library.event.bus.DomainEventBus;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Component;
 
 /**
  * Publisher for payment-related domain events.
- * Uses Spring's ApplicationEventPublisher to broadcast events to listeners.
+ * Events are recorded on the DomainEventBus in the caller's transaction and
+ * delivered to consumers after commit, in order per payment.
  */
 @Component
 @RequiredArgsConstructor
 @Slf4j
 public class PaymentEventPublisher {
 
-    private final ApplicationEventPublisher applicationEventPublisher;
+    private static final String AGGREGATE_TYPE = "Payment";
+
+    private final DomainEventBus domainEventBus;
 
     /**
      * Publish a payment initiated event.
-     * All registered listeners will receive this event asynchronously.
+     * Consumers receive it asynchronously once the transaction commits.
      *
      * @param event The payment initiated event to publish
      */
@@ -29,15 +32,15 @@ public class PaymentEventPublisher {
         log.info("Publishing PaymentInitiatedEvent for payment ID: {}, type: {}",
             event.getPaymentId(), event.getPaymentType());
 
-        applicationEventPublisher.publishEvent(event);
+        domainEventBus.publish(AGGREGATE_TYPE, event.getPaymentId(), event);
 
-        log.debug("PaymentInitiatedEvent published successfully for payment ID: {}",
+        log.debug("PaymentInitiatedEvent recorded for payment ID: {}",
             event.getPaymentId());
     }
 
     /**
      * Publish a payment success event.
-     * All registered listeners will receive this event asynchronously.
+     * Consumers receive it asynchronously once the transaction commits.
      *
      * @param event The payment success event to publish
      */
@@ -45,15 +48,15 @@ public class PaymentEventPublisher {
         log.info("Publishing PaymentSuccessEvent for payment ID: {}, type: {}",
             event.getPaymentId(), event.getPaymentType());
 
-        applicationEventPublisher.publishEvent(event);
+        domainEventBus.publish(AGGREGATE_TYPE, event.getPaymentId(), event);
 
-        log.debug("PaymentSuccessEvent published successfully for payment ID: {}",
+        log.debug("PaymentSuccessEvent recorded for payment ID: {}",
             event.getPaymentId());
     }
 
     /**
      * Publish a payment failed event.
-     * All registered listeners will receive this event asynchronously.
+     * Consumers receive it asynchronously once the transaction commits.
      *
      * @param event The payment failed event to publish
      */
@@ -61,9 +64,9 @@ public class PaymentEventPublisher {
         log.info("Publishing PaymentFailedEvent for payment ID: {}, type: {}, reason: {}",
             event.getPaymentId(), event.getPaymentType(), event.getFailureReason());
 
-        applicationEventPublisher.publishEvent(event);
+        domainEventBus.publish(AGGREGATE_TYPE, event.getPaymentId(), event);
 
-        log.debug("PaymentFailedEvent published successfully for payment ID: {}",
+        log.debug("PaymentFailedEvent recorded for payment ID: {}",
             event.getPaymentId());
     }
 }
@@ -24,6 +24,8 @@ public class NotificationSettingsMapper {
                 .marketingEmailsEnabled(settings.getMarketingEmailsEnabled())
                 .reservationNotificationsEnabled(settings.getReservationNotificationsEnabled())
                 .subscriptionNotificationsEnabled(settings.getSubscriptionNotificationsEnabled())
+                .digestEnabled(settings.getDigestEnabled())
+                .digestHour(settings.getDigestHour())
                 .updatedAt(settings.getUpdatedAt())
                 .build();
     }
@@ -5,6 +5,7 @@ import com.library.domain.BookLoanType;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotNull;
 import lombok.*;
+import org.hibernate.annotations.BatchSize;
 import org.hibernate.annotations.CreationTimestamp;
 import org.hibernate.annotations.UpdateTimestamp;
 
@@ -23,7 +24,8 @@ import java.util.List;
     @Index(name = "idx_book_id", columnList = "book_id"),
     @Index(name = "idx_status", columnList = "status"),
     @Index(name = "idx_due_date", columnList = "due_date"),
-    @Index(name = "idx_checkout_date", columnList = "checkout_date")
+    @Index(name = "idx_checkout_date", columnList = "checkout_date"),
+    @Index(name = "idx_status_due_date", columnList = "status, due_date")
 })
 @EqualsAndHashCode
 @NoArgsConstructor
@@ -75,7 +77,9 @@ public class BookLoan {
 
     // ==================== FINE TRACKING ====================
     // New approach: Separate Fine entities for better financial tracking
+    // Batch-loaded so jobs that sum fines over many loans don't issue one query per loan
     @OneToMany(mappedBy = "bookLoan", cascade = CascadeType.ALL, orphanRemoval = true, fetch = FetchType.LAZY)
+    @BatchSize(size = 100)
     private List<Fine> fines = new ArrayList<>();
 
 
@@ -0,0 +1,54 @@
+package com.library.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Running rating totals of a book's active reviews: one count per star,
+ * the rating sum, the verified-reader count and the total.
+ *
+ * Maintained by BookRatingAggregateService in the same transaction as the
+ * review change, and periodically recomputed from book_reviews.
+ */
+@Entity
+@Table(name = "book_rating_aggregates")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BookRatingAggregate {
+
+    @Id
+    @Column(name = "book_id")
+    private Long bookId;
+
+    @Column(name = "star1_count", nullable = false)
+    private Long star1Count;
+
+    @Column(name = "star2_count", nullable = false)
+    private Long star2Count;
+
+    @Column(name = "star3_count", nullable = false)
+    private Long star3Count;
+
+    @Column(name = "star4_count", nullable = false)
+    private Long star4Count;
+
+    @Column(name = "star5_count", nullable = false)
+    private Long star5Count;
+
+    @Column(name = "rating_sum", nullable = false)
+    private Long ratingSum;
+
+    @Column(name = "verified_count", nullable = false)
+    private Long verifiedCount;
+
+    @Column(name = "total_reviews", nullable = false)
+    private Long totalReviews;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+}
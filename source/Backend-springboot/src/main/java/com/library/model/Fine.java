@@ -21,6 +21,8 @@ import java.time.LocalDateTime;
     @Index(name = "idx_fine_user_id", columnList = "user_id"),
     @Index(name = "idx_fine_status", columnList = "status"),
     @Index(name = "idx_fine_type", columnList = "type")
+}, uniqueConstraints = {
+    @UniqueConstraint(name = "uk_fine_accrual_loan", columnNames = "accrual_loan_id")
 })
 @Getter
 @Setter
@@ -66,6 +68,22 @@ public class Fine {
     @Column(length = 1000)
     private String notes;
 
+    /**
+     * Set to the book loan ID on the OVERDUE fine maintained by the accrual
+     * engine (one per loan); null on manually created fines
+     */
+    @Column(name = "accrual_loan_id")
+    private Long accrualLoanId;
+
+    /**
+     * Net amount admins have added to (or taken off) the fine in bulk
+     * adjustments; the accrual engine adds it to the computed overdue fine
+     * so a nightly run does not undo the adjustment
+     */
+    @Column(nullable = false, columnDefinition = "BIGINT NOT NULL DEFAULT 0")
+    @Builder.Default
+    private Long adjustment = 0L;
+
     // Waiver tracking
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "waived_by_user_id")
@@ -0,0 +1,73 @@
+package com.library.model;
+
+import jakarta.persistence.*;
+import jakarta.validation.constraints.NotNull;
+import lombok.*;
+import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.UpdateTimestamp;
+
+import java.time.LocalDateTime;
+
+/**
+ * One fine rule. A null plan or genre matches any plan or genre; the most
+ * specific active rule wins (see FinePolicyTable). Amounts are in minor
+ * units, like Fine.amount.
+ */
+@Entity
+@Table(name = "fine_policies", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_fine_policy_plan_genre", columnNames = {"plan_id", "genre_id"})
+})
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class FinePolicy {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    // Subscription plan the rule applies to, null for any plan
+    @Column(name = "plan_id")
+    private Long planId;
+
+    // Genre the rule applies to (and its sub-genres), null for any genre
+    @Column(name = "genre_id")
+    private Long genreId;
+
+    @NotNull(message = "Fine per day is mandatory")
+    @Column(name = "fine_per_day", nullable = false)
+    private Long finePerDay;
+
+    @NotNull(message = "Maximum fine is mandatory")
+    @Column(name = "max_fine", nullable = false)
+    private Long maxFine;
+
+    @NotNull(message = "Grace period is mandatory")
+    @Column(name = "grace_period_days", nullable = false)
+    private Integer gracePeriodDays;
+
+    @NotNull(message = "Lost book penalty is mandatory")
+    @Column(name = "lost_book_penalty", nullable = false)
+    private Long lostBookPenalty;
+
+    @NotNull(message = "Damaged book penalty is mandatory")
+    @Column(name = "damaged_book_penalty", nullable = false)
+    private Long damagedBookPenalty;
+
+    @Column(nullable = false)
+    @Builder.Default
+    private Boolean active = true;
+
+    @Column(length = 500)
+    private String description;
+
+    @Column(nullable = false, updatable = false)
+    @CreationTimestamp
+    private LocalDateTime createdAt;
+
+    @Column(nullable = false)
+    @UpdateTimestamp
+    private LocalDateTime updatedAt;
+}
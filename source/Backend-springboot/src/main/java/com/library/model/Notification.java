@@ -12,7 +12,11 @@ import java.time.LocalDateTime;
 @Table(name = "notifications", indexes = {
         @Index(name = "idx_user_id", columnList = "user_id"),
         @Index(name = "idx_is_read", columnList = "is_read"),
-        @Index(name = "idx_created_at", columnList = "created_at")
+        @Index(name = "idx_created_at", columnList = "created_at"),
+        // Serves the per-user list, unread list/count and mark-all-read queries
+        @Index(name = "idx_user_read_created", columnList = "user_id, is_read, created_at"),
+        // Serves the retention job's per-type batched deletes
+        @Index(name = "idx_type_read_created", columnList = "type, is_read, created_at")
 })
 @Getter
 @Setter
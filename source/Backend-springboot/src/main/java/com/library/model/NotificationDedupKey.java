@@ -0,0 +1,54 @@
+package com.library.model;
+
+import com.library.domain.NotificationType;
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Record that a notification of a given type was already sent to a user for
+ * a related entity (e.g. a book loan) on a given day. The unique key is what
+ * makes overlapping scheduler jobs idempotent.
+ */
+@Entity
+@Table(name = "notification_dedup_keys",
+    uniqueConstraints = {
+        @UniqueConstraint(name = "uk_notification_dedup",
+            columnNames = {"user_id", "related_entity_id", "type", "notification_date"})
+    },
+    indexes = {
+        @Index(name = "idx_notification_dedup_date", columnList = "notification_date")
+    }
+)
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class NotificationDedupKey {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    // 0 when the notification is not tied to an entity
+    @Column(name = "related_entity_id", nullable = false)
+    private Long relatedEntityId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 50)
+    private NotificationType type;
+
+    @Column(name = "notification_date", nullable = false)
+    private LocalDate notificationDate;
+
+    @Column(name = "created_at", nullable = false, updatable = false)
+    @CreationTimestamp
+    private LocalDateTime createdAt;
+}
@@ -51,6 +51,15 @@ public class NotificationSettings {
     @Column(name = "subscription_notifications_enabled", nullable = false)
     private Boolean subscriptionNotificationsEnabled = true;
 
+    // Collect routine notifications and deliver them once a day
+    @Column(name = "digest_enabled", nullable = false)
+    @Builder.Default
+    private Boolean digestEnabled = false;
+
+    // Hour of day (0-23) the digest goes out; null means the configured default
+    @Column(name = "digest_hour")
+    private Integer digestHour;
+
     @Column(name = "created_at", nullable = false, updatable = false)
     @CreationTimestamp
     private LocalDateTime createdAt;
@@ -26,7 +26,8 @@ import java.time.LocalDateTime;
     @Index(name = "idx_payment_type", columnList = "payment_type"),
     @Index(name = "idx_gateway", columnList = "gateway"),
     @Index(name = "idx_transaction_id", columnList = "transaction_id"),
-    @Index(name = "idx_created_at", columnList = "created_at")
+    @Index(name = "idx_created_at", columnList = "created_at"),
+    @Index(name = "idx_gateway_payment_id", columnList = "gateway_payment_id")
 })
 @Data
 @NoArgsConstructor
@@ -87,7 +88,7 @@ public class Payment {
     private PaymentGateway gateway;
 
     /**
-     * Payment amount
+     * Payment amount in smallest currency unit (paise for INR, cents for USD)
      */
     @NotNull(message = "Amount is mandatory")
     @Positive(message = "Amount must be positive")
@@ -0,0 +1,40 @@
+package com.library.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Marks that a consumer has handled an event, so redelivered events are
+ * skipped. Written in the consumer's transaction.
+ */
+@Entity
+@Table(name = "processed_events",
+    uniqueConstraints = {
+        @UniqueConstraint(name = "uk_processed_consumer_event", columnNames = {"consumer", "event_id"})
+    },
+    indexes = {
+        @Index(name = "idx_processed_at", columnList = "processed_at")
+    }
+)
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ProcessedEvent {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false, length = 100)
+    private String consumer;
+
+    @Column(name = "event_id", nullable = false)
+    private Long eventId;
+
+    @Column(name = "processed_at", nullable = false)
+    private LocalDateTime processedAt;
+}
@@ -0,0 +1,57 @@
+package com.library.model;
+
+import com.library.domain.PaymentGateway;
+import com.library.domain.PaymentType;
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.UpdateTimestamp;
+
+import java.time.LocalDateTime;
+
+/**
+ * Running totals of successful payments per month, currency, payment type
+ * and gateway. Amounts are in minor units, like Payment.amount.
+ */
+@Entity
+@Table(name = "revenue_rollups", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_revenue_rollup",
+                columnNames = {"period_year", "period_month", "currency", "payment_type", "gateway"})
+})
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class RevenueRollup {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "period_year", nullable = false)
+    private Integer year;
+
+    @Column(name = "period_month", nullable = false)
+    private Integer month;
+
+    @Column(length = 3, nullable = false)
+    private String currency;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "payment_type", nullable = false, length = 30)
+    private PaymentType paymentType;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private PaymentGateway gateway;
+
+    @Column(name = "payment_count", nullable = false)
+    private Long paymentCount;
+
+    @Column(name = "total_amount", nullable = false)
+    private Long totalAmount;
+
+    @Column(name = "updated_at")
+    @UpdateTimestamp
+    private LocalDateTime updatedAt;
+}
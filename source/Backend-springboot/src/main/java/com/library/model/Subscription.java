@@ -20,7 +20,8 @@ import java.time.LocalDateTime;
     @Index(name = "idx_user_id", columnList = "user_id"),
     @Index(name = "idx_is_active", columnList = "is_active"),
     @Index(name = "idx_end_date", columnList = "end_date"),
-    @Index(name = "idx_plan_id", columnList = "plan_id")
+    @Index(name = "idx_plan_id", columnList = "plan_id"),
+    @Index(name = "idx_active_end_date", columnList = "is_active, end_date")
 })
 @Data
 @NoArgsConstructor
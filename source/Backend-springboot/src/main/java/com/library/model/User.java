@@ -64,6 +64,13 @@ public class User {
 
     private LocalDateTime lastLogin;
 
+    /**
+     * Bumped whenever the user's subscriptions change, so entitlement claims
+     * in previously issued tokens can be recognised as stale
+     */
+    @Column(name = "entitlement_version", nullable = false, columnDefinition = "BIGINT NOT NULL DEFAULT 0")
+    private Long entitlementVersion = 0L;
+
 
 
 }
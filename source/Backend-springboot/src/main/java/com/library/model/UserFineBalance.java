@@ -0,0 +1,38 @@
+package com.library.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Running outstanding fine balance per user, in minor units like
+ * Fine.amount. Covers PENDING and PARTIALLY_PAID fines only.
+ *
+ * Maintained by FineBalanceService in the same transaction as the fine
+ * change, and periodically reconciled against the fines table.
+ */
+@Entity
+@Table(name = "user_fine_balances")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class UserFineBalance {
+
+    @Id
+    @Column(name = "user_id")
+    private Long userId;
+
+    // Sum of (amount - amount_paid) over the user's unpaid fines
+    @Column(name = "outstanding_amount", nullable = false)
+    private Long outstandingAmount;
+
+    // Number of unpaid fines
+    @Column(name = "unpaid_count", nullable = false)
+    private Integer unpaidCount;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+}
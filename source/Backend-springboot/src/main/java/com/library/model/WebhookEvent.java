@@ -0,0 +1,73 @@
+package com.library.model;
+
+import com.library.domain.PaymentGateway;
+import com.library.domain.WebhookEventStatus;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Raw webhook payload received from a payment gateway. The unique key on
+ * (gateway, event_id) drops gateway retries at insert time.
+ */
+@Entity
+@Table(name = "webhook_events",
+    uniqueConstraints = {
+        @UniqueConstraint(name = "uk_webhook_gateway_event", columnNames = {"gateway", "event_id"})
+    },
+    indexes = {
+        @Index(name = "idx_webhook_status_received", columnList = "status, received_at")
+    }
+)
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class WebhookEvent {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private PaymentGateway gateway;
+
+    @Column(name = "event_id", nullable = false)
+    private String eventId;
+
+    @Column(name = "event_type", length = 100)
+    private String eventType;
+
+    // Events with the same key (usually the payment) are processed in order
+    @Column(name = "ordering_key")
+    private String orderingKey;
+
+    @Column(columnDefinition = "MEDIUMTEXT", nullable = false)
+    private String payload;
+
+    // Signature header, kept so the stored payload can be re-verified before processing
+    @Column(length = 1024)
+    private String signature;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private WebhookEventStatus status;
+
+    @Column(nullable = false)
+    private Integer attempts;
+
+    @Column(name = "last_error", columnDefinition = "TEXT")
+    private String lastError;
+
+    @Column(name = "received_at", nullable = false)
+    private LocalDateTime receivedAt;
+
+    @Column(name = "claimed_at")
+    private LocalDateTime claimedAt;
+
+    @Column(name = "processed_at")
+    private LocalDateTime processedAt;
+}
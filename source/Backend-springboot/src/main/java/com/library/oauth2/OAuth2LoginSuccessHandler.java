@@ -1,11 +1,12 @@
 package com.library.oauth2;
 
-import com.library.configurations.JwtProvider;
 import com.library.model.User;
+import com.library.service.AuthService;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Lazy;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.web.authentication.SimpleUrlAuthenticationSuccessHandler;
@@ -18,8 +19,10 @@ import java.util.Collections;
 @Component
 public class OAuth2LoginSuccessHandler extends SimpleUrlAuthenticationSuccessHandler {
 
+    // Lazy: AuthService needs the PasswordEncoder from SecurityConfig, which needs this handler
     @Autowired
-    private JwtProvider jwtProvider;
+    @Lazy
+    private AuthService authService;
 
     @Override
     public void onAuthenticationSuccess(HttpServletRequest request, HttpServletResponse response,
@@ -37,7 +40,7 @@ public class OAuth2LoginSuccessHandler extends SimpleUrlAuthenticationSuccessHan
             );
 
         // Generate JWT token
-        String token = jwtProvider.generateToken(auth);
+        String token = authService.issueToken(auth, user);
 
         // Redirect to frontend with token
         String targetUrl = determineTargetUrl(token, user);
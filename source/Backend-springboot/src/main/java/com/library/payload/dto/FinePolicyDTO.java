@@ -0,0 +1,56 @@
+package com.library.payload.dto;
+
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.PositiveOrZero;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Data Transfer Object for FinePolicy entity. Amounts are in minor units.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class FinePolicyDTO {
+
+    private Long id;
+
+    // Null applies the rule to any plan
+    private Long planId;
+
+    // Null applies the rule to any genre; a genre rule also covers its sub-genres
+    private Long genreId;
+
+    @NotNull(message = "Fine per day is mandatory")
+    @PositiveOrZero(message = "Fine per day cannot be negative")
+    private Long finePerDay;
+
+    @NotNull(message = "Maximum fine is mandatory")
+    @PositiveOrZero(message = "Maximum fine cannot be negative")
+    private Long maxFine;
+
+    @NotNull(message = "Grace period is mandatory")
+    @PositiveOrZero(message = "Grace period cannot be negative")
+    private Integer gracePeriodDays;
+
+    @NotNull(message = "Lost book penalty is mandatory")
+    @PositiveOrZero(message = "Lost book penalty cannot be negative")
+    private Long lostBookPenalty;
+
+    @NotNull(message = "Damaged book penalty is mandatory")
+    @PositiveOrZero(message = "Damaged book penalty cannot be negative")
+    private Long damagedBookPenalty;
+
+    private Boolean active;
+
+    private String description;
+
+    private LocalDateTime createdAt;
+
+    private LocalDateTime updatedAt;
+}
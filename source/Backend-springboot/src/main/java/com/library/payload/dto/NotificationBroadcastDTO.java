@@ -0,0 +1,28 @@
+package com.library.payload.dto;
+
+import com.library.domain.NotificationType;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class NotificationBroadcastDTO {
+    private String id;
+    private NotificationType type;
+    private String title;
+    private String status; // RUNNING, COMPLETED, FAILED
+    private long recipientsProcessed;
+    private long notificationsCreated;
+    private long digestItemsQueued;
+    private long emailsQueued;
+    private long pushTokensTargeted;
+    private LocalDateTime startedAt;
+    private LocalDateTime finishedAt;
+    private String error;
+}
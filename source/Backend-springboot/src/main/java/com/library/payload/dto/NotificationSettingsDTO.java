@@ -23,5 +23,7 @@ public class NotificationSettingsDTO {
     private Boolean marketingEmailsEnabled;
     private Boolean reservationNotificationsEnabled;
     private Boolean subscriptionNotificationsEnabled;
+    private Boolean digestEnabled;
+    private Integer digestHour;
     private LocalDateTime updatedAt;
 }
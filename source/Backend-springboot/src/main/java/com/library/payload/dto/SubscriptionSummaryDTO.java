@@ -0,0 +1,31 @@
+package com.library.payload.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+/**
+ * Compact subscription row for admin listings, built directly by a JPQL
+ * projection (argument order matches the query)
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SubscriptionSummaryDTO {
+
+    private Long id;
+    private Long userId;
+    private String userName;
+    private String userEmail;
+    private Long planId;
+    private String planName;
+    private String planCode;
+    private Long price;
+    private String currency;
+    private LocalDate startDate;
+    private LocalDate endDate;
+    private Boolean isActive;
+    private Boolean autoRenew;
+}
@@ -0,0 +1,29 @@
+package com.library.payload.request;
+
+import com.library.domain.NotificationType;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BroadcastNotificationRequest {
+
+    // NEW_ARRIVAL or RECOMMENDATION
+    @NotNull(message = "Notification type is required")
+    private NotificationType type;
+
+    @NotBlank(message = "Title is required")
+    private String title;
+
+    @NotBlank(message = "Message is required")
+    private String message;
+
+    // e.g. the new book or import batch
+    private Long relatedEntityId;
+}
@@ -0,0 +1,60 @@
+package com.library.payload.request;
+
+import com.library.domain.FineType;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Request DTO for bulk fine operations (admin only)
+ *
+ * Selects unpaid (PENDING or PARTIALLY_PAID) fines by ID list and/or
+ * filter; all given criteria must match. At least one criterion is
+ * required so a request can never touch every fine by accident.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkFineRequest {
+
+    private List<Long> fineIds;
+    private List<Long> userIds;
+    private FineType type;
+
+    /**
+     * Only fines created on or after this date
+     */
+    private LocalDate createdFrom;
+
+    /**
+     * Only fines created on or before this date
+     */
+    private LocalDate createdTo;
+
+    /**
+     * Waiver reason (waive) or note (adjust)
+     */
+    private String reason;
+
+    /**
+     * Signed change to each fine's amount in minor units (adjust). An amount
+     * is never lowered below what has already been paid.
+     */
+    private Long amountDelta;
+
+    /**
+     * Reference recorded on every fine (payment application)
+     */
+    private String transactionId;
+
+    public boolean hasCriteria() {
+        return (fineIds != null && !fineIds.isEmpty())
+                || (userIds != null && !userIds.isEmpty())
+                || type != null
+                || createdFrom != null
+                || createdTo != null;
+    }
+}
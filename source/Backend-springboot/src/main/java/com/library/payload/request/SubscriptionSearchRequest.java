@@ -0,0 +1,35 @@
+package com.library.payload.request;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+
+import java.time.LocalDate;
+
+/**
+ * Request DTO for listing subscriptions (Admin)
+ *
+ * Results are ordered newest first and paged by keyset: pass the
+ * nextCursor of the previous page as cursor to get the next one.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SubscriptionSearchRequest {
+
+    private Long planId;
+    private Boolean active = true;
+
+    /**
+     * Only subscriptions ending before this date
+     */
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    private LocalDate expiringBefore;
+
+    /**
+     * Subscription ID to continue after (exclusive)
+     */
+    private Long cursor;
+    private Integer size = 20;
+}
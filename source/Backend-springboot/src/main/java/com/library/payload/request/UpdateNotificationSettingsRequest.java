@@ -19,4 +19,6 @@ public class UpdateNotificationSettingsRequest {
     private Boolean marketingEmailsEnabled;
     private Boolean reservationNotificationsEnabled;
     private Boolean subscriptionNotificationsEnabled;
+    private Boolean digestEnabled;
+    private Integer digestHour;
 }
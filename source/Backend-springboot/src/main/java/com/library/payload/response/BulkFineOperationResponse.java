@@ -0,0 +1,26 @@
+package com.library.payload.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Summary of one bulk fine operation
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BulkFineOperationResponse {
+
+    // WAIVE, ADJUST or PAY
+    private String operation;
+    private int finesUpdated;
+    private int usersAffected;
+    // Change to the affected users' outstanding balances, in minor units
+    private long outstandingChange;
+    // Fines that matched but were left as they were (e.g. adjust to the same amount)
+    private int finesUnchanged;
+    private long durationMillis;
+}
@@ -0,0 +1,25 @@
+package com.library.payload.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Keyset-paginated response wrapper
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CursorPageResponse<T> {
+
+    private List<T> content;
+    private int pageSize;
+    private boolean hasMore;
+
+    /**
+     * Cursor for the next page, null on the last page
+     */
+    private Long nextCursor;
+}
@@ -0,0 +1,45 @@
+package com.library.payload.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+
+/**
+ * Backlog and lag of the domain event bus
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class EventBusMetricsResponse {
+
+    private long pending;
+    private long processing;
+    private long failed;
+    private long dead;
+
+    // Age of the oldest undelivered event; 0 when caught up
+    private long lagSeconds;
+
+    // Commit-to-delivery latency of the last batch
+    private long lastBatchAvgLatencyMillis;
+    private long lastBatchMaxLatencyMillis;
+
+    private long dispatchedTotal;
+    private long failedAttemptsTotal;
+    private long deadTotal;
+
+    private Map<String, ConsumerStats> consumers;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class ConsumerStats {
+        private String eventType;
+        private long handled;
+        private long failures;
+    }
+}
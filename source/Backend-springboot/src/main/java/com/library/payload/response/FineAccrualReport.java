@@ -0,0 +1,28 @@
+package com.library.payload.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Outcome of one fine accrual run
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class FineAccrualReport {
+
+    private LocalDate accrualDate;
+    private LocalDateTime startedAt;
+    private LocalDateTime finishedAt;
+    private long durationMillis;
+    private int scanned;
+    private int markedOverdue;
+    private int finesUpserted;
+    private long totalAccruedMinor;
+}
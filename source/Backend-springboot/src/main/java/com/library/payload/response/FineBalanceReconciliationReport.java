@@ -0,0 +1,26 @@
+package com.library.payload.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Outcome of one fine balance reconciliation run
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class FineBalanceReconciliationReport {
+
+    private LocalDateTime startedAt;
+    private LocalDateTime finishedAt;
+    private long durationMillis;
+    private int usersScanned;
+    private int balancesCorrected;
+    // Sum of absolute differences between stored and recomputed balances
+    private long driftMinor;
+}
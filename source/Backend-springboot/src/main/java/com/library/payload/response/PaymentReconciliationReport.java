@@ -0,0 +1,45 @@
+package com.library.payload.response;
+
+import com.library.domain.PaymentGateway;
+import com.library.domain.PaymentStatus;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Outcome of one payment reconciliation run
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class PaymentReconciliationReport {
+
+    private LocalDateTime startedAt;
+    private LocalDateTime finishedAt;
+    private int scanned;
+    private int succeeded;
+    private int failed;
+    private int cancelled;
+    private int stillOpen;
+    private int lookupErrors;
+    private int mismatchCount;
+    private List<Mismatch> mismatches; // capped; see mismatchCount for the total
+
+    /**
+     * A payment whose gateway state disagrees with ours and needs a human
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Mismatch {
+        private Long paymentId;
+        private PaymentGateway gateway;
+        private PaymentStatus localStatus;
+        private String detail;
+    }
+}
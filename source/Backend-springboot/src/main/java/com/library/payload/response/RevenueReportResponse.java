@@ -0,0 +1,48 @@
+package com.library.payload.response;
+
+import com.library.domain.PaymentGateway;
+import com.library.domain.PaymentType;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Revenue for a month, quarter or year, served from the revenue rollups.
+ * Amounts are in minor units (e.g. paise, cents).
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class RevenueReportResponse {
+
+    private String period; // MONTH, QUARTER, YEAR
+    private int year;
+    private Integer month;
+    private Integer quarter;
+    private List<CurrencyTotal> totals;
+    private List<BreakdownEntry> breakdown;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class CurrencyTotal {
+        private String currency;
+        private long paymentCount;
+        private long totalAmount;
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class BreakdownEntry {
+        private String currency;
+        private PaymentType paymentType;
+        private PaymentGateway gateway;
+        private long paymentCount;
+        private long totalAmount;
+    }
+}
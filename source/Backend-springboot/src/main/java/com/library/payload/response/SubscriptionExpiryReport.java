@@ -0,0 +1,29 @@
+package com.library.payload.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Outcome of one subscription expiry run
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class SubscriptionExpiryReport {
+
+    private LocalDate runDate;
+    private LocalDateTime startedAt;
+    private LocalDateTime finishedAt;
+    private long durationMillis;
+    private int scanned;
+    private int deactivated;
+    private int remindersQueued;
+    private int remindersSent;
+    private int reminderErrors;
+}
@@ -3,16 +3,20 @@ package com.library.repository;
 import com.library.domain.BookLoanStatus;
 import com.library.model.BookLoan;
 import com.library.model.User;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDate;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 /**
  * Repository interface for BookLoan entity.
@@ -137,4 +141,33 @@ SELECT bl FROM BookLoan bl WHERE bl.dueDate = :dueDate AND bl.status = :status
      * Find book loans by status and due date between
      */
     List<BookLoan> findByStatusAndDueDateBetween(BookLoanStatus status, LocalDate startDate, LocalDate endDate);
+
+    /**
+     * Lowest and highest loan ID matching a status and due date window,
+     * used to split notification jobs into ID-range partitions
+     */
+    @Query("SELECT MIN(bl.id) AS minId, MAX(bl.id) AS maxId FROM BookLoan bl " +
+           "WHERE bl.status = :status AND bl.dueDate BETWEEN :dueFrom AND :dueTo")
+    IdRange findIdRange(@Param("status") BookLoanStatus status,
+                        @Param("dueFrom") LocalDate dueFrom,
+                        @Param("dueTo") LocalDate dueTo);
+
+    /**
+     * Stream one ID-range partition with book and user fetch-joined.
+     * Must be consumed inside a transaction and closed afterwards.
+     */
+    @Query("SELECT bl FROM BookLoan bl JOIN FETCH bl.book JOIN FETCH bl.user " +
+           "WHERE bl.status = :status AND bl.dueDate BETWEEN :dueFrom AND :dueTo " +
+           "AND bl.id BETWEEN :fromId AND :toId ORDER BY bl.id")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    Stream<BookLoan> streamForNotifications(@Param("status") BookLoanStatus status,
+                                            @Param("dueFrom") LocalDate dueFrom,
+                                            @Param("dueTo") LocalDate dueTo,
+                                            @Param("fromId") Long fromId,
+                                            @Param("toId") Long toId);
+
+    interface IdRange {
+        Long getMinId();
+        Long getMaxId();
+    }
 }
@@ -0,0 +1,43 @@
+package com.library.repository;
+
+import com.library.model.BookRatingAggregate;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface BookRatingAggregateRepository extends JpaRepository<BookRatingAggregate, Long> {
+
+    // Add a change to the book's totals, creating the row if needed
+    @Modifying
+    @Query(value = "INSERT INTO book_rating_aggregates (book_id, star1_count, star2_count, star3_count, " +
+                   "star4_count, star5_count, rating_sum, verified_count, total_reviews, updated_at) " +
+                   "VALUES (:bookId, :star1, :star2, :star3, :star4, :star5, :ratingSum, :verified, :total, " +
+                   "CURRENT_TIMESTAMP) " +
+                   "ON DUPLICATE KEY UPDATE star1_count = star1_count + :star1, star2_count = star2_count + :star2, " +
+                   "star3_count = star3_count + :star3, star4_count = star4_count + :star4, " +
+                   "star5_count = star5_count + :star5, rating_sum = rating_sum + :ratingSum, " +
+                   "verified_count = verified_count + :verified, total_reviews = total_reviews + :total, " +
+                   "updated_at = CURRENT_TIMESTAMP",
+           nativeQuery = true)
+    int applyDelta(@Param("bookId") Long bookId,
+                   @Param("star1") int star1,
+                   @Param("star2") int star2,
+                   @Param("star3") int star3,
+                   @Param("star4") int star4,
+                   @Param("star5") int star5,
+                   @Param("ratingSum") long ratingSum,
+                   @Param("verified") int verified,
+                   @Param("total") int total);
+
+    /**
+     * Book title and its rating totals (null if the book has no reviews yet)
+     * in one read; empty if the book does not exist
+     */
+    @Query("SELECT b.title, a FROM Book b LEFT JOIN BookRatingAggregate a ON a.bookId = b.id WHERE b.id = :bookId")
+    List<Object[]> findTitleAndAggregate(@Param("bookId") Long bookId);
+}
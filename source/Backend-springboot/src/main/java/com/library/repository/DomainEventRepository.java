@@ -0,0 +1,108 @@
+package com.library.repository;
+
+import com.library.domain.DomainEventStatus;
+import com.library.model.DomainEvent;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface DomainEventRepository extends JpaRepository<DomainEvent, Long> {
+
+    // Events ready for delivery, in ID order. Aggregates with an event claimed by any
+    // dispatcher are skipped, so one aggregate is never delivered on two nodes at once
+    @Query("SELECT e FROM DomainEvent e WHERE (e.status = com.library.domain.DomainEventStatus.PENDING " +
+           "OR (e.status = com.library.domain.DomainEventStatus.FAILED AND e.nextAttemptAt <= :now)) " +
+           "AND NOT EXISTS (SELECT 1 FROM DomainEvent p WHERE p.aggregateType = e.aggregateType " +
+           "AND p.aggregateId = e.aggregateId AND p.status = com.library.domain.DomainEventStatus.PROCESSING) " +
+           "ORDER BY e.id")
+    List<DomainEvent> findDue(@Param("now") LocalDateTime now, Pageable pageable);
+
+    // Aggregates with a failed event still in backoff; their later events must wait
+    @Query("SELECT DISTINCT e.aggregateType AS aggregateType, e.aggregateId AS aggregateId FROM DomainEvent e " +
+           "WHERE e.status = com.library.domain.DomainEventStatus.FAILED AND e.nextAttemptAt > :now")
+    List<AggregateKey> findAggregatesInBackoff(@Param("now") LocalDateTime now);
+
+    // Claim a batch; rows another dispatcher claimed first are left out
+    @Transactional
+    @Modifying
+    @Query("UPDATE DomainEvent e SET e.status = com.library.domain.DomainEventStatus.PROCESSING, " +
+           "e.claimToken = :token, e.claimedAt = :now " +
+           "WHERE e.id IN :ids AND e.status IN (com.library.domain.DomainEventStatus.PENDING, " +
+           "com.library.domain.DomainEventStatus.FAILED)")
+    int claim(@Param("ids") Collection<Long> ids, @Param("token") String token, @Param("now") LocalDateTime now);
+
+    @Query("SELECT e FROM DomainEvent e WHERE e.claimToken = :token " +
+           "AND e.status = com.library.domain.DomainEventStatus.PROCESSING ORDER BY e.id")
+    List<DomainEvent> findClaimed(@Param("token") String token);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE DomainEvent e SET e.status = com.library.domain.DomainEventStatus.DISPATCHED, " +
+           "e.attempts = e.attempts + 1, e.dispatchedAt = :now, e.claimToken = null, e.lastError = null " +
+           "WHERE e.id = :id")
+    int markDispatched(@Param("id") Long id, @Param("now") LocalDateTime now);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE DomainEvent e SET e.status = :status, e.attempts = e.attempts + 1, " +
+           "e.nextAttemptAt = :nextAttemptAt, e.lastError = :error, e.claimToken = null WHERE e.id = :id")
+    int markFailed(@Param("id") Long id,
+                   @Param("status") DomainEventStatus status,
+                   @Param("nextAttemptAt") LocalDateTime nextAttemptAt,
+                   @Param("error") String error);
+
+    // Hand claimed events back without counting an attempt (an earlier event of the aggregate failed)
+    @Transactional
+    @Modifying
+    @Query("UPDATE DomainEvent e SET e.status = com.library.domain.DomainEventStatus.PENDING, e.claimToken = null " +
+           "WHERE e.id IN :ids AND e.status = com.library.domain.DomainEventStatus.PROCESSING")
+    int release(@Param("ids") Collection<Long> ids);
+
+    // Release claims held by a dispatcher that died mid-batch
+    @Transactional
+    @Modifying
+    @Query("UPDATE DomainEvent e SET e.status = com.library.domain.DomainEventStatus.PENDING, e.claimToken = null " +
+           "WHERE e.status = com.library.domain.DomainEventStatus.PROCESSING AND e.claimedAt < :claimedBefore")
+    int releaseStaleClaims(@Param("claimedBefore") LocalDateTime claimedBefore);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE DomainEvent e SET e.status = com.library.domain.DomainEventStatus.PENDING, " +
+           "e.attempts = 0, e.nextAttemptAt = null WHERE e.id = :id " +
+           "AND e.status = com.library.domain.DomainEventStatus.DEAD")
+    int requeueDead(@Param("id") Long id);
+
+    @Query("SELECT e.status AS status, COUNT(e) AS count FROM DomainEvent e " +
+           "WHERE e.status <> com.library.domain.DomainEventStatus.DISPATCHED GROUP BY e.status")
+    List<StatusCount> countUndeliveredByStatus();
+
+    @Query("SELECT MIN(e.createdAt) FROM DomainEvent e WHERE e.status IN " +
+           "(com.library.domain.DomainEventStatus.PENDING, com.library.domain.DomainEventStatus.PROCESSING, " +
+           "com.library.domain.DomainEventStatus.FAILED)")
+    LocalDateTime findOldestUndeliveredCreatedAt();
+
+    @Transactional
+    @Modifying
+    @Query(value = "DELETE FROM events WHERE status = 'DISPATCHED' AND dispatched_at < :cutoff LIMIT :batchSize",
+           nativeQuery = true)
+    int deleteDispatchedBefore(@Param("cutoff") LocalDateTime cutoff, @Param("batchSize") int batchSize);
+
+    interface AggregateKey {
+        String getAggregateType();
+        String getAggregateId();
+    }
+
+    interface StatusCount {
+        DomainEventStatus getStatus();
+        long getCount();
+    }
+}
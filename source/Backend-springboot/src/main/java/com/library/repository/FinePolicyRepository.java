@@ -0,0 +1,16 @@
+package com.library.repository;
+
+import com.library.model.FinePolicy;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface FinePolicyRepository extends JpaRepository<FinePolicy, Long> {
+
+    List<FinePolicy> findByActiveTrue();
+
+    // Null plan or genre IDs match the wildcard rule
+    boolean existsByPlanIdAndGenreId(Long planId, Long genreId);
+}
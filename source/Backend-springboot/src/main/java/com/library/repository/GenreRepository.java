@@ -70,4 +70,10 @@ public interface GenreRepository extends JpaRepository<Genre, Long> {
      */
     @Query("SELECT COUNT(b) FROM Book b WHERE b.genre.id = :genreId")
     long countBooksByGenre(@Param("genreId") Long genreId);
+
+    /**
+     * Genre hierarchy as (genre ID, parent genre ID or null) pairs
+     */
+    @Query("SELECT g.id, p.id FROM Genre g LEFT JOIN g.parentGenre p")
+    List<Object[]> findParentLinks();
 }
@@ -0,0 +1,30 @@
+package com.library.repository;
+
+import com.library.model.NotificationDedupKey;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+
+@Repository
+public interface NotificationDedupKeyRepository extends JpaRepository<NotificationDedupKey, Long> {
+
+    // Claim a key; returns 1 if inserted, 0 if it already existed (unique key hit)
+    @Modifying
+    @Query(value = "INSERT IGNORE INTO notification_dedup_keys " +
+                   "(user_id, related_entity_id, type, notification_date, created_at) " +
+                   "VALUES (:userId, :relatedEntityId, :type, :notificationDate, CURRENT_TIMESTAMP)",
+           nativeQuery = true)
+    int insertIfAbsent(@Param("userId") Long userId,
+                       @Param("relatedEntityId") Long relatedEntityId,
+                       @Param("type") String type,
+                       @Param("notificationDate") LocalDate notificationDate);
+
+    // Remove keys older than the given day
+    @Modifying
+    @Query("DELETE FROM NotificationDedupKey k WHERE k.notificationDate < :cutoff")
+    int deleteOlderThan(@Param("cutoff") LocalDate cutoff);
+}
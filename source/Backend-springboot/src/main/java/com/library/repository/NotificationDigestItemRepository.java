@@ -0,0 +1,29 @@
+package com.library.repository;
+
+import com.library.model.NotificationDigestItem;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface NotificationDigestItemRepository extends JpaRepository<NotificationDigestItem, Long> {
+
+    // Claim one user's pending items, oldest first. Rows locked by a flush on
+    // another node are skipped, so each item goes into exactly one digest
+    @Query(value = "SELECT * FROM notification_digest_items WHERE user_id = :userId " +
+                   "ORDER BY created_at ASC, id ASC FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<NotificationDigestItem> lockPendingByUserId(@Param("userId") Long userId);
+
+    // Users whose digest should go out now: their delivery hour has come, digest mode
+    // was switched off with items still pending, or an item missed an earlier flush
+    @Query("SELECT DISTINCT d.user.id FROM NotificationDigestItem d, NotificationSettings s " +
+           "WHERE s.user = d.user AND (COALESCE(s.digestHour, :defaultHour) = :hour " +
+           "OR s.digestEnabled = false OR d.createdAt < :staleBefore)")
+    List<Long> findUserIdsDueForFlush(@Param("hour") int hour,
+                                      @Param("defaultHour") int defaultHour,
+                                      @Param("staleBefore") LocalDateTime staleBefore);
+}
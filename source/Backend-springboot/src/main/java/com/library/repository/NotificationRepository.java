@@ -10,7 +10,9 @@ import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
@@ -44,4 +46,14 @@ public interface NotificationRepository extends JpaRepository<Notification, Long
 
     // Find notifications by related entity
     List<Notification> findByRelatedEntityIdAndType(Long relatedEntityId, NotificationType type);
+
+    // Retention: delete one bounded batch of expired rows (own transaction per batch)
+    @Transactional
+    @Modifying
+    @Query(value = "DELETE FROM notifications WHERE type = :type AND is_read = :isRead " +
+                   "AND created_at < :cutoff LIMIT :batchSize", nativeQuery = true)
+    int deleteExpiredBatch(@Param("type") String type,
+                           @Param("isRead") boolean isRead,
+                           @Param("cutoff") LocalDateTime cutoff,
+                           @Param("batchSize") int batchSize);
 }
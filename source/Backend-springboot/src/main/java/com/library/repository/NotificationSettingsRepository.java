@@ -5,6 +5,8 @@ import com.library.model.User;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -15,4 +17,7 @@ public interface NotificationSettingsRepository extends JpaRepository<Notificati
 
     // Check if settings exist for user
     boolean existsByUser(User user);
+
+    // Load settings for a chunk of users in one IN query (batch jobs)
+    List<NotificationSettings> findByUserIdIn(Collection<Long> userIds);
 }
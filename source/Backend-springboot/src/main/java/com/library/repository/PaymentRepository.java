@@ -1,11 +1,19 @@
 package com.library.repository;
 
+import com.library.domain.PaymentStatus;
 import com.library.model.Payment;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 /**
@@ -25,6 +33,65 @@ public interface PaymentRepository extends JpaRepository<Payment, Long> {
      */
     Page<Payment> findByUserIdAndActiveTrue(Long userId, Pageable pageable);
 
+    /**
+     * Move a payment from PENDING to PROCESSING once the gateway accepted it.
+     * A webhook may already have settled the payment, in which case nothing changes.
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE Payment p SET p.status = com.library.domain.PaymentStatus.PROCESSING, " +
+           "p.gatewayOrderId = COALESCE(:gatewayOrderId, p.gatewayOrderId), p.updatedAt = CURRENT_TIMESTAMP " +
+           "WHERE p.id = :id AND p.status = com.library.domain.PaymentStatus.PENDING")
+    int markProcessing(@Param("id") Long id, @Param("gatewayOrderId") String gatewayOrderId);
+
+    /**
+     * Fail a PENDING payment whose gateway call did not go through
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE Payment p SET p.status = com.library.domain.PaymentStatus.FAILED, " +
+           "p.failureReason = :reason, p.updatedAt = CURRENT_TIMESTAMP " +
+           "WHERE p.id = :id AND p.status = com.library.domain.PaymentStatus.PENDING")
+    int markInitiationFailed(@Param("id") Long id, @Param("reason") String reason);
+
+    boolean existsByGatewayPaymentId(String gatewayPaymentId);
+
+    /**
+     * Next chunk of non-terminal payments created before a cutoff, in ID order (keyset)
+     */
+    @Query("SELECT p FROM Payment p JOIN FETCH p.user " +
+           "WHERE p.status IN :statuses AND p.createdAt < :createdBefore AND p.id > :afterId " +
+           "ORDER BY p.id")
+    List<Payment> findStaleForReconciliation(@Param("statuses") Collection<PaymentStatus> statuses,
+                                             @Param("createdBefore") LocalDateTime createdBefore,
+                                             @Param("afterId") Long afterId,
+                                             Pageable pageable);
+
+    /**
+     * Settle a still-open payment as paid; returns 0 if it was settled meanwhile
+     */
+    @Modifying
+    @Query("UPDATE Payment p SET p.status = com.library.domain.PaymentStatus.SUCCESS, " +
+           "p.gatewayPaymentId = COALESCE(:gatewayPaymentId, p.gatewayPaymentId), " +
+           "p.paymentMethod = COALESCE(:paymentMethod, p.paymentMethod), " +
+           "p.completedAt = :completedAt, p.updatedAt = CURRENT_TIMESTAMP " +
+           "WHERE p.id = :id AND p.status IN (com.library.domain.PaymentStatus.PENDING, " +
+           "com.library.domain.PaymentStatus.PROCESSING)")
+    int markSucceededIfOpen(@Param("id") Long id,
+                            @Param("gatewayPaymentId") String gatewayPaymentId,
+                            @Param("paymentMethod") String paymentMethod,
+                            @Param("completedAt") LocalDateTime completedAt);
+
+    /**
+     * Close a still-open payment as FAILED or CANCELLED; returns 0 if it was settled meanwhile
+     */
+    @Modifying
+    @Query("UPDATE Payment p SET p.status = :status, p.failureReason = :reason, p.updatedAt = CURRENT_TIMESTAMP " +
+           "WHERE p.id = :id AND p.status IN (com.library.domain.PaymentStatus.PENDING, " +
+           "com.library.domain.PaymentStatus.PROCESSING)")
+    int markClosedIfOpen(@Param("id") Long id,
+                         @Param("status") PaymentStatus status,
+                         @Param("reason") String reason);
 
 
 
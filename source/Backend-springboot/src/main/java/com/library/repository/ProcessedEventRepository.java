@@ -0,0 +1,23 @@
+package com.library.repository;
+
+import com.library.model.ProcessedEvent;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+
+@Repository
+public interface ProcessedEventRepository extends JpaRepository<ProcessedEvent, Long> {
+
+    boolean existsByConsumerAndEventId(String consumer, Long eventId);
+
+    @Transactional
+    @Modifying
+    @Query(value = "DELETE FROM processed_events WHERE processed_at < :cutoff LIMIT :batchSize",
+           nativeQuery = true)
+    int deleteProcessedBefore(@Param("cutoff") LocalDateTime cutoff, @Param("batchSize") int batchSize);
+}
@@ -7,7 +7,9 @@ import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -17,6 +19,16 @@ public interface PushTokenRepository extends JpaRepository<PushToken, Long> {
     // Find all active tokens for a user
     List<PushToken> findByUserAndIsActiveTrue(User user);
 
+    // Active token values for a chunk of users (push fan-out)
+    @Query("SELECT p.token FROM PushToken p WHERE p.user.id IN :userIds AND p.isActive = true")
+    List<String> findActiveTokensByUserIdIn(@Param("userIds") Collection<Long> userIds);
+
+    // Deactivate tokens the push provider reported as invalid
+    @Transactional
+    @Modifying
+    @Query("UPDATE PushToken p SET p.isActive = false WHERE p.token IN :tokens AND p.isActive = true")
+    int deactivateByTokenIn(@Param("tokens") Collection<String> tokens);
+
     // Find token by value
     Optional<PushToken> findByToken(String token);
 
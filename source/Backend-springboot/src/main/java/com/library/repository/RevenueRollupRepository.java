@@ -0,0 +1,35 @@
+package com.library.repository;
+
+import com.library.model.RevenueRollup;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface RevenueRollupRepository extends JpaRepository<RevenueRollup, Long> {
+
+    // Add one successful payment to its bucket, creating the bucket if needed
+    @Modifying
+    @Query(value = "INSERT INTO revenue_rollups " +
+                   "(period_year, period_month, currency, payment_type, gateway, payment_count, total_amount, updated_at) " +
+                   "VALUES (:year, :month, :currency, :paymentType, :gateway, 1, :amount, CURRENT_TIMESTAMP) " +
+                   "ON DUPLICATE KEY UPDATE payment_count = payment_count + 1, " +
+                   "total_amount = total_amount + :amount, updated_at = CURRENT_TIMESTAMP",
+           nativeQuery = true)
+    int addPayment(@Param("year") int year,
+                   @Param("month") int month,
+                   @Param("currency") String currency,
+                   @Param("paymentType") String paymentType,
+                   @Param("gateway") String gateway,
+                   @Param("amount") long amount);
+
+    // Buckets for a range of months in one year
+    @Query("SELECT r FROM RevenueRollup r WHERE r.year = :year AND r.month BETWEEN :fromMonth AND :toMonth")
+    List<RevenueRollup> findByYearAndMonthRange(@Param("year") int year,
+                                                @Param("fromMonth") int fromMonth,
+                                                @Param("toMonth") int toMonth);
+}
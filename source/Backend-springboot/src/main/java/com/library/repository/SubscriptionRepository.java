@@ -1,15 +1,20 @@
 package com.library.repository;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import com.library.model.Subscription;
+import com.library.payload.dto.SubscriptionSummaryDTO;
 
 /**
  * Repository for Subscription entity
@@ -45,6 +50,36 @@ public interface SubscriptionRepository extends JpaRepository<Subscription, Long
 
     );
 
+    /**
+     * One page of active subscriptions, newest first, with user and plan
+     * fetched in the same query. Callers bound the page with the Pageable.
+     */
+    @Query("SELECT s FROM Subscription s JOIN FETCH s.user JOIN FETCH s.plan " +
+           "WHERE s.isActive = true ORDER BY s.id DESC")
+    List<Subscription> findActivePage(Pageable pageable);
+
+    /**
+     * Next keyset page of subscriptions for the admin listing, newest first.
+     * User and plan columns are joined into a projection; null filters are
+     * ignored. Callers bound the page with the Pageable.
+     */
+    @Query("SELECT new com.library.payload.dto.SubscriptionSummaryDTO(" +
+           "s.id, u.id, u.fullName, u.email, p.id, COALESCE(s.planName, p.name), " +
+           "COALESCE(s.planCode, p.planCode), s.price, s.currency, s.startDate, s.endDate, " +
+           "s.isActive, s.autoRenew) " +
+           "FROM Subscription s JOIN s.user u JOIN s.plan p " +
+           "WHERE (:planId IS NULL OR p.id = :planId) " +
+           "AND (:active IS NULL OR s.isActive = :active) " +
+           "AND (:expiringBefore IS NULL OR s.endDate < :expiringBefore) " +
+           "AND (:cursor IS NULL OR s.id < :cursor) " +
+           "ORDER BY s.id DESC")
+    List<SubscriptionSummaryDTO> findSummaryPage(
+        @Param("planId") Long planId,
+        @Param("active") Boolean active,
+        @Param("expiringBefore") LocalDate expiringBefore,
+        @Param("cursor") Long cursor,
+        Pageable pageable);
+
     /**
      * Find expired subscriptions that are still marked as active
      */
@@ -53,6 +88,36 @@ public interface SubscriptionRepository extends JpaRepository<Subscription, Long
     List<Subscription> findExpiredActiveSubscriptions(
        @Param("today") LocalDate today);
 
+    /**
+     * Next keyset chunk of active subscriptions ending on or before the
+     * horizon (expired ones and ones due for a renewal reminder), as
+     * projections so the expiry job does not hydrate entities
+     */
+    @Query("SELECT s.id AS id, s.user.id AS userId, s.endDate AS endDate, " +
+           "s.autoRenew AS autoRenew, COALESCE(s.planName, p.name) AS planName " +
+           "FROM Subscription s JOIN s.plan p " +
+           "WHERE s.isActive = true AND s.endDate <= :horizon AND s.id > :afterId " +
+           "ORDER BY s.id")
+    List<ExpiryCandidate> findExpiryCandidates(
+        @Param("horizon") LocalDate horizon,
+        @Param("afterId") Long afterId,
+        Pageable pageable);
+
+    /**
+     * Deactivate the given subscriptions if they are still active and expired
+     * @return Number of subscriptions deactivated
+     */
+    @Modifying
+    @Query("UPDATE Subscription s SET s.isActive = false, s.updatedAt = :now, " +
+           "s.notes = CONCAT(COALESCE(CONCAT(s.notes, :separator), ''), :note) " +
+           "WHERE s.id IN :ids AND s.isActive = true AND s.endDate < :today")
+    int deactivateExpired(
+        @Param("ids") Collection<Long> ids,
+        @Param("today") LocalDate today,
+        @Param("now") LocalDateTime now,
+        @Param("separator") String separator,
+        @Param("note") String note);
+
 
 
 
@@ -69,4 +134,19 @@ public interface SubscriptionRepository extends JpaRepository<Subscription, Long
         @Param("today") LocalDate today
     );
 
+    /**
+     * Plan IDs of the user's active subscriptions, latest ending first
+     * (used to pick the fine policy; pass a one-row page)
+     */
+    @Query("SELECT s.plan.id FROM Subscription s WHERE s.user.id = :userId AND s.isActive = true " +
+           "ORDER BY s.endDate DESC")
+    List<Long> findActivePlanIds(@Param("userId") Long userId, Pageable pageable);
+
+    interface ExpiryCandidate {
+        Long getId();
+        Long getUserId();
+        LocalDate getEndDate();
+        Boolean getAutoRenew();
+        String getPlanName();
+    }
 }
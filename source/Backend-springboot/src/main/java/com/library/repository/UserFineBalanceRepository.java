@@ -0,0 +1,23 @@
+package com.library.repository;
+
+import com.library.model.UserFineBalance;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface UserFineBalanceRepository extends JpaRepository<UserFineBalance, Long> {
+
+    // Add a change to the user's balance, creating the row if needed
+    @Modifying
+    @Query(value = "INSERT INTO user_fine_balances (user_id, outstanding_amount, unpaid_count, updated_at) " +
+                   "VALUES (:userId, :amountDelta, :countDelta, CURRENT_TIMESTAMP) " +
+                   "ON DUPLICATE KEY UPDATE outstanding_amount = outstanding_amount + :amountDelta, " +
+                   "unpaid_count = unpaid_count + :countDelta, updated_at = CURRENT_TIMESTAMP",
+           nativeQuery = true)
+    int applyDelta(@Param("userId") Long userId,
+                   @Param("amountDelta") long amountDelta,
+                   @Param("countDelta") int countDelta);
+}
@@ -4,11 +4,22 @@ package com.library.repository;
 import com.library.domain.UserRole;
 import com.library.model.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.Set;
 
 public interface UserRepository extends JpaRepository<User, Long> {
 
     User findByEmail(String email);
     Set<User> findByRole(UserRole role);
+
+    /**
+     * Invalidate entitlement claims issued to these users
+     */
+    @Modifying
+    @Query("UPDATE User u SET u.entitlementVersion = u.entitlementVersion + 1 WHERE u.id IN :userIds")
+    int bumpEntitlementVersion(@Param("userIds") Collection<Long> userIds);
 }
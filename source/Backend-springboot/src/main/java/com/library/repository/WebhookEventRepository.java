@@ -0,0 +1,76 @@
+package com.library.repository;
+
+import com.library.domain.PaymentGateway;
+import com.library.model.WebhookEvent;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface WebhookEventRepository extends JpaRepository<WebhookEvent, Long> {
+
+    // Store an event; returns 0 when the gateway already delivered it (unique key hit)
+    @Transactional
+    @Modifying
+    @Query(value = "INSERT IGNORE INTO webhook_events " +
+                   "(gateway, event_id, event_type, ordering_key, payload, signature, status, attempts, received_at) " +
+                   "VALUES (:gateway, :eventId, :eventType, :orderingKey, :payload, :signature, " +
+                   "'RECEIVED', 0, CURRENT_TIMESTAMP)",
+           nativeQuery = true)
+    int insertIfAbsent(@Param("gateway") String gateway,
+                       @Param("eventId") String eventId,
+                       @Param("eventType") String eventType,
+                       @Param("orderingKey") String orderingKey,
+                       @Param("payload") String payload,
+                       @Param("signature") String signature);
+
+    @Query("SELECT e.id FROM WebhookEvent e WHERE e.gateway = :gateway AND e.eventId = :eventId")
+    Optional<Long> findIdByGatewayAndEventId(@Param("gateway") PaymentGateway gateway,
+                                             @Param("eventId") String eventId);
+
+    // Claim an event for processing; only one worker can win
+    @Transactional
+    @Modifying
+    @Query("UPDATE WebhookEvent e SET e.status = com.library.domain.WebhookEventStatus.PROCESSING, " +
+           "e.attempts = e.attempts + 1, e.claimedAt = :now " +
+           "WHERE e.id = :id AND e.status IN (com.library.domain.WebhookEventStatus.RECEIVED, " +
+           "com.library.domain.WebhookEventStatus.FAILED)")
+    int claim(@Param("id") Long id, @Param("now") LocalDateTime now);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE WebhookEvent e SET e.status = com.library.domain.WebhookEventStatus.PROCESSED, " +
+           "e.processedAt = :now, e.lastError = null WHERE e.id = :id")
+    int markProcessed(@Param("id") Long id, @Param("now") LocalDateTime now);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE WebhookEvent e SET e.status = com.library.domain.WebhookEventStatus.FAILED, " +
+           "e.lastError = :error WHERE e.id = :id")
+    int markFailed(@Param("id") Long id, @Param("error") String error);
+
+    // Release claims held by a worker that died mid-event
+    @Transactional
+    @Modifying
+    @Query("UPDATE WebhookEvent e SET e.status = com.library.domain.WebhookEventStatus.FAILED, " +
+           "e.lastError = 'Processing timed out' " +
+           "WHERE e.status = com.library.domain.WebhookEventStatus.PROCESSING AND e.claimedAt < :claimedBefore")
+    int releaseStaleClaims(@Param("claimedBefore") LocalDateTime claimedBefore);
+
+    // Events that were never dispatched or failed and still have attempts left, oldest first
+    @Query("SELECT e FROM WebhookEvent e WHERE " +
+           "(e.status = com.library.domain.WebhookEventStatus.RECEIVED AND e.receivedAt < :receivedBefore) " +
+           "OR (e.status = com.library.domain.WebhookEventStatus.FAILED AND e.attempts < :maxAttempts) " +
+           "ORDER BY e.id")
+    List<WebhookEvent> findPendingForRetry(@Param("receivedBefore") LocalDateTime receivedBefore,
+                                           @Param("maxAttempts") int maxAttempts,
+                                           Pageable pageable);
+}
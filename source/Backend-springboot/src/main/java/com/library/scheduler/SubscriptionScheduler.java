@@ -1,5 +1,6 @@
 package com.library.scheduler;
 
+import com.library.payload.response.SubscriptionExpiryReport;
 import com.library.service.SubscriptionService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -18,16 +19,19 @@ public class SubscriptionScheduler {
     private final SubscriptionService subscriptionService;
 
     /**
-     * Deactivate expired subscriptions daily at 2 AM
+     * Deactivate expired subscriptions and send renewal reminders daily at 2 AM
      * Cron expression: "0 0 2 * * ?" = Every day at 2:00 AM
      */
-    @Scheduled(cron = "0 0 2 * * ?")
+    @Scheduled(cron = "${subscription.expiry.cron:0 0 2 * * ?}")
     public void deactivateExpiredSubscriptions() {
         log.info("Starting scheduled subscription expiry check...");
 
         try {
-            subscriptionService.deactivateExpiredSubscriptions();
-            log.info("Scheduled subscription expiry check completed successfully");
+            SubscriptionExpiryReport report = subscriptionService.deactivateExpiredSubscriptions();
+            if (report != null) {
+                log.info("Scheduled subscription expiry check completed: {} deactivated, {} reminder(s) sent in {} ms",
+                        report.getDeactivated(), report.getRemindersSent(), report.getDurationMillis());
+            }
         } catch (Exception e) {
             log.error("Error during scheduled subscription expiry check", e);
         }
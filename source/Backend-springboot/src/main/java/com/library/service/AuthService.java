@@ -1,8 +1,10 @@
 package com.library.service;
 
 import com.library.exception.UserException;
+import com.library.model.User;
 import com.library.payload.dto.UserDTO;
 import com.library.payload.response.AuthResponse;
+import org.springframework.security.core.Authentication;
 
 
 
@@ -10,6 +12,20 @@ public interface AuthService {
     AuthResponse login(String username, String password) throws UserException;
     AuthResponse signup(UserDTO req) throws UserException;
 
+    /**
+     * Re-issue the caller's token with a fresh entitlement claim
+     * (after subscribing, cancelling or once the claim has expired).
+     * The new token keeps the expiry of the current one, so refreshing
+     * does not extend the session; the user signs in again after 24h.
+     * @param jwt The current token ("Bearer ...")
+     */
+    AuthResponse refreshToken(String jwt) throws UserException;
+
+    /**
+     * Issue a token for an authenticated user, with their entitlement claim
+     */
+    String issueToken(Authentication authentication, User user);
+
     void createPasswordResetToken(String email) throws UserException;
     void resetPassword(String token, String newPassword);
 }
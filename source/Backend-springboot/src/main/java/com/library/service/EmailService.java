@@ -1,7 +1,10 @@
 package com.library.service;
 
+import com.library.model.NotificationDigestItem;
 import com.library.payload.EmailNotificationDTO;
 
+import java.util.List;
+
 /**
  * Service interface for sending email notifications
  */
@@ -60,4 +63,50 @@ public interface EmailService {
      */
     void sendReservationAvailableNotification(String recipient, String userName, String bookTitle,
                                              String availableUntil, int holdPeriodHours);
+
+    /**
+     * Send payment initiated email with the checkout link
+     * @param recipient User email
+     * @param userName User name
+     * @param paymentType Display name of the payment type
+     * @param amount Formatted amount
+     * @param checkoutUrl URL to complete the payment
+     * @param transactionId Transaction ID
+     */
+    void sendPaymentInitiatedEmail(String recipient, String userName, String paymentType,
+                                   String amount, String checkoutUrl, String transactionId);
+
+    /**
+     * Send payment success (receipt) email
+     * @param recipient User email
+     * @param userName User name
+     * @param paymentType Display name of the payment type
+     * @param amount Formatted amount
+     * @param transactionId Transaction ID
+     * @param completedAt Formatted completion time
+     */
+    void sendPaymentSuccessEmail(String recipient, String userName, String paymentType,
+                                 String amount, String transactionId, String completedAt);
+
+    /**
+     * Send payment failed email
+     * @param recipient User email
+     * @param userName User name
+     * @param paymentType Display name of the payment type
+     * @param amount Formatted amount
+     * @param failureReason Reason for failure
+     * @param transactionId Transaction ID
+     */
+    void sendPaymentFailedEmail(String recipient, String userName, String paymentType,
+                                String amount, String failureReason, String transactionId);
+
+    /**
+     * Send the daily digest email that bundles a user's held-back notifications
+     * @param recipient User email
+     * @param userName User name
+     * @param digestDate Formatted digest date
+     * @param items Notifications included in the digest, oldest first
+     */
+    void sendDailyDigestEmail(String recipient, String userName, String digestDate,
+                              List<NotificationDigestItem> items);
 }
@@ -6,8 +6,10 @@ import com.library.exception.FineException;
 import com.library.exception.BookLoanException;
 import com.library.exception.PaymentException;
 import com.library.payload.dto.FineDTO;
+import com.library.payload.request.BulkFineRequest;
 import com.library.payload.request.CreateFineRequest;
 import com.library.payload.request.WaiveFineRequest;
+import com.library.payload.response.BulkFineOperationResponse;
 import com.library.payload.response.PageResponse;
 import com.library.payload.response.PaymentInitiateResponse;
 
@@ -51,6 +53,33 @@ public interface FineService {
      */
     FineDTO waiveFine(WaiveFineRequest waiveRequest) throws FineException;
 
+    // ==================== BULK OPERATIONS ====================
+
+    /**
+     * Waive every unpaid fine matching the request (admin only)
+     * @param request Fine IDs and/or filter, plus the waiver reason
+     * @return Summary of the fines updated
+     * @throws FineException if the request has no criteria or no reason
+     */
+    BulkFineOperationResponse bulkWaiveFines(BulkFineRequest request) throws FineException;
+
+    /**
+     * Change the amount of every unpaid fine matching the request (admin only)
+     * @param request Fine IDs and/or filter, plus the signed amount delta
+     * @return Summary of the fines updated
+     * @throws FineException if the request has no criteria or no delta
+     */
+    BulkFineOperationResponse bulkAdjustFines(BulkFineRequest request) throws FineException;
+
+    /**
+     * Record full payment of every unpaid fine matching the request, e.g.
+     * payments collected offline (admin only)
+     * @param request Fine IDs and/or filter, plus an optional transaction reference
+     * @return Summary of the fines updated
+     * @throws FineException if the request has no criteria
+     */
+    BulkFineOperationResponse bulkPayFines(BulkFineRequest request) throws FineException;
+
     // ==================== QUERY OPERATIONS ====================
 
     /**
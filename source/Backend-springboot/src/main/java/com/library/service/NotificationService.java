@@ -102,7 +102,7 @@ public interface NotificationService {
      * @param message Notification message
      * @param type Notification type
      * @param relatedEntityId ID of related entity (optional)
-     * @return Created notification
+     * @return Created notification, or null if the type is disabled or held for the daily digest
      */
     Notification createNotification(User user, String title, String message,
                                    NotificationType type, Long relatedEntityId);
@@ -5,6 +5,9 @@ import com.library.model.User;
 import com.library.payload.dto.NotificationSettingsDTO;
 import com.library.payload.request.UpdateNotificationSettingsRequest;
 
+import java.util.Collection;
+import java.util.Map;
+
 /**
  * Service interface for managing notification settings
  */
@@ -24,6 +27,15 @@ public interface NotificationSettingsService {
      */
     NotificationSettings getOrCreateSettings(User user);
 
+    /**
+     * Load (or create) settings for a chunk of users with a single IN query
+     * and warm the settings cache with them. Intended for batch jobs that are
+     * about to create notifications for many users.
+     * @param users The users
+     * @return Settings keyed by user ID
+     */
+    Map<Long, NotificationSettings> preloadSettings(Collection<User> users);
+
     /**
      * Update notification settings for a user
      * @param user The user
@@ -4,8 +4,13 @@ import com.library.exception.PaymentException;
 import com.library.exception.SubscriptionException;
 import com.library.exception.UserException;
 import com.library.payload.dto.SubscriptionDTO;
+import com.library.payload.dto.SubscriptionSummaryDTO;
 import com.library.payload.request.SubscribeRequest;
+import com.library.payload.request.SubscriptionSearchRequest;
+import com.library.payload.response.CursorPageResponse;
 import com.library.payload.response.PaymentInitiateResponse;
+import com.library.payload.response.SubscriptionExpiryReport;
+import com.library.service.cache.SubscriptionEntitlement;
 import org.springframework.data.domain.Pageable;
 
 import java.util.List;
@@ -27,6 +32,11 @@ public interface SubscriptionService {
      */
     SubscriptionDTO getUsersActiveSubscription(Long userId) throws SubscriptionException, UserException;
 
+    /**
+     * Get the checkout limits of a user's active subscription (cached)
+     */
+    SubscriptionEntitlement getActiveEntitlement(Long userId) throws SubscriptionException;
+
     /**
      * Get all subscriptions for user
      */
@@ -53,14 +63,20 @@ public interface SubscriptionService {
     SubscriptionDTO activateSubscription(Long subscriptionId, Long paymentId) throws SubscriptionException;
 
     /**
-     * Get all active subscriptions (Admin)
+     * One page of active subscriptions, newest first (Admin)
      */
     List<SubscriptionDTO> getAllActiveSubscriptions(Pageable pageable);
 
     /**
-     * Deactivate expired subscriptions (Scheduler)
+     * List subscriptions by plan, status and end date, keyset-paged (Admin)
+     */
+    CursorPageResponse<SubscriptionSummaryDTO> searchSubscriptions(SubscriptionSearchRequest request);
+
+    /**
+     * Deactivate expired subscriptions and send renewal reminders (Scheduler)
+     * @return Run report, or null if a run is already in progress
      */
-    void deactivateExpiredSubscriptions();
+    SubscriptionExpiryReport deactivateExpiredSubscriptions();
 
     /**
      * Check if user has valid subscription
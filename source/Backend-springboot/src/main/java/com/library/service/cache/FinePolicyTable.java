@@ -0,0 +1,280 @@
+package com.library.service.cache;
+
+import com.library.model.FinePolicy;
+import com.library.repository.FinePolicyRepository;
+import com.library.repository.GenreRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Fine rules compiled into a plan x genre lookup table.
+ *
+ * Rules are loaded from fine_policies and resolved once per (plan, genre)
+ * cell, most specific first:
+ * plan + genre, plan + nearest ancestor genre, plan only,
+ * genre, nearest ancestor genre, any plan and genre,
+ * and finally the configured defaults (fine.policy.default.*).
+ *
+ * Only plans and genres that some rule can reach get their own row or
+ * column; everything else shares row/column 0, which resolves exactly as
+ * a plan or genre without rules would. The result is stored in flat
+ * primitive arrays, so evaluation is two binary searches and an array read
+ * with no allocation, which keeps the nightly accrual cheap.
+ *
+ * The compiled table is immutable and swapped atomically: at startup,
+ * after rule writes (FinePolicyService) and periodically to pick up writes
+ * made on other nodes.
+ */
+@Component
+@Slf4j
+public class FinePolicyTable {
+
+    private final FinePolicyRepository policyRepository;
+    private final GenreRepository genreRepository;
+    private final Rule defaults;
+    private final AtomicReference<Compiled> current = new AtomicReference<>();
+
+    public FinePolicyTable(FinePolicyRepository policyRepository,
+                           GenreRepository genreRepository,
+                           @Value("${fine.policy.default.fine-per-day:100}") long finePerDay,
+                           @Value("${fine.policy.default.max-fine:5000}") long maxFine,
+                           @Value("${fine.policy.default.grace-period-days:0}") int gracePeriodDays,
+                           @Value("${fine.policy.default.lost-book-penalty:10000}") long lostBookPenalty,
+                           @Value("${fine.policy.default.damaged-book-penalty:2500}") long damagedBookPenalty) {
+        this.policyRepository = policyRepository;
+        this.genreRepository = genreRepository;
+        this.defaults = new Rule(finePerDay, maxFine, gracePeriodDays, lostBookPenalty, damagedBookPenalty);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        reload();
+    }
+
+    /**
+     * Periodic reload, so rule changes on other nodes show up within the interval
+     */
+    @Scheduled(fixedDelayString = "${fine.policy.refresh-interval:PT5M}",
+            initialDelayString = "${fine.policy.refresh-interval:PT5M}")
+    public void scheduledReload() {
+        try {
+            reload();
+        } catch (Exception e) {
+            log.warn("Could not reload fine policies, keeping the current table", e);
+        }
+    }
+
+    /**
+     * Recompile the table from the database and swap it in. Reloads are
+     * serialized so an older table can never replace a newer one.
+     */
+    public synchronized void reload() {
+        List<FinePolicy> policies = policyRepository.findByActiveTrue();
+        Map<Long, Long> parents = new HashMap<>();
+        for (Object[] link : genreRepository.findParentLinks()) {
+            parents.put((Long) link[0], (Long) link[1]);
+        }
+        Compiled compiled = Compiled.of(policies, parents, defaults);
+        current.set(compiled);
+        log.info("Compiled {} fine policy rule(s) into a {}x{} table",
+                policies.size(), compiled.planIds.length + 1, compiled.genreIds.length + 1);
+    }
+
+    /**
+     * The current compiled table. Callers evaluating many loans should take
+     * it once, so a whole batch uses the same rules.
+     */
+    public Compiled current() {
+        Compiled compiled = current.get();
+        if (compiled == null) {
+            // A request arrived before the startup load
+            reload();
+            compiled = current.get();
+        }
+        return compiled;
+    }
+
+    private record Rule(long finePerDay, long maxFine, int gracePeriodDays,
+                        long lostBookPenalty, long damagedBookPenalty) {
+
+        static Rule of(FinePolicy policy) {
+            return new Rule(policy.getFinePerDay(), policy.getMaxFine(), policy.getGracePeriodDays(),
+                    policy.getLostBookPenalty(), policy.getDamagedBookPenalty());
+        }
+    }
+
+    /**
+     * Immutable compiled table. Plan and genre IDs of 0 (or any ID without
+     * rules) select the wildcard row/column. Amounts are in minor units.
+     */
+    public static final class Compiled {
+
+        private final long[] planIds;
+        private final long[] genreIds;
+        private final int columns;
+        private final long[] finePerDay;
+        private final long[] maxFine;
+        private final int[] gracePeriodDays;
+        private final long[] lostBookPenalty;
+        private final long[] damagedBookPenalty;
+
+        private Compiled(long[] planIds, long[] genreIds, Rule[] cells) {
+            this.planIds = planIds;
+            this.genreIds = genreIds;
+            this.columns = genreIds.length + 1;
+            this.finePerDay = new long[cells.length];
+            this.maxFine = new long[cells.length];
+            this.gracePeriodDays = new int[cells.length];
+            this.lostBookPenalty = new long[cells.length];
+            this.damagedBookPenalty = new long[cells.length];
+            for (int i = 0; i < cells.length; i++) {
+                finePerDay[i] = cells[i].finePerDay();
+                maxFine[i] = cells[i].maxFine();
+                gracePeriodDays[i] = cells[i].gracePeriodDays();
+                lostBookPenalty[i] = cells[i].lostBookPenalty();
+                damagedBookPenalty[i] = cells[i].damagedBookPenalty();
+            }
+        }
+
+        /**
+         * Overdue fine as of a date, after the grace period and capped at
+         * the maximum fine
+         * @return Fine in minor units, 0 if not (yet) finable
+         */
+        public long overdueFine(long planId, long genreId, LocalDate dueDate, LocalDate asOf) {
+            int cell = cell(planId, genreId);
+            long finableDays = ChronoUnit.DAYS.between(dueDate, asOf) - gracePeriodDays[cell];
+            if (finableDays <= 0) {
+                return 0;
+            }
+            long perDay = finePerDay[cell];
+            long cap = maxFine[cell];
+            if (perDay <= 0) {
+                return 0;
+            }
+            // Compare in days first so the multiplication cannot overflow
+            if (finableDays > cap / perDay) {
+                return cap;
+            }
+            return Math.min(finableDays * perDay, cap);
+        }
+
+        public long finePerDay(long planId, long genreId) {
+            return finePerDay[cell(planId, genreId)];
+        }
+
+        public long maxFine(long planId, long genreId) {
+            return maxFine[cell(planId, genreId)];
+        }
+
+        public int gracePeriodDays(long planId, long genreId) {
+            return gracePeriodDays[cell(planId, genreId)];
+        }
+
+        public long lostBookPenalty(long planId, long genreId) {
+            return lostBookPenalty[cell(planId, genreId)];
+        }
+
+        public long damagedBookPenalty(long planId, long genreId) {
+            return damagedBookPenalty[cell(planId, genreId)];
+        }
+
+        private int cell(long planId, long genreId) {
+            return index(planIds, planId) * columns + index(genreIds, genreId);
+        }
+
+        private static int index(long[] ids, long id) {
+            int i = Arrays.binarySearch(ids, id);
+            return i < 0 ? 0 : i + 1;
+        }
+
+        private static Compiled of(List<FinePolicy> policies, Map<Long, Long> parents, Rule defaults) {
+            Map<Long, Map<Long, Rule>> rules = new HashMap<>();
+            TreeSet<Long> rulePlans = new TreeSet<>();
+            TreeSet<Long> ruleGenres = new TreeSet<>();
+            for (FinePolicy policy : policies) {
+                long planId = policy.getPlanId() == null ? 0 : policy.getPlanId();
+                long genreId = policy.getGenreId() == null ? 0 : policy.getGenreId();
+                rules.computeIfAbsent(planId, p -> new HashMap<>()).put(genreId, Rule.of(policy));
+                if (planId != 0) {
+                    rulePlans.add(planId);
+                }
+                if (genreId != 0) {
+                    ruleGenres.add(genreId);
+                }
+            }
+
+            // A genre needs its own column when it or one of its ancestors has a rule
+            TreeSet<Long> columnGenres = new TreeSet<>();
+            Map<Long, List<Long>> chains = new HashMap<>();
+            for (Long genreId : parents.keySet()) {
+                List<Long> chain = ancestry(genreId, parents);
+                if (chain.stream().anyMatch(ruleGenres::contains)) {
+                    columnGenres.add(genreId);
+                    chains.put(genreId, chain);
+                }
+            }
+
+            long[] planIds = rulePlans.stream().mapToLong(Long::longValue).toArray();
+            long[] genreIds = columnGenres.stream().mapToLong(Long::longValue).toArray();
+            int columns = genreIds.length + 1;
+            Rule[] cells = new Rule[(planIds.length + 1) * columns];
+
+            for (int row = 0; row <= planIds.length; row++) {
+                long planId = row == 0 ? 0 : planIds[row - 1];
+                for (int col = 0; col < columns; col++) {
+                    List<Long> chain = col == 0 ? List.of() : chains.get(genreIds[col - 1]);
+                    cells[row * columns + col] = resolve(planId, chain, rules, defaults);
+                }
+            }
+            return new Compiled(planIds, genreIds, cells);
+        }
+
+        private static Rule resolve(long planId, List<Long> genreChain,
+                                    Map<Long, Map<Long, Rule>> rules, Rule defaults) {
+            long[] planCandidates = planId == 0 ? new long[]{0} : new long[]{planId, 0};
+            for (long candidate : planCandidates) {
+                Map<Long, Rule> byGenre = rules.get(candidate);
+                if (byGenre == null) {
+                    continue;
+                }
+                for (Long genreId : genreChain) {
+                    Rule rule = byGenre.get(genreId);
+                    if (rule != null) {
+                        return rule;
+                    }
+                }
+                Rule anyGenre = byGenre.get(0L);
+                if (anyGenre != null) {
+                    return anyGenre;
+                }
+            }
+            return defaults;
+        }
+
+        // The genre followed by its ancestors, nearest first
+        private static List<Long> ancestry(Long genreId, Map<Long, Long> parents) {
+            List<Long> chain = new ArrayList<>();
+            Long next = genreId;
+            while (next != null && !chain.contains(next)) {
+                chain.add(next);
+                next = parents.get(next);
+            }
+            return chain;
+        }
+    }
+}
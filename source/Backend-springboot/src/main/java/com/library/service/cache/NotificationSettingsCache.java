@@ -0,0 +1,116 @@
+package com.library.service.cache;
+
+import com.library.model.NotificationSettings;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * In-memory cache of notification settings keyed by user ID.
+ * Entries are detached entities and must be treated as read-only; writers go
+ * through NotificationSettingsService, which evicts the entry on update.
+ * Bounded by LRU eviction so long-running nodes do not hold every user's settings.
+ *
+ * Entries expire after a configurable TTL, so changes made on other nodes
+ * show up within that interval. Eviction leaves a marker stamped with a
+ * sequence number: a reader takes {@link #stamp()} before loading from the
+ * database, and its put is dropped if the user was evicted after that, so a
+ * load that raced an update cannot put the old row back.
+ */
+@Component
+@Slf4j
+public class NotificationSettingsCache {
+
+    private final Map<Long, Entry> entries;
+    private final long ttlMillis;
+    private long sequence;
+
+    public NotificationSettingsCache(
+            @Value("${notification.settings.cache.max-size:50000}") int maxSize,
+            @Value("${notification.settings.cache.ttl-seconds:300}") long ttlSeconds) {
+        this.ttlMillis = ttlSeconds * 1000;
+        this.entries = new LinkedHashMap<>(1024, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Entry> eldest) {
+                return size() > maxSize;
+            }
+        };
+    }
+
+    /**
+     * @return Cached settings, or null on a miss, an expired entry or an eviction marker
+     */
+    public synchronized NotificationSettings get(Long userId) {
+        Entry entry = entries.get(userId);
+        if (entry == null || entry.settings == null) {
+            return null;
+        }
+        if (System.currentTimeMillis() - entry.cachedAt >= ttlMillis) {
+            entries.remove(userId);
+            return null;
+        }
+        return entry.settings;
+    }
+
+    /**
+     * Take before loading settings from the database; pass to the put
+     */
+    public synchronized long stamp() {
+        return sequence;
+    }
+
+    /**
+     * Cache a row read from the database, unless the user was evicted since {@code stamp}
+     */
+    public synchronized void put(Long userId, NotificationSettings settings, long stamp) {
+        if (isCurrent(userId, stamp)) {
+            entries.put(userId, new Entry(settings, System.currentTimeMillis(), 0));
+        }
+    }
+
+    /**
+     * Cache rows read from the database, skipping users evicted since {@code stamp}
+     */
+    public synchronized void putAll(Map<Long, NotificationSettings> settingsByUserId, long stamp) {
+        long now = System.currentTimeMillis();
+        settingsByUserId.forEach((userId, settings) -> {
+            if (isCurrent(userId, stamp)) {
+                entries.put(userId, new Entry(settings, now, 0));
+            }
+        });
+    }
+
+    /**
+     * Cache a row the caller has just committed; always wins
+     */
+    public synchronized void put(Long userId, NotificationSettings settings) {
+        entries.put(userId, new Entry(settings, System.currentTimeMillis(), 0));
+    }
+
+    public synchronized void evict(Long userId) {
+        entries.put(userId, new Entry(null, System.currentTimeMillis(), ++sequence));
+    }
+
+    public synchronized void clear() {
+        log.info("Clearing notification settings cache ({} entries)", entries.size());
+        entries.clear();
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    private boolean isCurrent(Long userId, long stamp) {
+        Entry entry = entries.get(userId);
+        return entry == null || entry.evictedAt <= stamp;
+    }
+
+    /**
+     * Cached settings, or an eviction marker (settings null) with its sequence number
+     */
+    private record Entry(NotificationSettings settings, long cachedAt, long evictedAt) {
+    }
+}
@@ -0,0 +1,25 @@
+package com.library.service.cache;
+
+import java.time.LocalDate;
+
+/**
+ * What a user's active subscription allows, as needed by checkout.
+ *
+ * @param subscriptionId  Active subscription ID
+ * @param planCode        Plan code
+ * @param planName        Plan display name (for limit messages)
+ * @param maxBooksAllowed Maximum concurrent loans
+ * @param maxDaysPerBook  Maximum loan length in days
+ * @param endDate         Last day the subscription is valid
+ */
+public record SubscriptionEntitlement(Long subscriptionId,
+                                      String planCode,
+                                      String planName,
+                                      int maxBooksAllowed,
+                                      int maxDaysPerBook,
+                                      LocalDate endDate) {
+
+    public boolean isValidOn(LocalDate date) {
+        return !date.isAfter(endDate);
+    }
+}
@@ -0,0 +1,96 @@
+package com.library.service.cache;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+
+/**
+ * Per-user cache of active-subscription entitlements for checkout.
+ *
+ * An entry expires on its own once its subscription's end date has passed,
+ * and is reloaded after a configurable interval to pick up changes made on
+ * other nodes. SubscriptionServiceImpl evicts a user whenever one of their
+ * subscriptions changes. Eviction leaves a marker behind, so a load that
+ * started before the eviction cannot put its (now stale) result back.
+ * Users without an active subscription are not cached.
+ */
+@Component
+public class SubscriptionEntitlementCache {
+
+    private final ConcurrentMap<Long, Entry> entries = new ConcurrentHashMap<>();
+    private final long resyncIntervalMillis;
+
+    public SubscriptionEntitlementCache(
+            @Value("${subscription.entitlement.resync-seconds:300}") long resyncSeconds) {
+        this.resyncIntervalMillis = resyncSeconds * 1000;
+    }
+
+    /**
+     * Get the user's entitlement, loading it on a miss, expiry or resync
+     * @param userId User ID
+     * @param loader Database lookup, only called on a miss
+     * @return Entitlement, or empty if the user has no active subscription
+     */
+    public Optional<SubscriptionEntitlement> get(Long userId, Supplier<Optional<SubscriptionEntitlement>> loader) {
+        long now = System.currentTimeMillis();
+        Entry observed = entries.get(userId);
+        if (observed != null && observed.isFresh(now, resyncIntervalMillis, LocalDate.now())) {
+            return Optional.of(observed.entitlement);
+        }
+
+        Optional<SubscriptionEntitlement> loaded = loader.get();
+        Entry replacement = loaded.map(entitlement -> new Entry(entitlement, now)).orElse(null);
+        if (observed == null) {
+            if (replacement != null) {
+                entries.putIfAbsent(userId, replacement);
+            }
+        } else if (replacement != null) {
+            entries.replace(userId, observed, replacement);
+        } else {
+            entries.remove(userId, observed);
+        }
+        return loaded;
+    }
+
+    /**
+     * Drop the user's entry; loads already in flight will not repopulate it
+     */
+    public void evict(Long userId) {
+        if (userId != null) {
+            entries.put(userId, Entry.evicted());
+        }
+    }
+
+    public void clear() {
+        entries.clear();
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    private static final class Entry {
+        private final SubscriptionEntitlement entitlement;
+        private final long loadedAt;
+
+        private Entry(SubscriptionEntitlement entitlement, long loadedAt) {
+            this.entitlement = entitlement;
+            this.loadedAt = loadedAt;
+        }
+
+        private static Entry evicted() {
+            return new Entry(null, 0);
+        }
+
+        private boolean isFresh(long now, long resyncIntervalMillis, LocalDate today) {
+            return entitlement != null
+                    && now - loadedAt < resyncIntervalMillis
+                    && entitlement.isValidOn(today);
+        }
+    }
+}
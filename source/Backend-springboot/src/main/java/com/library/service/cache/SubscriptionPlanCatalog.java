@@ -0,0 +1,186 @@
+package com.library.service.cache;
+
+import com.library.mapper.SubscriptionPlanMapper;
+import com.library.model.SubscriptionPlan;
+import com.library.payload.dto.SubscriptionPlanDTO;
+import com.library.repository.SubscriptionPlanRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * In-memory snapshot of the subscription plan catalog.
+ *
+ * The snapshot is immutable and rebuilt from the database as a whole: at
+ * startup, after every plan write (SubscriptionPlanServiceImpl calls
+ * refresh once the write commits) and periodically to pick up writes made on
+ * other nodes. Readers take the current snapshot from an AtomicReference, so
+ * they never lock and never see a half-built catalog.
+ *
+ * Plans and DTOs in the snapshot are shared between callers and must be
+ * treated as read-only; the plans are detached entities.
+ */
+@Component
+@Slf4j
+public class SubscriptionPlanCatalog {
+
+    private static final Comparator<SubscriptionPlan> DISPLAY_ORDER = Comparator
+            .comparing(SubscriptionPlan::getDisplayOrder, Comparator.nullsLast(Comparator.naturalOrder()))
+            .thenComparing(SubscriptionPlan::getDurationDays, Comparator.nullsLast(Comparator.naturalOrder()))
+            .thenComparing(SubscriptionPlan::getId);
+
+    private final SubscriptionPlanRepository planRepository;
+    private final SubscriptionPlanMapper planMapper;
+    private final AtomicReference<Snapshot> current = new AtomicReference<>();
+
+    public SubscriptionPlanCatalog(SubscriptionPlanRepository planRepository,
+                                   SubscriptionPlanMapper planMapper) {
+        this.planRepository = planRepository;
+        this.planMapper = planMapper;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        refresh();
+    }
+
+    /**
+     * Periodic rebuild, so writes on other nodes show up within the interval
+     */
+    @Scheduled(fixedDelayString = "${subscription.plan-catalog.refresh-interval:PT5M}",
+            initialDelayString = "${subscription.plan-catalog.refresh-interval:PT5M}")
+    public void scheduledRefresh() {
+        try {
+            refresh();
+        } catch (Exception e) {
+            log.warn("Could not refresh subscription plan catalog, keeping the current snapshot", e);
+        }
+    }
+
+    /**
+     * Rebuild the snapshot from the database and swap it in. Rebuilds are
+     * serialized so an older build can never replace a newer one.
+     */
+    public synchronized void refresh() {
+        List<SubscriptionPlan> plans = new ArrayList<>(planRepository.findAll());
+        plans.sort(DISPLAY_ORDER);
+        Snapshot snapshot = Snapshot.of(plans, planMapper);
+        current.set(snapshot);
+        log.info("Loaded subscription plan catalog: {} plan(s), {} active", plans.size(), snapshot.active.size());
+    }
+
+    /**
+     * All plans in display order, active or not
+     */
+    public List<SubscriptionPlanDTO> getAll() {
+        return snapshot().all;
+    }
+
+    public List<SubscriptionPlanDTO> getActive() {
+        return snapshot().active;
+    }
+
+    public List<SubscriptionPlanDTO> getFeatured() {
+        return snapshot().featured;
+    }
+
+    public List<SubscriptionPlanDTO> getActiveByCurrency(String currency) {
+        if (currency == null) {
+            return List.of();
+        }
+        return snapshot().activeByCurrency.getOrDefault(currency.toUpperCase(), List.of());
+    }
+
+    public Optional<SubscriptionPlanDTO> findById(Long planId) {
+        return Optional.ofNullable(snapshot().byId.get(planId));
+    }
+
+    /**
+     * Plan entity by code (detached, read-only)
+     */
+    public Optional<SubscriptionPlan> findPlanByCode(String planCode) {
+        return Optional.ofNullable(snapshot().planByCode.get(planCode));
+    }
+
+    public boolean containsCode(String planCode) {
+        return snapshot().planByCode.containsKey(planCode);
+    }
+
+    // ==================== HELPER METHODS ====================
+
+    private Snapshot snapshot() {
+        Snapshot snapshot = current.get();
+        if (snapshot == null) {
+            // A request arrived before the startup load
+            refresh();
+            snapshot = current.get();
+        }
+        return snapshot;
+    }
+
+    private static final class Snapshot {
+        private final List<SubscriptionPlanDTO> all;
+        private final List<SubscriptionPlanDTO> active;
+        private final List<SubscriptionPlanDTO> featured;
+        private final Map<String, List<SubscriptionPlanDTO>> activeByCurrency;
+        private final Map<Long, SubscriptionPlanDTO> byId;
+        private final Map<String, SubscriptionPlan> planByCode;
+
+        private Snapshot(List<SubscriptionPlanDTO> all,
+                         List<SubscriptionPlanDTO> active,
+                         List<SubscriptionPlanDTO> featured,
+                         Map<String, List<SubscriptionPlanDTO>> activeByCurrency,
+                         Map<Long, SubscriptionPlanDTO> byId,
+                         Map<String, SubscriptionPlan> planByCode) {
+            this.all = all;
+            this.active = active;
+            this.featured = featured;
+            this.activeByCurrency = activeByCurrency;
+            this.byId = byId;
+            this.planByCode = planByCode;
+        }
+
+        private static Snapshot of(List<SubscriptionPlan> plans, SubscriptionPlanMapper planMapper) {
+            List<SubscriptionPlanDTO> all = new ArrayList<>(plans.size());
+            List<SubscriptionPlanDTO> active = new ArrayList<>();
+            List<SubscriptionPlanDTO> featured = new ArrayList<>();
+            Map<String, List<SubscriptionPlanDTO>> activeByCurrency = new LinkedHashMap<>();
+            Map<Long, SubscriptionPlanDTO> byId = new LinkedHashMap<>();
+            Map<String, SubscriptionPlan> planByCode = new LinkedHashMap<>();
+
+            for (SubscriptionPlan plan : plans) {
+                SubscriptionPlanDTO dto = planMapper.toDTO(plan);
+                all.add(dto);
+                byId.put(plan.getId(), dto);
+                planByCode.put(plan.getPlanCode(), plan);
+
+                if (Boolean.TRUE.equals(plan.getIsActive())) {
+                    active.add(dto);
+                    if (Boolean.TRUE.equals(plan.getIsFeatured())) {
+                        featured.add(dto);
+                    }
+                    if (plan.getCurrency() != null) {
+                        activeByCurrency.computeIfAbsent(plan.getCurrency().toUpperCase(), c -> new ArrayList<>())
+                                .add(dto);
+                    }
+                }
+            }
+
+            Map<String, List<SubscriptionPlanDTO>> frozenByCurrency = new LinkedHashMap<>();
+            activeByCurrency.forEach((currency, list) -> frozenByCurrency.put(currency, List.copyOf(list)));
+
+            return new Snapshot(List.copyOf(all), List.copyOf(active), List.copyOf(featured),
+                    Map.copyOf(frozenByCurrency), Map.copyOf(byId), Map.copyOf(planByCode));
+        }
+    }
+}
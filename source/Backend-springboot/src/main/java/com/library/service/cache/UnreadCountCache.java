@@ -0,0 +1,103 @@
+package com.library.service.cache;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Per-user unread notification counters.
+ *
+ * A counter is seeded from the database on first read and then maintained
+ * incrementally by NotificationServiceImpl. Users without a seeded counter
+ * are simply skipped by the incremental updates. Counters are re-seeded
+ * after a configurable interval to heal any drift from races or other nodes.
+ *
+ * A seed is not atomic with the database read, so a loader first installs a
+ * marker stamped with a sequence number and only replaces that exact marker
+ * with the loaded count. An add, set or evict during the load replaces or
+ * removes the marker, and the possibly stale count is returned uncached.
+ */
+@Component
+public class UnreadCountCache {
+
+    private final ConcurrentMap<Long, Counter> counters = new ConcurrentHashMap<>();
+    private final AtomicLong sequence = new AtomicLong();
+    private final long resyncIntervalMillis;
+
+    public UnreadCountCache(
+            @Value("${notification.unread-count.resync-seconds:600}") long resyncSeconds) {
+        this.resyncIntervalMillis = resyncSeconds * 1000;
+    }
+
+    /**
+     * Get the unread count, seeding it from the loader when missing or stale
+     * @param userId User ID
+     * @param loader Database count, only called on a miss
+     * @return Unread count
+     */
+    public long get(Long userId, LongSupplier loader) {
+        long now = System.currentTimeMillis();
+        Counter counter = counters.get(userId);
+        if (counter != null && !counter.isLoading() && now - counter.seededAt < resyncIntervalMillis) {
+            return counter.value;
+        }
+
+        Counter marker = Counter.loading(sequence.incrementAndGet(), now);
+        counters.put(userId, marker);
+        long value = loader.getAsLong();
+        counters.replace(userId, marker, new Counter(value, now, 0));
+        return value;
+    }
+
+    /**
+     * Apply a delta to a seeded counter
+     * @return The new value, or -1 if the user has no seeded counter
+     */
+    public long add(Long userId, long delta) {
+        Counter counter = counters.computeIfPresent(userId, (id, current) -> current.isLoading()
+                ? Counter.loading(sequence.incrementAndGet(), current.seededAt)
+                : new Counter(Math.max(0, current.value + delta), current.seededAt, 0));
+        return counter != null && !counter.isLoading() ? counter.value : -1;
+    }
+
+    /**
+     * Set a counter to a known value (e.g. zero after mark-all-read)
+     */
+    public void set(Long userId, long value) {
+        counters.put(userId, new Counter(value, System.currentTimeMillis(), 0));
+    }
+
+    public void evict(Long userId) {
+        counters.remove(userId);
+    }
+
+    /**
+     * Drop counters past their resync interval; they would be re-seeded on the next read anyway
+     */
+    public void evictStale() {
+        long cutoff = System.currentTimeMillis() - resyncIntervalMillis;
+        counters.values().removeIf(counter -> counter.seededAt < cutoff);
+    }
+
+    public void clear() {
+        counters.clear();
+    }
+
+    /**
+     * A seeded count, or a load marker (loadStamp non-zero) while a loader reads the database
+     */
+    private record Counter(long value, long seededAt, long loadStamp) {
+
+        static Counter loading(long loadStamp, long startedAt) {
+            return new Counter(0, startedAt, loadStamp);
+        }
+
+        boolean isLoading() {
+            return loadStamp != 0;
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package com.library.service.gateway;
+
+import com.library.exception.PaymentException;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+/**
+ * Bulkhead and circuit breaker around calls to one payment gateway.
+ *
+ * Bulkhead: at most maxConcurrent calls are in flight; a caller waits up to
+ * acquireTimeoutMillis for a slot and is then rejected, so a slow gateway
+ * cannot take over every request thread.
+ *
+ * Circuit breaker: after failureThreshold consecutive failures the circuit
+ * opens and calls are rejected immediately. Once openMillis has passed a
+ * single probe call is let through (half-open); its outcome closes or
+ * re-opens the circuit. Only failures matching the predicate count (timeouts,
+ * connection errors, 5xx); a gateway that answers with a 4xx is up.
+ *
+ * Call timeouts are enforced by the gateway's HTTP client, so the call runs
+ * on the caller's thread.
+ */
+@Slf4j
+public class GatewayGuard {
+
+    public enum State { CLOSED, OPEN, HALF_OPEN }
+
+    @FunctionalInterface
+    public interface GatewayCall<T, E extends Exception> {
+        T run() throws E;
+    }
+
+    private final String name;
+    private final Semaphore bulkhead;
+    private final long acquireTimeoutMillis;
+    private final int failureThreshold;
+    private final long openMillis;
+    private final Predicate<Exception> isFailure;
+
+    private State state = State.CLOSED;
+    private int consecutiveFailures;
+    private long openedAt;
+    private boolean probeInFlight;
+
+    public GatewayGuard(String name, int maxConcurrent, long acquireTimeoutMillis,
+                        int failureThreshold, long openMillis, Predicate<Exception> isFailure) {
+        this.name = name;
+        this.bulkhead = new Semaphore(maxConcurrent);
+        this.acquireTimeoutMillis = acquireTimeoutMillis;
+        this.failureThreshold = failureThreshold;
+        this.openMillis = openMillis;
+        this.isFailure = isFailure;
+    }
+
+    /**
+     * Run a gateway call through the bulkhead and circuit breaker
+     * @throws PaymentException if the circuit is open or the bulkhead is full
+     * @throws E whatever the call itself throws
+     */
+    public <T, E extends Exception> T call(GatewayCall<T, E> call) throws E, PaymentException {
+        boolean probe = admit();
+        boolean acquired;
+        try {
+            acquired = bulkhead.tryAcquire(acquireTimeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            acquired = false;
+        }
+        if (!acquired) {
+            if (probe) {
+                releaseProbe();
+            }
+            throw new PaymentException(name + " is busy, please try again shortly");
+        }
+
+        try {
+            T result = call.run();
+            onSuccess();
+            return result;
+        } catch (Exception e) {
+            if (isFailure.test(e)) {
+                onFailure(e);
+            } else {
+                // The gateway answered; it is reachable
+                onSuccess();
+            }
+            throw e;
+        } finally {
+            bulkhead.release();
+        }
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    public int getAvailablePermits() {
+        return bulkhead.availablePermits();
+    }
+
+    // ==================== HELPER METHODS ====================
+
+    /**
+     * @return true if this call is the half-open probe
+     */
+    private synchronized boolean admit() throws PaymentException {
+        if (state == State.CLOSED) {
+            return false;
+        }
+        if (state == State.OPEN && System.currentTimeMillis() - openedAt >= openMillis) {
+            state = State.HALF_OPEN;
+            log.info("{} circuit half-open, sending a probe call", name);
+        }
+        if (state == State.HALF_OPEN && !probeInFlight) {
+            probeInFlight = true;
+            return true;
+        }
+        throw new PaymentException(name + " is temporarily unavailable, please try again later");
+    }
+
+    private synchronized void releaseProbe() {
+        probeInFlight = false;
+    }
+
+    private synchronized void onSuccess() {
+        consecutiveFailures = 0;
+        probeInFlight = false;
+        if (state != State.CLOSED) {
+            state = State.CLOSED;
+            log.info("{} circuit closed", name);
+        }
+    }
+
+    private synchronized void onFailure(Exception e) {
+        probeInFlight = false;
+        consecutiveFailures++;
+        if (state == State.HALF_OPEN || consecutiveFailures >= failureThreshold) {
+            if (state != State.OPEN) {
+                log.warn("{} circuit opened after {} consecutive failure(s): {}",
+                        name, consecutiveFailures, e.getMessage());
+            }
+            state = State.OPEN;
+            openedAt = System.currentTimeMillis();
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package com.library.service.gateway;
+
+/**
+ * Status of a payment as reported by the gateway, used by reconciliation
+ * @param state Settled state at the gateway
+ * @param gatewayPaymentId Gateway payment ID once paid (may be null)
+ * @param amountPaid Amount paid in minor units (may be null)
+ * @param paymentMethod Payment method (may be null)
+ * @param reason Human readable detail for failures
+ */
+public record GatewayPaymentStatus(State state, String gatewayPaymentId, Long amountPaid,
+                                   String paymentMethod, String reason) {
+
+    public enum State {
+        /** Paid in full */
+        PAID,
+        /** Expired, cancelled or declined; will not be paid */
+        FAILED,
+        /** Still waiting for the customer */
+        OPEN
+    }
+}
@@ -0,0 +1,127 @@
+package com.library.service.gateway;
+
+import com.library.exception.PaymentException;
+import lombok.extern.slf4j.Slf4j;
+import org.json.JSONObject;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestClient;
+import org.springframework.web.client.RestClientException;
+import org.springframework.web.client.RestClientResponseException;
+
+import java.net.http.HttpClient;
+import java.time.Duration;
+
+/**
+ * Long-lived HTTP client for the Razorpay REST API.
+ *
+ * The Razorpay SDK builds a client per call and has neither a configurable
+ * host nor timeouts, so the endpoints we use are called directly. One
+ * JDK HttpClient (with its connection pool) is shared for the lifetime of the
+ * application, every call has connect/read timeouts, and calls go through a
+ * GatewayGuard. The base URL can point at a local stub for testing.
+ */
+@Component
+@Slf4j
+public class RazorpayApiClient {
+
+    private final RestClient restClient;
+    private final GatewayGuard guard;
+
+    public RazorpayApiClient(@Value("${razorpay.key.id:}") String keyId,
+                             @Value("${razorpay.key.secret:}") String keySecret,
+                             @Value("${razorpay.api.base-url:https://api.razorpay.com}") String baseUrl,
+                             @Value("${razorpay.api.connect-timeout-ms:2000}") long connectTimeoutMillis,
+                             @Value("${razorpay.api.read-timeout-ms:10000}") long readTimeoutMillis,
+                             @Value("${razorpay.api.max-concurrent:20}") int maxConcurrent,
+                             @Value("${razorpay.api.acquire-timeout-ms:500}") long acquireTimeoutMillis,
+                             @Value("${razorpay.api.failure-threshold:5}") int failureThreshold,
+                             @Value("${razorpay.api.open-seconds:30}") long openSeconds) {
+        HttpClient httpClient = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofMillis(connectTimeoutMillis))
+                .build();
+        JdkClientHttpRequestFactory requestFactory = new JdkClientHttpRequestFactory(httpClient);
+        requestFactory.setReadTimeout(Duration.ofMillis(readTimeoutMillis));
+
+        this.restClient = RestClient.builder()
+                .baseUrl(baseUrl)
+                .requestFactory(requestFactory)
+                .defaultHeaders(headers -> headers.setBasicAuth(keyId, keySecret))
+                .build();
+        this.guard = new GatewayGuard("Razorpay", maxConcurrent, acquireTimeoutMillis,
+                failureThreshold, openSeconds * 1000, RazorpayApiClient::isGatewayFailure);
+    }
+
+    /**
+     * POST /v1/payment_links
+     */
+    public JSONObject createPaymentLink(JSONObject request) throws PaymentException {
+        return execute("create payment link", () -> restClient.post()
+                .uri("/v1/payment_links")
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(request.toString())
+                .retrieve()
+                .body(String.class));
+    }
+
+    /**
+     * GET /v1/payments/{id}
+     */
+    public JSONObject fetchPayment(String paymentId) throws PaymentException {
+        return execute("fetch payment " + paymentId, () -> restClient.get()
+                .uri("/v1/payments/{id}", paymentId)
+                .retrieve()
+                .body(String.class));
+    }
+
+    /**
+     * GET /v1/payment_links/{id}
+     */
+    public JSONObject fetchPaymentLink(String paymentLinkId) throws PaymentException {
+        return execute("fetch payment link " + paymentLinkId, () -> restClient.get()
+                .uri("/v1/payment_links/{id}", paymentLinkId)
+                .retrieve()
+                .body(String.class));
+    }
+
+    public GatewayGuard getGuard() {
+        return guard;
+    }
+
+    // ==================== HELPER METHODS ====================
+
+    private JSONObject execute(String operation, GatewayGuard.GatewayCall<String, RestClientException> call)
+            throws PaymentException {
+        try {
+            return new JSONObject(guard.call(call));
+        } catch (RestClientResponseException e) {
+            throw new PaymentException("Razorpay " + operation + " failed: " + describeError(e), e);
+        } catch (RestClientException e) {
+            throw new PaymentException("Razorpay " + operation + " failed: " + e.getMessage(), e);
+        }
+    }
+
+    private static boolean isGatewayFailure(Exception e) {
+        return e instanceof ResourceAccessException
+                || e instanceof HttpServerErrorException
+                || (e instanceof RestClientResponseException response
+                    && response.getStatusCode().isSameCodeAs(HttpStatus.TOO_MANY_REQUESTS));
+    }
+
+    private static String describeError(RestClientResponseException e) {
+        try {
+            JSONObject error = new JSONObject(e.getResponseBodyAsString()).optJSONObject("error");
+            if (error != null && error.has("description")) {
+                return error.getString("description");
+            }
+        } catch (Exception ignored) {
+            // Not a Razorpay error body
+        }
+        return e.getStatusCode().toString();
+    }
+}
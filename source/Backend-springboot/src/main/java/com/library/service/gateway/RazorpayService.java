@@ -1,12 +1,10 @@
 package com.library.service.gateway;
 
+import org.json.JSONArray;
 import org.json.JSONObject;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
-import com.razorpay.PaymentLink;
-import com.razorpay.RazorpayClient;
-import com.razorpay.RazorpayException;
 import com.library.domain.PaymentType;
 import com.library.exception.FineException;
 import com.library.exception.PaymentException;
@@ -31,6 +29,8 @@ import lombok.extern.slf4j.Slf4j;
 public class RazorpayService {
 
     private final FineRepository fineRepository;
+    private final RazorpayApiClient razorpayApiClient;
+
     @Value("${razorpay.key.id:}")
     private String razorpayKeyId;
 
@@ -57,79 +57,69 @@ public class RazorpayService {
 
         validateConfiguration();
 
-        try {
-            RazorpayClient razorpay = new RazorpayClient(
-                razorpayKeyId, razorpayKeySecret);
-
-            // Convert amount to paisa (1 INR = 100 paisa)
-            Long amountInPaisa = payment
-            .getAmount()*(new java.math.BigDecimal("100")).intValue();
-
-            JSONObject paymentLinkRequest = new JSONObject();
-            paymentLinkRequest.put("amount", amountInPaisa);
-            paymentLinkRequest.put("currency", payment.getCurrency());
-            paymentLinkRequest.put("description", payment.getDescription());
-
-            // Customer details
-            JSONObject customer = new JSONObject();
-            customer.put("name", user.getFullName());
-            customer.put("email", user.getEmail());
-            if (user.getPhone() != null) {
-                customer.put("contact", user.getPhone());
-            }
-            paymentLinkRequest.put("customer", customer);
-
-            // Notification settings
-            JSONObject notify = new JSONObject();
-            notify.put("email", true);
-            notify.put("sms", user.getPhone() != null);
-            paymentLinkRequest.put("notify", notify);
-
-            // Enable reminders
-            paymentLinkRequest.put("reminder_enable", true);
-
-            // Callback configuration
-            String successUrl = callbackBaseUrl + "/payment-success/" + payment.getId();
-            String cancelUrl = callbackBaseUrl + "/payment-cancelled/" + payment.getId();
-
-            paymentLinkRequest.put("callback_url", successUrl);
-            paymentLinkRequest.put("callback_method", "get");
-
-            // Additional metadata for tracking
-            JSONObject notes = new JSONObject();
-            notes.put("user_id", user.getId());
-            notes.put("payment_id", payment.getId());
-
-            if(payment.getPaymentType()== PaymentType.MEMBERSHIP){
-                notes.put("subscription_id", payment.getSubscription().getId());
-                notes.put("plan", payment.getSubscription().getPlan().getPlanCode());
-                notes.put("type",PaymentType.MEMBERSHIP);
-            }else if(payment.getPaymentType()==PaymentType.FINE){
-                notes.put("fine_id", payment.getFine().getId());
-                notes.put("type",PaymentType.FINE);
-            }
+        // Payment amounts are already stored in paise
+        Long amountInPaisa = payment.getAmount();
 
-            paymentLinkRequest.put("notes", notes);
+        JSONObject paymentLinkRequest = new JSONObject();
+        paymentLinkRequest.put("amount", amountInPaisa);
+        paymentLinkRequest.put("currency", payment.getCurrency());
+        paymentLinkRequest.put("description", payment.getDescription());
 
-            // Create payment link
-            PaymentLink paymentLink = razorpay.paymentLink.create(paymentLinkRequest);
+        // Customer details
+        JSONObject customer = new JSONObject();
+        customer.put("name", user.getFullName());
+        customer.put("email", user.getEmail());
+        if (user.getPhone() != null) {
+            customer.put("contact", user.getPhone());
+        }
+        paymentLinkRequest.put("customer", customer);
+
+        // Notification settings
+        JSONObject notify = new JSONObject();
+        notify.put("email", true);
+        notify.put("sms", user.getPhone() != null);
+        paymentLinkRequest.put("notify", notify);
+
+        // Enable reminders
+        paymentLinkRequest.put("reminder_enable", true);
+
+        // Callback configuration
+        String successUrl = callbackBaseUrl + "/payment-success/" + payment.getId();
+        String cancelUrl = callbackBaseUrl + "/payment-cancelled/" + payment.getId();
+
+        paymentLinkRequest.put("callback_url", successUrl);
+        paymentLinkRequest.put("callback_method", "get");
+
+        // Additional metadata for tracking
+        JSONObject notes = new JSONObject();
+        notes.put("user_id", user.getId());
+        notes.put("payment_id", payment.getId());
+
+        if(payment.getPaymentType()== PaymentType.MEMBERSHIP){
+            notes.put("subscription_id", payment.getSubscription().getId());
+            notes.put("plan", payment.getSubscription().getPlan().getPlanCode());
+            notes.put("type",PaymentType.MEMBERSHIP);
+        }else if(payment.getPaymentType()==PaymentType.FINE){
+            notes.put("fine_id", payment.getFine().getId());
+            notes.put("type",PaymentType.FINE);
+        }
 
-            String paymentUrl = paymentLink.get("short_url");
-            String paymentLinkId = paymentLink.get("id");
+        paymentLinkRequest.put("notes", notes);
 
-            log.info("Razorpay payment link created successfully. Link ID: {}, Payment ID: {}",
-                paymentLinkId, payment.getId());
+        // Create payment link
+        JSONObject paymentLink = razorpayApiClient.createPaymentLink(paymentLinkRequest);
 
-            PaymentLinkResponse response = new PaymentLinkResponse();
-            response.setPayment_link_url(paymentUrl);
-            response.setPayment_link_id(paymentLinkId);
+        String paymentUrl = paymentLink.getString("short_url");
+        String paymentLinkId = paymentLink.getString("id");
 
-            return response;
+        log.info("Razorpay payment link created successfully. Link ID: {}, Payment ID: {}",
+            paymentLinkId, payment.getId());
 
-        } catch (RazorpayException e) {
-            log.error("Failed to create Razorpay payment link: {}", e.getMessage(), e);
-            throw new PaymentException("Failed to create payment link: " + e.getMessage(), e);
-        }
+        PaymentLinkResponse response = new PaymentLinkResponse();
+        response.setPayment_link_url(paymentUrl);
+        response.setPayment_link_id(paymentLinkId);
+
+        return response;
     }
 
 
@@ -168,26 +158,66 @@ public class RazorpayService {
     public JSONObject fetchPaymentDetails(String paymentId) throws PaymentException {
         validateConfiguration();
 
-        try {
-            RazorpayClient razorpay = new RazorpayClient(razorpayKeyId, razorpayKeySecret);
-            com.razorpay.Payment payment = razorpay.payments.fetch(paymentId);
+        return razorpayApiClient.fetchPayment(paymentId);
+    }
 
-            return payment.toJson();
+    /**
+     * Look up the settled state of a payment link
+     *
+     * @param paymentLinkId Razorpay payment link ID (plink_...)
+     * @return Gateway status of the link
+     * @throws PaymentException if the lookup fails
+     */
+    public GatewayPaymentStatus getPaymentLinkStatus(String paymentLinkId) throws PaymentException {
+        validateConfiguration();
 
-        } catch (RazorpayException e) {
-            log.error("Failed to fetch payment details for {}: {}", paymentId, e.getMessage(), e);
-            throw new PaymentException("Failed to fetch payment details: " + e.getMessage(), e);
+        JSONObject link = razorpayApiClient.fetchPaymentLink(paymentLinkId);
+        String status = link.optString("status");
+
+        switch (status) {
+            case "paid" -> {
+                String gatewayPaymentId = null;
+                String method = null;
+                JSONArray payments = link.optJSONArray("payments");
+                if (payments != null) {
+                    for (int i = 0; i < payments.length(); i++) {
+                        JSONObject linkPayment = payments.getJSONObject(i);
+                        if ("captured".equals(linkPayment.optString("status"))) {
+                            gatewayPaymentId = linkPayment.optString("payment_id", null);
+                            method = linkPayment.optString("method", null);
+                        }
+                    }
+                }
+                return new GatewayPaymentStatus(GatewayPaymentStatus.State.PAID, gatewayPaymentId,
+                        link.optLong("amount_paid"), method, null);
+            }
+            case "expired", "cancelled" -> {
+                return new GatewayPaymentStatus(GatewayPaymentStatus.State.FAILED, null, null, null,
+                        "Payment link " + status);
+            }
+            default -> {
+                return new GatewayPaymentStatus(GatewayPaymentStatus.State.OPEN, null, null, null, status);
+            }
         }
     }
 
     public boolean isValidPayment(String paymentId) {
         try {
+            return isValidPayment(fetchPaymentDetails(paymentId));
+        } catch (Exception e) {
+            log.error("❌ Error verifying Razorpay payment: {}", e.getMessage(), e);
+            return false;
+        }
+    }
 
-            JSONObject paymentDetails =fetchPaymentDetails(paymentId);
-
+    /**
+     * Check already fetched payment details (captured, expected amount)
+     */
+    public boolean isValidPayment(JSONObject paymentDetails) {
+        try {
             String status = paymentDetails.optString("status");
+            // Razorpay reports paise, the unit plan prices and fines are stored in
             long amount = paymentDetails.optLong("amount");
-            long amountInRupees = amount / 100;
 
             JSONObject notes = paymentDetails.getJSONObject("notes");
 
@@ -206,13 +236,13 @@ public class RazorpayService {
                 String planCode = notes.optString("plan");
                 SubscriptionPlan subscriptionPlan = subscriptionPlanService
                         .getPlanByCode(planCode);
-                return amountInRupees == subscriptionPlan.getPrice();
+                return amount == subscriptionPlan.getPrice();
             }else if(paymentType.equals(PaymentType.FINE.toString())){
                 Long fineId = notes.getLong("fine_id");
                 Fine fine =fineRepository.findById(fineId).orElseThrow(
                         () -> new FineException("Fine not found with given id....")
                 );
-                return  fine.getAmount()==amountInRupees;
+                return fine.getAmount() == amount;
             }
 
 
@@ -0,0 +1,67 @@
+package com.library.service.gateway;
+
+import com.library.exception.PaymentException;
+import com.stripe.StripeClient;
+import com.stripe.exception.ApiConnectionException;
+import com.stripe.exception.StripeException;
+import com.stripe.model.checkout.Session;
+import com.stripe.param.checkout.SessionCreateParams;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Long-lived Stripe client.
+ *
+ * Wraps a single StripeClient (shared HTTP connections, connect/read
+ * timeouts, configurable API base for a local stub) and sends every call
+ * through a GatewayGuard.
+ */
+@Component
+public class StripeApiClient {
+
+    private final StripeClient stripeClient;
+    private final GatewayGuard guard;
+
+    public StripeApiClient(@Value("${stripe.api.key:}") String apiKey,
+                           @Value("${stripe.api.base-url:https://api.stripe.com}") String baseUrl,
+                           @Value("${stripe.api.connect-timeout-ms:2000}") int connectTimeoutMillis,
+                           @Value("${stripe.api.read-timeout-ms:10000}") int readTimeoutMillis,
+                           @Value("${stripe.api.max-network-retries:1}") int maxNetworkRetries,
+                           @Value("${stripe.api.max-concurrent:20}") int maxConcurrent,
+                           @Value("${stripe.api.acquire-timeout-ms:500}") long acquireTimeoutMillis,
+                           @Value("${stripe.api.failure-threshold:5}") int failureThreshold,
+                           @Value("${stripe.api.open-seconds:30}") long openSeconds) {
+        StripeClient.StripeClientBuilder builder = StripeClient.builder()
+                .setApiBase(baseUrl)
+                .setConnectTimeout(connectTimeoutMillis)
+                .setReadTimeout(readTimeoutMillis)
+                // Stripe adds idempotency keys to retried requests, so one retry is safe
+                .setMaxNetworkRetries(maxNetworkRetries);
+        if (apiKey != null && !apiKey.isBlank()) {
+            builder.setApiKey(apiKey);
+        }
+        this.stripeClient = builder.build();
+        this.guard = new GatewayGuard("Stripe", maxConcurrent, acquireTimeoutMillis,
+                failureThreshold, openSeconds * 1000, StripeApiClient::isGatewayFailure);
+    }
+
+    public Session createCheckoutSession(SessionCreateParams params) throws StripeException, PaymentException {
+        return guard.call(() -> stripeClient.checkout().sessions().create(params));
+    }
+
+    public Session retrieveCheckoutSession(String sessionId) throws StripeException, PaymentException {
+        return guard.call(() -> stripeClient.checkout().sessions().retrieve(sessionId));
+    }
+
+    public GatewayGuard getGuard() {
+        return guard;
+    }
+
+    private static boolean isGatewayFailure(Exception e) {
+        if (e instanceof ApiConnectionException) {
+            return true;
+        }
+        return e instanceof StripeException stripe && stripe.getStatusCode() != null
+                && (stripe.getStatusCode() >= 500 || stripe.getStatusCode() == 429);
+    }
+}
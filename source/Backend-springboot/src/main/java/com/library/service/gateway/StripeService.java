@@ -14,6 +14,7 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.util.HashMap;
 import java.util.Map;
 
 /**
@@ -25,6 +26,8 @@ import java.util.Map;
 @RequiredArgsConstructor
 public class StripeService {
 
+    private final StripeApiClient stripeApiClient;
+
     @Value("${stripe.api.key:}")
     private String stripeSecretKey;
 
@@ -159,25 +162,43 @@ public class StripeService {
     public String createCheckoutSession(
             User user,
             Subscription subscription
-    ) throws StripeException {
+    ) throws StripeException, PaymentException {
+        return createCheckoutSession(user, subscription, null).getUrl();
+    }
+
+    /**
+     * Create a checkout session tied to one of our payment records
+     *
+     * @param paymentId Our payment ID, stored in the session metadata (may be null)
+     * @return The created session; its ID is what reconciliation looks up later
+     */
+    public Session createCheckoutSession(
+            User user,
+            Subscription subscription,
+            Long paymentId
+    ) throws StripeException, PaymentException {
+        Map<String, String> metadata = new HashMap<>(Map.of(
+                "userId", user.getId().toString(),
+                "planId", subscription.getPlan().getId().toString(),
+                "subscriptionId", subscription.getId().toString()
+        ));
+        if (paymentId != null) {
+            metadata.put("paymentId", paymentId.toString());
+        }
 
         SessionCreateParams params =
                 SessionCreateParams.builder()
                         .setMode(SessionCreateParams.Mode.PAYMENT)
                         .setSuccessUrl("http://localhost:5173/subscriptions?success=true")
                         .setCancelUrl("http://localhost:5173/subscriptions?cancel=true")
-                        .putAllMetadata(Map.of(
-                                "userId", user.getId().toString(),
-                                "planId", subscription.getPlan().getId().toString(),
-                                "subscriptionId", subscription.getId().toString()
-                        ))
+                        .putAllMetadata(metadata)
                         .addLineItem(
                                 SessionCreateParams.LineItem.builder()
                                         .setQuantity(1L)
                                         .setPriceData(
                                                 SessionCreateParams.LineItem.PriceData.builder()
                                                         .setCurrency("usd")
-                                                        .setUnitAmount(subscription.getPrice().longValue() * 100)
+                                                        .setUnitAmount(subscription.getPrice())
                                                         .setProductData(
                                                                 SessionCreateParams.LineItem.PriceData.ProductData.builder()
                                                                         .setName(subscription.getPlan().getName())
@@ -189,9 +210,27 @@ public class StripeService {
                         )
                         .build();
 
-        Session session = Session.create(params);
+        return stripeApiClient.createCheckoutSession(params);
+    }
+
+    /**
+     * Look up the settled state of a checkout session
+     *
+     * @param sessionId Stripe checkout session ID (cs_...)
+     * @return Gateway status of the session
+     */
+    public GatewayPaymentStatus getCheckoutSessionStatus(String sessionId) throws StripeException, PaymentException {
+        Session session = stripeApiClient.retrieveCheckoutSession(sessionId);
 
-        return session.getUrl();
+        if ("paid".equals(session.getPaymentStatus())) {
+            return new GatewayPaymentStatus(GatewayPaymentStatus.State.PAID, session.getPaymentIntent(),
+                    session.getAmountTotal(), null, null);
+        }
+        if ("expired".equals(session.getStatus())) {
+            return new GatewayPaymentStatus(GatewayPaymentStatus.State.FAILED, null, null, null,
+                    "Checkout session expired");
+        }
+        return new GatewayPaymentStatus(GatewayPaymentStatus.State.OPEN, null, null, null, session.getStatus());
     }
 
 }
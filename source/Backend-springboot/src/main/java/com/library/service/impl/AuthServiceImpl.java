@@ -1,7 +1,9 @@
 package com.library.service.impl;
 
+import com.library.configurations.EntitlementClaim;
 import com.library.configurations.JwtProvider;
 import com.library.domain.UserRole;
+import com.library.exception.SubscriptionException;
 import com.library.exception.UserException;
 import com.library.mapper.UserMapper;
 import com.library.model.PasswordResetToken;
@@ -14,10 +16,12 @@ import com.library.repository.PasswordResetTokenRepository;
 import com.library.repository.UserRepository;
 import com.library.service.AuthService;
 import com.library.service.EmailService;
+import com.library.service.SubscriptionService;
 import com.library.service.WishlistService;
 import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
 import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
@@ -27,8 +31,11 @@ import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
+import java.time.Instant;
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
 import java.util.Collection;
+import java.util.Date;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -43,10 +50,14 @@ public class AuthServiceImpl implements AuthService {
     private final WishlistService wishlistService;
     private final PasswordResetTokenRepository passwordResetTokenRepository;
     private final EmailService emailService;
+    private final SubscriptionService subscriptionService;
 
     @Value("${app.frontend.reset-url}")
     private String frontendResetUrl;
 
+    @Value("${jwt.entitlement.ttl-minutes:15}")
+    private long entitlementTtlMinutes;
+
 
     @Override
     public AuthResponse signup(UserDTO req) throws UserException {
@@ -97,9 +108,8 @@ public class AuthServiceImpl implements AuthService {
         SecurityContextHolder.getContext().setAuthentication(authentication);
         Collection<? extends GrantedAuthority> authorities = authentication.getAuthorities();
         String role =  authorities.iterator().next().getAuthority();
-        String token = jwtProvider.generateToken(authentication);
-
         User user = userRepository.findByEmail(username);
+        String token = issueToken(authentication, user);
 
 //        update last Login
         user.setLastLogin(LocalDateTime.now());
@@ -114,6 +124,51 @@ public class AuthServiceImpl implements AuthService {
         return response;
     }
 
+    @Override
+    public AuthResponse refreshToken(String jwt) throws UserException {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || !authentication.isAuthenticated()
+                || authentication instanceof AnonymousAuthenticationToken) {
+            throw new UserException("User not authenticated");
+        }
+
+        User user = userRepository.findByEmail(authentication.getName());
+        if (user == null) {
+            throw new UserException("Authenticated user not found");
+        }
+
+        AuthResponse response = new AuthResponse();
+        response.setTitle("Token refreshed");
+        response.setMessage("Token refreshed for " + user.getEmail());
+        // Keep the current expiry: refreshing updates the claim, not the session length
+        Date expiresAt = jwtProvider.getExpirationFromJwtToken(jwt);
+        response.setJwt(jwtProvider.generateToken(authentication, entitlementClaimFor(user), expiresAt));
+        response.setUser(UserMapper.toDTO(user));
+        return response;
+    }
+
+    @Override
+    public String issueToken(Authentication authentication, User user) {
+        return jwtProvider.generateToken(authentication, entitlementClaimFor(user));
+    }
+
+    /**
+     * Short-lived entitlement claim for the user's active subscription, or
+     * null if there is none
+     */
+    private EntitlementClaim entitlementClaimFor(User user) {
+        if (user == null || user.getId() == null) {
+            return null;
+        }
+        try {
+            return EntitlementClaim.of(subscriptionService.getActiveEntitlement(user.getId()),
+                    user.getEntitlementVersion() != null ? user.getEntitlementVersion() : 0L,
+                    Instant.now().plus(entitlementTtlMinutes, ChronoUnit.MINUTES));
+        } catch (SubscriptionException e) {
+            return null;
+        }
+    }
+
     public Authentication authenticate(String email, String password) throws UserException {
 
         UserDetails userDetails = customUserImplementation.loadUserByUsername(email);
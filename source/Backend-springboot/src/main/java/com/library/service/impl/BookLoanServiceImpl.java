@@ -1,6 +1,6 @@
 package com.library.service.impl;
 
-import java.math.BigDecimal;
+import java.time.Instant;
 import java.time.LocalDate;
 import java.util.List;
 import java.util.stream.Collectors;
@@ -13,6 +13,7 @@ import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 
+import com.library.configurations.EntitlementClaim;
 import com.library.domain.BookLoanStatus;
 import com.library.domain.BookLoanType;
 import com.library.exception.BookException;
@@ -25,11 +26,11 @@ import com.library.model.BookLoan;
 import com.library.model.User;
 import com.library.payload.CheckoutStatistics;
 import com.library.payload.dto.BookLoanDTO;
-import com.library.payload.dto.SubscriptionDTO;
 import com.library.payload.request.BookLoanSearchRequest;
 import com.library.payload.request.CheckinRequest;
 import com.library.payload.request.CheckoutRequest;
 import com.library.payload.request.RenewalRequest;
+import com.library.payload.response.FineAccrualReport;
 import com.library.payload.response.PageResponse;
 import com.library.repository.BookLoanRepository;
 import com.library.repository.BookRepository;
@@ -37,6 +38,7 @@ import com.library.repository.UserRepository;
 import com.library.service.BookLoanService;
 import com.library.service.ReservationService;
 import com.library.service.SubscriptionService;
+import com.library.service.cache.SubscriptionEntitlement;
 
 import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
@@ -55,6 +57,8 @@ public class BookLoanServiceImpl implements BookLoanService {
     private final UserRepository userRepository;
     private final BookLoanMapper bookLoanMapper;
     private final FineCalculationService fineCalculationService;
+    private final FineAccrualService fineAccrualService;
+    private final FineBalanceService fineBalanceService;
     private final SubscriptionService subscriptionService;
 
     private ReservationService reservationService; // Lazy injection to avoid circular dependency
@@ -88,14 +92,16 @@ public class BookLoanServiceImpl implements BookLoanService {
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new UserException("User not found with id: " + userId));
 
-        // 2. Validate user has active subscription
-        SubscriptionDTO subscription;
-        try {
-            subscription = subscriptionService.getUsersActiveSubscription(userId);
-        } catch (SubscriptionException e) {
-            throw new BookLoanException(
-                "No active subscription found. Please subscribe to checkout books. " +
-                "Visit /api/subscriptions/subscribe to get started.", e);
+        // 2. Validate user has active subscription (from the token's claim when it is current)
+        SubscriptionEntitlement subscription = entitlementFromToken(user);
+        if (subscription == null) {
+            try {
+                subscription = subscriptionService.getActiveEntitlement(userId);
+            } catch (SubscriptionException e) {
+                throw new BookLoanException(
+                    "No active subscription found. Please subscribe to checkout books. " +
+                    "Visit /api/subscriptions/subscribe to get started.", e);
+            }
         }
 
 
@@ -119,12 +125,12 @@ public class BookLoanServiceImpl implements BookLoanService {
 
         // 5. Check user's active checkout limit (enforced by subscription)
         long activeCheckouts = bookLoanRepository.countActiveBookLoansByUser(userId);
-        int maxBooksAllowed = subscription.getMaxBooksAllowed();
+        int maxBooksAllowed = subscription.maxBooksAllowed();
 
         if (activeCheckouts >= maxBooksAllowed) {
             throw new BookLoanException(
                 "You have reached your subscription limit of " + maxBooksAllowed + " active checkouts. " +
-                "Your current plan: " + subscription.getPlanName() + ". " +
+                "Your current plan: " + subscription.planName() + ". " +
                 "Please return books or upgrade your subscription for more checkouts.");
         }
 
@@ -136,7 +142,12 @@ public class BookLoanServiceImpl implements BookLoanService {
         }
 
         // 7. Check for unpaid fines
-
+        long outstandingFines = fineBalanceService.getOutstanding(userId);
+        if (outstandingFines > 0) {
+            throw new BookLoanException(String.format(
+                    "User has unpaid fines of $%.2f. Cannot checkout until fines are paid.",
+                    outstandingFines / 100.0));
+        }
 
         // 8. Create book loan
         BookLoan bookLoan = new BookLoan();
@@ -148,8 +159,8 @@ public class BookLoanServiceImpl implements BookLoanService {
 
         // Use subscription's maxDaysPerBook if no specific checkout days requested
         int checkoutDays = checkoutRequest.getCheckoutDays() != null
-                ? Math.min(checkoutRequest.getCheckoutDays(), subscription.getMaxDaysPerBook())
-                : subscription.getMaxDaysPerBook();
+                ? Math.min(checkoutRequest.getCheckoutDays(), subscription.maxDaysPerBook())
+                : subscription.maxDaysPerBook();
         bookLoan.setDueDate(LocalDate.now().plusDays(checkoutDays));
 
         bookLoan.setRenewalCount(0);
@@ -203,11 +214,9 @@ public class BookLoanServiceImpl implements BookLoanService {
         bookLoan.setStatus(condition);
 
         // 5. Calculate and apply fines
-        BigDecimal fine = BigDecimal.ZERO;
-
-        // Overdue fine
+        // Overdue fine: settle the accrual fine at the amount owed on the return date
         if (LocalDate.now().isAfter(bookLoan.getDueDate())) {
-            fine = fineCalculationService.calculateOverdueFine(bookLoan);
+            fineAccrualService.accrueOnReturn(bookLoan, bookLoan.getReturnDate());
             int overdueDays = fineCalculationService.calculateOverdueDays(
                     bookLoan.getDueDate(), LocalDate.now());
             bookLoan.setOverdueDays(overdueDays);
@@ -414,31 +423,11 @@ public class BookLoanServiceImpl implements BookLoanService {
     }
 
     @Override
+    @Transactional(Transactional.TxType.NOT_SUPPORTED)
     public int updateOverdueBookLoans() {
-        Pageable pageable = PageRequest.of(0, 1000); // Process in batches
-        Page<BookLoan> overduePage = bookLoanRepository.findOverdueBookLoans(LocalDate.now(), pageable);
-
-        int updateCount = 0;
-        for (BookLoan bookLoan : overduePage.getContent()) {
-            if (bookLoan.getStatus() == BookLoanStatus.CHECKED_OUT) {
-                bookLoan.setStatus(BookLoanStatus.OVERDUE);
-                bookLoan.setIsOverdue(true);
-
-                // Calculate overdue days
-                int overdueDays = fineCalculationService.calculateOverdueDays(
-                        bookLoan.getDueDate(), LocalDate.now());
-                bookLoan.setOverdueDays(overdueDays);
-
-                // Calculate fine
-                BigDecimal fine = fineCalculationService.calculateOverdueFine(bookLoan);
-
-
-                bookLoanRepository.save(bookLoan);
-                updateCount++;
-            }
-        }
-
-        return updateCount;
+        // Marks overdue loans and accrues their fines in chunked batches
+        FineAccrualReport report = fineAccrualService.run();
+        return report != null ? report.getMarkedOverdue() : 0;
     }
 
     @Override
@@ -469,6 +458,22 @@ public class BookLoanServiceImpl implements BookLoanService {
 
     // ==================== HELPER METHODS ====================
 
+    /**
+     * Entitlement from the caller's verified token, if the token belongs to
+     * this user and its claim is still current; null otherwise
+     */
+    private SubscriptionEntitlement entitlementFromToken(User user) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null
+                || !(authentication.getDetails() instanceof EntitlementClaim claim)
+                || !user.getEmail().equals(authentication.getName())) {
+            return null;
+        }
+        return claim.isUsable(user.getEntitlementVersion(), Instant.now(), LocalDate.now())
+                ? claim.toEntitlement()
+                : null;
+    }
+
     private User getCurrentAuthenticatedUser() {
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
         String email = authentication.getName();
@@ -0,0 +1,326 @@
+package com.library.service.impl;
+
+import com.library.exception.BookException;
+import com.library.model.BookRatingAggregate;
+import com.library.model.BookReview;
+import com.library.payload.dto.BookRatingStatisticsDTO;
+import com.library.payload.response.RatingRecomputeReport;
+import com.library.repository.BookRatingAggregateRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Maintains and serves the book_rating_aggregates table.
+ *
+ * Every review create, update and (soft) delete adds its difference to the
+ * book's row with an upsert in the same transaction, so rating statistics
+ * are one read instead of an average, a count, a group-by and a paged
+ * verified-reader query.
+ *
+ * A nightly recompute rebuilds the totals from active reviews in book ID
+ * ranges and corrects drift (e.g. reviews moderated directly in the
+ * database). Like the fine balance reconciliation, each range locks its
+ * aggregate rows before reading the reviews.
+ */
+@Service
+@Slf4j
+public class BookRatingAggregateService {
+
+    private static final String BOOK_RANGE_SQL =
+            "SELECT id FROM books WHERE id > ? ORDER BY id LIMIT ?";
+
+    private static final String LOCK_AGGREGATES_SQL = """
+            SELECT book_id, star1_count, star2_count, star3_count, star4_count, star5_count,
+                   rating_sum, verified_count, total_reviews
+            FROM book_rating_aggregates
+            WHERE book_id BETWEEN ? AND ?
+            FOR UPDATE
+            """;
+
+    private static final String REVIEW_TOTALS_SQL = """
+            SELECT book_id,
+                   SUM(rating = 1) AS star1_count, SUM(rating = 2) AS star2_count,
+                   SUM(rating = 3) AS star3_count, SUM(rating = 4) AS star4_count,
+                   SUM(rating = 5) AS star5_count, SUM(rating) AS rating_sum,
+                   SUM(is_verified_reader) AS verified_count, COUNT(*) AS total_reviews
+            FROM book_reviews
+            WHERE book_id BETWEEN ? AND ? AND is_active = TRUE
+            GROUP BY book_id
+            """;
+
+    private static final String SET_AGGREGATE_SQL = """
+            INSERT INTO book_rating_aggregates (book_id, star1_count, star2_count, star3_count, star4_count,
+                                                star5_count, rating_sum, verified_count, total_reviews, updated_at)
+            VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
+            ON DUPLICATE KEY UPDATE star1_count = VALUES(star1_count), star2_count = VALUES(star2_count),
+                                    star3_count = VALUES(star3_count), star4_count = VALUES(star4_count),
+                                    star5_count = VALUES(star5_count), rating_sum = VALUES(rating_sum),
+                                    verified_count = VALUES(verified_count),
+                                    total_reviews = VALUES(total_reviews), updated_at = VALUES(updated_at)
+            """;
+
+    private final BookRatingAggregateRepository aggregateRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final int chunkSize;
+
+    private final AtomicBoolean running = new AtomicBoolean(false);
+    private volatile RatingRecomputeReport lastReport;
+
+    public BookRatingAggregateService(BookRatingAggregateRepository aggregateRepository,
+                                      JdbcTemplate jdbcTemplate,
+                                      PlatformTransactionManager transactionManager,
+                                      @Value("${review.rating.recompute.chunk-size:2000}") int chunkSize) {
+        this.aggregateRepository = aggregateRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Rating totals of a book, or what one review contributes to them
+     */
+    public record Totals(long star1, long star2, long star3, long star4, long star5,
+                         long ratingSum, long verified, long total) {
+
+        public static final Totals NONE = new Totals(0, 0, 0, 0, 0, 0, 0, 0);
+
+        public static Totals of(BookReview review) {
+            if (!Boolean.TRUE.equals(review.getIsActive()) || review.getRating() == null) {
+                return NONE;
+            }
+            int rating = review.getRating();
+            return new Totals(rating == 1 ? 1 : 0, rating == 2 ? 1 : 0, rating == 3 ? 1 : 0,
+                    rating == 4 ? 1 : 0, rating == 5 ? 1 : 0, rating,
+                    Boolean.TRUE.equals(review.getIsVerifiedReader()) ? 1 : 0, 1);
+        }
+
+        public static Totals of(BookRatingAggregate aggregate) {
+            return new Totals(aggregate.getStar1Count(), aggregate.getStar2Count(), aggregate.getStar3Count(),
+                    aggregate.getStar4Count(), aggregate.getStar5Count(), aggregate.getRatingSum(),
+                    aggregate.getVerifiedCount(), aggregate.getTotalReviews());
+        }
+
+        public Totals minus(Totals other) {
+            return new Totals(star1 - other.star1, star2 - other.star2, star3 - other.star3,
+                    star4 - other.star4, star5 - other.star5, ratingSum - other.ratingSum,
+                    verified - other.verified, total - other.total);
+        }
+
+        public boolean isZero() {
+            return equals(NONE);
+        }
+    }
+
+    // ==================== AGGREGATE UPDATES ====================
+
+    /**
+     * Add a newly created review to its book's totals
+     */
+    @Transactional
+    public void recordCreated(BookReview review) {
+        apply(review.getBook().getId(), Totals.of(review));
+    }
+
+    /**
+     * Apply the change of a review's contribution since {@code before} was taken
+     */
+    @Transactional
+    public void recordChanged(BookReview review, Totals before) {
+        apply(review.getBook().getId(), Totals.of(review).minus(before));
+    }
+
+    // ==================== QUERIES ====================
+
+    /**
+     * Rating statistics of a book from its aggregate row (one read)
+     */
+    @Transactional(readOnly = true)
+    public BookRatingStatisticsDTO getStatistics(Long bookId) throws BookException {
+        List<Object[]> rows = aggregateRepository.findTitleAndAggregate(bookId);
+        if (rows.isEmpty()) {
+            throw new BookException("Book not found with id: " + bookId);
+        }
+        String title = (String) rows.get(0)[0];
+        BookRatingAggregate aggregate = (BookRatingAggregate) rows.get(0)[1];
+        Totals totals = aggregate == null ? Totals.NONE : Totals.of(aggregate);
+
+        Map<Integer, Long> ratingDistribution = new LinkedHashMap<>();
+        ratingDistribution.put(1, totals.star1());
+        ratingDistribution.put(2, totals.star2());
+        ratingDistribution.put(3, totals.star3());
+        ratingDistribution.put(4, totals.star4());
+        ratingDistribution.put(5, totals.star5());
+
+        return BookRatingStatisticsDTO.builder()
+                .bookId(bookId)
+                .bookTitle(title)
+                .averageRating(totals.total() > 0 ? (double) totals.ratingSum() / totals.total() : 0.0)
+                .totalReviews(totals.total())
+                .ratingDistribution(ratingDistribution)
+                .verifiedReaderReviews(totals.verified())
+                .build();
+    }
+
+    // ==================== RECOMPUTE ====================
+
+    /**
+     * Nightly recompute to cover drift
+     */
+    @Scheduled(cron = "${review.rating.recompute.cron:0 0 3 * * ?}")
+    public void scheduledRecompute() {
+        recompute();
+    }
+
+    /**
+     * Backfill on first start, when the aggregate table is still empty
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillIfEmpty() {
+        try {
+            if (aggregateRepository.count() == 0) {
+                log.info("Book rating aggregates are empty, backfilling from reviews");
+                recompute();
+            }
+        } catch (Exception e) {
+            log.error("Book rating aggregate backfill failed", e);
+        }
+    }
+
+    /**
+     * Recompute every book's totals and correct the rows that differ
+     * @return The report, or null if a run is already in progress
+     */
+    public RatingRecomputeReport recompute() {
+        if (!running.compareAndSet(false, true)) {
+            log.info("Book rating recompute already running, skipping");
+            return null;
+        }
+        try {
+            RatingRecomputeReport report = runPass();
+            lastReport = report;
+            return report;
+        } finally {
+            running.set(false);
+        }
+    }
+
+    public RatingRecomputeReport getLastReport() {
+        return lastReport;
+    }
+
+    // ==================== HELPER METHODS ====================
+
+    private void apply(Long bookId, Totals delta) {
+        if (!delta.isZero()) {
+            aggregateRepository.applyDelta(bookId, (int) delta.star1(), (int) delta.star2(), (int) delta.star3(),
+                    (int) delta.star4(), (int) delta.star5(), delta.ratingSum(), (int) delta.verified(),
+                    (int) delta.total());
+        }
+    }
+
+    private RatingRecomputeReport runPass() {
+        LocalDateTime startedAt = LocalDateTime.now();
+        long startNanos = System.nanoTime();
+
+        int booksScanned = 0;
+        int corrected = 0;
+
+        long afterId = 0;
+        while (true) {
+            List<Long> bookIds = jdbcTemplate.queryForList(BOOK_RANGE_SQL, Long.class, afterId, chunkSize);
+            if (bookIds.isEmpty()) {
+                break;
+            }
+            long fromId = bookIds.get(0);
+            long toId = bookIds.get(bookIds.size() - 1);
+            afterId = toId;
+            booksScanned += bookIds.size();
+
+            Integer fixed = transactionTemplate.execute(tx -> recomputeRange(fromId, toId));
+            corrected += fixed == null ? 0 : fixed;
+
+            if (bookIds.size() < chunkSize) {
+                break;
+            }
+        }
+
+        RatingRecomputeReport report = RatingRecomputeReport.builder()
+                .startedAt(startedAt)
+                .finishedAt(LocalDateTime.now())
+                .durationMillis(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos))
+                .booksScanned(booksScanned)
+                .aggregatesCorrected(corrected)
+                .build();
+
+        if (corrected > 0) {
+            log.warn("Book rating recompute corrected {} of {} book(s) in {} ms",
+                    corrected, booksScanned, report.getDurationMillis());
+        } else {
+            log.info("Book rating recompute checked {} book(s) in {} ms, no drift",
+                    booksScanned, report.getDurationMillis());
+        }
+        return report;
+    }
+
+    /**
+     * @return Number of aggregate rows corrected for books in [fromId, toId]
+     */
+    private int recomputeRange(long fromId, long toId) {
+        Map<Long, Totals> stored = new HashMap<>();
+        jdbcTemplate.query(LOCK_AGGREGATES_SQL, rs -> {
+            stored.put(rs.getLong("book_id"), readTotals(rs));
+        }, fromId, toId);
+
+        Map<Long, Totals> actual = new HashMap<>();
+        jdbcTemplate.query(REVIEW_TOTALS_SQL, rs -> {
+            actual.put(rs.getLong("book_id"), readTotals(rs));
+        }, fromId, toId);
+
+        Set<Long> bookIds = new HashSet<>(stored.keySet());
+        bookIds.addAll(actual.keySet());
+
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> corrections = new ArrayList<>();
+        for (Long bookId : bookIds) {
+            Totals want = actual.getOrDefault(bookId, Totals.NONE);
+            if (!stored.getOrDefault(bookId, Totals.NONE).equals(want)) {
+                corrections.add(new Object[]{bookId, want.star1(), want.star2(), want.star3(), want.star4(),
+                        want.star5(), want.ratingSum(), want.verified(), want.total(), now});
+            }
+        }
+
+        if (!corrections.isEmpty()) {
+            jdbcTemplate.batchUpdate(SET_AGGREGATE_SQL, corrections);
+        }
+        return corrections.size();
+    }
+
+    private static Totals readTotals(ResultSet rs) throws SQLException {
+        return new Totals(rs.getLong("star1_count"), rs.getLong("star2_count"), rs.getLong("star3_count"),
+                rs.getLong("star4_count"), rs.getLong("star5_count"), rs.getLong("rating_sum"),
+                rs.getLong("verified_count"), rs.getLong("total_reviews"));
+    }
+}
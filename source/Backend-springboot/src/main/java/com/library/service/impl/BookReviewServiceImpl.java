@@ -1,8 +1,6 @@
 package com.library.service.impl;
 
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 import java.util.stream.Collectors;
 
 import org.springframework.data.domain.Page;
@@ -48,18 +46,21 @@ public class BookReviewServiceImpl implements BookReviewService {
     private final UserRepository userRepository;
     private final BookLoanRepository bookLoanRepository;
     private final BookReviewMapper bookReviewMapper;
+    private final BookRatingAggregateService ratingAggregateService;
 
     public BookReviewServiceImpl(
             BookReviewRepository bookReviewRepository,
             BookRepository bookRepository,
             UserRepository userRepository,
             BookLoanRepository bookLoanRepository,
-            BookReviewMapper bookReviewMapper) {
+            BookReviewMapper bookReviewMapper,
+            BookRatingAggregateService ratingAggregateService) {
         this.bookReviewRepository = bookReviewRepository;
         this.bookRepository = bookRepository;
         this.userRepository = userRepository;
         this.bookLoanRepository = bookLoanRepository;
         this.bookReviewMapper = bookReviewMapper;
+        this.ratingAggregateService = ratingAggregateService;
     }
 
     @Override
@@ -98,6 +99,7 @@ public class BookReviewServiceImpl implements BookReviewService {
 
         // 5. Save review
         BookReview savedReview = bookReviewRepository.save(bookReview);
+        ratingAggregateService.recordCreated(savedReview);
 
         return bookReviewMapper.toDTO(savedReview);
     }
@@ -117,12 +119,14 @@ public class BookReviewServiceImpl implements BookReviewService {
         }
 
         // 3. Update the review
+        BookRatingAggregateService.Totals before = BookRatingAggregateService.Totals.of(bookReview);
         bookReview.setRating(request.getRating());
         bookReview.setReviewText(request.getReviewText());
         bookReview.setTitle(request.getTitle());
 
         // 4. Save updated review
         BookReview updatedReview = bookReviewRepository.save(bookReview);
+        ratingAggregateService.recordChanged(updatedReview, before);
 
         return bookReviewMapper.toDTO(updatedReview);
     }
@@ -142,8 +146,10 @@ public class BookReviewServiceImpl implements BookReviewService {
         }
 
         // 3. Soft delete (mark as inactive)
+        BookRatingAggregateService.Totals before = BookRatingAggregateService.Totals.of(bookReview);
         bookReview.setIsActive(false);
         bookReviewRepository.save(bookReview);
+        ratingAggregateService.recordChanged(bookReview, before);
     }
 
     @Override
@@ -211,47 +217,8 @@ public class BookReviewServiceImpl implements BookReviewService {
 
     @Override
     public BookRatingStatisticsDTO getRatingStatistics(Long bookId) throws BookException {
-
-        // 1. Validate book exists
-        Book book = bookRepository.findById(bookId)
-                .orElseThrow(() -> new BookException("Book not found with id: " + bookId));
-
-        // 2. Get average rating
-        Double averageRating = bookReviewRepository.getAverageRatingByBookId(bookId);
-
-        // 3. Get total reviews count
-        Long totalReviews = bookReviewRepository.countReviewsByBookId(bookId);
-
-        // 4. Get rating distribution
-        List<Object[]> ratingData = bookReviewRepository.countReviewsByRatingForBook(bookId);
-        Map<Integer, Long> ratingDistribution = new HashMap<>();
-
-        // Initialize all ratings with 0
-        for (int i = 1; i <= 5; i++) {
-            ratingDistribution.put(i, 0L);
-        }
-
-        // Fill in actual counts
-        for (Object[] row : ratingData) {
-            Integer rating = (Integer) row[0];
-            Long count = (Long) row[1];
-            ratingDistribution.put(rating, count);
-        }
-
-        // 5. Count verified reader reviews
-        Pageable pageable = PageRequest.of(0, 1);
-        Long verifiedReaderReviews = bookReviewRepository
-                .findByBookIdAndIsVerifiedReaderTrueAndIsActiveTrue(bookId, pageable)
-                .getTotalElements();
-
-        return BookRatingStatisticsDTO.builder()
-                .bookId(bookId)
-                .bookTitle(book.getTitle())
-                .averageRating(averageRating != null ? averageRating : 0.0)
-                .totalReviews(totalReviews)
-                .ratingDistribution(ratingDistribution)
-                .verifiedReaderReviews(verifiedReaderReviews)
-                .build();
+        // Served from the book's rating aggregate row (see BookRatingAggregateService)
+        return ratingAggregateService.getStatistics(bookId);
     }
 
     @Override
@@ -0,0 +1,314 @@
+package com.library.service.impl;
+
+import com.library.domain.FineStatus;
+import com.library.model.BookLoan;
+import com.library.payload.response.FineAccrualReport;
+import com.library.repository.SubscriptionRepository;
+import com.library.service.cache.FinePolicyTable;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Nightly accrual of OVERDUE fines.
+ *
+ * Loans that are checked out or overdue past their due date are read in
+ * keyset chunks straight from book_loans (ID, user, due date, status, plus
+ * the book's genre and the borrower's plan). For each loan the fine is
+ * computed in minor units from the compiled FinePolicyTable (rate, grace
+ * period and cap of the plan and genre); the table is taken once per run so
+ * a reload mid-run does not mix two rule sets. Each chunk is then written in one
+ * transaction with JDBC batches:
+ * - the loans are marked OVERDUE with their current overdue days;
+ * - the chunk's existing accrual fines (fines.accrual_loan_id = loan ID,
+ *   unique) are locked and compared, and only new or grown fines are
+ *   upserted. An existing fine only grows while it is still PENDING or
+ *   PARTIALLY_PAID; paid and waived fines are left alone. Admin bulk
+ *   adjustments are kept in fines.adjustment and added to the computed
+ *   amount, so an adjusted fine keeps its adjustment as it keeps accruing;
+ * - the resulting per-user differences are added to the fine balance ledger.
+ *
+ * Re-running on the same day is harmless. Batches are only sent as
+ * multi-row statements when the MySQL URL has rewriteBatchedStatements=true.
+ */
+@Service
+@Slf4j
+public class FineAccrualService {
+
+    // The plan is the one of the borrower's active subscription ending last
+    private static final String LOAN_SQL = """
+            SELECT bl.id, bl.user_id, bl.due_date, bl.status, b.genre_id,
+                   (SELECT s.plan_id FROM subscriptions s
+                    WHERE s.user_id = bl.user_id AND s.is_active = TRUE
+                    ORDER BY s.end_date DESC
+                    LIMIT 1) AS plan_id
+            FROM book_loans bl
+            JOIN books b ON b.id = bl.book_id
+            WHERE bl.status IN ('CHECKED_OUT', 'OVERDUE') AND bl.due_date < ? AND bl.id > ?
+            ORDER BY bl.id
+            LIMIT ?
+            """;
+
+    private static final String MARK_OVERDUE_SQL = """
+            UPDATE book_loans
+            SET status = 'OVERDUE', is_overdue = TRUE, overdue_days = ?, updated_at = ?
+            WHERE id = ? AND status IN ('CHECKED_OUT', 'OVERDUE')
+            """;
+
+    private static final String LOCK_LOAN_SQL = "SELECT id FROM book_loans WHERE id = ? FOR UPDATE";
+
+    private static final String EXISTING_FINES_SQL = """
+            SELECT accrual_loan_id, amount, adjustment, status
+            FROM fines
+            WHERE accrual_loan_id BETWEEN ? AND ?
+            FOR UPDATE
+            """;
+
+    // Assignments run left to right: amount must be updated last so the
+    // conditions above it still see the old value
+    private static final String UPSERT_FINE_SQL = """
+            INSERT INTO fines (book_loan_id, user_id, type, amount, amount_paid, adjustment, status, reason,
+                               accrual_loan_id, created_at, updated_at)
+            VALUES (?, ?, 'OVERDUE', ?, 0, 0, 'PENDING', ?, ?, ?, ?)
+            ON DUPLICATE KEY UPDATE
+                updated_at = IF(status IN ('PENDING', 'PARTIALLY_PAID') AND amount < VALUES(amount) + adjustment,
+                                VALUES(updated_at), updated_at),
+                reason = IF(status IN ('PENDING', 'PARTIALLY_PAID') AND amount < VALUES(amount) + adjustment,
+                            VALUES(reason), reason),
+                amount = IF(status IN ('PENDING', 'PARTIALLY_PAID'),
+                            GREATEST(amount, VALUES(amount) + adjustment), amount)
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final FineCalculationService fineCalculationService;
+    private final FinePolicyTable finePolicyTable;
+    private final SubscriptionRepository subscriptionRepository;
+    private final FineBalanceService fineBalanceService;
+    private final TransactionTemplate transactionTemplate;
+    private final int chunkSize;
+
+    private final AtomicBoolean running = new AtomicBoolean(false);
+    private volatile FineAccrualReport lastReport;
+
+    public FineAccrualService(JdbcTemplate jdbcTemplate,
+                              FineCalculationService fineCalculationService,
+                              FinePolicyTable finePolicyTable,
+                              SubscriptionRepository subscriptionRepository,
+                              FineBalanceService fineBalanceService,
+                              PlatformTransactionManager transactionManager,
+                              @Value("${fine.accrual.chunk-size:5000}") int chunkSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.fineCalculationService = fineCalculationService;
+        this.finePolicyTable = finePolicyTable;
+        this.subscriptionRepository = subscriptionRepository;
+        this.fineBalanceService = fineBalanceService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Accrue fines for every overdue loan as of today
+     * @return The report, or null if a run is already in progress
+     */
+    public FineAccrualReport run() {
+        if (!running.compareAndSet(false, true)) {
+            log.info("Fine accrual already running, skipping");
+            return null;
+        }
+        try {
+            FineAccrualReport report = accrue(LocalDate.now());
+            lastReport = report;
+            return report;
+        } finally {
+            running.set(false);
+        }
+    }
+
+    public FineAccrualReport getLastReport() {
+        return lastReport;
+    }
+
+    /**
+     * Settle the accrual fine of a loan being returned, inside the caller's
+     * transaction: the fine is fixed at the amount owed on the return date.
+     * The loan row is locked first, as the nightly chunk does, and the fine
+     * then goes through the same locked read and upsert, so a return and a
+     * running accrual never both insert the fine or both count it in the ledger.
+     * @return The fine amount in minor units (0 if returned within the grace period)
+     */
+    public long accrueOnReturn(BookLoan bookLoan, LocalDate returnDate) {
+        long planId = subscriptionRepository.findActivePlanIds(bookLoan.getUser().getId(), PageRequest.of(0, 1))
+                .stream().findFirst().orElse(0L);
+        long genreId = bookLoan.getBook().getGenre().getId();
+        long amount = fineCalculationService.calculateOverdueFineMinor(
+                planId, genreId, bookLoan.getDueDate(), returnDate);
+        if (amount <= 0) {
+            return 0;
+        }
+
+        long loanId = bookLoan.getId();
+        jdbcTemplate.queryForList(LOCK_LOAN_SQL, Long.class, loanId);
+
+        OverdueLoan loan = new OverdueLoan(loanId, bookLoan.getUser().getId(), bookLoan.getDueDate(),
+                false, planId, genreId);
+        upsertFines(List.of(new AccruedFine(loan, amount)), loanId, loanId, returnDate,
+                Timestamp.valueOf(LocalDateTime.now()));
+        return amount;
+    }
+
+    // ==================== HELPER METHODS ====================
+
+    private FineAccrualReport accrue(LocalDate asOf) {
+        LocalDateTime startedAt = LocalDateTime.now();
+        long startNanos = System.nanoTime();
+        Timestamp now = Timestamp.valueOf(startedAt);
+        FinePolicyTable.Compiled policies = finePolicyTable.current();
+
+        int scanned = 0;
+        int markedOverdue = 0;
+        int finesUpserted = 0;
+        long totalAccrued = 0;
+
+        long afterId = 0;
+        while (true) {
+            List<OverdueLoan> chunk = jdbcTemplate.query(LOAN_SQL,
+                    (rs, rowNum) -> new OverdueLoan(
+                            rs.getLong("id"),
+                            rs.getLong("user_id"),
+                            rs.getDate("due_date").toLocalDate(),
+                            "CHECKED_OUT".equals(rs.getString("status")),
+                            rs.getLong("plan_id"),
+                            rs.getLong("genre_id")),
+                    Date.valueOf(asOf), afterId, chunkSize);
+            if (chunk.isEmpty()) {
+                break;
+            }
+            afterId = chunk.get(chunk.size() - 1).id();
+            scanned += chunk.size();
+
+            List<Object[]> loanUpdates = new ArrayList<>(chunk.size());
+            List<AccruedFine> accrued = new ArrayList<>(chunk.size());
+            for (OverdueLoan loan : chunk) {
+                int overdueDays = (int) ChronoUnit.DAYS.between(loan.dueDate(), asOf);
+                loanUpdates.add(new Object[]{overdueDays, now, loan.id()});
+                if (loan.checkedOut()) {
+                    markedOverdue++;
+                }
+
+                long amount = policies.overdueFine(loan.planId(), loan.genreId(), loan.dueDate(), asOf);
+                if (amount > 0) {
+                    accrued.add(new AccruedFine(loan, amount));
+                    totalAccrued += amount;
+                }
+            }
+
+            long fromId = chunk.get(0).id();
+            long toId = afterId;
+            Integer upserted = transactionTemplate.execute(tx -> {
+                jdbcTemplate.batchUpdate(MARK_OVERDUE_SQL, loanUpdates);
+                return upsertFines(accrued, fromId, toId, asOf, now);
+            });
+            finesUpserted += upserted == null ? 0 : upserted;
+
+            if (chunk.size() < chunkSize) {
+                break;
+            }
+        }
+
+        FineAccrualReport report = FineAccrualReport.builder()
+                .accrualDate(asOf)
+                .startedAt(startedAt)
+                .finishedAt(LocalDateTime.now())
+                .durationMillis(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos))
+                .scanned(scanned)
+                .markedOverdue(markedOverdue)
+                .finesUpserted(finesUpserted)
+                .totalAccruedMinor(totalAccrued)
+                .build();
+
+        log.info("Fine accrual for {}: scanned {} loan(s), marked {} overdue, upserted {} fine(s) in {} ms",
+                asOf, report.getScanned(), report.getMarkedOverdue(), report.getFinesUpserted(),
+                report.getDurationMillis());
+        return report;
+    }
+
+    /**
+     * Upsert the new or grown accrual fines of one chunk and add the
+     * differences to the users' balances. Runs in the caller's transaction.
+     * @return Number of fines written
+     */
+    private int upsertFines(List<AccruedFine> accrued, long fromLoanId, long toLoanId,
+                            LocalDate asOf, Timestamp now) {
+        if (accrued.isEmpty()) {
+            return 0;
+        }
+
+        Map<Long, ExistingFine> existing = new HashMap<>();
+        jdbcTemplate.query(EXISTING_FINES_SQL, rs -> {
+            existing.put(rs.getLong("accrual_loan_id"), new ExistingFine(
+                    rs.getLong("amount"),
+                    rs.getLong("adjustment"),
+                    FineStatus.PENDING.name().equals(rs.getString("status"))
+                            || FineStatus.PARTIALLY_PAID.name().equals(rs.getString("status"))));
+        }, fromLoanId, toLoanId);
+
+        List<Object[]> fineUpserts = new ArrayList<>(accrued.size());
+        SortedMap<Long, FineBalanceService.Contribution> deltas = new TreeMap<>();
+        for (AccruedFine fine : accrued) {
+            OverdueLoan loan = fine.loan();
+            ExistingFine current = existing.get(loan.id());
+            FineBalanceService.Contribution delta;
+            if (current == null) {
+                delta = new FineBalanceService.Contribution(fine.amount(), 1);
+            } else if (current.pending() && current.amount() < fine.amount() + current.adjustment()) {
+                delta = new FineBalanceService.Contribution(
+                        fine.amount() + current.adjustment() - current.amount(), 0);
+            } else {
+                continue;
+            }
+            fineUpserts.add(new Object[]{loan.id(), loan.userId(), fine.amount(),
+                    overdueReason(loan.dueDate(), asOf), loan.id(), now, now});
+            deltas.merge(loan.userId(), delta, (a, b) -> a.plus(b.outstanding(), b.unpaid()));
+        }
+
+        if (!fineUpserts.isEmpty()) {
+            jdbcTemplate.batchUpdate(UPSERT_FINE_SQL, fineUpserts);
+            fineBalanceService.applyDeltas(deltas);
+        }
+        return fineUpserts.size();
+    }
+
+    private static String overdueReason(LocalDate dueDate, LocalDate asOf) {
+        long days = ChronoUnit.DAYS.between(dueDate, asOf);
+        return "Overdue by " + days + " day" + (days == 1 ? "" : "s") + " (due " + dueDate + ")";
+    }
+
+    // planId is 0 when the borrower has no active subscription
+    private record OverdueLoan(long id, long userId, LocalDate dueDate, boolean checkedOut,
+                               long planId, long genreId) {
+    }
+
+    private record AccruedFine(OverdueLoan loan, long amount) {
+    }
+
+    private record ExistingFine(long amount, long adjustment, boolean pending) {
+    }
+}
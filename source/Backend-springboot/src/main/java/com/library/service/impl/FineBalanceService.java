@@ -0,0 +1,328 @@
+package com.library.service.impl;
+
+import com.library.model.Fine;
+import com.library.model.UserFineBalance;
+import com.library.payload.response.FineBalanceReconciliationReport;
+import com.library.repository.UserFineBalanceRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Maintains and serves the user_fine_balances ledger.
+ *
+ * Every change to an unpaid fine (creation, payment, waiver, deletion,
+ * accrual) adds its difference to the user's row with an upsert in the same
+ * transaction, so "how much does this user owe" is a primary-key read
+ * instead of a SUM over fines.
+ *
+ * A nightly reconciliation recomputes the balances from the fines table in
+ * user ID ranges and corrects any drift (fines changed outside the service,
+ * e.g. loans deleted with their fines). Each range locks its ledger rows
+ * first and then reads the fines, so a concurrent fine change either
+ * committed before the read or applies its delta after the correction.
+ */
+@Service
+@Slf4j
+public class FineBalanceService {
+
+    private static final String USER_RANGE_SQL =
+            "SELECT id FROM users WHERE id > ? ORDER BY id LIMIT ?";
+
+    private static final String LOCK_BALANCES_SQL = """
+            SELECT user_id, outstanding_amount, unpaid_count
+            FROM user_fine_balances
+            WHERE user_id BETWEEN ? AND ?
+            FOR UPDATE
+            """;
+
+    private static final String UNPAID_TOTALS_SQL = """
+            SELECT user_id, SUM(amount - amount_paid) AS outstanding, COUNT(*) AS unpaid
+            FROM fines
+            WHERE user_id BETWEEN ? AND ? AND status IN ('PENDING', 'PARTIALLY_PAID')
+            GROUP BY user_id
+            """;
+
+    // Same upsert as UserFineBalanceRepository.applyDelta, for JDBC batches
+    private static final String APPLY_DELTA_SQL = """
+            INSERT INTO user_fine_balances (user_id, outstanding_amount, unpaid_count, updated_at)
+            VALUES (?, ?, ?, ?)
+            ON DUPLICATE KEY UPDATE outstanding_amount = outstanding_amount + VALUES(outstanding_amount),
+                                    unpaid_count = unpaid_count + VALUES(unpaid_count),
+                                    updated_at = VALUES(updated_at)
+            """;
+
+    private static final String SET_BALANCE_SQL = """
+            INSERT INTO user_fine_balances (user_id, outstanding_amount, unpaid_count, updated_at)
+            VALUES (?, ?, ?, ?)
+            ON DUPLICATE KEY UPDATE outstanding_amount = VALUES(outstanding_amount),
+                                    unpaid_count = VALUES(unpaid_count),
+                                    updated_at = VALUES(updated_at)
+            """;
+
+    private final UserFineBalanceRepository balanceRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final int chunkSize;
+
+    private final AtomicBoolean running = new AtomicBoolean(false);
+    private volatile FineBalanceReconciliationReport lastReport;
+
+    public FineBalanceService(UserFineBalanceRepository balanceRepository,
+                              JdbcTemplate jdbcTemplate,
+                              PlatformTransactionManager transactionManager,
+                              @Value("${fine.balance.reconcile.chunk-size:2000}") int chunkSize) {
+        this.balanceRepository = balanceRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * What a fine contributes to its user's balance
+     * @param outstanding Amount still owed, in minor units
+     * @param unpaid      1 if the fine is unpaid, otherwise 0
+     */
+    public record Contribution(long outstanding, int unpaid) {
+
+        public static final Contribution NONE = new Contribution(0, 0);
+
+        public static Contribution of(Fine fine) {
+            if (!fine.isPending()) {
+                return NONE;
+            }
+            return new Contribution(Math.max(fine.getAmountOutstanding(), 0), 1);
+        }
+
+        public Contribution plus(long outstandingDelta, int unpaidDelta) {
+            return new Contribution(outstanding + outstandingDelta, unpaid + unpaidDelta);
+        }
+
+        public boolean isZero() {
+            return outstanding == 0 && unpaid == 0;
+        }
+    }
+
+    // ==================== LEDGER UPDATES ====================
+
+    /**
+     * Add a newly created fine to its user's balance
+     */
+    @Transactional
+    public void recordCreated(Fine fine) {
+        apply(fine.getUser().getId(), Contribution.of(fine));
+    }
+
+    /**
+     * Apply the change of a fine's contribution since {@code before} was taken
+     */
+    @Transactional
+    public void recordChanged(Fine fine, Contribution before) {
+        Contribution after = Contribution.of(fine);
+        apply(fine.getUser().getId(), after.plus(-before.outstanding(), -before.unpaid()));
+    }
+
+    /**
+     * Remove a fine that is being deleted from its user's balance
+     */
+    @Transactional
+    public void recordDeleted(Fine fine) {
+        Contribution contribution = Contribution.of(fine);
+        apply(fine.getUser().getId(), new Contribution(-contribution.outstanding(), -contribution.unpaid()));
+    }
+
+    /**
+     * Apply many users' deltas in one JDBC batch, inside the caller's
+     * transaction. Rows are written in user ID order to keep lock order stable.
+     */
+    @Transactional
+    public void applyDeltas(SortedMap<Long, Contribution> deltasByUser) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> rows = new ArrayList<>(deltasByUser.size());
+        deltasByUser.forEach((userId, delta) -> {
+            if (!delta.isZero()) {
+                rows.add(new Object[]{userId, delta.outstanding(), delta.unpaid(), now});
+            }
+        });
+        if (!rows.isEmpty()) {
+            jdbcTemplate.batchUpdate(APPLY_DELTA_SQL, rows);
+        }
+    }
+
+    // ==================== QUERIES ====================
+
+    /**
+     * Outstanding fine amount of a user, in minor units
+     */
+    @Transactional(readOnly = true)
+    public long getOutstanding(Long userId) {
+        return balanceRepository.findById(userId)
+                .map(UserFineBalance::getOutstandingAmount)
+                .orElse(0L);
+    }
+
+    @Transactional(readOnly = true)
+    public boolean hasUnpaidFines(Long userId) {
+        return balanceRepository.findById(userId)
+                .map(balance -> balance.getUnpaidCount() > 0)
+                .orElse(false);
+    }
+
+    // ==================== RECONCILIATION ====================
+
+    /**
+     * Nightly reconciliation, after the overdue accrual has run
+     */
+    @Scheduled(cron = "${fine.balance.reconcile.cron:0 30 1 * * ?}")
+    public void scheduledReconcile() {
+        reconcile();
+    }
+
+    /**
+     * Backfill on first start, when the ledger is still empty
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillIfEmpty() {
+        try {
+            if (balanceRepository.count() == 0) {
+                log.info("Fine balances are empty, backfilling from fines");
+                reconcile();
+            }
+        } catch (Exception e) {
+            log.error("Fine balance backfill failed", e);
+        }
+    }
+
+    /**
+     * Recompute every user's balance and correct the ledger where it differs
+     * @return The report, or null if a run is already in progress
+     */
+    public FineBalanceReconciliationReport reconcile() {
+        if (!running.compareAndSet(false, true)) {
+            log.info("Fine balance reconciliation already running, skipping");
+            return null;
+        }
+        try {
+            FineBalanceReconciliationReport report = runPass();
+            lastReport = report;
+            return report;
+        } finally {
+            running.set(false);
+        }
+    }
+
+    public FineBalanceReconciliationReport getLastReport() {
+        return lastReport;
+    }
+
+    // ==================== HELPER METHODS ====================
+
+    private void apply(Long userId, Contribution delta) {
+        if (!delta.isZero()) {
+            balanceRepository.applyDelta(userId, delta.outstanding(), delta.unpaid());
+        }
+    }
+
+    private FineBalanceReconciliationReport runPass() {
+        LocalDateTime startedAt = LocalDateTime.now();
+        long startNanos = System.nanoTime();
+
+        int usersScanned = 0;
+        int corrected = 0;
+        long drift = 0;
+
+        long afterId = 0;
+        while (true) {
+            List<Long> userIds = jdbcTemplate.queryForList(USER_RANGE_SQL, Long.class, afterId, chunkSize);
+            if (userIds.isEmpty()) {
+                break;
+            }
+            long fromId = userIds.get(0);
+            long toId = userIds.get(userIds.size() - 1);
+            afterId = toId;
+            usersScanned += userIds.size();
+
+            long[] result = transactionTemplate.execute(tx -> reconcileRange(fromId, toId));
+            corrected += (int) result[0];
+            drift += result[1];
+
+            if (userIds.size() < chunkSize) {
+                break;
+            }
+        }
+
+        FineBalanceReconciliationReport report = FineBalanceReconciliationReport.builder()
+                .startedAt(startedAt)
+                .finishedAt(LocalDateTime.now())
+                .durationMillis(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos))
+                .usersScanned(usersScanned)
+                .balancesCorrected(corrected)
+                .driftMinor(drift)
+                .build();
+
+        if (corrected > 0) {
+            log.warn("Fine balance reconciliation corrected {} of {} user(s), total drift {} in {} ms",
+                    corrected, usersScanned, drift, report.getDurationMillis());
+        } else {
+            log.info("Fine balance reconciliation checked {} user(s) in {} ms, no drift",
+                    usersScanned, report.getDurationMillis());
+        }
+        return report;
+    }
+
+    /**
+     * @return {corrected rows, absolute drift} for users in [fromId, toId]
+     */
+    private long[] reconcileRange(long fromId, long toId) {
+        Map<Long, Contribution> stored = new HashMap<>();
+        jdbcTemplate.query(LOCK_BALANCES_SQL, rs -> {
+            stored.put(rs.getLong("user_id"),
+                    new Contribution(rs.getLong("outstanding_amount"), rs.getInt("unpaid_count")));
+        }, fromId, toId);
+
+        Map<Long, Contribution> actual = new HashMap<>();
+        jdbcTemplate.query(UNPAID_TOTALS_SQL, rs -> {
+            actual.put(rs.getLong("user_id"),
+                    new Contribution(rs.getLong("outstanding"), rs.getInt("unpaid")));
+        }, fromId, toId);
+
+        Set<Long> userIds = new HashSet<>(stored.keySet());
+        userIds.addAll(actual.keySet());
+
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> corrections = new ArrayList<>();
+        long drift = 0;
+        for (Long userId : userIds) {
+            Contribution have = stored.getOrDefault(userId, Contribution.NONE);
+            Contribution want = actual.getOrDefault(userId, Contribution.NONE);
+            if (!have.equals(want)) {
+                corrections.add(new Object[]{userId, want.outstanding(), want.unpaid(), now});
+                drift += Math.abs(want.outstanding() - have.outstanding());
+            }
+        }
+
+        if (!corrections.isEmpty()) {
+            jdbcTemplate.batchUpdate(SET_BALANCE_SQL, corrections);
+        }
+        return new long[]{corrections.size(), drift};
+    }
+}
@@ -0,0 +1,264 @@
+package com.library.service.impl;
+
+import com.library.exception.FineException;
+import com.library.payload.request.BulkFineRequest;
+import com.library.payload.response.BulkFineOperationResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bulk waive, adjust and payment application for unpaid fines.
+ *
+ * Matching fines are walked in keyset chunks. Each chunk runs in its own
+ * transaction:
+ * - the chunk's rows are selected FOR UPDATE (ID, user, amount, amount paid);
+ * - one set-based UPDATE ... WHERE id IN (chunk) changes them all;
+ * - the per-user differences go to the fine balance ledger in one batch.
+ *
+ * Chunks commit independently, so a failure part-way leaves the earlier
+ * chunks applied; re-running the same request only touches fines that
+ * still match (waived and paid fines are no longer unpaid).
+ */
+@Service
+@Slf4j
+public class FineBulkOperationService {
+
+    private static final String UNPAID = "status IN ('PENDING', 'PARTIALLY_PAID')";
+
+    private static final String WAIVE_SQL =
+            "UPDATE fines SET status = 'WAIVED', waived_by_user_id = ?, waived_at = ?, waiver_reason = ?, " +
+            "updated_at = ? WHERE " + UNPAID + " AND id IN (%s)";
+
+    private static final String PAY_SQL =
+            "UPDATE fines SET amount_paid = amount, status = 'PAID', paid_at = ?, transaction_id = ?, " +
+            "processed_by_user_id = ?, updated_at = ? WHERE " + UNPAID + " AND id IN (%s)";
+
+    // Assignments run left to right: adjustment records the change against the
+    // old amount; status and paid_at see the new amount and status. A fine
+    // lowered to what has already been paid is settled.
+    private static final String ADJUST_SQL =
+            "UPDATE fines SET adjustment = adjustment + GREATEST(amount + ?, amount_paid) - amount, " +
+            "amount = GREATEST(amount + ?, amount_paid), " +
+            "status = IF(amount > amount_paid, status, 'PAID'), " +
+            "paid_at = IF(status = 'PAID', COALESCE(paid_at, ?), paid_at), " +
+            "notes = IF(? IS NULL, notes, LEFT(CONCAT_WS('\\n', notes, ?), 1000)), " +
+            "updated_at = ? WHERE " + UNPAID + " AND id IN (%s)";
+
+    public enum Operation { WAIVE, ADJUST, PAY }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final FineBalanceService fineBalanceService;
+    private final TransactionTemplate transactionTemplate;
+    private final int chunkSize;
+
+    public FineBulkOperationService(JdbcTemplate jdbcTemplate,
+                                    FineBalanceService fineBalanceService,
+                                    PlatformTransactionManager transactionManager,
+                                    @Value("${fine.bulk.chunk-size:500}") int chunkSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.fineBalanceService = fineBalanceService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Apply one bulk operation to every unpaid fine matching the request
+     * @param adminUserId Admin recorded as waiver/processor
+     */
+    public BulkFineOperationResponse execute(Operation operation, BulkFineRequest request, Long adminUserId) {
+        validate(operation, request);
+        long startNanos = System.nanoTime();
+
+        Filter filter = Filter.of(request);
+        String selectSql = "SELECT id, user_id, amount, amount_paid FROM fines WHERE " + UNPAID +
+                filter.sql() + " AND id > ? ORDER BY id LIMIT ? FOR UPDATE";
+
+        Tally tally = new Tally();
+        long afterId = 0;
+        while (true) {
+            long from = afterId;
+            Integer fetched = transactionTemplate.execute(tx -> {
+                List<Object> params = new ArrayList<>(filter.params());
+                params.add(from);
+                params.add(chunkSize);
+                List<FineRow> rows = jdbcTemplate.query(selectSql,
+                        (rs, rowNum) -> new FineRow(
+                                rs.getLong("id"),
+                                rs.getLong("user_id"),
+                                rs.getLong("amount"),
+                                rs.getLong("amount_paid")),
+                        params.toArray());
+                if (!rows.isEmpty()) {
+                    tally.lastId = rows.get(rows.size() - 1).id();
+                    applyChunk(operation, request, adminUserId, rows, tally);
+                }
+                return rows.size();
+            });
+            if (fetched == null || fetched < chunkSize) {
+                break;
+            }
+            afterId = tally.lastId;
+        }
+
+        BulkFineOperationResponse response = BulkFineOperationResponse.builder()
+                .operation(operation.name())
+                .finesUpdated(tally.updated)
+                .finesUnchanged(tally.unchanged)
+                .usersAffected(tally.users.size())
+                .outstandingChange(tally.outstandingChange)
+                .durationMillis(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos))
+                .build();
+
+        log.info("Bulk {} by admin {}: {} fine(s) updated for {} user(s), outstanding change {} in {} ms",
+                operation, adminUserId, response.getFinesUpdated(), response.getUsersAffected(),
+                response.getOutstandingChange(), response.getDurationMillis());
+        return response;
+    }
+
+    // ==================== HELPER METHODS ====================
+
+    private void applyChunk(Operation operation, BulkFineRequest request, Long adminUserId,
+                            List<FineRow> rows, Tally tally) {
+        List<Long> ids = new ArrayList<>(rows.size());
+        SortedMap<Long, FineBalanceService.Contribution> deltas = new TreeMap<>();
+
+        for (FineRow row : rows) {
+            long outstandingBefore = Math.max(row.amount() - row.amountPaid(), 0);
+            FineBalanceService.Contribution delta;
+            if (operation == Operation.ADJUST) {
+                long newAmount = Math.max(row.amount() + request.getAmountDelta(), row.amountPaid());
+                if (newAmount == row.amount()) {
+                    tally.unchanged++;
+                    continue;
+                }
+                long outstandingAfter = newAmount - row.amountPaid();
+                delta = new FineBalanceService.Contribution(outstandingAfter - outstandingBefore,
+                        outstandingAfter > 0 ? 0 : -1);
+            } else {
+                delta = new FineBalanceService.Contribution(-outstandingBefore, -1);
+            }
+            ids.add(row.id());
+            deltas.merge(row.userId(), delta, (a, b) -> a.plus(b.outstanding(), b.unpaid()));
+        }
+        if (ids.isEmpty()) {
+            return;
+        }
+
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        String placeholders = String.join(",", Collections.nCopies(ids.size(), "?"));
+        List<Object> params = new ArrayList<>();
+        String sql = switch (operation) {
+            case WAIVE -> {
+                params.add(adminUserId);
+                params.add(now);
+                params.add(request.getReason());
+                params.add(now);
+                yield WAIVE_SQL;
+            }
+            case PAY -> {
+                params.add(now);
+                params.add(request.getTransactionId());
+                params.add(adminUserId);
+                params.add(now);
+                yield PAY_SQL;
+            }
+            case ADJUST -> {
+                params.add(request.getAmountDelta());
+                params.add(request.getAmountDelta());
+                params.add(now);
+                params.add(request.getReason());
+                params.add(request.getReason());
+                params.add(now);
+                yield ADJUST_SQL;
+            }
+        };
+        params.addAll(ids);
+
+        int updated = jdbcTemplate.update(String.format(sql, placeholders), params.toArray());
+        if (updated != ids.size()) {
+            // The rows are locked, so every selected fine must still match
+            throw new FineException("Bulk " + operation + " updated " + updated + " of " + ids.size() + " fine(s)");
+        }
+        fineBalanceService.applyDeltas(deltas);
+
+        tally.updated += updated;
+        tally.users.addAll(deltas.keySet());
+        deltas.values().forEach(delta -> tally.outstandingChange += delta.outstanding());
+    }
+
+    private static void validate(Operation operation, BulkFineRequest request) {
+        if (!request.hasCriteria()) {
+            throw new FineException("At least one of fineIds, userIds, type, createdFrom or createdTo is required");
+        }
+        if (request.getCreatedFrom() != null && request.getCreatedTo() != null
+                && request.getCreatedFrom().isAfter(request.getCreatedTo())) {
+            throw new FineException("createdFrom must not be after createdTo");
+        }
+        if (operation == Operation.WAIVE && (request.getReason() == null || request.getReason().isBlank())) {
+            throw new FineException("Waiver reason is mandatory");
+        }
+        if (operation == Operation.ADJUST && (request.getAmountDelta() == null || request.getAmountDelta() == 0)) {
+            throw new FineException("A non-zero amountDelta is required");
+        }
+    }
+
+    private record FineRow(long id, long userId, long amount, long amountPaid) {
+    }
+
+    /**
+     * Extra WHERE conditions and their parameters for the request's criteria
+     */
+    private record Filter(String sql, List<Object> params) {
+
+        static Filter of(BulkFineRequest request) {
+            StringBuilder sql = new StringBuilder();
+            List<Object> params = new ArrayList<>();
+            if (request.getFineIds() != null && !request.getFineIds().isEmpty()) {
+                sql.append(" AND id IN (").append(String.join(",",
+                        Collections.nCopies(request.getFineIds().size(), "?"))).append(')');
+                params.addAll(request.getFineIds());
+            }
+            if (request.getUserIds() != null && !request.getUserIds().isEmpty()) {
+                sql.append(" AND user_id IN (").append(String.join(",",
+                        Collections.nCopies(request.getUserIds().size(), "?"))).append(')');
+                params.addAll(request.getUserIds());
+            }
+            if (request.getType() != null) {
+                sql.append(" AND type = ?");
+                params.add(request.getType().name());
+            }
+            if (request.getCreatedFrom() != null) {
+                sql.append(" AND created_at >= ?");
+                params.add(Timestamp.valueOf(request.getCreatedFrom().atStartOfDay()));
+            }
+            if (request.getCreatedTo() != null) {
+                sql.append(" AND created_at < ?");
+                params.add(Timestamp.valueOf(request.getCreatedTo().plusDays(1).atStartOfDay()));
+            }
+            return new Filter(sql.toString(), List.copyOf(params));
+        }
+    }
+
+    private static final class Tally {
+        private long lastId;
+        private int updated;
+        private int unchanged;
+        private long outstandingChange;
+        private final Set<Long> users = new HashSet<>();
+    }
+}
@@ -1,6 +1,7 @@
 package com.library.service.impl;
 
 import com.library.model.BookLoan;
+import com.library.service.cache.FinePolicyTable;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
@@ -8,17 +9,20 @@ import java.time.LocalDate;
 import java.time.temporal.ChronoUnit;
 
 /**
- * Service for calculating fines for overdue books
+ * Service for calculating fines for overdue books.
+ *
+ * Rates, caps, grace periods and penalties come from the compiled
+ * FinePolicyTable (per subscription plan and genre). The BigDecimal methods
+ * use the rule for any plan and genre and return major units.
  */
 @Service
 public class FineCalculationService {
 
-    // Configuration constants - can be moved to application.properties
-    private static final BigDecimal FINE_PER_DAY = new BigDecimal("1.00"); // $1 per day
-    private static final BigDecimal MAXIMUM_FINE = new BigDecimal("50.00"); // Max $50
-    private static final BigDecimal LOST_BOOK_PENALTY = new BigDecimal("100.00"); // $100 for lost book
-    private static final BigDecimal DAMAGED_BOOK_PENALTY = new BigDecimal("25.00"); // $25 for damage
-    private static final int GRACE_PERIOD_DAYS = 0; // No grace period
+    private final FinePolicyTable finePolicyTable;
+
+    public FineCalculationService(FinePolicyTable finePolicyTable) {
+        this.finePolicyTable = finePolicyTable;
+    }
 
     /**
      * Calculate fine for an overdue book loan
@@ -45,24 +49,20 @@ public class FineCalculationService {
         if (actualDate.isBefore(dueDate) || actualDate.isEqual(dueDate)) {
             return BigDecimal.ZERO; // No fine if returned on time
         }
+        return toMajor(finePolicyTable.current().overdueFine(0, 0, dueDate, actualDate));
+    }
 
-        long overdueDays = ChronoUnit.DAYS.between(dueDate, actualDate);
-
-        // Apply grace period
-        overdueDays = overdueDays - GRACE_PERIOD_DAYS;
-        if (overdueDays <= 0) {
-            return BigDecimal.ZERO;
-        }
-
-        // Calculate fine
-        BigDecimal fine = FINE_PER_DAY.multiply(BigDecimal.valueOf(overdueDays));
-
-        // Cap at maximum fine
-        if (fine.compareTo(MAXIMUM_FINE) > 0) {
-            fine = MAXIMUM_FINE;
-        }
-
-        return fine;
+    /**
+     * Overdue fine in minor units (cents) as of a date, after the grace
+     * period and capped at the maximum fine of the plan and genre's policy
+     * @param planId The borrower's subscription plan ID, 0 if none
+     * @param genreId The book's genre ID, 0 if unknown
+     * @param dueDate The due date
+     * @param asOf The return date or the accrual date
+     * @return Fine in minor units, 0 if not (yet) finable
+     */
+    public long calculateOverdueFineMinor(long planId, long genreId, LocalDate dueDate, LocalDate asOf) {
+        return finePolicyTable.current().overdueFine(planId, genreId, dueDate, asOf);
     }
 
     /**
@@ -83,7 +83,7 @@ public class FineCalculationService {
      * @return Lost book penalty amount
      */
     public BigDecimal getLostBookPenalty() {
-        return LOST_BOOK_PENALTY;
+        return toMajor(finePolicyTable.current().lostBookPenalty(0, 0));
     }
 
     /**
@@ -91,7 +91,7 @@ public class FineCalculationService {
      * @return Damaged book penalty amount
      */
     public BigDecimal getDamagedBookPenalty() {
-        return DAMAGED_BOOK_PENALTY;
+        return toMajor(finePolicyTable.current().damagedBookPenalty(0, 0));
     }
 
     /**
@@ -105,11 +105,11 @@ public class FineCalculationService {
         BigDecimal totalFine = overdueFine;
 
         if (isLost) {
-            totalFine = totalFine.add(LOST_BOOK_PENALTY);
+            totalFine = totalFine.add(getLostBookPenalty());
         }
 
         if (isDamaged) {
-            totalFine = totalFine.add(DAMAGED_BOOK_PENALTY);
+            totalFine = totalFine.add(getDamagedBookPenalty());
         }
 
         return totalFine;
@@ -120,7 +120,7 @@ public class FineCalculationService {
      * @return Fine per day amount
      */
     public BigDecimal getFinePerDay() {
-        return FINE_PER_DAY;
+        return toMajor(finePolicyTable.current().finePerDay(0, 0));
     }
 
     /**
@@ -128,6 +128,10 @@ public class FineCalculationService {
      * @return Maximum fine amount
      */
     public BigDecimal getMaximumFine() {
-        return MAXIMUM_FINE;
+        return toMajor(finePolicyTable.current().maxFine(0, 0));
+    }
+
+    private static BigDecimal toMajor(long minor) {
+        return BigDecimal.valueOf(minor, 2);
     }
 }
@@ -0,0 +1,106 @@
+package com.library.service.impl;
+
+import com.library.exception.FineException;
+import com.library.model.FinePolicy;
+import com.library.payload.dto.FinePolicyDTO;
+import com.library.repository.FinePolicyRepository;
+import com.library.service.cache.FinePolicyTable;
+import com.library.service.support.TransactionHooks;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Admin management of fine policy rules. Every write recompiles the
+ * FinePolicyTable once it has committed.
+ */
+@Service
+@Transactional
+@RequiredArgsConstructor
+@Slf4j
+public class FinePolicyService {
+
+    private final FinePolicyRepository policyRepository;
+    private final FinePolicyTable finePolicyTable;
+
+    @Transactional(readOnly = true)
+    public List<FinePolicyDTO> getAllPolicies() {
+        return policyRepository.findAll().stream().map(this::toDTO).toList();
+    }
+
+    public FinePolicyDTO createPolicy(FinePolicyDTO request) {
+        if (policyRepository.existsByPlanIdAndGenreId(request.getPlanId(), request.getGenreId())) {
+            throw new FineException("A fine policy already exists for plan " + request.getPlanId()
+                    + " and genre " + request.getGenreId());
+        }
+        FinePolicy policy = new FinePolicy();
+        apply(policy, request);
+        FinePolicy saved = policyRepository.save(policy);
+        log.info("Created fine policy {} (plan {}, genre {})", saved.getId(), saved.getPlanId(), saved.getGenreId());
+        reloadAfterCommit();
+        return toDTO(saved);
+    }
+
+    public FinePolicyDTO updatePolicy(Long policyId, FinePolicyDTO request) {
+        FinePolicy policy = policyRepository.findById(policyId)
+                .orElseThrow(() -> new FineException("Fine policy not found with id: " + policyId));
+        boolean scopeChanged = !Objects.equals(policy.getPlanId(), request.getPlanId())
+                || !Objects.equals(policy.getGenreId(), request.getGenreId());
+        if (scopeChanged && policyRepository.existsByPlanIdAndGenreId(request.getPlanId(), request.getGenreId())) {
+            throw new FineException("A fine policy already exists for plan " + request.getPlanId()
+                    + " and genre " + request.getGenreId());
+        }
+        apply(policy, request);
+        FinePolicy saved = policyRepository.save(policy);
+        log.info("Updated fine policy {}", policyId);
+        reloadAfterCommit();
+        return toDTO(saved);
+    }
+
+    public void deletePolicy(Long policyId) {
+        FinePolicy policy = policyRepository.findById(policyId)
+                .orElseThrow(() -> new FineException("Fine policy not found with id: " + policyId));
+        policyRepository.delete(policy);
+        log.warn("Deleted fine policy {}", policyId);
+        reloadAfterCommit();
+    }
+
+    // ==================== HELPER METHODS ====================
+
+    private void reloadAfterCommit() {
+        TransactionHooks.afterCommit(finePolicyTable::reload);
+    }
+
+    private void apply(FinePolicy policy, FinePolicyDTO request) {
+        policy.setPlanId(request.getPlanId());
+        policy.setGenreId(request.getGenreId());
+        policy.setFinePerDay(request.getFinePerDay());
+        policy.setMaxFine(request.getMaxFine());
+        policy.setGracePeriodDays(request.getGracePeriodDays());
+        policy.setLostBookPenalty(request.getLostBookPenalty());
+        policy.setDamagedBookPenalty(request.getDamagedBookPenalty());
+        policy.setActive(request.getActive() == null || request.getActive());
+        policy.setDescription(request.getDescription());
+    }
+
+    private FinePolicyDTO toDTO(FinePolicy policy) {
+        return FinePolicyDTO.builder()
+                .id(policy.getId())
+                .planId(policy.getPlanId())
+                .genreId(policy.getGenreId())
+                .finePerDay(policy.getFinePerDay())
+                .maxFine(policy.getMaxFine())
+                .gracePeriodDays(policy.getGracePeriodDays())
+                .lostBookPenalty(policy.getLostBookPenalty())
+                .damagedBookPenalty(policy.getDamagedBookPenalty())
+                .active(policy.getActive())
+                .description(policy.getDescription())
+                .createdAt(policy.getCreatedAt())
+                .updatedAt(policy.getUpdatedAt())
+                .build();
+    }
+}
@@ -12,9 +12,11 @@ import com.library.model.BookLoan;
 import com.library.model.Fine;
 import com.library.model.User;
 import com.library.payload.dto.FineDTO;
+import com.library.payload.request.BulkFineRequest;
 import com.library.payload.request.CreateFineRequest;
 import com.library.payload.request.PaymentInitiateRequest;
 import com.library.payload.request.WaiveFineRequest;
+import com.library.payload.response.BulkFineOperationResponse;
 import com.library.payload.response.PageResponse;
 import com.library.payload.response.PaymentInitiateResponse;
 import com.library.repository.BookLoanRepository;
@@ -31,6 +33,7 @@ import org.springframework.data.domain.Sort;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
@@ -52,6 +55,8 @@ public class FineServiceImpl implements FineService {
     private final UserRepository userRepository;
     private final FineMapper fineMapper;
     private final PaymentService paymentService;
+    private final FineBalanceService fineBalanceService;
+    private final FineBulkOperationService fineBulkOperationService;
 
 
     // ==================== CREATE OPERATIONS ====================
@@ -77,6 +82,7 @@ public class FineServiceImpl implements FineService {
 
         // 3. Save and return
         Fine savedFine = fineRepository.save(fine);
+        fineBalanceService.recordCreated(savedFine);
         log.info("Created fine: {} for book loan: {}", savedFine.getId(), bookLoan.getId());
         return fineMapper.toDTO(savedFine);
     }
@@ -129,12 +135,14 @@ public class FineServiceImpl implements FineService {
                         "Fine not found with id: " + fineId));
 
         // Apply payment amount safely
+        FineBalanceService.Contribution before = FineBalanceService.Contribution.of(fine);
         fine.applyPayment(amount);
         fine.setTransactionId(transactionId);
         fine.setStatus(FineStatus.PAID);
         fine.setUpdatedAt(LocalDateTime.now());
 
         fineRepository.save(fine);
+        fineBalanceService.recordChanged(fine, before);
 
         log.info("Fine {} marked as fully paid (txn: {})", fineId, transactionId);
     }
@@ -159,14 +167,40 @@ public class FineServiceImpl implements FineService {
 
         // 3. Waive the fine
         User currentAdmin = getCurrentAuthenticatedUser();
+        FineBalanceService.Contribution before = FineBalanceService.Contribution.of(fine);
         fine.waive(currentAdmin, waiveRequest.getReason());
 
         // 4. Save and return
         Fine savedFine = fineRepository.save(fine);
+        fineBalanceService.recordChanged(savedFine, before);
         log.info("Fine {} waived by admin: {}", fine.getId(), currentAdmin.getId());
         return fineMapper.toDTO(savedFine);
     }
 
+    // ==================== BULK OPERATIONS ====================
+    // Chunked, each chunk in its own transaction (see FineBulkOperationService)
+
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public BulkFineOperationResponse bulkWaiveFines(BulkFineRequest request) throws FineException {
+        return fineBulkOperationService.execute(FineBulkOperationService.Operation.WAIVE,
+                request, getCurrentAuthenticatedUser().getId());
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public BulkFineOperationResponse bulkAdjustFines(BulkFineRequest request) throws FineException {
+        return fineBulkOperationService.execute(FineBulkOperationService.Operation.ADJUST,
+                request, getCurrentAuthenticatedUser().getId());
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public BulkFineOperationResponse bulkPayFines(BulkFineRequest request) throws FineException {
+        return fineBulkOperationService.execute(FineBulkOperationService.Operation.PAY,
+                request, getCurrentAuthenticatedUser().getId());
+    }
+
     // ==================== QUERY OPERATIONS ====================
 
     @Override
@@ -240,7 +274,7 @@ public class FineServiceImpl implements FineService {
 
     @Override
     public Long getTotalUnpaidFinesByUserId(Long userId) {
-        return fineRepository.getTotalUnpaidFinesByUserId(userId);
+        return fineBalanceService.getOutstanding(userId);
     }
 
     @Override
@@ -257,7 +291,7 @@ public class FineServiceImpl implements FineService {
 
     @Override
     public boolean hasUnpaidFines(Long userId) {
-        return fineRepository.hasUnpaidFines(userId);
+        return fineBalanceService.hasUnpaidFines(userId);
     }
 
     @Override
@@ -265,6 +299,7 @@ public class FineServiceImpl implements FineService {
         Fine fine = fineRepository.findById(fineId)
                 .orElseThrow(() -> new FineException("Fine not found with id: " + fineId));
         fineRepository.delete(fine);
+        fineBalanceService.recordDeleted(fine);
         log.warn("Fine {} deleted", fineId);
     }
 
@@ -0,0 +1,252 @@
+package com.library.service.impl;
+
+import com.library.domain.BookLoanStatus;
+import com.library.domain.NotificationType;
+import com.library.model.BookLoan;
+import com.library.model.User;
+import com.library.repository.BookLoanRepository;
+import com.library.service.NotificationService;
+import com.library.service.NotificationSettingsService;
+import jakarta.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * Streaming pipeline behind the loan notification jobs.
+ *
+ * Stages:
+ * - Read/render: the matching loan ID range is split into partitions. Each
+ *   reader streams one partition (book and user fetch-joined) inside its own
+ *   read-only transaction, renders each loan into a LoanNotification and
+ *   clears the persistence context every few hundred rows.
+ * - Deliver: delivery workers drain the queue in batches, preload the batch's
+ *   notification settings, claim the dedup key and create the notification.
+ *
+ * The stages are connected by a bounded queue, so readers block instead of
+ * piling up rendered notifications when delivery falls behind.
+ */
+@Component
+@Slf4j
+public class LoanNotificationPipeline {
+
+    private static final int DELIVER_BATCH_SIZE = 500;
+    private static final long POLL_TIMEOUT_MILLIS = 200;
+
+    private final BookLoanRepository bookLoanRepository;
+    private final NotificationService notificationService;
+    private final NotificationSettingsService notificationSettingsService;
+    private final NotificationDeduplicator notificationDeduplicator;
+    private final EntityManager entityManager;
+    private final TransactionTemplate readTransaction;
+
+    private final int readerCount;
+    private final int deliveryWorkerCount;
+    private final int queueCapacity;
+    private final long partitionSize;
+    private final int clearInterval;
+
+    public LoanNotificationPipeline(BookLoanRepository bookLoanRepository,
+                                    NotificationService notificationService,
+                                    NotificationSettingsService notificationSettingsService,
+                                    NotificationDeduplicator notificationDeduplicator,
+                                    EntityManager entityManager,
+                                    PlatformTransactionManager transactionManager,
+                                    @Value("${notification.scheduler.readers:2}") int readerCount,
+                                    @Value("${notification.scheduler.delivery-workers:4}") int deliveryWorkerCount,
+                                    @Value("${notification.scheduler.queue-capacity:1000}") int queueCapacity,
+                                    @Value("${notification.scheduler.partition-size:10000}") long partitionSize,
+                                    @Value("${notification.scheduler.clear-interval:500}") int clearInterval) {
+        this.bookLoanRepository = bookLoanRepository;
+        this.notificationService = notificationService;
+        this.notificationSettingsService = notificationSettingsService;
+        this.notificationDeduplicator = notificationDeduplicator;
+        this.entityManager = entityManager;
+        this.readTransaction = new TransactionTemplate(transactionManager);
+        this.readTransaction.setReadOnly(true);
+        this.readerCount = readerCount;
+        this.deliveryWorkerCount = deliveryWorkerCount;
+        this.queueCapacity = queueCapacity;
+        this.partitionSize = partitionSize;
+        this.clearInterval = clearInterval;
+    }
+
+    /**
+     * A rendered notification waiting for delivery
+     * @param dedupType Key type claimed before sending (may differ from type)
+     */
+    public record LoanNotification(User user, Long loanId, String title, String message,
+                                   NotificationType type, NotificationType dedupType) {
+    }
+
+    /**
+     * Run one notification job over all loans in a status and due date window
+     * @param jobName Name used in log messages
+     * @param status Loan status to select
+     * @param dueFrom Earliest due date (inclusive)
+     * @param dueTo Latest due date (inclusive)
+     * @param day Day used for the dedup keys
+     * @param renderer Turns a loan into a notification, or null to skip it
+     * @return Number of notifications sent
+     */
+    public int run(String jobName, BookLoanStatus status, LocalDate dueFrom, LocalDate dueTo,
+                   LocalDate day, Function<BookLoan, LoanNotification> renderer) {
+        BookLoanRepository.IdRange range = bookLoanRepository.findIdRange(status, dueFrom, dueTo);
+        if (range == null || range.getMinId() == null) {
+            log.info("{}: no matching loans", jobName);
+            return 0;
+        }
+
+        List<long[]> partitions = partition(range.getMinId(), range.getMaxId());
+        int readers = Math.min(readerCount, partitions.size());
+        log.info("{}: {} partition(s) over loan IDs {}-{}, {} reader(s), {} delivery worker(s)",
+                jobName, partitions.size(), range.getMinId(), range.getMaxId(), readers, deliveryWorkerCount);
+
+        BlockingQueue<LoanNotification> queue = new ArrayBlockingQueue<>(queueCapacity);
+        AtomicBoolean readingDone = new AtomicBoolean(false);
+        AtomicInteger scanned = new AtomicInteger();
+        AtomicInteger sent = new AtomicInteger();
+
+        ExecutorService readerPool = Executors.newFixedThreadPool(readers, namedThreads(jobName + "-reader-"));
+        ExecutorService deliveryPool = Executors.newFixedThreadPool(deliveryWorkerCount,
+                namedThreads(jobName + "-deliver-"));
+        try {
+            List<Future<?>> deliveryWorkers = new ArrayList<>();
+            for (int i = 0; i < deliveryWorkerCount; i++) {
+                deliveryWorkers.add(deliveryPool.submit(() -> deliver(queue, readingDone, day, sent)));
+            }
+
+            List<Future<?>> readerTasks = new ArrayList<>();
+            for (long[] partition : partitions) {
+                readerTasks.add(readerPool.submit(() ->
+                        read(status, dueFrom, dueTo, partition, renderer, queue, scanned)));
+            }
+
+            awaitAll(jobName, readerTasks);
+            readingDone.set(true);
+            awaitAll(jobName, deliveryWorkers);
+        } finally {
+            readingDone.set(true);
+            readerPool.shutdownNow();
+            deliveryPool.shutdownNow();
+        }
+
+        log.info("{}: scanned {} loan(s), sent {} notification(s)", jobName, scanned.get(), sent.get());
+        return sent.get();
+    }
+
+    private void read(BookLoanStatus status, LocalDate dueFrom, LocalDate dueTo, long[] partition,
+                      Function<BookLoan, LoanNotification> renderer,
+                      BlockingQueue<LoanNotification> queue, AtomicInteger scanned) {
+        readTransaction.executeWithoutResult(tx -> {
+            try (Stream<BookLoan> loans = bookLoanRepository.streamForNotifications(
+                    status, dueFrom, dueTo, partition[0], partition[1])) {
+                int rows = 0;
+                for (BookLoan loan : (Iterable<BookLoan>) loans::iterator) {
+                    LoanNotification notification = renderer.apply(loan);
+                    if (notification != null) {
+                        queue.put(notification);
+                    }
+                    if (++rows % clearInterval == 0) {
+                        entityManager.clear();
+                    }
+                }
+                scanned.addAndGet(rows);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while reading loans " + partition[0] + "-" + partition[1], e);
+            }
+        });
+    }
+
+    private void deliver(BlockingQueue<LoanNotification> queue, AtomicBoolean readingDone,
+                         LocalDate day, AtomicInteger sent) {
+        List<LoanNotification> batch = new ArrayList<>(DELIVER_BATCH_SIZE);
+        try {
+            while (true) {
+                LoanNotification first = queue.poll(POLL_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    if (readingDone.get() && queue.isEmpty()) {
+                        return;
+                    }
+                    continue;
+                }
+
+                batch.clear();
+                batch.add(first);
+                queue.drainTo(batch, DELIVER_BATCH_SIZE - 1);
+                try {
+                    notificationSettingsService.preloadSettings(batch.stream().map(LoanNotification::user).toList());
+                } catch (Exception e) {
+                    // Not fatal: createNotification falls back to per-user lookups
+                    log.warn("Failed to preload notification settings for {} user(s)", batch.size(), e);
+                }
+
+                for (LoanNotification notification : batch) {
+                    try {
+                        if (!notificationDeduplicator.tryClaim(notification.user().getId(), notification.loanId(),
+                                notification.dedupType(), day)) {
+                            continue;
+                        }
+                        notificationService.createNotification(notification.user(), notification.title(),
+                                notification.message(), notification.type(), notification.loanId());
+                        sent.incrementAndGet();
+                    } catch (Exception e) {
+                        log.error("Failed to deliver {} notification for book loan ID: {}",
+                                notification.type(), notification.loanId(), e);
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private List<long[]> partition(long minId, long maxId) {
+        List<long[]> partitions = new ArrayList<>();
+        for (long from = minId; from <= maxId; from += partitionSize) {
+            partitions.add(new long[]{from, Math.min(from + partitionSize - 1, maxId)});
+        }
+        return partitions;
+    }
+
+    private void awaitAll(String jobName, List<Future<?>> tasks) {
+        for (Future<?> task : tasks) {
+            try {
+                task.get();
+            } catch (ExecutionException e) {
+                log.error("{}: pipeline task failed", jobName, e.getCause());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException(jobName + " interrupted", e);
+            }
+        }
+    }
+
+    private static ThreadFactory namedThreads(String prefix) {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
@@ -0,0 +1,322 @@
+package com.library.service.impl;
+
+import com.library.payload.dto.NotificationBroadcastDTO;
+import com.library.payload.request.BroadcastNotificationRequest;
+import com.library.service.EmailService;
+import com.library.service.cache.UnreadCountCache;
+import com.library.service.push.PushFanoutService;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Broadcasts NEW_ARRIVAL and RECOMMENDATION notifications to every opted-in
+ * user.
+ *
+ * Recipients are read in keyset-paged chunks straight from users and
+ * notification_settings (users without a settings row get the defaults).
+ * Each chunk becomes one multi-row INSERT into notifications, or into
+ * notification_digest_items for users in digest mode. Push goes through
+ * PushFanoutService per chunk. Emails are queued on a bounded pool that
+ * pushes back on the reader when it is full.
+ *
+ * Broadcasts run one at a time on a background thread; progress is kept in
+ * memory and exposed through getBroadcast.
+ */
+@Service
+@Slf4j
+public class NotificationBroadcastService {
+
+    private static final String RECIPIENT_SQL = """
+            SELECT u.id, u.email,
+                   COALESCE(s.email_enabled, TRUE) AS email_enabled,
+                   COALESCE(s.push_enabled, FALSE) AS push_enabled,
+                   COALESCE(s.digest_enabled, FALSE) AS digest_enabled
+            FROM users u
+            LEFT JOIN notification_settings s ON s.user_id = u.id
+            WHERE u.id > ? AND COALESCE(s.%s, TRUE) = TRUE
+            ORDER BY u.id
+            LIMIT ?
+            """;
+
+    private static final int PROGRESS_LOG_INTERVAL = 50;
+    private static final long FINISHED_RETENTION_HOURS = 24;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final EmailService emailService;
+    private final PushFanoutService pushFanoutService;
+    private final UnreadCountCache unreadCountCache;
+    private final NotificationStreamService notificationStreamService;
+    private final int chunkSize;
+
+    private final ExecutorService broadcastRunner;
+    private final ThreadPoolExecutor emailPool;
+    private final Map<String, Broadcast> broadcasts = new ConcurrentHashMap<>();
+
+    public NotificationBroadcastService(JdbcTemplate jdbcTemplate,
+                                        EmailService emailService,
+                                        PushFanoutService pushFanoutService,
+                                        UnreadCountCache unreadCountCache,
+                                        NotificationStreamService notificationStreamService,
+                                        @Value("${notification.broadcast.chunk-size:1000}") int chunkSize,
+                                        @Value("${notification.broadcast.email-workers:4}") int emailWorkers,
+                                        @Value("${notification.broadcast.email-queue-capacity:1000}") int emailQueueCapacity) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.emailService = emailService;
+        this.pushFanoutService = pushFanoutService;
+        this.unreadCountCache = unreadCountCache;
+        this.notificationStreamService = notificationStreamService;
+        this.chunkSize = chunkSize;
+
+        this.broadcastRunner = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "notification-broadcast");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        // CallerRuns: when the queue is full the broadcast thread sends the
+        // email itself, which throttles reading to the mail throughput
+        AtomicInteger threadCount = new AtomicInteger();
+        this.emailPool = new ThreadPoolExecutor(emailWorkers, emailWorkers, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(emailQueueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "broadcast-email-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    /**
+     * Start a broadcast in the background
+     * @param request Broadcast content and type
+     * @return Initial progress snapshot (use its id to poll)
+     * @throws IllegalArgumentException if the type cannot be broadcast
+     */
+    public NotificationBroadcastDTO startBroadcast(BroadcastNotificationRequest request) {
+        String settingsColumn = switch (request.getType()) {
+            case NEW_ARRIVAL -> "new_arrivals_enabled";
+            case RECOMMENDATION -> "recommendations_enabled";
+            default -> throw new IllegalArgumentException(
+                    "Only NEW_ARRIVAL and RECOMMENDATION notifications can be broadcast");
+        };
+
+        pruneFinished();
+        Broadcast broadcast = new Broadcast(UUID.randomUUID().toString(), request);
+        broadcasts.put(broadcast.id, broadcast);
+        broadcastRunner.execute(() -> run(broadcast, settingsColumn));
+
+        log.info("Queued {} broadcast {}: {}", request.getType(), broadcast.id, request.getTitle());
+        return broadcast.toDTO();
+    }
+
+    /**
+     * Progress of a broadcast, or null if unknown
+     */
+    public NotificationBroadcastDTO getBroadcast(String broadcastId) {
+        Broadcast broadcast = broadcasts.get(broadcastId);
+        return broadcast != null ? broadcast.toDTO() : null;
+    }
+
+    public List<NotificationBroadcastDTO> getBroadcasts() {
+        return broadcasts.values().stream().map(Broadcast::toDTO).toList();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        broadcastRunner.shutdownNow();
+        emailPool.shutdown();
+    }
+
+    private void run(Broadcast broadcast, String settingsColumn) {
+        BroadcastNotificationRequest request = broadcast.request;
+        String recipientSql = RECIPIENT_SQL.formatted(settingsColumn);
+        long startedAt = System.currentTimeMillis();
+        log.info("Starting {} broadcast {}", request.getType(), broadcast.id);
+
+        try {
+            long afterId = 0;
+            int chunks = 0;
+            while (true) {
+                List<Recipient> recipients = jdbcTemplate.query(recipientSql,
+                        (rs, rowNum) -> new Recipient(
+                                rs.getLong("id"),
+                                rs.getString("email"),
+                                rs.getBoolean("email_enabled"),
+                                rs.getBoolean("push_enabled"),
+                                rs.getBoolean("digest_enabled")),
+                        afterId, chunkSize);
+                if (recipients.isEmpty()) {
+                    break;
+                }
+
+                deliverChunk(broadcast, recipients);
+                afterId = recipients.get(recipients.size() - 1).id();
+                broadcast.recipientsProcessed.addAndGet(recipients.size());
+
+                if (++chunks % PROGRESS_LOG_INTERVAL == 0) {
+                    long elapsed = Math.max(1, System.currentTimeMillis() - startedAt);
+                    log.info("Broadcast {}: {} recipient(s) processed ({} per second)",
+                            broadcast.id, broadcast.recipientsProcessed.get(),
+                            broadcast.recipientsProcessed.get() * 1000 / elapsed);
+                }
+                if (recipients.size() < chunkSize) {
+                    break;
+                }
+            }
+            broadcast.status = "COMPLETED";
+        } catch (Exception e) {
+            log.error("Broadcast {} failed after {} recipient(s)", broadcast.id,
+                    broadcast.recipientsProcessed.get(), e);
+            broadcast.status = "FAILED";
+            broadcast.error = e.getMessage();
+        } finally {
+            broadcast.finishedAt = LocalDateTime.now();
+        }
+
+        log.info("Broadcast {} {} in {} ms: {} recipient(s), {} notification(s), {} digest item(s), {} email(s)",
+                broadcast.id, broadcast.status, System.currentTimeMillis() - startedAt,
+                broadcast.recipientsProcessed.get(), broadcast.notificationsCreated.get(),
+                broadcast.digestItemsQueued.get(), broadcast.emailsQueued.get());
+    }
+
+    private void deliverChunk(Broadcast broadcast, List<Recipient> recipients) {
+        BroadcastNotificationRequest request = broadcast.request;
+        List<Recipient> immediate = new ArrayList<>(recipients.size());
+        List<Recipient> digest = new ArrayList<>();
+        for (Recipient recipient : recipients) {
+            (recipient.digestEnabled() ? digest : immediate).add(recipient);
+        }
+
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        if (!digest.isEmpty()) {
+            broadcast.digestItemsQueued.addAndGet(insertRows(
+                    "INSERT INTO notification_digest_items " +
+                    "(user_id, title, message, type, related_entity_id, created_at) VALUES ",
+                    "(?, ?, ?, ?, ?, ?)", digest, request, now));
+        }
+        if (immediate.isEmpty()) {
+            return;
+        }
+
+        broadcast.notificationsCreated.addAndGet(insertRows(
+                "INSERT INTO notifications " +
+                "(user_id, title, message, type, related_entity_id, created_at, is_read, delivery_method) VALUES ",
+                "(?, ?, ?, ?, ?, ?, FALSE, 'IN_APP')", immediate, request, now));
+
+        List<Long> pushUserIds = new ArrayList<>();
+        for (Recipient recipient : immediate) {
+            long unread = unreadCountCache.add(recipient.id(), 1);
+            if (unread >= 0 && notificationStreamService.hasSubscribers(recipient.id())) {
+                notificationStreamService.publishUnreadCount(recipient.id(), unread);
+            }
+            if (recipient.pushEnabled()) {
+                pushUserIds.add(recipient.id());
+            }
+            if (recipient.emailEnabled()) {
+                emailPool.execute(() -> sendEmail(recipient, request));
+                broadcast.emailsQueued.incrementAndGet();
+            }
+        }
+
+        if (!pushUserIds.isEmpty()) {
+            PushFanoutService.FanoutResult pushResult =
+                    pushFanoutService.sendToUsers(pushUserIds, request.getTitle(), request.getMessage());
+            broadcast.pushTokensTargeted.addAndGet(pushResult.tokens());
+        }
+    }
+
+    /**
+     * One multi-row INSERT for the whole chunk
+     */
+    private int insertRows(String insertPrefix, String rowPlaceholders, List<Recipient> recipients,
+                           BroadcastNotificationRequest request, Timestamp createdAt) {
+        StringBuilder sql = new StringBuilder(insertPrefix.length() + recipients.size() * (rowPlaceholders.length() + 1));
+        sql.append(insertPrefix);
+        Object[] args = new Object[recipients.size() * 6];
+        int arg = 0;
+        for (int i = 0; i < recipients.size(); i++) {
+            if (i > 0) {
+                sql.append(',');
+            }
+            sql.append(rowPlaceholders);
+            args[arg++] = recipients.get(i).id();
+            args[arg++] = request.getTitle();
+            args[arg++] = request.getMessage();
+            args[arg++] = request.getType().name();
+            args[arg++] = request.getRelatedEntityId();
+            args[arg++] = createdAt;
+        }
+        return jdbcTemplate.update(sql.toString(), args);
+    }
+
+    private void sendEmail(Recipient recipient, BroadcastNotificationRequest request) {
+        try {
+            emailService.sendEmail(recipient.email(), request.getTitle(), request.getMessage());
+        } catch (Exception e) {
+            log.error("Failed to send broadcast email to {}: {}", recipient.email(), e.getMessage());
+        }
+    }
+
+    private void pruneFinished() {
+        LocalDateTime cutoff = LocalDateTime.now().minusHours(FINISHED_RETENTION_HOURS);
+        broadcasts.values().removeIf(b -> b.finishedAt != null && b.finishedAt.isBefore(cutoff));
+    }
+
+    private record Recipient(long id, String email,
+                             boolean emailEnabled, boolean pushEnabled, boolean digestEnabled) {
+    }
+
+    private static final class Broadcast {
+        private final String id;
+        private final BroadcastNotificationRequest request;
+        private final LocalDateTime startedAt = LocalDateTime.now();
+        private final AtomicLong recipientsProcessed = new AtomicLong();
+        private final AtomicLong notificationsCreated = new AtomicLong();
+        private final AtomicLong digestItemsQueued = new AtomicLong();
+        private final AtomicLong emailsQueued = new AtomicLong();
+        private final AtomicLong pushTokensTargeted = new AtomicLong();
+        private volatile String status = "RUNNING";
+        private volatile LocalDateTime finishedAt;
+        private volatile String error;
+
+        private Broadcast(String id, BroadcastNotificationRequest request) {
+            this.id = id;
+            this.request = request;
+        }
+
+        private NotificationBroadcastDTO toDTO() {
+            return NotificationBroadcastDTO.builder()
+                    .id(id)
+                    .type(request.getType())
+                    .title(request.getTitle())
+                    .status(status)
+                    .recipientsProcessed(recipientsProcessed.get())
+                    .notificationsCreated(notificationsCreated.get())
+                    .digestItemsQueued(digestItemsQueued.get())
+                    .emailsQueued(emailsQueued.get())
+                    .pushTokensTargeted(pushTokensTargeted.get())
+                    .startedAt(startedAt)
+                    .finishedAt(finishedAt)
+                    .error(error)
+                    .build();
+        }
+    }
+}
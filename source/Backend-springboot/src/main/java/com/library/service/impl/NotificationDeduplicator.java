@@ -0,0 +1,120 @@
+package com.library.service.impl;
+
+import com.library.domain.NotificationType;
+import com.library.repository.NotificationDedupKeyRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Deduplicates notifications across overlapping scheduler jobs.
+ *
+ * A notification is identified by (user, related entity, type, day). The
+ * unique key on notification_dedup_keys is the source of truth: the first
+ * caller to insert the key wins. This node also keeps the exact set of
+ * today's keys it has claimed or found already claimed, so a repeated
+ * trigger is answered from memory without a database round trip. A key not
+ * in the set always goes to the database, since another node may have
+ * claimed it.
+ *
+ * Semantics are at-most-once per key and day: the key is claimed before the
+ * notification is sent.
+ */
+@Service
+@Slf4j
+public class NotificationDeduplicator {
+
+    private final NotificationDedupKeyRepository notificationDedupKeyRepository;
+    private final TransactionTemplate claimTransaction;
+    private final int retentionDays;
+
+    private final AtomicReference<DailyKeys> currentKeys = new AtomicReference<>();
+
+    public NotificationDeduplicator(
+            NotificationDedupKeyRepository notificationDedupKeyRepository,
+            PlatformTransactionManager transactionManager,
+            @Value("${notification.dedup.retention-days:7}") int retentionDays) {
+        this.notificationDedupKeyRepository = notificationDedupKeyRepository;
+        this.claimTransaction = new TransactionTemplate(transactionManager);
+        this.claimTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.retentionDays = retentionDays;
+    }
+
+    /**
+     * Claim the right to send a notification.
+     * @param userId Recipient user ID
+     * @param relatedEntityId Related entity (e.g. book loan ID), may be null
+     * @param type Notification type used as the dedup category
+     * @param day Day the notification belongs to
+     * @return true if the caller should send, false if it was already sent
+     */
+    public boolean tryClaim(Long userId, Long relatedEntityId, NotificationType type, LocalDate day) {
+        long entityId = relatedEntityId != null ? relatedEntityId : 0L;
+        DedupKey key = new DedupKey(userId, entityId, type);
+        Set<DedupKey> seen = keysFor(day);
+
+        if (seen.contains(key)) {
+            log.debug("Skipping duplicate {} for user {} / entity {} (memory)", type, userId, entityId);
+            return false;
+        }
+
+        // Own transaction, so the claim commits even if the caller's send fails
+        Integer inserted = claimTransaction.execute(tx ->
+                notificationDedupKeyRepository.insertIfAbsent(userId, entityId, type.name(), day));
+        seen.add(key);
+
+        if (inserted == null || inserted == 0) {
+            log.debug("Skipping duplicate {} for user {} / entity {} (database)", type, userId, entityId);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Drop keys older than the retention window.
+     * Runs daily at 3:30 AM.
+     */
+    @Scheduled(cron = "0 30 3 * * ?")
+    @Transactional
+    public void purgeExpiredKeys() {
+        LocalDate cutoff = LocalDate.now().minusDays(retentionDays);
+        int deleted = notificationDedupKeyRepository.deleteOlderThan(cutoff);
+        log.info("Purged {} notification dedup key(s) older than {}", deleted, cutoff);
+    }
+
+    private Set<DedupKey> keysFor(LocalDate day) {
+        DailyKeys current = currentKeys.get();
+        if (current != null && current.day.equals(day)) {
+            return current.keys;
+        }
+
+        // A job running across midnight may still ask for yesterday; give it a
+        // throwaway set instead of resetting today's
+        if (current != null && day.isBefore(current.day)) {
+            return ConcurrentHashMap.newKeySet();
+        }
+
+        DailyKeys fresh = new DailyKeys(day, ConcurrentHashMap.newKeySet());
+        if (currentKeys.compareAndSet(current, fresh)) {
+            log.info("Started notification dedup key set for {}", day);
+            return fresh.keys;
+        }
+        return keysFor(day);
+    }
+
+    private record DedupKey(long userId, long entityId, NotificationType type) {
+    }
+
+    private record DailyKeys(LocalDate day, Set<DedupKey> keys) {
+    }
+}
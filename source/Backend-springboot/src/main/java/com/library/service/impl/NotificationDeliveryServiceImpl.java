@@ -2,30 +2,66 @@ package com.library.service.impl;
 
 import com.library.model.Notification;
 import com.library.model.NotificationSettings;
-import com.library.model.PushToken;
 import com.library.model.User;
-import com.library.repository.PushTokenRepository;
+import com.library.service.EmailService;
 import com.library.service.NotificationDeliveryService;
-import lombok.RequiredArgsConstructor;
+import com.library.service.push.PushFanoutService;
+import com.library.service.support.TransactionHooks;
+import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Implementation of NotificationDeliveryService interface.
  * Handles delivery of notifications through various channels (email, push, in-app).
  *
- * Note: Email and push implementations are currently logging only.
- * Actual email service (e.g., SendGrid, AWS SES) and push service (e.g., FCM)
- * can be integrated later.
+ * Email goes out through EmailService (JavaMail). Push goes through
+ * PushFanoutService and the configured PushProvider (logging stub by default).
+ *
+ * Notification emails are handed to a bounded mail pool after the creating
+ * transaction commits, so an SMTP round trip never holds the transaction
+ * open and a rolled-back notification is never mailed. When the pool's
+ * queue is full the committing thread sends the email itself, so a burst
+ * slows the caller down instead of dropping mail whose dedup key is
+ * already claimed.
  */
 @Service
-@RequiredArgsConstructor
 @Slf4j
 public class NotificationDeliveryServiceImpl implements NotificationDeliveryService {
 
-    private final PushTokenRepository pushTokenRepository;
+    private final PushFanoutService pushFanoutService;
+    private final EmailService emailService;
+    private final ThreadPoolExecutor emailPool;
+
+    public NotificationDeliveryServiceImpl(PushFanoutService pushFanoutService,
+                                           EmailService emailService,
+                                           @Value("${notification.email.workers:4}") int emailWorkers,
+                                           @Value("${notification.email.queue-capacity:1000}") int emailQueueCapacity) {
+        this.pushFanoutService = pushFanoutService;
+        this.emailService = emailService;
+
+        AtomicInteger threadCount = new AtomicInteger();
+        this.emailPool = new ThreadPoolExecutor(emailWorkers, emailWorkers, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(emailQueueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "notification-email-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        emailPool.shutdown();
+    }
 
     @Override
     public void deliverNotification(Notification notification, NotificationSettings settings) {
@@ -36,12 +72,7 @@ public class NotificationDeliveryServiceImpl implements NotificationDeliveryServ
 
         // Deliver via email if enabled
         if (settings.getEmailEnabled() && shouldSendEmail(notification, settings)) {
-            try {
-                sendEmail(notification.getUser(), notification.getTitle(), notification.getMessage());
-            } catch (Exception e) {
-                log.error("Failed to send email notification to user {}: {}",
-                         notification.getUser().getEmail(), e.getMessage());
-            }
+            sendEmailAfterCommit(notification.getUser().getEmail(), notification.getTitle(), notification.getMessage());
         }
 
         // Deliver via push if enabled
@@ -57,43 +88,27 @@ public class NotificationDeliveryServiceImpl implements NotificationDeliveryServ
 
     @Override
     public void sendEmail(User user, String title, String message) {
-        // TODO: Integrate actual email service (SendGrid, AWS SES, JavaMail, etc.)
-        log.info("EMAIL NOTIFICATION - To: {}, Subject: {}, Message: {}",
-                 user.getEmail(), title, message);
-
-        // Example integration points:
-        // 1. SendGrid: sendGridService.send(user.getEmail(), title, message);
-        // 2. AWS SES: sesService.sendEmail(user.getEmail(), title, message);
-        // 3. JavaMail: mailSender.send(createMimeMessage(user.getEmail(), title, message));
+        log.info("EMAIL NOTIFICATION - To: {}, Subject: {}", user.getEmail(), title);
+        emailService.sendEmail(user.getEmail(), title, message);
     }
 
     @Override
     public void sendPush(User user, String title, String message) {
-        // Get active push tokens for the user
-        List<PushToken> activeTokens = pushTokenRepository.findByUserAndIsActiveTrue(user);
-
-        if (activeTokens.isEmpty()) {
+        PushFanoutService.FanoutResult result = pushFanoutService.sendToUsers(List.of(user.getId()), title, message);
+        if (result.tokens() == 0) {
             log.debug("No active push tokens found for user: {}", user.getEmail());
-            return;
         }
+    }
 
-        // TODO: Integrate actual push notification service (FCM, APNs, etc.)
-        log.info("PUSH NOTIFICATION - User: {}, Tokens: {}, Title: {}, Message: {}",
-                 user.getEmail(), activeTokens.size(), title, message);
-
-        // Example integration points:
-        // 1. Firebase Cloud Messaging:
-        //    for (PushToken token : activeTokens) {
-        //        fcmService.send(token.getToken(), title, message);
-        //    }
-        // 2. AWS SNS: snsService.sendPush(activeTokens, title, message);
-        // 3. OneSignal: oneSignalService.sendNotification(activeTokens, title, message);
-
-        for (PushToken token : activeTokens) {
-            log.debug("Would send push to token: {} ({})",
-                     token.getToken().substring(0, Math.min(20, token.getToken().length())) + "...",
-                     token.getPlatform());
-        }
+    private void sendEmailAfterCommit(String email, String title, String message) {
+        TransactionHooks.afterCommit(() -> emailPool.execute(() -> {
+            try {
+                log.info("EMAIL NOTIFICATION - To: {}, Subject: {}", email, title);
+                emailService.sendEmail(email, title, message);
+            } catch (Exception e) {
+                log.error("Failed to send email notification to {}: {}", email, e.getMessage());
+            }
+        }));
     }
 
     /**
@@ -0,0 +1,205 @@
+package com.library.service.impl;
+
+import com.library.domain.NotificationType;
+import com.library.mapper.NotificationMapper;
+import com.library.model.Notification;
+import com.library.model.NotificationDigestItem;
+import com.library.model.NotificationSettings;
+import com.library.model.User;
+import com.library.payload.dto.NotificationDTO;
+import com.library.repository.NotificationDigestItemRepository;
+import com.library.repository.NotificationRepository;
+import com.library.service.EmailService;
+import com.library.service.NotificationDeliveryService;
+import com.library.service.NotificationSettingsService;
+import com.library.service.cache.UnreadCountCache;
+import com.library.service.support.TransactionHooks;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Daily digest delivery for users who enabled digest mode.
+ *
+ * Routine notifications (due dates, reminders, overdue notices, returns,
+ * new arrivals, recommendations) are held in notification_digest_items
+ * instead of being delivered one by one. Once per hour the flush job picks
+ * the users whose digest hour has come and turns each user's pending items
+ * into one in-app notification and one rendered email.
+ *
+ * Time-sensitive types (reservations, subscription, system, marketing) are
+ * never held back.
+ */
+@Service
+@Slf4j
+public class NotificationDigestService {
+
+    private static final Set<NotificationType> DIGEST_TYPES = EnumSet.of(
+            NotificationType.DUE_DATE_ALERT,
+            NotificationType.BOOK_REMINDER,
+            NotificationType.FINE_NOTIFICATION,
+            NotificationType.BOOK_RETURNED,
+            NotificationType.NEW_ARRIVAL,
+            NotificationType.RECOMMENDATION
+    );
+
+    private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("MMM dd, yyyy");
+
+    private final NotificationDigestItemRepository notificationDigestItemRepository;
+    private final NotificationRepository notificationRepository;
+    private final NotificationSettingsService notificationSettingsService;
+    private final NotificationDeliveryService notificationDeliveryService;
+    private final EmailService emailService;
+    private final UnreadCountCache unreadCountCache;
+    private final NotificationStreamService notificationStreamService;
+    private final TransactionTemplate transactionTemplate;
+    private final int defaultDigestHour;
+
+    public NotificationDigestService(NotificationDigestItemRepository notificationDigestItemRepository,
+                                     NotificationRepository notificationRepository,
+                                     NotificationSettingsService notificationSettingsService,
+                                     NotificationDeliveryService notificationDeliveryService,
+                                     EmailService emailService,
+                                     UnreadCountCache unreadCountCache,
+                                     NotificationStreamService notificationStreamService,
+                                     PlatformTransactionManager transactionManager,
+                                     @Value("${notification.digest.default-hour:18}") int defaultDigestHour) {
+        this.notificationDigestItemRepository = notificationDigestItemRepository;
+        this.notificationRepository = notificationRepository;
+        this.notificationSettingsService = notificationSettingsService;
+        this.notificationDeliveryService = notificationDeliveryService;
+        this.emailService = emailService;
+        this.unreadCountCache = unreadCountCache;
+        this.notificationStreamService = notificationStreamService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.defaultDigestHour = defaultDigestHour;
+    }
+
+    /**
+     * Whether a notification should be held for the user's digest
+     */
+    public boolean shouldDigest(NotificationType type, NotificationSettings settings) {
+        return Boolean.TRUE.equals(settings.getDigestEnabled()) && DIGEST_TYPES.contains(type);
+    }
+
+    /**
+     * Hold a notification until the user's next digest
+     */
+    public NotificationDigestItem enqueue(User user, String title, String message,
+                                          NotificationType type, Long relatedEntityId) {
+        NotificationDigestItem item = NotificationDigestItem.builder()
+                .user(user)
+                .title(title)
+                .message(message)
+                .type(type)
+                .relatedEntityId(relatedEntityId)
+                .build();
+        NotificationDigestItem saved = notificationDigestItemRepository.save(item);
+        log.debug("Queued {} notification for digest of user: {}", type, user.getEmail());
+        return saved;
+    }
+
+    /**
+     * Flush digests whose delivery hour has come
+     * Runs at the top of every hour
+     */
+    @Scheduled(cron = "0 0 * * * *")
+    public void flushDueDigests() {
+        LocalDateTime now = LocalDateTime.now();
+        List<Long> userIds = notificationDigestItemRepository.findUserIdsDueForFlush(
+                now.getHour(), defaultDigestHour, now.minusDays(1));
+        if (userIds.isEmpty()) {
+            return;
+        }
+
+        log.info("Starting digest flush for {} user(s)", userIds.size());
+        int flushed = 0;
+        for (Long userId : userIds) {
+            try {
+                Boolean sent = transactionTemplate.execute(status -> flushUser(userId));
+                if (Boolean.TRUE.equals(sent)) {
+                    flushed++;
+                }
+            } catch (Exception e) {
+                log.error("Failed to flush notification digest for user {}", userId, e);
+            }
+        }
+        log.info("Digest flush completed. Delivered {} digest(s)", flushed);
+    }
+
+    /**
+     * Turn one user's pending items into a single notification and email.
+     * The items are claimed FOR UPDATE SKIP LOCKED and removed in the same
+     * transaction, so a flush running on another node at the same hour finds
+     * nothing to send; email, push and stream updates go out only after it commits.
+     */
+    private boolean flushUser(Long userId) {
+        List<NotificationDigestItem> items = notificationDigestItemRepository.lockPendingByUserId(userId);
+        if (items.isEmpty()) {
+            return false;
+        }
+
+        User user = items.get(0).getUser();
+        NotificationSettings settings = notificationSettingsService.getOrCreateSettings(user);
+
+        String title = "Your Daily Library Digest";
+        String summary = buildSummary(items);
+
+        Notification digest = notificationRepository.save(Notification.builder()
+                .user(user)
+                .title(title)
+                .message(summary)
+                .type(NotificationType.SYSTEM_NOTIFICATION)
+                .isRead(false)
+                .build());
+        notificationDigestItemRepository.deleteAllInBatch(items);
+
+        NotificationDTO dto = NotificationMapper.toDTO(digest);
+        String digestDate = LocalDate.now().format(DATE_FORMATTER);
+        TransactionHooks.afterCommit(() -> {
+            long unread = unreadCountCache.add(userId, 1);
+            notificationStreamService.publishNotification(userId, dto);
+            if (unread >= 0) {
+                notificationStreamService.publishUnreadCount(userId, unread);
+            }
+
+            if (settings.getEmailEnabled()) {
+                try {
+                    emailService.sendDailyDigestEmail(user.getEmail(), user.getFullName(), digestDate, items);
+                } catch (Exception e) {
+                    log.error("Failed to send digest email to user {}: {}", user.getEmail(), e.getMessage());
+                }
+            }
+            if (settings.getPushEnabled()) {
+                try {
+                    notificationDeliveryService.sendPush(user, title, items.size() + " new library update(s)");
+                } catch (Exception e) {
+                    log.error("Failed to send digest push to user {}: {}", user.getEmail(), e.getMessage());
+                }
+            }
+        });
+
+        log.info("Flushed digest of {} notification(s) for user: {}", items.size(), user.getEmail());
+        return true;
+    }
+
+    private String buildSummary(List<NotificationDigestItem> items) {
+        StringBuilder summary = new StringBuilder(items.size() * 128);
+        summary.append("You have ").append(items.size()).append(" update")
+                .append(items.size() == 1 ? "" : "s").append(":");
+        for (NotificationDigestItem item : items) {
+            summary.append("\n- ").append(item.getTitle()).append(": ").append(item.getMessage());
+        }
+        return summary.toString();
+    }
+}
@@ -0,0 +1,82 @@
+package com.library.service.impl;
+
+import com.library.config.NotificationRetentionProperties;
+import com.library.domain.NotificationType;
+import com.library.repository.NotificationRepository;
+import com.library.service.cache.UnreadCountCache;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+
+/**
+ * Scheduled retention job for the notifications table.
+ *
+ * For every notification type, read and unread rows older than their
+ * configured TTL are deleted in bounded batches. Each batch commits on its
+ * own, so the job never holds long locks on the table.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class NotificationRetentionService {
+
+    private final NotificationRepository notificationRepository;
+    private final NotificationRetentionProperties retentionProperties;
+    private final UnreadCountCache unreadCountCache;
+
+    /**
+     * Purge expired notifications
+     * Runs daily at 4 AM
+     */
+    @Scheduled(cron = "0 0 4 * * ?")
+    public void purgeExpiredNotifications() {
+        if (!retentionProperties.isEnabled()) {
+            log.debug("Notification retention is disabled");
+            return;
+        }
+
+        log.info("Starting notification retention job");
+        long startedAt = System.currentTimeMillis();
+        LocalDateTime now = LocalDateTime.now();
+        long totalDeleted = 0;
+        long unreadDeleted = 0;
+
+        for (NotificationType type : NotificationType.values()) {
+            try {
+                totalDeleted += purge(type, true, now.minusDays(retentionProperties.getReadTtlDays(type)));
+                long deleted = purge(type, false, now.minusDays(retentionProperties.getUnreadTtlDays(type)));
+                unreadDeleted += deleted;
+                totalDeleted += deleted;
+            } catch (Exception e) {
+                log.error("Error purging notifications of type {}", type, e);
+            }
+        }
+
+        // Deleted unread rows make the incremental counters stale
+        if (unreadDeleted > 0) {
+            unreadCountCache.clear();
+        }
+
+        log.info("Notification retention job completed. Deleted {} notification(s) ({} unread) in {} ms",
+                totalDeleted, unreadDeleted, System.currentTimeMillis() - startedAt);
+    }
+
+    private long purge(NotificationType type, boolean isRead, LocalDateTime cutoff) {
+        int batchSize = retentionProperties.getBatchSize();
+        long deleted = 0;
+        int batchDeleted;
+        do {
+            batchDeleted = notificationRepository.deleteExpiredBatch(type.name(), isRead, cutoff, batchSize);
+            deleted += batchDeleted;
+        } while (batchDeleted == batchSize);
+
+        if (deleted > 0) {
+            log.info("Deleted {} {} {} notification(s) created before {}",
+                    deleted, isRead ? "read" : "unread", type, cutoff.toLocalDate());
+        }
+        return deleted;
+    }
+}
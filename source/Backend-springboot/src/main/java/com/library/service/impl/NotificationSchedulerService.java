@@ -2,16 +2,14 @@ package com.library.service.impl;
 
 import com.library.domain.BookLoanStatus;
 import com.library.domain.NotificationType;
-import com.library.model.BookLoan;
-import com.library.repository.BookLoanRepository;
-import com.library.service.NotificationService;
+import com.library.service.impl.LoanNotificationPipeline.LoanNotification;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDate;
-import java.util.List;
+import java.time.temporal.ChronoUnit;
 
 /**
  * Scheduled service for sending automated notifications
@@ -20,14 +18,20 @@ import java.util.List;
  * - Due Date Alerts: Daily check for books due in 3 days or less
  * - Book Reminders: Daily reminder for active checkouts
  * - Overdue Notifications: Daily notification for overdue books
+ *
+ * Each job only decides which loans qualify and how the message reads; the
+ * streaming, partitioning and parallel delivery happen in
+ * LoanNotificationPipeline.
  */
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class NotificationSchedulerService {
 
-    private final NotificationService notificationService;
-    private final BookLoanRepository bookLoanRepository;
+    // Lower bound for "any due date" windows
+    private static final LocalDate EARLIEST_DUE_DATE = LocalDate.EPOCH;
+
+    private final LoanNotificationPipeline loanNotificationPipeline;
 
     /**
      * Send due date alerts for books due within 3 days
@@ -39,39 +43,23 @@ public class NotificationSchedulerService {
 
         try {
             LocalDate today = LocalDate.now();
-            LocalDate threeDaysLater = today.plusDays(3);
-
-            // Find all active loans due within next 3 days
-            List<BookLoan> upcomingDueLoans = bookLoanRepository
-                    .findByStatusAndDueDateBetween(
-                            BookLoanStatus.CHECKED_OUT,
-                            today,
-                            threeDaysLater
-                    );
-
-            int sentCount = 0;
-            for (BookLoan loan : upcomingDueLoans) {
-                long daysUntilDue = java.time.temporal.ChronoUnit.DAYS.between(today, loan.getDueDate());
-
-                String title = "Book Due Soon";
-                String message = String.format(
-                        "Your borrowed book '%s' is due in %d day%s. Please return it by %s to avoid late fees.",
-                        loan.getBook().getTitle(),
-                        daysUntilDue,
-                        daysUntilDue == 1 ? "" : "s",
-                        loan.getDueDate()
-                );
-
-                notificationService.createNotification(
-                        loan.getUser(),
-                        title,
-                        message,
-                        NotificationType.DUE_DATE_ALERT,
-                        loan.getId()
-                );
-
-                sentCount++;
-            }
+
+            int sentCount = loanNotificationPipeline.run("due-date-alerts",
+                    BookLoanStatus.CHECKED_OUT, today, today.plusDays(3), today, loan -> {
+                        long daysUntilDue = ChronoUnit.DAYS.between(today, loan.getDueDate());
+
+                        String title = "Book Due Soon";
+                        String message = String.format(
+                                "Your borrowed book '%s' is due in %d day%s. Please return it by %s to avoid late fees.",
+                                loan.getBook().getTitle(),
+                                daysUntilDue,
+                                daysUntilDue == 1 ? "" : "s",
+                                loan.getDueDate()
+                        );
+
+                        return new LoanNotification(loan.getUser(), loan.getId(), title, message,
+                                NotificationType.DUE_DATE_ALERT, NotificationType.DUE_DATE_ALERT);
+                    });
 
             log.info("Due date alerts job completed. Sent {} notifications", sentCount);
 
@@ -81,7 +69,7 @@ public class NotificationSchedulerService {
     }
 
     /**
-     * Send reminders for active book checkouts
+     * Send reminders for active book checkouts due within 7 days
      * Runs daily at 10 AM
      */
     @Scheduled(cron = "0 0 10 * * *")
@@ -89,35 +77,29 @@ public class NotificationSchedulerService {
         log.info("Starting book reminders job");
 
         try {
-            // Find all active loans
-            List<BookLoan> activeLoans = bookLoanRepository.findByStatus(BookLoanStatus.CHECKED_OUT);
-
-            int sentCount = 0;
-            for (BookLoan loan : activeLoans) {
-                LocalDate today = LocalDate.now();
-                long daysRemaining = java.time.temporal.ChronoUnit.DAYS.between(today, loan.getDueDate());
-
-                // Send reminder if book is due within 7 days and not already sent today
-                if (daysRemaining <= 7 && daysRemaining >= 0) {
-                    String title = "Book Checkout Reminder";
-                    String message = String.format(
-                            "Reminder: You have '%s' checked out. Due date: %s (%d days remaining).",
-                            loan.getBook().getTitle(),
-                            loan.getDueDate(),
-                            daysRemaining
-                    );
-
-                    notificationService.createNotification(
-                            loan.getUser(),
-                            title,
-                            message,
-                            NotificationType.BOOK_REMINDER,
-                            loan.getId()
-                    );
-
-                    sentCount++;
-                }
-            }
+            LocalDate today = LocalDate.now();
+
+            int sentCount = loanNotificationPipeline.run("book-reminders",
+                    BookLoanStatus.CHECKED_OUT, today, today.plusDays(7), today, loan -> {
+                        long daysRemaining = ChronoUnit.DAYS.between(today, loan.getDueDate());
+
+                        // Loans due within 3 days share the due date alert's key, so whichever
+                        // job runs first covers them and the other one skips
+                        NotificationType dedupType = daysRemaining <= 3
+                                ? NotificationType.DUE_DATE_ALERT
+                                : NotificationType.BOOK_REMINDER;
+
+                        String title = "Book Checkout Reminder";
+                        String message = String.format(
+                                "Reminder: You have '%s' checked out. Due date: %s (%d days remaining).",
+                                loan.getBook().getTitle(),
+                                loan.getDueDate(),
+                                daysRemaining
+                        );
+
+                        return new LoanNotification(loan.getUser(), loan.getId(), title, message,
+                                NotificationType.BOOK_REMINDER, dedupType);
+                    });
 
             log.info("Book reminders job completed. Sent {} notifications", sentCount);
 
@@ -135,35 +117,26 @@ public class NotificationSchedulerService {
         log.info("Starting overdue notifications job");
 
         try {
-            // Find all overdue loans
-            List<BookLoan> overdueLoans = bookLoanRepository.findByStatus(BookLoanStatus.OVERDUE);
-
-            int sentCount = 0;
-            for (BookLoan loan : overdueLoans) {
-                LocalDate today = LocalDate.now();
-                long daysOverdue = java.time.temporal.ChronoUnit.DAYS.between(loan.getDueDate(), today);
-
-                String title = "Overdue Book Notice";
-                String message = String.format(
-                        "Your book '%s' is %d day%s overdue. Please return it immediately. " +
-                        "Late fee: $%.2f. Due date was: %s",
-                        loan.getBook().getTitle(),
-                        daysOverdue,
-                        daysOverdue == 1 ? "" : "s",
-                        loan.getTotalFineAmount() ,
-                        loan.getDueDate()
-                );
-
-                notificationService.createNotification(
-                        loan.getUser(),
-                        title,
-                        message,
-                        NotificationType.FINE_NOTIFICATION,
-                        loan.getId()
-                );
-
-                sentCount++;
-            }
+            LocalDate today = LocalDate.now();
+
+            int sentCount = loanNotificationPipeline.run("overdue-notifications",
+                    BookLoanStatus.OVERDUE, EARLIEST_DUE_DATE, today, today, loan -> {
+                        long daysOverdue = ChronoUnit.DAYS.between(loan.getDueDate(), today);
+
+                        String title = "Overdue Book Notice";
+                        String message = String.format(
+                                "Your book '%s' is %d day%s overdue. Please return it immediately. " +
+                                "Late fee: $%.2f. Due date was: %s",
+                                loan.getBook().getTitle(),
+                                daysOverdue,
+                                daysOverdue == 1 ? "" : "s",
+                                loan.getTotalFineAmount() / 100.0,
+                                loan.getDueDate()
+                        );
+
+                        return new LoanNotification(loan.getUser(), loan.getId(), title, message,
+                                NotificationType.FINE_NOTIFICATION, NotificationType.FINE_NOTIFICATION);
+                    });
 
             log.info("Overdue notifications job completed. Sent {} notifications", sentCount);
 
@@ -6,6 +6,7 @@ import com.library.domain.PaymentType;
 import com.library.event.PaymentFailedEvent;
 import com.library.event.PaymentInitiatedEvent;
 import com.library.event.PaymentSuccessEvent;
+import com.library.event.bus.DomainEventBus;
 import com.library.exception.BookLoanException;
 import com.library.exception.UserException;
 import com.library.mapper.NotificationMapper;
@@ -20,12 +21,13 @@ import com.library.service.EmailService;
 import com.library.service.NotificationDeliveryService;
 import com.library.service.NotificationService;
 import com.library.service.NotificationSettingsService;
+import com.library.service.cache.UnreadCountCache;
+import com.library.service.support.TransactionHooks;
+import jakarta.annotation.PostConstruct;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.context.event.EventListener;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
-import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -44,6 +46,7 @@ import java.time.temporal.ChronoUnit;
 public class NotificationServiceImpl implements NotificationService {
 
     private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("MMM dd, yyyy");
+    private static final DateTimeFormatter DATE_TIME_FORMATTER = DateTimeFormatter.ofPattern("MMM dd, yyyy HH:mm");
     private static final int BATCH_SIZE = 50;
 
     private final BookLoanRepository bookLoanRepository;
@@ -51,17 +54,32 @@ public class NotificationServiceImpl implements NotificationService {
     private final NotificationRepository notificationRepository;
     private final NotificationSettingsService notificationSettingsService;
     private final NotificationDeliveryService notificationDeliveryService;
+    private final NotificationDeduplicator notificationDeduplicator;
+    private final UnreadCountCache unreadCountCache;
+    private final NotificationStreamService notificationStreamService;
+    private final NotificationDigestService notificationDigestService;
+    private final DomainEventBus domainEventBus;
 
     public NotificationServiceImpl(BookLoanRepository bookLoanRepository,
                                   EmailService emailService,
                                   NotificationRepository notificationRepository,
                                   NotificationSettingsService notificationSettingsService,
-                                  NotificationDeliveryService notificationDeliveryService) {
+                                  NotificationDeliveryService notificationDeliveryService,
+                                  NotificationDeduplicator notificationDeduplicator,
+                                  UnreadCountCache unreadCountCache,
+                                  NotificationStreamService notificationStreamService,
+                                  NotificationDigestService notificationDigestService,
+                                  DomainEventBus domainEventBus) {
         this.bookLoanRepository = bookLoanRepository;
         this.emailService = emailService;
         this.notificationRepository = notificationRepository;
         this.notificationSettingsService = notificationSettingsService;
         this.notificationDeliveryService = notificationDeliveryService;
+        this.notificationDeduplicator = notificationDeduplicator;
+        this.unreadCountCache = unreadCountCache;
+        this.notificationStreamService = notificationStreamService;
+        this.notificationDigestService = notificationDigestService;
+        this.domainEventBus = domainEventBus;
     }
 
     // ==================== BOOK LOAN NOTIFICATION METHODS ====================
@@ -72,15 +90,21 @@ public class NotificationServiceImpl implements NotificationService {
         log.info("Starting to send overdue notifications");
         int notificationsSent = 0;
         int pageNumber = 0;
+        LocalDate today = LocalDate.now();
 
         try {
             Page<BookLoan> bookLoanPage;
             do {
                 Pageable pageable = PageRequest.of(pageNumber, BATCH_SIZE);
-                bookLoanPage = bookLoanRepository.findOverdueBookLoans(LocalDate.now(), pageable);
+                bookLoanPage = bookLoanRepository.findOverdueBookLoans(today, pageable);
 
                 for (BookLoan bookLoan : bookLoanPage.getContent()) {
                     try {
+                        // Same key as NotificationSchedulerService's overdue notice
+                        if (!notificationDeduplicator.tryClaim(bookLoan.getUser().getId(), bookLoan.getId(),
+                                NotificationType.FINE_NOTIFICATION, today)) {
+                            continue;
+                        }
                         sendOverdueNotificationInternal(bookLoan);
                         notificationsSent++;
                     } catch (Exception e) {
@@ -118,6 +142,11 @@ public class NotificationServiceImpl implements NotificationService {
 
                 for (BookLoan bookLoan : bookLoanPage.getContent()) {
                     try {
+                        // Same key as NotificationSchedulerService's due date alert
+                        if (!notificationDeduplicator.tryClaim(bookLoan.getUser().getId(), bookLoan.getId(),
+                                NotificationType.DUE_DATE_ALERT, LocalDate.now())) {
+                            continue;
+                        }
                         sendDueDateReminderInternal(bookLoan);
                         notificationsSent++;
                     } catch (Exception e) {
@@ -198,16 +227,20 @@ public class NotificationServiceImpl implements NotificationService {
     }
 
     /**
-     * Get count of unread notifications for a user
+     * Get count of unread notifications for a user.
+     * Served from the incrementally maintained counter; the database is only
+     * queried on a cache miss or periodic resync.
      */
     public Long getUnreadCount(User user) {
-        log.debug("Fetching unread count for user: {}", user.getEmail());
-        return notificationRepository.countByUserAndIsReadFalse(user);
+        return unreadCountCache.get(user.getId(), () -> {
+            log.debug("Loading unread count for user: {}", user.getEmail());
+            return notificationRepository.countByUserAndIsReadFalse(user);
+        });
     }
 
     @Override
     public NotificationDTO markAsRead(Long notificationId, User user) throws UserException {
-        return null;
+        return NotificationMapper.toDTO(markAsRead(user, notificationId));
     }
 
     /**
@@ -227,6 +260,12 @@ public class NotificationServiceImpl implements NotificationService {
             return null;
         }
 
+        // Users in digest mode get routine notifications once a day
+        if (notificationDigestService.shouldDigest(type, settings)) {
+            notificationDigestService.enqueue(user, title, message, type, relatedEntityId);
+            return null;
+        }
+
         // Create and save the notification
         Notification notification = Notification.builder()
                 .user(user)
@@ -240,6 +279,13 @@ public class NotificationServiceImpl implements NotificationService {
         Notification savedNotification = notificationRepository.save(notification);
         log.info("Successfully created notification {} for user: {}", savedNotification.getId(), user.getEmail());
 
+        NotificationDTO dto = NotificationMapper.toDTO(savedNotification);
+        TransactionHooks.afterCommit(() -> {
+            unreadCountCache.add(user.getId(), 1);
+            notificationStreamService.publishNotification(user.getId(), dto);
+            pushUnreadCount(user);
+        });
+
         // Trigger delivery through various channels
         try {
             notificationDeliveryService.deliverNotification(savedNotification, settings);
@@ -263,6 +309,10 @@ public class NotificationServiceImpl implements NotificationService {
             notification.setIsRead(true);
             notification.setReadAt(LocalDateTime.now());
             notification = notificationRepository.save(notification);
+            TransactionHooks.afterCommit(() -> {
+                unreadCountCache.add(user.getId(), -1);
+                pushUnreadCount(user);
+            });
             log.info("Successfully marked notification {} as read", notificationId);
         } else {
             log.debug("Notification {} was already marked as read", notificationId);
@@ -277,12 +327,16 @@ public class NotificationServiceImpl implements NotificationService {
     public void markAllAsRead(User user) {
         log.info("Marking all notifications as read for user: {}", user.getEmail());
         notificationRepository.markAllAsReadByUser(user);
+        TransactionHooks.afterCommit(() -> {
+            unreadCountCache.set(user.getId(), 0);
+            notificationStreamService.publishUnreadCount(user.getId(), 0);
+        });
         log.info("Successfully marked all notifications as read for user: {}", user.getEmail());
     }
 
     @Override
     public void deleteNotification(Long notificationId, User user) throws UserException {
-
+        deleteNotification(user, notificationId);
     }
 
     /**
@@ -294,7 +348,14 @@ public class NotificationServiceImpl implements NotificationService {
         Notification notification = notificationRepository.findByIdAndUser(notificationId, user)
                 .orElseThrow(() -> new UserException("Notification not found or doesn't belong to user"));
 
+        boolean wasUnread = !notification.getIsRead();
         notificationRepository.delete(notification);
+        if (wasUnread) {
+            TransactionHooks.afterCommit(() -> {
+                unreadCountCache.add(user.getId(), -1);
+                pushUnreadCount(user);
+            });
+        }
         log.info("Successfully deleted notification {}", notificationId);
     }
 
@@ -304,6 +365,10 @@ public class NotificationServiceImpl implements NotificationService {
     public void deleteAllNotifications(User user) {
         log.info("Deleting all notifications for user: {}", user.getEmail());
         notificationRepository.deleteAllByUser(user);
+        TransactionHooks.afterCommit(() -> {
+            unreadCountCache.set(user.getId(), 0);
+            notificationStreamService.publishUnreadCount(user.getId(), 0);
+        });
         log.info("Successfully deleted all notifications for user: {}", user.getEmail());
     }
 
@@ -318,6 +383,15 @@ public class NotificationServiceImpl implements NotificationService {
 
     // ==================== HELPER METHODS ====================
 
+    /**
+     * Push the current unread count to the user's open streams, if any
+     */
+    private void pushUnreadCount(User user) {
+        if (notificationStreamService.hasSubscribers(user.getId())) {
+            notificationStreamService.publishUnreadCount(user.getId(), getUnreadCount(user));
+        }
+    }
+
     /**
      * Helper method to check if a notification type is enabled based on settings
      */
@@ -376,37 +450,38 @@ public class NotificationServiceImpl implements NotificationService {
 
     // ==================== EVENT LISTENERS ====================
 
+    // Send failures propagate, so the bus retries the event and dead-letters it after max attempts
+    @PostConstruct
+    public void registerEventConsumers() {
+        domainEventBus.subscribe("payment-initiated-email", PaymentInitiatedEvent.class, this::handlePaymentInitiated);
+        domainEventBus.subscribe("payment-success-email", PaymentSuccessEvent.class, this::handlePaymentSuccess);
+        domainEventBus.subscribe("payment-failed-email", PaymentFailedEvent.class, this::handlePaymentFailed);
+    }
+
     /**
      * Event listener for payment initiated events.
      * Sends email notification to user with payment link.
      *
      * @param event Payment initiated event
      */
-    @EventListener
-    @Async
     public void handlePaymentInitiated(PaymentInitiatedEvent event) {
         log.info("Received PaymentInitiatedEvent for payment ID: {}, type: {}",
             event.getPaymentId(), event.getPaymentType());
 
-        try {
-            String paymentTypeDisplay = getPaymentTypeDisplay(event.getPaymentType());
-            String amountDisplay = formatCurrency(event.getAmount());
-
-            // Send email with payment link
-//            emailService.sendPaymentInitiatedEmail(
-//                event.getUserEmail(),
-//                event.getUserName(),
-//                paymentTypeDisplay,
-//                amountDisplay,
-//                event.getCheckoutUrl(),
-//                event.getTransactionId()
-//            );
-
-            log.info("Payment initiated notification sent to {}", event.getUserEmail());
+        String paymentTypeDisplay = getPaymentTypeDisplay(event.getPaymentType());
+        String amountDisplay = formatCurrency(event.getAmount());
+
+        // Send email with payment link
+        emailService.sendPaymentInitiatedEmail(
+            event.getUserEmail(),
+            event.getUserName(),
+            paymentTypeDisplay,
+            amountDisplay,
+            event.getCheckoutUrl(),
+            event.getTransactionId()
+        );
 
-        } catch (Exception e) {
-            log.error("Failed to send payment initiated notification: {}", e.getMessage(), e);
-        }
+        log.info("Payment initiated notification sent to {}", event.getUserEmail());
     }
 
     /**
@@ -415,31 +490,24 @@ public class NotificationServiceImpl implements NotificationService {
      *
      * @param event Payment success event
      */
-    @EventListener
-    @Async
     public void handlePaymentSuccess(PaymentSuccessEvent event) {
         log.info("Received PaymentSuccessEvent for payment ID: {}, type: {}",
             event.getPaymentId(), event.getPaymentType());
 
-        try {
-            String paymentTypeDisplay = getPaymentTypeDisplay(event.getPaymentType());
-            String amountDisplay = formatCurrency(event.getAmount());
-
-            // Send success email
-//            emailService.sendPaymentSuccessEmail(
-//                event.getUserEmail(),
-//                event.getUserName(),
-//                paymentTypeDisplay,
-//                amountDisplay,
-//                event.getTransactionId(),
-//                event.getCompletedAt()
-//            );
-
-            log.info("Payment success notification sent to {}");
+        String paymentTypeDisplay = getPaymentTypeDisplay(event.getPaymentType());
+        String amountDisplay = formatCurrency(event.getAmount());
+
+        // Send success email
+        emailService.sendPaymentSuccessEmail(
+            event.getUserEmail(),
+            event.getUserName(),
+            paymentTypeDisplay,
+            amountDisplay,
+            event.getTransactionId(),
+            event.getCompletedAt() != null ? event.getCompletedAt().format(DATE_TIME_FORMATTER) : null
+        );
 
-        } catch (Exception e) {
-            log.error("Failed to send payment success notification: {}", e.getMessage(), e);
-        }
+        log.info("Payment success notification sent to {}", event.getUserEmail());
     }
 
     /**
@@ -448,31 +516,24 @@ public class NotificationServiceImpl implements NotificationService {
      *
      * @param event Payment failed event
      */
-    @EventListener
-    @Async
     public void handlePaymentFailed(PaymentFailedEvent event) {
         log.info("Received PaymentFailedEvent for payment ID: {}, type: {}",
             event.getPaymentId(), event.getPaymentType());
 
-        try {
-            String paymentTypeDisplay = getPaymentTypeDisplay(event.getPaymentType());
-            String amountDisplay = formatCurrency(event.getAmount());
-
-            // Send failure email
-//            emailService.sendPaymentFailedEmail(
-//                event.getUserEmail(),
-//                event.getUserName(),
-//                paymentTypeDisplay,
-//                amountDisplay,
-//                event.getFailureReason(),
-//                event.getTransactionId()
-//            );
-
-            log.info("Payment failed notification sent to {}", event.getUserEmail());
+        String paymentTypeDisplay = getPaymentTypeDisplay(event.getPaymentType());
+        String amountDisplay = formatCurrency(event.getAmount());
+
+        // Send failure email
+        emailService.sendPaymentFailedEmail(
+            event.getUserEmail(),
+            event.getUserName(),
+            paymentTypeDisplay,
+            amountDisplay,
+            event.getFailureReason(),
+            event.getTransactionId()
+        );
 
-        } catch (Exception e) {
-            log.error("Failed to send payment failed notification: {}", e.getMessage(), e);
-        }
+        log.info("Payment failed notification sent to {}", event.getUserEmail());
     }
 
     // ==================== HELPER METHODS ====================
@@ -7,14 +7,24 @@ import com.library.payload.dto.NotificationSettingsDTO;
 import com.library.payload.request.UpdateNotificationSettingsRequest;
 import com.library.repository.NotificationSettingsRepository;
 import com.library.service.NotificationSettingsService;
+import com.library.service.cache.NotificationSettingsCache;
+import com.library.service.support.TransactionHooks;
 import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
 /**
  * Implementation of NotificationSettingsService interface.
  * Handles notification settings management for users.
+ * Settings are cached per user ID; updates evict the cached entry once the
+ * transaction commits.
  */
 @Service
 @Transactional
@@ -23,6 +33,7 @@ import org.springframework.stereotype.Service;
 public class NotificationSettingsServiceImpl implements NotificationSettingsService {
 
     private final NotificationSettingsRepository notificationSettingsRepository;
+    private final NotificationSettingsCache notificationSettingsCache;
 
     @Override
     public NotificationSettingsDTO getSettings(User user) {
@@ -35,16 +46,78 @@ public class NotificationSettingsServiceImpl implements NotificationSettingsServ
 
     @Override
     public NotificationSettings getOrCreateSettings(User user) {
+        NotificationSettings cached = notificationSettingsCache.get(user.getId());
+        if (cached != null) {
+            return cached;
+        }
+
         log.debug("Fetching or creating notification settings for user: {}", user.getEmail());
-        return notificationSettingsRepository.findByUser(user)
-                .orElseGet(() -> createDefaultSettings(user));
+        long stamp = notificationSettingsCache.stamp();
+        NotificationSettings settings = notificationSettingsRepository.findByUser(user).orElse(null);
+        if (settings != null) {
+            notificationSettingsCache.put(user.getId(), settings, stamp);
+            return settings;
+        }
+        return createDefaultSettings(user);
+    }
+
+    @Override
+    public Map<Long, NotificationSettings> preloadSettings(Collection<User> users) {
+        Map<Long, User> usersById = new HashMap<>();
+        for (User user : users) {
+            usersById.putIfAbsent(user.getId(), user);
+        }
+
+        Map<Long, NotificationSettings> result = new HashMap<>();
+        List<Long> missingIds = new ArrayList<>();
+        for (Long userId : usersById.keySet()) {
+            NotificationSettings cached = notificationSettingsCache.get(userId);
+            if (cached != null) {
+                result.put(userId, cached);
+            } else {
+                missingIds.add(userId);
+            }
+        }
+
+        if (missingIds.isEmpty()) {
+            return result;
+        }
+
+        long stamp = notificationSettingsCache.stamp();
+        Map<Long, NotificationSettings> loaded = new HashMap<>();
+        for (NotificationSettings settings : notificationSettingsRepository.findByUserIdIn(missingIds)) {
+            loaded.put(settings.getUser().getId(), settings);
+        }
+        notificationSettingsCache.putAll(loaded, stamp);
+        result.putAll(loaded);
+
+        List<NotificationSettings> defaults = new ArrayList<>();
+        for (Long userId : missingIds) {
+            if (!loaded.containsKey(userId)) {
+                defaults.add(buildDefaultSettings(usersById.get(userId)));
+            }
+        }
+        if (!defaults.isEmpty()) {
+            List<NotificationSettings> saved = notificationSettingsRepository.saveAll(defaults);
+            log.info("Created default notification settings for {} user(s) during preload", saved.size());
+            for (NotificationSettings settings : saved) {
+                result.put(settings.getUser().getId(), settings);
+                cacheAfterCommit(settings.getUser().getId(), settings);
+            }
+        }
+
+        log.debug("Preloaded notification settings for {} user(s), {} from cache",
+                result.size(), result.size() - missingIds.size());
+        return result;
     }
 
     @Override
     public NotificationSettingsDTO updateSettings(User user, UpdateNotificationSettingsRequest request) {
         log.info("Updating notification settings for user: {}", user.getEmail());
 
-        NotificationSettings settings = getOrCreateSettings(user);
+        // Always work on the managed row, never on the shared cached instance
+        NotificationSettings settings = notificationSettingsRepository.findByUser(user)
+                .orElseGet(() -> createDefaultSettings(user));
 
         // Update only non-null fields from the request
         if (request.getEmailEnabled() != null) {
@@ -74,8 +147,18 @@ public class NotificationSettingsServiceImpl implements NotificationSettingsServ
         if (request.getSubscriptionNotificationsEnabled() != null) {
             settings.setSubscriptionNotificationsEnabled(request.getSubscriptionNotificationsEnabled());
         }
+        if (request.getDigestEnabled() != null) {
+            settings.setDigestEnabled(request.getDigestEnabled());
+        }
+        if (request.getDigestHour() != null) {
+            if (request.getDigestHour() < 0 || request.getDigestHour() > 23) {
+                throw new IllegalArgumentException("Digest hour must be between 0 and 23");
+            }
+            settings.setDigestHour(request.getDigestHour());
+        }
 
         NotificationSettings savedSettings = notificationSettingsRepository.save(settings);
+        evictAfterCommit(user.getId());
         log.info("Successfully updated notification settings for user: {}", user.getEmail());
 
         return NotificationSettingsMapper.toDTO(savedSettings);
@@ -85,7 +168,17 @@ public class NotificationSettingsServiceImpl implements NotificationSettingsServ
     public NotificationSettings createDefaultSettings(User user) {
         log.info("Creating default notification settings for user: {}", user.getEmail());
 
-        NotificationSettings settings = NotificationSettings.builder()
+        NotificationSettings savedSettings = notificationSettingsRepository.save(buildDefaultSettings(user));
+        cacheAfterCommit(user.getId(), savedSettings);
+        log.info("Successfully created default notification settings for user: {}", user.getEmail());
+
+        return savedSettings;
+    }
+
+    // ==================== HELPER METHODS ====================
+
+    private NotificationSettings buildDefaultSettings(User user) {
+        return NotificationSettings.builder()
                 .user(user)
                 .emailEnabled(true)
                 .pushEnabled(false)
@@ -96,11 +189,24 @@ public class NotificationSettingsServiceImpl implements NotificationSettingsServ
                 .marketingEmailsEnabled(false)
                 .reservationNotificationsEnabled(true)
                 .subscriptionNotificationsEnabled(true)
+                .digestEnabled(false)
                 .build();
+    }
 
-        NotificationSettings savedSettings = notificationSettingsRepository.save(settings);
-        log.info("Successfully created default notification settings for user: {}", user.getEmail());
+    /**
+     * Cache a freshly written row only once it is committed, so a rollback
+     * never leaves a phantom entry behind.
+     */
+    private void cacheAfterCommit(Long userId, NotificationSettings settings) {
+        TransactionHooks.afterCommit(() -> notificationSettingsCache.put(userId, settings));
+    }
 
-        return savedSettings;
+    /**
+     * Evict now and again after commit, so a reader that raced the update
+     * cannot re-populate the cache with the old row.
+     */
+    private void evictAfterCommit(Long userId) {
+        notificationSettingsCache.evict(userId);
+        TransactionHooks.afterCommit(() -> notificationSettingsCache.evict(userId));
     }
 }
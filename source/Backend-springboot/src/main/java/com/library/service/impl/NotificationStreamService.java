@@ -0,0 +1,167 @@
+package com.library.service.impl;
+
+import com.library.payload.dto.NotificationDTO;
+import com.library.service.cache.UnreadCountCache;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Registry of server-sent-event streams for in-app notifications.
+ *
+ * Each open stream is an SseEmitter running on servlet async support, so an
+ * idle connection holds no request thread; only pushes and the periodic
+ * heartbeat touch it. Emitters remove themselves on completion, timeout or
+ * send failure.
+ *
+ * Heartbeats run on their own thread, since a send to a slow client can
+ * block and must not hold up Spring's shared scheduler. When a user's last
+ * stream closes, their unread counter is evicted; the same tick also drops
+ * counters that are past their resync interval, so the cache stays bounded
+ * by recently active users.
+ *
+ * Events:
+ * - "notification"  → a new NotificationDTO
+ * - "unread-count"  → {"unreadCount": n}
+ */
+@Service
+@Slf4j
+public class NotificationStreamService {
+
+    private final ConcurrentMap<Long, List<SseEmitter>> emittersByUser = new ConcurrentHashMap<>();
+    private final UnreadCountCache unreadCountCache;
+    private final long streamTimeoutMillis;
+    private final long heartbeatSeconds;
+
+    private ScheduledExecutorService heartbeatExecutor;
+
+    public NotificationStreamService(
+            UnreadCountCache unreadCountCache,
+            @Value("${notification.stream.timeout-minutes:30}") long streamTimeoutMinutes,
+            @Value("${notification.stream.heartbeat-seconds:25}") long heartbeatSeconds) {
+        this.unreadCountCache = unreadCountCache;
+        this.streamTimeoutMillis = streamTimeoutMinutes * 60 * 1000;
+        this.heartbeatSeconds = heartbeatSeconds;
+    }
+
+    @PostConstruct
+    public void start() {
+        heartbeatExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "notification-heartbeat");
+            thread.setDaemon(true);
+            return thread;
+        });
+        heartbeatExecutor.scheduleWithFixedDelay(this::heartbeatTick,
+                heartbeatSeconds, heartbeatSeconds, TimeUnit.SECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (heartbeatExecutor != null) {
+            heartbeatExecutor.shutdownNow();
+        }
+    }
+
+    /**
+     * Open a new stream for a user and send the current unread count
+     * @param userId User ID
+     * @param unreadCount Current unread count
+     * @return Emitter to return from the controller
+     */
+    public SseEmitter subscribe(Long userId, long unreadCount) {
+        SseEmitter emitter = new SseEmitter(streamTimeoutMillis);
+        emittersByUser.computeIfAbsent(userId, id -> new CopyOnWriteArrayList<>()).add(emitter);
+
+        emitter.onCompletion(() -> remove(userId, emitter));
+        emitter.onTimeout(() -> remove(userId, emitter));
+        emitter.onError(e -> remove(userId, emitter));
+
+        send(userId, emitter, "unread-count", Map.of("unreadCount", unreadCount));
+        log.debug("Opened notification stream for user {} ({} open)", userId, getConnectionCount());
+        return emitter;
+    }
+
+    public void publishNotification(Long userId, NotificationDTO notification) {
+        broadcast(userId, "notification", notification);
+    }
+
+    public void publishUnreadCount(Long userId, long unreadCount) {
+        broadcast(userId, "unread-count", Map.of("unreadCount", unreadCount));
+    }
+
+    public boolean hasSubscribers(Long userId) {
+        List<SseEmitter> emitters = emittersByUser.get(userId);
+        return emitters != null && !emitters.isEmpty();
+    }
+
+    public int getConnectionCount() {
+        return emittersByUser.values().stream().mapToInt(List::size).sum();
+    }
+
+    /**
+     * Keep proxies from closing idle streams and detect dead clients
+     */
+    public void sendHeartbeats() {
+        emittersByUser.forEach((userId, emitters) -> {
+            for (SseEmitter emitter : emitters) {
+                try {
+                    emitter.send(SseEmitter.event().comment("heartbeat"));
+                } catch (IOException | IllegalStateException e) {
+                    remove(userId, emitter);
+                }
+            }
+        });
+    }
+
+    private void heartbeatTick() {
+        try {
+            sendHeartbeats();
+            unreadCountCache.evictStale();
+        } catch (RuntimeException e) {
+            // An escaping exception would cancel all future ticks
+            log.error("Notification heartbeat failed", e);
+        }
+    }
+
+    private void broadcast(Long userId, String eventName, Object data) {
+        List<SseEmitter> emitters = emittersByUser.get(userId);
+        if (emitters == null) {
+            return;
+        }
+        for (SseEmitter emitter : emitters) {
+            send(userId, emitter, eventName, data);
+        }
+    }
+
+    private void send(Long userId, SseEmitter emitter, String eventName, Object data) {
+        try {
+            emitter.send(SseEmitter.event().name(eventName).data(data));
+        } catch (IOException | IllegalStateException e) {
+            log.debug("Dropping notification stream for user {}: {}", userId, e.getMessage());
+            remove(userId, emitter);
+        }
+    }
+
+    private void remove(Long userId, SseEmitter emitter) {
+        List<SseEmitter> remaining = emittersByUser.computeIfPresent(userId, (id, emitters) -> {
+            emitters.remove(emitter);
+            return emitters.isEmpty() ? null : emitters;
+        });
+        if (remaining == null) {
+            unreadCountCache.evict(userId);
+        }
+    }
+}
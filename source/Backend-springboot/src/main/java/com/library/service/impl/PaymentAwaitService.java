@@ -0,0 +1,182 @@
+package com.library.service.impl;
+
+import com.library.domain.PaymentStatus;
+import com.library.exception.PaymentException;
+import com.library.mapper.PaymentMapper;
+import com.library.payload.dto.PaymentDTO;
+import com.library.repository.PaymentRepository;
+import com.library.service.support.TransactionHooks;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.context.request.async.DeferredResult;
+
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Long-poll support for payment status.
+ *
+ * A waiting request is parked as a DeferredResult on servlet async support,
+ * so it holds no request thread, and registered under its payment ID. When
+ * PaymentServiceImpl changes a payment's status it calls notifyStatusChanged;
+ * after the commit, the payment is read once and every waiter that has not
+ * seen that status yet is completed. A waiter that times out answers with one
+ * fresh read.
+ *
+ * Waiters are local to this node: a change committed on another node is seen
+ * at the latest on timeout.
+ */
+@Service
+@Slf4j
+public class PaymentAwaitService {
+
+    private final ConcurrentMap<Long, Set<Waiter>> waitersByPayment = new ConcurrentHashMap<>();
+    private final AtomicInteger waiterCount = new AtomicInteger();
+
+    private final PaymentRepository paymentRepository;
+    private final PaymentMapper paymentMapper;
+    private final TransactionTemplate readTransaction;
+    private final long maxTimeoutMillis;
+    private final int maxWaiters;
+
+    public PaymentAwaitService(PaymentRepository paymentRepository,
+                               PaymentMapper paymentMapper,
+                               PlatformTransactionManager transactionManager,
+                               @Value("${payment.await.max-timeout-seconds:60}") long maxTimeoutSeconds,
+                               @Value("${payment.await.max-waiters:10000}") int maxWaiters) {
+        this.paymentRepository = paymentRepository;
+        this.paymentMapper = paymentMapper;
+        this.readTransaction = new TransactionTemplate(transactionManager);
+        this.readTransaction.setReadOnly(true);
+        this.maxTimeoutMillis = maxTimeoutSeconds * 1000;
+        this.maxWaiters = maxWaiters;
+    }
+
+    /**
+     * Wait for a payment's status to change
+     * @param paymentId Payment ID
+     * @param timeout How long to wait (capped)
+     * @return Completes with the payment once its status changes, or with its
+     *         current state on timeout; immediately if it is already settled
+     * @throws PaymentException if the payment does not exist
+     */
+    public DeferredResult<PaymentDTO> await(Long paymentId, Duration timeout) throws PaymentException {
+        long timeoutMillis = Math.max(1000, Math.min(timeout.toMillis(), maxTimeoutMillis));
+        DeferredResult<PaymentDTO> result = new DeferredResult<>(timeoutMillis);
+
+        if (waiterCount.get() >= maxWaiters) {
+            // Too many parked requests: answer right away, the client polls again
+            result.setResult(load(paymentId));
+            return result;
+        }
+
+        Waiter waiter = new Waiter(result);
+        register(paymentId, waiter);
+        result.onCompletion(() -> unregister(paymentId, waiter));
+        result.onTimeout(() -> {
+            try {
+                result.setResult(load(paymentId));
+            } catch (Exception e) {
+                result.setErrorResult(e);
+            }
+        });
+
+        // Read after registering, so a change committed in between is not missed
+        PaymentDTO current;
+        try {
+            current = load(paymentId);
+        } catch (PaymentException e) {
+            unregister(paymentId, waiter);
+            throw e;
+        }
+        if (!isOpen(current.getStatus())) {
+            result.setResult(current);
+        } else {
+            waiter.seenStatus = current.getStatus();
+        }
+        return result;
+    }
+
+    /**
+     * Wake the waiters of a payment once the current transaction commits.
+     * Waiters are looked up in the hook: a client that starts waiting before
+     * the commit would otherwise read the old status and then miss the wake-up.
+     */
+    public void notifyStatusChanged(Long paymentId) {
+        if (paymentId == null) {
+            return;
+        }
+        TransactionHooks.afterCommit(() -> completeWaiters(paymentId));
+    }
+
+    public int getWaiterCount() {
+        return waiterCount.get();
+    }
+
+    // ==================== HELPER METHODS ====================
+
+    private void completeWaiters(Long paymentId) {
+        Set<Waiter> waiters = waitersByPayment.get(paymentId);
+        if (waiters == null || waiters.isEmpty()) {
+            return;
+        }
+
+        PaymentDTO payment;
+        try {
+            payment = load(paymentId);
+        } catch (Exception e) {
+            log.warn("Could not load payment {} for waiting clients: {}", paymentId, e.getMessage());
+            return;
+        }
+
+        for (Waiter waiter : waiters) {
+            // A waiter still reading its first snapshot gets the newer state
+            if (waiter.seenStatus == null || waiter.seenStatus != payment.getStatus()) {
+                waiter.result.setResult(payment);
+            }
+        }
+    }
+
+    private PaymentDTO load(Long paymentId) throws PaymentException {
+        PaymentDTO payment = readTransaction.execute(tx -> paymentRepository.findById(paymentId)
+                .map(paymentMapper::toDTO)
+                .orElse(null));
+        if (payment == null) {
+            throw new PaymentException("Payment not found with ID: " + paymentId);
+        }
+        return payment;
+    }
+
+    private void register(Long paymentId, Waiter waiter) {
+        waitersByPayment.computeIfAbsent(paymentId, id -> ConcurrentHashMap.newKeySet()).add(waiter);
+        waiterCount.incrementAndGet();
+    }
+
+    private void unregister(Long paymentId, Waiter waiter) {
+        waitersByPayment.computeIfPresent(paymentId, (id, waiters) -> {
+            if (waiters.remove(waiter)) {
+                waiterCount.decrementAndGet();
+            }
+            return waiters.isEmpty() ? null : waiters;
+        });
+    }
+
+    private static boolean isOpen(PaymentStatus status) {
+        return status == PaymentStatus.PENDING || status == PaymentStatus.PROCESSING;
+    }
+
+    private static final class Waiter {
+        private final DeferredResult<PaymentDTO> result;
+        private volatile PaymentStatus seenStatus;
+
+        private Waiter(DeferredResult<PaymentDTO> result) {
+            this.result = result;
+        }
+    }
+}
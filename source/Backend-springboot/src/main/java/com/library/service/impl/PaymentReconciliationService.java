@@ -0,0 +1,347 @@
+package com.library.service.impl;
+
+import com.library.domain.PaymentGateway;
+import com.library.domain.PaymentStatus;
+import com.library.model.Payment;
+import com.library.payload.response.PaymentReconciliationReport;
+import com.library.repository.PaymentRepository;
+import com.library.service.gateway.GatewayPaymentStatus;
+import com.library.service.gateway.RazorpayService;
+import com.library.service.gateway.StripeService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Resolves payments left in PENDING/PROCESSING (closed tab, lost webhook).
+ *
+ * Stale payments are read in keyset chunks. For each chunk the gateway status
+ * is looked up with bounded parallelism, then all transitions of the chunk are
+ * applied in one transaction with conditional updates (a webhook that got
+ * there first wins), together with the success/failure events.
+ *
+ * Payments the gateway reports as paid for a different amount are not
+ * touched; they are reported as mismatches along with lookup errors.
+ */
+@Service
+@Slf4j
+public class PaymentReconciliationService {
+
+    private static final Set<PaymentStatus> OPEN_STATUSES = EnumSet.of(PaymentStatus.PENDING, PaymentStatus.PROCESSING);
+    private static final int MAX_REPORTED_MISMATCHES = 200;
+
+    private final PaymentRepository paymentRepository;
+    private final RazorpayService razorpayService;
+    private final StripeService stripeService;
+    private final PaymentServiceImpl paymentService;
+    private final RevenueRollupService revenueRollupService;
+    private final TransactionTemplate transactionTemplate;
+
+    private final long staleMinutes;
+    private final long giveUpHours;
+    private final int chunkSize;
+    private final int parallelism;
+
+    private final AtomicBoolean running = new AtomicBoolean(false);
+    private volatile PaymentReconciliationReport lastReport;
+
+    public PaymentReconciliationService(PaymentRepository paymentRepository,
+                                        RazorpayService razorpayService,
+                                        StripeService stripeService,
+                                        PaymentServiceImpl paymentService,
+                                        RevenueRollupService revenueRollupService,
+                                        PlatformTransactionManager transactionManager,
+                                        @Value("${payment.reconciliation.stale-minutes:30}") long staleMinutes,
+                                        @Value("${payment.reconciliation.give-up-hours:72}") long giveUpHours,
+                                        @Value("${payment.reconciliation.chunk-size:200}") int chunkSize,
+                                        @Value("${payment.reconciliation.parallelism:4}") int parallelism) {
+        this.paymentRepository = paymentRepository;
+        this.razorpayService = razorpayService;
+        this.stripeService = stripeService;
+        this.paymentService = paymentService;
+        this.revenueRollupService = revenueRollupService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.staleMinutes = staleMinutes;
+        this.giveUpHours = giveUpHours;
+        this.chunkSize = chunkSize;
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Scheduled run, every 15 minutes by default
+     */
+    @Scheduled(cron = "${payment.reconciliation.cron:0 */15 * * * *}")
+    public void scheduledReconcile() {
+        reconcile();
+    }
+
+    /**
+     * Run one reconciliation pass
+     * @return The report, or null if a pass is already running
+     */
+    public PaymentReconciliationReport reconcile() {
+        if (!running.compareAndSet(false, true)) {
+            log.info("Payment reconciliation already running, skipping");
+            return null;
+        }
+        try {
+            PaymentReconciliationReport report = runPass();
+            lastReport = report;
+            return report;
+        } finally {
+            running.set(false);
+        }
+    }
+
+    public PaymentReconciliationReport getLastReport() {
+        return lastReport;
+    }
+
+    // ==================== HELPER METHODS ====================
+
+    private PaymentReconciliationReport runPass() {
+        LocalDateTime startedAt = LocalDateTime.now();
+        LocalDateTime staleBefore = startedAt.minusMinutes(staleMinutes);
+        Tally tally = new Tally();
+
+        ExecutorService lookupPool = Executors.newFixedThreadPool(parallelism, namedThreads());
+        try {
+            long lastId = 0;
+            while (true) {
+                List<Payment> chunk = paymentRepository.findStaleForReconciliation(
+                        OPEN_STATUSES, staleBefore, lastId, PageRequest.of(0, chunkSize));
+                if (chunk.isEmpty()) {
+                    break;
+                }
+                lastId = chunk.get(chunk.size() - 1).getId();
+                tally.scanned.addAndGet(chunk.size());
+
+                List<Resolution> resolutions = lookUp(lookupPool, chunk, tally);
+                apply(resolutions, tally);
+
+                if (chunk.size() < chunkSize) {
+                    break;
+                }
+            }
+        } finally {
+            lookupPool.shutdownNow();
+        }
+
+        PaymentReconciliationReport report = PaymentReconciliationReport.builder()
+                .startedAt(startedAt)
+                .finishedAt(LocalDateTime.now())
+                .scanned(tally.scanned.get())
+                .succeeded(tally.succeeded.get())
+                .failed(tally.failed.get())
+                .cancelled(tally.cancelled.get())
+                .stillOpen(tally.stillOpen.get())
+                .lookupErrors(tally.lookupErrors.get())
+                .mismatchCount(tally.mismatchCount.get())
+                .mismatches(tally.mismatches)
+                .build();
+
+        log.info("Payment reconciliation: scanned {}, succeeded {}, failed {}, cancelled {}, still open {}, "
+                        + "lookup errors {}, mismatches {}",
+                report.getScanned(), report.getSucceeded(), report.getFailed(), report.getCancelled(),
+                report.getStillOpen(), report.getLookupErrors(), report.getMismatchCount());
+        return report;
+    }
+
+    private List<Resolution> lookUp(ExecutorService lookupPool, List<Payment> chunk, Tally tally) {
+        List<Future<Resolution>> futures = new ArrayList<>(chunk.size());
+        for (Payment payment : chunk) {
+            Callable<Resolution> lookup = () -> resolve(payment, tally);
+            futures.add(lookupPool.submit(lookup));
+        }
+
+        List<Resolution> resolutions = new ArrayList<>(chunk.size());
+        for (int i = 0; i < futures.size(); i++) {
+            Payment payment = chunk.get(i);
+            try {
+                resolutions.add(futures.get(i).get());
+            } catch (ExecutionException e) {
+                tally.lookupErrors.incrementAndGet();
+                tally.mismatch(payment, "Gateway lookup failed: " + e.getCause().getMessage());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Payment reconciliation interrupted", e);
+            }
+        }
+        return resolutions;
+    }
+
+    /**
+     * Decide what to do with one payment; runs on a lookup thread
+     */
+    private Resolution resolve(Payment payment, Tally tally) throws Exception {
+        String reference = payment.getGatewayOrderId();
+        if (reference == null) {
+            if (payment.getStatus() == PaymentStatus.PENDING) {
+                // The PENDING row was committed but the gateway call never completed
+                return Resolution.close(payment, PaymentStatus.FAILED, "Payment was never created at the gateway");
+            }
+            // Older payments that never stored the gateway reference cannot be looked up
+            if (isPastGiveUp(payment)) {
+                return Resolution.close(payment, PaymentStatus.CANCELLED, "Expired without a gateway reference");
+            }
+            tally.stillOpen.incrementAndGet();
+            return Resolution.none(payment);
+        }
+
+        GatewayPaymentStatus status;
+        if (payment.getGateway() == PaymentGateway.RAZORPAY) {
+            status = razorpayService.getPaymentLinkStatus(reference);
+        } else if (payment.getGateway() == PaymentGateway.STRIPE) {
+            status = stripeService.getCheckoutSessionStatus(reference);
+        } else {
+            tally.mismatch(payment, "Unsupported gateway");
+            return Resolution.none(payment);
+        }
+
+        switch (status.state()) {
+            case PAID -> {
+                // Payment amounts are stored in minor units, as the gateways report them
+                long expected = payment.getAmount();
+                if (status.amountPaid() != null && status.amountPaid() != expected) {
+                    tally.mismatch(payment, "Gateway reports " + status.amountPaid()
+                            + " paid, expected " + expected);
+                    return Resolution.none(payment);
+                }
+                // The Stripe webhook records its own payment row; don't count the money twice
+                if (status.gatewayPaymentId() != null
+                        && paymentRepository.existsByGatewayPaymentId(status.gatewayPaymentId())) {
+                    return Resolution.close(payment, PaymentStatus.CANCELLED,
+                            "Settled by webhook as gateway payment " + status.gatewayPaymentId());
+                }
+                return Resolution.succeed(payment, status.gatewayPaymentId(), status.paymentMethod());
+            }
+            case FAILED -> {
+                return Resolution.close(payment, PaymentStatus.FAILED, status.reason());
+            }
+            default -> {
+                if (isPastGiveUp(payment)) {
+                    return Resolution.close(payment, PaymentStatus.FAILED,
+                            "Payment not completed within " + giveUpHours + " hours");
+                }
+                tally.stillOpen.incrementAndGet();
+                return Resolution.none(payment);
+            }
+        }
+    }
+
+    private void apply(List<Resolution> resolutions, Tally tally) {
+        List<Payment> succeeded = new ArrayList<>();
+        List<Payment> failed = new ArrayList<>();
+
+        transactionTemplate.executeWithoutResult(tx -> {
+            LocalDateTime now = LocalDateTime.now();
+            for (Resolution resolution : resolutions) {
+                Payment payment = resolution.payment();
+                if (resolution.status() == PaymentStatus.SUCCESS) {
+                    if (paymentRepository.markSucceededIfOpen(payment.getId(),
+                            resolution.gatewayPaymentId(), resolution.paymentMethod(), now) == 0) {
+                        continue;
+                    }
+                    payment.setStatus(PaymentStatus.SUCCESS);
+                    payment.setCompletedAt(now);
+                    if (resolution.gatewayPaymentId() != null) {
+                        payment.setGatewayPaymentId(resolution.gatewayPaymentId());
+                    }
+                    revenueRollupService.recordSuccessfulPayment(payment);
+                    succeeded.add(payment);
+                } else if (resolution.status() != null) {
+                    if (paymentRepository.markClosedIfOpen(payment.getId(), resolution.status(),
+                            resolution.reason()) == 0) {
+                        continue;
+                    }
+                    payment.setStatus(resolution.status());
+                    payment.setFailureReason(resolution.reason());
+                    if (resolution.status() == PaymentStatus.FAILED) {
+                        failed.add(payment);
+                    } else {
+                        tally.cancelled.incrementAndGet();
+                    }
+                }
+            }
+            // Recorded on the event bus in the same transaction as the transitions
+            paymentService.publishSettlementEvents(succeeded, failed);
+        });
+
+        tally.succeeded.addAndGet(succeeded.size());
+        tally.failed.addAndGet(failed.size());
+    }
+
+    private boolean isPastGiveUp(Payment payment) {
+        return Duration.between(payment.getCreatedAt(), LocalDateTime.now()).toHours() >= giveUpHours;
+    }
+
+    private static ThreadFactory namedThreads() {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, "payment-reconcile-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /**
+     * Planned transition for one payment; status null means leave it alone
+     */
+    private record Resolution(Payment payment, PaymentStatus status, String gatewayPaymentId,
+                              String paymentMethod, String reason) {
+
+        static Resolution none(Payment payment) {
+            return new Resolution(payment, null, null, null, null);
+        }
+
+        static Resolution succeed(Payment payment, String gatewayPaymentId, String paymentMethod) {
+            return new Resolution(payment, PaymentStatus.SUCCESS, gatewayPaymentId, paymentMethod, null);
+        }
+
+        static Resolution close(Payment payment, PaymentStatus status, String reason) {
+            return new Resolution(payment, status, null, null, reason);
+        }
+    }
+
+    private static class Tally {
+        final AtomicInteger scanned = new AtomicInteger();
+        final AtomicInteger succeeded = new AtomicInteger();
+        final AtomicInteger failed = new AtomicInteger();
+        final AtomicInteger cancelled = new AtomicInteger();
+        final AtomicInteger stillOpen = new AtomicInteger();
+        final AtomicInteger lookupErrors = new AtomicInteger();
+        final AtomicInteger mismatchCount = new AtomicInteger();
+        final List<PaymentReconciliationReport.Mismatch> mismatches = new ArrayList<>();
+
+        void mismatch(Payment payment, String detail) {
+            mismatchCount.incrementAndGet();
+            log.warn("Payment reconciliation mismatch for payment {} ({}): {}",
+                    payment.getId(), payment.getGateway(), detail);
+            synchronized (mismatches) {
+                if (mismatches.size() < MAX_REPORTED_MISMATCHES) {
+                    mismatches.add(new PaymentReconciliationReport.Mismatch(
+                            payment.getId(), payment.getGateway(), payment.getStatus(), detail));
+                }
+            }
+        }
+    }
+}
@@ -15,16 +15,19 @@ import com.library.payload.dto.PaymentDTO;
 import com.library.payload.request.PaymentInitiateRequest;
 import com.library.payload.request.PaymentVerifyRequest;
 import com.library.payload.response.PaymentInitiateResponse;
+import com.library.payload.response.RevenueReportResponse;
 import com.library.payload.response.RevenueStatisticsResponse;
 import com.library.repository.*;
 import com.library.service.PaymentService;
 import com.library.service.SubscriptionService;
 import com.library.service.gateway.RazorpayService;
+import com.library.service.gateway.StripeApiClient;
 import com.library.service.gateway.StripeService;
 import com.stripe.exception.StripeException;
 import com.stripe.model.Event;
 import com.stripe.net.Webhook;
 import com.stripe.param.checkout.SessionCreateParams;
+import jakarta.persistence.EntityManager;
 import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -36,9 +39,9 @@ import com.library.payload.response.PaymentLinkResponse;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
-import java.util.Objects;
 import java.util.UUID;
 
 import com.stripe.model.checkout.Session;
@@ -64,9 +67,13 @@ public class PaymentServiceImpl implements PaymentService {
     private final PaymentMapper paymentMapper;
     private final RazorpayService razorpayService;
     private final StripeService stripeService;
+    private final StripeApiClient stripeApiClient;
     private final FineRepository fineRepository;
     private final PaymentEventPublisher paymentEventPublisher;
     private final SubscriptionPlanRepository subscriptionPlanRepository;
+    private final RevenueRollupService revenueRollupService;
+    private final PaymentAwaitService paymentAwaitService;
+    private final EntityManager entityManager;
 
     @Value("${stripe.webhook.secret}")
     private String stripeWebhookSecret;
@@ -75,12 +82,25 @@ public class PaymentServiceImpl implements PaymentService {
 
 
 
+    /**
+     * Runs without a surrounding transaction: the PENDING payment is committed
+     * first, then the gateway is called with no DB connection held, then the
+     * payment moves to PROCESSING (or FAILED) in a short update of its own.
+     */
     @Override
+    @Transactional(Transactional.TxType.NOT_SUPPORTED)
     public PaymentInitiateResponse initiatePayment(
             PaymentInitiateRequest request) throws PaymentException {
         log.info("Initiating payment for user: {}, type: {}, gateway: {}",
                 request.getUserId(), request.getPaymentType(), request.getGateway());
 
+        if (request.getGateway() != PaymentGateway.RAZORPAY && request.getGateway() != PaymentGateway.STRIPE) {
+            throw new PaymentException("Unsupported payment gateway: " + request.getGateway());
+        }
+        if (request.getGateway() == PaymentGateway.STRIPE && request.getSubscriptionId() == null) {
+            throw new PaymentException("Stripe subscription payment requires subscription");
+        }
+
         // 1. Validate user
         User user = userRepository.findById(request.getUserId())
                 .orElseThrow(() -> new PaymentException("User not found with ID: " + request.getUserId()));
@@ -117,60 +137,67 @@ public class PaymentServiceImpl implements PaymentService {
             payment.setFine(fine);
         }
 
+        // Committed before the gateway call
         payment = paymentRepository.save(payment);
 
         // 4. Initiate payment with gateway
         PaymentInitiateResponse response;
-        if (request.getGateway() == PaymentGateway.RAZORPAY) {
-            PaymentLinkResponse linkResponse = razorpayService.createPaymentLink(
-                    user,
-                    payment
-            );
-
-            response= PaymentInitiateResponse.builder()
-                    .paymentId(payment.getId())
-                    .gateway(payment.getGateway())
-                    .checkoutUrl(linkResponse.getPayment_link_url())
-                    .transactionId(linkResponse.getPayment_link_id())
-                    .amount(payment.getAmount())
-                    .currency(payment.getCurrency())
-                    .description(payment.getDescription())
-                    .success(true)
-                    .message("Payment initiated successfully")
-                    .build();
-
+        String gatewayOrderId = null;
+        try {
+            if (request.getGateway() == PaymentGateway.RAZORPAY) {
+                PaymentLinkResponse linkResponse = razorpayService.createPaymentLink(
+                        user,
+                        payment
+                );
 
-            payment.setGatewayOrderId(linkResponse.getPayment_link_id());
-        } else if (request.getGateway() == PaymentGateway.STRIPE) {
-            if (payment.getSubscription() == null) {
-                throw new PaymentException("Stripe subscription payment requires subscription");
-            }
+                response = PaymentInitiateResponse.builder()
+                        .paymentId(payment.getId())
+                        .gateway(payment.getGateway())
+                        .checkoutUrl(linkResponse.getPayment_link_url())
+                        .transactionId(linkResponse.getPayment_link_id())
+                        .amount(payment.getAmount())
+                        .currency(payment.getCurrency())
+                        .description(payment.getDescription())
+                        .success(true)
+                        .message("Payment initiated successfully")
+                        .build();
 
-            try {
-                String checkoutUrl = stripeService.createCheckoutSession(
+                gatewayOrderId = linkResponse.getPayment_link_id();
+            } else {
+                Session session = stripeService.createCheckoutSession(
                         user,
-                        payment.getSubscription()
+                        payment.getSubscription(),
+                        payment.getId()
                 );
 
                 response = PaymentInitiateResponse.builder()
                         .paymentId(payment.getId())
                         .gateway(PaymentGateway.STRIPE)
-                        .checkoutUrl(checkoutUrl)
+                        .checkoutUrl(session.getUrl())
                         .amount(payment.getAmount())
                         .currency(payment.getCurrency())
                         .success(true)
                         .message("Stripe checkout session created")
                         .build();
 
-            } catch (StripeException e) {
-                throw new PaymentException("Stripe checkout failed", e);
+                gatewayOrderId = session.getId();
             }
-        } else {
-            throw new PaymentException("Unsupported payment gateway: " + request.getGateway());
+        } catch (PaymentException | StripeException e) {
+            paymentRepository.markInitiationFailed(payment.getId(), e.getMessage());
+            log.error("Gateway call failed for payment {}: {}", payment.getId(), e.getMessage());
+            if (e instanceof PaymentException paymentException) {
+                throw paymentException;
+            }
+            throw new PaymentException("Stripe checkout failed", e);
         }
 
-        payment.setStatus(PaymentStatus.PROCESSING);
-        payment = paymentRepository.save(payment);
+        // 5. PENDING → PROCESSING, unless a webhook already settled it
+        if (paymentRepository.markProcessing(payment.getId(), gatewayOrderId) > 0) {
+            payment.setStatus(PaymentStatus.PROCESSING);
+            if (gatewayOrderId != null) {
+                payment.setGatewayOrderId(gatewayOrderId);
+            }
+        }
 
         // Publish payment initiated event
         publishPaymentInitiatedEvent(payment, response.getCheckoutUrl());
@@ -208,42 +235,34 @@ public class PaymentServiceImpl implements PaymentService {
             return paymentMapper.toDTO(payment);
         }
 
-        boolean isValid = razorpayService.isValidPayment(
-                request.getRazorpayPaymentId());
+        boolean isValid = razorpayService.isValidPayment(paymentDetails);
+        String gatewayPaymentId = null;
 
         if (payment.getGateway() == PaymentGateway.RAZORPAY) {
 
             if (isValid) {
-                payment.setGatewayPaymentId(request.getRazorpayPaymentId());
-                payment.setGatewayOrderId(request.getRazorpayOrderId());
-                payment.setGatewaySignature(request.getRazorpaySignature());
+                gatewayPaymentId = request.getRazorpayPaymentId();
             }
         } else if (payment.getGateway() == PaymentGateway.STRIPE) {
             isValid = stripeService.verifyPayment(request.getStripePaymentIntentId());
 
             if (isValid) {
-                payment.setGatewayPaymentId(request.getStripePaymentIntentId());
+                gatewayPaymentId = request.getStripePaymentIntentId();
             }
         }
 
         if (isValid) {
-            payment.setStatus(PaymentStatus.SUCCESS);
-            payment.setCompletedAt(LocalDateTime.now());
-            log.info("Payment verified successfully: {}", payment.getId());
-
-            // Save payment first
-            payment = paymentRepository.save(payment);
-
-            // Publish payment success event (instead of direct service calls)
-            publishPaymentSuccessEvent(payment);
-        } else {
-            payment.setStatus(PaymentStatus.FAILED);
-            payment.setFailureReason("Payment verification failed");
+            if (settleAsSucceeded(payment, gatewayPaymentId, null)) {
+                if (payment.getGateway() == PaymentGateway.RAZORPAY) {
+                    payment.setGatewayOrderId(request.getRazorpayOrderId());
+                    payment.setGatewaySignature(request.getRazorpaySignature());
+                }
+                log.info("Payment verified successfully: {}", payment.getId());
+            } else {
+                log.warn("Payment {} was settled concurrently, now {}", payment.getId(), payment.getStatus());
+            }
+        } else if (settleAsFailed(payment, "Payment verification failed")) {
             log.error("Payment verification failed: {}", payment.getId());
-            payment = paymentRepository.save(payment);
-
-            // Publish payment failed event
-            publishPaymentFailedEvent(payment);
         }
 
         return paymentMapper.toDTO(payment);
@@ -289,12 +308,14 @@ public class PaymentServiceImpl implements PaymentService {
 
         payment.setStatus(PaymentStatus.CANCELLED);
         payment = paymentRepository.save(payment);
+        paymentAwaitService.notifyStatusChanged(paymentId);
 
         log.info("Payment cancelled: {}", paymentId);
         return paymentMapper.toDTO(payment);
     }
 
     @Override
+    @Transactional(Transactional.TxType.NOT_SUPPORTED)
     public PaymentInitiateResponse retryPayment(Long paymentId) throws PaymentException {
         Payment payment = paymentRepository.findById(paymentId)
             .orElseThrow(() -> new PaymentException("Payment not found with ID: " + paymentId));
@@ -323,34 +344,21 @@ public class PaymentServiceImpl implements PaymentService {
 
     @Override
     public RevenueStatisticsResponse getMonthlyRevenue() {
-        List<Payment> payments=paymentRepository.findAll();
-
-        int currentYear = LocalDateTime.now().getYear();
-        int currentMonth = LocalDateTime.now().getMonthValue();
-
-        // Filter only successful payments of this month
-        double totalRevenue = payments.stream()
-                .filter(Payment::isSuccessful)
-                .filter(p -> p.getCreatedAt() != null &&
-                        p.getCreatedAt().getYear() == currentYear &&
-                        p.getCreatedAt().getMonthValue() == currentMonth)
-                .mapToDouble(p -> p.getAmount().doubleValue())
-                .sum();
-
-        // Determine currency (default to INR if mixed/null)
-        String currency = payments.stream()
-                .filter(Payment::isSuccessful)
-                .map(Payment::getCurrency)
-                .filter(Objects::nonNull)
-                .findFirst()
-                .orElse("INR");
+        LocalDate today = LocalDate.now();
+        RevenueReportResponse report = revenueRollupService.getMonthRevenue(
+                today.getYear(), today.getMonthValue(), false);
+
+        // Report the dominant currency; other currencies are in the revenue report endpoints
+        RevenueReportResponse.CurrencyTotal primary = report.getTotals().stream()
+                .max(Comparator.comparingLong(RevenueReportResponse.CurrencyTotal::getTotalAmount))
+                .orElse(null);
 
         // Build response
         RevenueStatisticsResponse response = new RevenueStatisticsResponse();
-        response.setMonthlyRevenue(totalRevenue);
-        response.setCurrency(currency);
-        response.setYear(currentYear);
-        response.setMonth(currentMonth);
+        response.setMonthlyRevenue(primary != null ? primary.getTotalAmount() : 0);
+        response.setCurrency(primary != null ? primary.getCurrency() : "INR");
+        response.setYear(today.getYear());
+        response.setMonth(today.getMonthValue());
 
         return response;
     }
@@ -362,69 +370,115 @@ public class PaymentServiceImpl implements PaymentService {
      */
     public void handleRazorpayWebhook(JSONObject webhookPayload) {
         try {
-            String event = webhookPayload.getString("event");
-            log.info("Processing Razorpay webhook event: {}", event);
-
-            if ("payment.captured".equals(event) || "payment_link.paid".equals(event)) {
-                JSONObject payload = webhookPayload.getJSONObject("payload");
-                JSONObject paymentEntity = payload.getJSONObject("payment").getJSONObject("entity");
+            processRazorpayEvent(webhookPayload);
+        } catch (Exception e) {
+            log.error("Error processing Razorpay webhook: {}", e.getMessage(), e);
+        }
+    }
 
-                String gatewayPaymentId = paymentEntity.getString("id");
+    /**
+     * Apply a Razorpay webhook event; failures propagate to the caller
+     */
+    public void processRazorpayEvent(JSONObject webhookPayload) {
+        String event = webhookPayload.getString("event");
+        log.info("Processing Razorpay webhook event: {}", event);
 
-                // Try to find payment by transaction ID or notes
-                Payment payment = null;
+        if ("payment.captured".equals(event) || "payment_link.paid".equals(event)) {
+            JSONObject payload = webhookPayload.getJSONObject("payload");
+            JSONObject paymentEntity = payload.getJSONObject("payment").getJSONObject("entity");
 
-                if (paymentEntity.has("notes")) {
-                    JSONObject notes = paymentEntity.getJSONObject("notes");
-                    if (notes.has("payment_id")) {
-                        Long paymentId = notes.getLong("payment_id");
-                        payment = paymentRepository.findById(paymentId).orElse(null);
-                    }
-                }
+            String gatewayPaymentId = paymentEntity.getString("id");
 
-                if (payment != null && payment.getStatus() != PaymentStatus.SUCCESS) {
-                    payment.setStatus(PaymentStatus.SUCCESS);
-                    payment.setCompletedAt(LocalDateTime.now());
-                    payment.setGatewayPaymentId(gatewayPaymentId);
+            // Try to find payment by transaction ID or notes
+            Payment payment = null;
 
-                    // Extract payment method
-                    if (paymentEntity.has("method")) {
-                        payment.setPaymentMethod(paymentEntity.getString("method"));
-                    }
+            if (paymentEntity.has("notes")) {
+                JSONObject notes = paymentEntity.getJSONObject("notes");
+                if (notes.has("payment_id")) {
+                    Long paymentId = notes.getLong("payment_id");
+                    payment = paymentRepository.findById(paymentId).orElse(null);
+                }
+            }
 
-                    payment = paymentRepository.save(payment);
+            if (payment != null) {
+                String paymentMethod = paymentEntity.has("method") ? paymentEntity.getString("method") : null;
+                if (settleAsSucceeded(payment, gatewayPaymentId, paymentMethod)) {
                     log.info("Payment {} marked as successful via webhook", payment.getId());
-
-                    // Publish payment success event (instead of direct service calls)
-                    publishPaymentSuccessEvent(payment);
                 }
-            } else if ("payment.failed".equals(event)) {
-                // Handle failed payment
-                JSONObject payload = webhookPayload.getJSONObject("payload");
-                JSONObject paymentEntity = payload.getJSONObject("payment").getJSONObject("entity");
-
-                if (paymentEntity.has("notes")) {
-                    JSONObject notes = paymentEntity.getJSONObject("notes");
-                    if (notes.has("payment_id")) {
-                        Long paymentId = notes.getLong("payment_id");
-                        Payment payment = paymentRepository.findById(paymentId).orElse(null);
-
-                        if (payment != null && payment.isPending()) {
-                            payment.setStatus(PaymentStatus.FAILED);
-                            payment.setFailureReason(paymentEntity.optString("error_description", "Payment failed"));
-                            payment = paymentRepository.save(payment);
-                            log.info("Payment {} marked as failed via webhook", payment.getId());
-
-                            // Publish payment failed event
-                            publishPaymentFailedEvent(payment);
-                        }
+            }
+        } else if ("payment.failed".equals(event)) {
+            // Handle failed payment
+            JSONObject payload = webhookPayload.getJSONObject("payload");
+            JSONObject paymentEntity = payload.getJSONObject("payment").getJSONObject("entity");
+
+            if (paymentEntity.has("notes")) {
+                JSONObject notes = paymentEntity.getJSONObject("notes");
+                if (notes.has("payment_id")) {
+                    Long paymentId = notes.getLong("payment_id");
+                    Payment payment = paymentRepository.findById(paymentId).orElse(null);
+
+                    if (payment != null && settleAsFailed(payment,
+                            paymentEntity.optString("error_description", "Payment failed"))) {
+                        log.info("Payment {} marked as failed via webhook", payment.getId());
                     }
                 }
             }
+        }
+    }
 
-        } catch (Exception e) {
-            log.error("Error processing Razorpay webhook: {}", e.getMessage(), e);
+    /**
+     * Move an open payment to SUCCESS with a conditional UPDATE. Only the
+     * caller whose UPDATE changed the row records revenue and publishes, so a
+     * payment confirmed by both the verify call and a webhook counts once.
+     * @return true if this call settled the payment; otherwise the entity is
+     *         refreshed to the state the other caller left
+     */
+    private boolean settleAsSucceeded(Payment payment, String gatewayPaymentId, String paymentMethod) {
+        LocalDateTime completedAt = LocalDateTime.now();
+        if (paymentRepository.markSucceededIfOpen(payment.getId(), gatewayPaymentId, paymentMethod,
+                completedAt) != 1) {
+            entityManager.refresh(payment);
+            return false;
+        }
+
+        // Mirror the row, so flushing the entity cannot undo the UPDATE
+        payment.setStatus(PaymentStatus.SUCCESS);
+        payment.setCompletedAt(completedAt);
+        if (gatewayPaymentId != null) {
+            payment.setGatewayPaymentId(gatewayPaymentId);
+        }
+        if (paymentMethod != null) {
+            payment.setPaymentMethod(paymentMethod);
         }
+
+        revenueRollupService.recordSuccessfulPayment(payment);
+        publishPaymentSuccessEvent(payment);
+        return true;
+    }
+
+    /**
+     * Move an open payment to FAILED with a conditional UPDATE; a payment that
+     * succeeded meanwhile is left alone
+     * @return true if this call failed the payment
+     */
+    private boolean settleAsFailed(Payment payment, String reason) {
+        if (paymentRepository.markClosedIfOpen(payment.getId(), PaymentStatus.FAILED, reason) != 1) {
+            entityManager.refresh(payment);
+            return false;
+        }
+        payment.setStatus(PaymentStatus.FAILED);
+        payment.setFailureReason(reason);
+        publishPaymentFailedEvent(payment);
+        return true;
+    }
+
+    /**
+     * Publish the events for payments settled outside the normal flow
+     * (reconciliation), in the caller's transaction
+     */
+    public void publishSettlementEvents(List<Payment> succeeded, List<Payment> failed) {
+        succeeded.forEach(this::publishPaymentSuccessEvent);
+        failed.forEach(this::publishPaymentFailedEvent);
     }
 
     /**
@@ -454,6 +508,7 @@ public class PaymentServiceImpl implements PaymentService {
             .build();
 
         paymentEventPublisher.publishPaymentInitiated(event);
+        paymentAwaitService.notifyStatusChanged(payment.getId());
     }
 
     /**
@@ -476,9 +531,12 @@ public class PaymentServiceImpl implements PaymentService {
             .transactionId(payment.getTransactionId())
             .completedAt(payment.getCompletedAt())
             .description(payment.getDescription())
+            .userEmail(payment.getUser().getEmail())
+            .userName(payment.getUser().getFullName())
             .build();
 
         paymentEventPublisher.publishPaymentSuccess(event);
+        paymentAwaitService.notifyStatusChanged(payment.getId());
     }
 
     /**
@@ -507,6 +565,7 @@ public class PaymentServiceImpl implements PaymentService {
             .build();
 
         paymentEventPublisher.publishPaymentFailed(event);
+        paymentAwaitService.notifyStatusChanged(payment.getId());
     }
 
 
@@ -537,7 +596,7 @@ public class PaymentServiceImpl implements PaymentService {
                             )
                             .build();
 
-            Session session = Session.create(params);
+            Session session = stripeApiClient.createCheckoutSession(params);
 
             return PaymentInitiateResponse.builder()
                     .checkoutUrl(session.getUrl())
@@ -556,11 +615,16 @@ public class PaymentServiceImpl implements PaymentService {
 
 
     public void handleStripeWebhook(String payload, String sigHeader) throws PaymentException {
+        processStripeEvent(verifyStripeWebhook(payload, sigHeader));
+    }
 
-        Event event;
-
+    /**
+     * Check the Stripe signature and parse the event
+     * @throws PaymentException if the signature is invalid
+     */
+    public Event verifyStripeWebhook(String payload, String sigHeader) throws PaymentException {
         try {
-            event = Webhook.constructEvent(
+            return Webhook.constructEvent(
                     payload,
                     sigHeader,
                     stripeWebhookSecret
@@ -568,7 +632,26 @@ public class PaymentServiceImpl implements PaymentService {
         } catch (Exception e) {
             throw new PaymentException("Invalid Stripe webhook signature");
         }
+    }
 
+    /**
+     * Re-parse a Stripe event that was verified when it was received.
+     * The signature is checked again without the timestamp tolerance, since a
+     * stored event may be processed long after it arrived.
+     * @throws PaymentException if the signature does not match
+     */
+    public Event parseStoredStripeWebhook(String payload, String sigHeader) throws PaymentException {
+        try {
+            return Webhook.constructEvent(payload, sigHeader, stripeWebhookSecret, 0);
+        } catch (Exception e) {
+            throw new PaymentException("Invalid Stripe webhook signature");
+        }
+    }
+
+    /**
+     * Apply an already verified Stripe event
+     */
+    public void processStripeEvent(Event event) {
         if (!"checkout.session.completed".equals(event.getType())) {
             return;
         }
@@ -581,7 +664,15 @@ public class PaymentServiceImpl implements PaymentService {
         log.error("🔥 STRIPE METADATA = {}",session.getMetadata());
         Long userId = Long.valueOf(session.getMetadata().get("userId"));
         Long planId = Long.valueOf(session.getMetadata().get("planId"));
-        Long amount = (long) ((long)session.getAmountTotal() / 100.0);
+        // Stripe reports cents, the unit payments are stored in
+        Long amount = session.getAmountTotal();
+
+        // Reconciliation may already have recorded this payment
+        if (session.getPaymentIntent() != null
+                && paymentRepository.existsByGatewayPaymentId(session.getPaymentIntent())) {
+            log.info("Stripe payment {} already recorded, skipping", session.getPaymentIntent());
+            return;
+        }
 
         User user = userRepository.findById(userId)
                 .orElseThrow();
@@ -615,6 +706,7 @@ public class PaymentServiceImpl implements PaymentService {
         payment.setCompletedAt(LocalDateTime.now());
 
         paymentRepository.save(payment);
+        revenueRollupService.recordSuccessfulPayment(payment);
 
         // ✅ PUBLISH EVENT (ADMIN PANEL UPDATES)
         publishPaymentSuccessEvent(payment);
@@ -0,0 +1,267 @@
+package com.library.service.impl;
+
+import com.library.model.Payment;
+import com.library.model.RevenueRollup;
+import com.library.payload.response.RevenueReportResponse;
+import com.library.repository.RevenueRollupRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Maintains and serves the revenue_rollups table.
+ *
+ * Every payment that turns SUCCESS is added to its (month, currency, type,
+ * gateway) bucket with an upsert in the same transaction, so revenue reports
+ * read a handful of pre-aggregated rows instead of scanning payments.
+ * Payments are bucketed by completion time (creation time if missing).
+ *
+ * A rebuild runs one transaction per year: it locks the year's buckets (and
+ * the gaps between them) first, then aggregates the payments and writes only
+ * the buckets that differ, with a SET-style upsert. A payment that commits
+ * before the lock is in the aggregate; one that commits after waits for the
+ * rebuild and then adds itself to the corrected bucket.
+ */
+@Service
+@Slf4j
+public class RevenueRollupService {
+
+    private static final String YEARS_SQL = """
+            SELECT DISTINCT YEAR(COALESCE(completed_at, created_at)) AS period_year
+            FROM payments WHERE status = 'SUCCESS'
+            UNION
+            SELECT DISTINCT period_year FROM revenue_rollups
+            """;
+
+    private static final String LOCK_YEAR_SQL = """
+            SELECT id, period_month, currency, payment_type, gateway, payment_count, total_amount
+            FROM revenue_rollups
+            WHERE period_year = ?
+            FOR UPDATE
+            """;
+
+    private static final String YEAR_TOTALS_SQL = """
+            SELECT MONTH(COALESCE(completed_at, created_at)) AS period_month,
+                   currency, payment_type, gateway, COUNT(*) AS payment_count, SUM(amount) AS total_amount
+            FROM payments
+            WHERE status = 'SUCCESS'
+              AND COALESCE(completed_at, created_at) >= ? AND COALESCE(completed_at, created_at) < ?
+            GROUP BY MONTH(COALESCE(completed_at, created_at)), currency, payment_type, gateway
+            """;
+
+    private static final String SET_BUCKET_SQL = """
+            INSERT INTO revenue_rollups
+                (period_year, period_month, currency, payment_type, gateway, payment_count, total_amount, updated_at)
+            VALUES (?, ?, ?, ?, ?, ?, ?, ?)
+            ON DUPLICATE KEY UPDATE payment_count = VALUES(payment_count),
+                                    total_amount = VALUES(total_amount),
+                                    updated_at = VALUES(updated_at)
+            """;
+
+    private static final String DELETE_BUCKET_SQL = "DELETE FROM revenue_rollups WHERE id = ?";
+
+    private final RevenueRollupRepository revenueRollupRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    public RevenueRollupService(RevenueRollupRepository revenueRollupRepository,
+                                JdbcTemplate jdbcTemplate,
+                                PlatformTransactionManager transactionManager) {
+        this.revenueRollupRepository = revenueRollupRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Add a payment that just transitioned to SUCCESS to its bucket
+     */
+    @Transactional
+    public void recordSuccessfulPayment(Payment payment) {
+        LocalDateTime bucketTime = payment.getCompletedAt() != null
+                ? payment.getCompletedAt()
+                : LocalDateTime.now();
+        revenueRollupRepository.addPayment(
+                bucketTime.getYear(),
+                bucketTime.getMonthValue(),
+                payment.getCurrency(),
+                payment.getPaymentType().name(),
+                payment.getGateway().name(),
+                payment.getAmount());
+    }
+
+    /**
+     * Rebuild all buckets from the payments table, one year per transaction
+     * @return Number of buckets after the rebuild
+     */
+    public int rebuild() {
+        long startedAt = System.currentTimeMillis();
+        List<Integer> years = jdbcTemplate.queryForList(YEARS_SQL, Integer.class);
+
+        int buckets = 0;
+        int corrected = 0;
+        for (Integer year : years) {
+            if (year == null) {
+                continue;
+            }
+            int[] result = transactionTemplate.execute(tx -> rebuildYear(year));
+            buckets += result[0];
+            corrected += result[1];
+        }
+        log.info("Rebuilt {} revenue rollup bucket(s) over {} year(s), {} corrected, in {} ms",
+                buckets, years.size(), corrected, System.currentTimeMillis() - startedAt);
+        return buckets;
+    }
+
+    /**
+     * Backfill on first start, when the rollup table is still empty
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillIfEmpty() {
+        try {
+            if (revenueRollupRepository.count() == 0) {
+                log.info("Revenue rollups are empty, backfilling from payments");
+                rebuild();
+            }
+        } catch (Exception e) {
+            log.error("Revenue rollup backfill failed", e);
+        }
+    }
+
+    @Transactional(readOnly = true)
+    public RevenueReportResponse getMonthRevenue(int year, int month, boolean withBreakdown) {
+        validateMonth(month);
+        RevenueReportResponse report = buildReport(
+                revenueRollupRepository.findByYearAndMonthRange(year, month, month), withBreakdown);
+        report.setPeriod("MONTH");
+        report.setYear(year);
+        report.setMonth(month);
+        return report;
+    }
+
+    @Transactional(readOnly = true)
+    public RevenueReportResponse getQuarterRevenue(int year, int quarter, boolean withBreakdown) {
+        if (quarter < 1 || quarter > 4) {
+            throw new IllegalArgumentException("Quarter must be between 1 and 4");
+        }
+        int firstMonth = (quarter - 1) * 3 + 1;
+        RevenueReportResponse report = buildReport(
+                revenueRollupRepository.findByYearAndMonthRange(year, firstMonth, firstMonth + 2), withBreakdown);
+        report.setPeriod("QUARTER");
+        report.setYear(year);
+        report.setQuarter(quarter);
+        return report;
+    }
+
+    @Transactional(readOnly = true)
+    public RevenueReportResponse getYearRevenue(int year, boolean withBreakdown) {
+        RevenueReportResponse report = buildReport(
+                revenueRollupRepository.findByYearAndMonthRange(year, 1, 12), withBreakdown);
+        report.setPeriod("YEAR");
+        report.setYear(year);
+        return report;
+    }
+
+    // ==================== HELPER METHODS ====================
+
+    /**
+     * @return {buckets in the year, buckets written or deleted}
+     */
+    private int[] rebuildYear(int year) {
+        Map<BucketKey, StoredBucket> stored = new HashMap<>();
+        jdbcTemplate.query(LOCK_YEAR_SQL, rs -> {
+            stored.put(new BucketKey(rs.getInt("period_month"), rs.getString("currency"),
+                            rs.getString("payment_type"), rs.getString("gateway")),
+                    new StoredBucket(rs.getLong("id"), rs.getLong("payment_count"), rs.getLong("total_amount")));
+        }, year);
+
+        Map<BucketKey, long[]> actual = new HashMap<>();
+        jdbcTemplate.query(YEAR_TOTALS_SQL, rs -> {
+            actual.put(new BucketKey(rs.getInt("period_month"), rs.getString("currency"),
+                            rs.getString("payment_type"), rs.getString("gateway")),
+                    new long[]{rs.getLong("payment_count"), rs.getLong("total_amount")});
+        }, Timestamp.valueOf(LocalDate.of(year, 1, 1).atStartOfDay()),
+                Timestamp.valueOf(LocalDate.of(year + 1, 1, 1).atStartOfDay()));
+
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> upserts = new ArrayList<>();
+        actual.forEach((key, totals) -> {
+            StoredBucket have = stored.get(key);
+            if (have == null || have.paymentCount() != totals[0] || have.totalAmount() != totals[1]) {
+                upserts.add(new Object[]{year, key.month(), key.currency(), key.paymentType(), key.gateway(),
+                        totals[0], totals[1], now});
+            }
+        });
+        List<Object[]> deletes = new ArrayList<>();
+        stored.forEach((key, bucket) -> {
+            if (!actual.containsKey(key)) {
+                deletes.add(new Object[]{bucket.id()});
+            }
+        });
+
+        if (!upserts.isEmpty()) {
+            jdbcTemplate.batchUpdate(SET_BUCKET_SQL, upserts);
+        }
+        if (!deletes.isEmpty()) {
+            jdbcTemplate.batchUpdate(DELETE_BUCKET_SQL, deletes);
+        }
+        return new int[]{actual.size(), upserts.size() + deletes.size()};
+    }
+
+    private RevenueReportResponse buildReport(List<RevenueRollup> rollups, boolean withBreakdown) {
+        Map<String, RevenueReportResponse.CurrencyTotal> totals = new TreeMap<>();
+        Map<String, RevenueReportResponse.BreakdownEntry> breakdown = new TreeMap<>();
+
+        for (RevenueRollup rollup : rollups) {
+            RevenueReportResponse.CurrencyTotal total = totals.computeIfAbsent(rollup.getCurrency(),
+                    currency -> new RevenueReportResponse.CurrencyTotal(currency, 0, 0));
+            total.setPaymentCount(total.getPaymentCount() + rollup.getPaymentCount());
+            total.setTotalAmount(total.getTotalAmount() + rollup.getTotalAmount());
+
+            if (withBreakdown) {
+                // Quarter and year reports fold the months of each bucket together
+                String key = rollup.getCurrency() + '|' + rollup.getPaymentType() + '|' + rollup.getGateway();
+                RevenueReportResponse.BreakdownEntry entry = breakdown.computeIfAbsent(key,
+                        k -> new RevenueReportResponse.BreakdownEntry(rollup.getCurrency(),
+                                rollup.getPaymentType(), rollup.getGateway(), 0, 0));
+                entry.setPaymentCount(entry.getPaymentCount() + rollup.getPaymentCount());
+                entry.setTotalAmount(entry.getTotalAmount() + rollup.getTotalAmount());
+            }
+        }
+
+        RevenueReportResponse report = new RevenueReportResponse();
+        report.setTotals(new ArrayList<>(totals.values()));
+        if (withBreakdown) {
+            List<RevenueReportResponse.BreakdownEntry> entries = new ArrayList<>(breakdown.values());
+            entries.sort(Comparator.comparingLong(RevenueReportResponse.BreakdownEntry::getTotalAmount).reversed());
+            report.setBreakdown(entries);
+        }
+        return report;
+    }
+
+    private void validateMonth(int month) {
+        if (month < 1 || month > 12) {
+            throw new IllegalArgumentException("Month must be between 1 and 12");
+        }
+    }
+
+    private record BucketKey(int month, String currency, String paymentType, String gateway) {
+    }
+
+    private record StoredBucket(long id, long paymentCount, long totalAmount) {
+    }
+}
@@ -0,0 +1,292 @@
+package com.library.service.impl;
+
+import com.library.domain.NotificationType;
+import com.library.model.User;
+import com.library.payload.response.SubscriptionExpiryReport;
+import com.library.repository.SubscriptionRepository;
+import com.library.repository.SubscriptionRepository.ExpiryCandidate;
+import com.library.repository.UserRepository;
+import com.library.service.NotificationService;
+import com.library.service.NotificationSettingsService;
+import com.library.service.cache.SubscriptionEntitlementCache;
+import com.library.service.support.TransactionHooks;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+/**
+ * Nightly subscription expiry and renewal reminders in one pass.
+ *
+ * Active subscriptions ending on or before today + the longest reminder
+ * offset are read in keyset chunks as projections. For each chunk:
+ * - the expired ones are deactivated with one conditional bulk UPDATE in
+ *   their own transaction, their users' entitlement version is bumped and
+ *   their cached entitlements are evicted;
+ * - the ones ending exactly N days from today (N in reminder-days) are handed
+ *   to a small delivery pool as one batch, which loads the users and their
+ *   notification settings in bulk, claims the dedup key and creates a
+ *   SUBSCRIPTION_EXPIRING notification.
+ *
+ * The delivery pool has a bounded queue and runs overflow batches on the
+ * reading thread, so a slow notification backend slows the pass down instead
+ * of buffering the whole subscriber base.
+ */
+@Service
+@Slf4j
+public class SubscriptionExpiryService {
+
+    private static final String NOTE_SEPARATOR = "\n";
+
+    private final SubscriptionRepository subscriptionRepository;
+    private final UserRepository userRepository;
+    private final NotificationService notificationService;
+    private final NotificationSettingsService notificationSettingsService;
+    private final NotificationDeduplicator notificationDeduplicator;
+    private final SubscriptionEntitlementCache entitlementCache;
+    private final TransactionTemplate transactionTemplate;
+
+    private final int chunkSize;
+    private final NavigableSet<Integer> reminderDays;
+    private final int deliveryWorkers;
+    private final int deliveryQueueCapacity;
+
+    private final AtomicBoolean running = new AtomicBoolean(false);
+    private volatile SubscriptionExpiryReport lastReport;
+
+    public SubscriptionExpiryService(SubscriptionRepository subscriptionRepository,
+                                     UserRepository userRepository,
+                                     NotificationService notificationService,
+                                     NotificationSettingsService notificationSettingsService,
+                                     NotificationDeduplicator notificationDeduplicator,
+                                     SubscriptionEntitlementCache entitlementCache,
+                                     PlatformTransactionManager transactionManager,
+                                     @Value("${subscription.expiry.chunk-size:1000}") int chunkSize,
+                                     @Value("${subscription.expiry.reminder-days:7,1}") int[] reminderDays,
+                                     @Value("${subscription.expiry.delivery-workers:4}") int deliveryWorkers,
+                                     @Value("${subscription.expiry.delivery-queue-capacity:8}") int deliveryQueueCapacity) {
+        this.subscriptionRepository = subscriptionRepository;
+        this.userRepository = userRepository;
+        this.notificationService = notificationService;
+        this.notificationSettingsService = notificationSettingsService;
+        this.notificationDeduplicator = notificationDeduplicator;
+        this.entitlementCache = entitlementCache;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.chunkSize = chunkSize;
+        this.reminderDays = Arrays.stream(reminderDays)
+                .filter(days -> days > 0)
+                .boxed()
+                .collect(Collectors.toCollection(TreeSet::new));
+        this.deliveryWorkers = deliveryWorkers;
+        this.deliveryQueueCapacity = deliveryQueueCapacity;
+    }
+
+    /**
+     * Run one expiry and reminder pass
+     * @return The report, or null if a pass is already running
+     */
+    public SubscriptionExpiryReport run() {
+        if (!running.compareAndSet(false, true)) {
+            log.info("Subscription expiry already running, skipping");
+            return null;
+        }
+        try {
+            SubscriptionExpiryReport report = runPass(LocalDate.now());
+            lastReport = report;
+            return report;
+        } finally {
+            running.set(false);
+        }
+    }
+
+    public SubscriptionExpiryReport getLastReport() {
+        return lastReport;
+    }
+
+    // ==================== HELPER METHODS ====================
+
+    private SubscriptionExpiryReport runPass(LocalDate today) {
+        LocalDateTime startedAt = LocalDateTime.now();
+        long startNanos = System.nanoTime();
+        LocalDate horizon = reminderDays.isEmpty()
+                ? today.minusDays(1)
+                : today.plusDays(reminderDays.last());
+        String note = "Auto-deactivated on " + today + " due to expiry";
+
+        int scanned = 0;
+        int deactivated = 0;
+        int queued = 0;
+        AtomicInteger sent = new AtomicInteger();
+        AtomicInteger errors = new AtomicInteger();
+
+        ThreadPoolExecutor deliveryPool = new ThreadPoolExecutor(deliveryWorkers, deliveryWorkers,
+                0L, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(deliveryQueueCapacity),
+                namedThreads(), new ThreadPoolExecutor.CallerRunsPolicy());
+        try {
+            long lastId = 0;
+            while (true) {
+                List<ExpiryCandidate> chunk = subscriptionRepository.findExpiryCandidates(
+                        horizon, lastId, PageRequest.of(0, chunkSize));
+                if (chunk.isEmpty()) {
+                    break;
+                }
+                lastId = chunk.get(chunk.size() - 1).getId();
+                scanned += chunk.size();
+
+                List<ExpiryCandidate> expired = new ArrayList<>();
+                List<ExpiryCandidate> expiring = new ArrayList<>();
+                for (ExpiryCandidate candidate : chunk) {
+                    if (candidate.getEndDate().isBefore(today)) {
+                        expired.add(candidate);
+                    } else if (reminderDays.contains((int) ChronoUnit.DAYS.between(today, candidate.getEndDate()))) {
+                        expiring.add(candidate);
+                    }
+                }
+
+                if (!expired.isEmpty()) {
+                    deactivated += deactivate(expired, today, note);
+                }
+                if (!expiring.isEmpty()) {
+                    queued += expiring.size();
+                    deliveryPool.execute(() -> sendReminders(expiring, today, sent, errors));
+                }
+
+                if (chunk.size() < chunkSize) {
+                    break;
+                }
+            }
+        } finally {
+            deliveryPool.shutdown();
+            awaitDelivery(deliveryPool);
+        }
+
+        SubscriptionExpiryReport report = SubscriptionExpiryReport.builder()
+                .runDate(today)
+                .startedAt(startedAt)
+                .finishedAt(LocalDateTime.now())
+                .durationMillis(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos))
+                .scanned(scanned)
+                .deactivated(deactivated)
+                .remindersQueued(queued)
+                .remindersSent(sent.get())
+                .reminderErrors(errors.get())
+                .build();
+
+        log.info("Subscription expiry: scanned {}, deactivated {}, reminders queued {}, sent {}, errors {} in {} ms",
+                report.getScanned(), report.getDeactivated(), report.getRemindersQueued(),
+                report.getRemindersSent(), report.getReminderErrors(), report.getDurationMillis());
+        return report;
+    }
+
+    private int deactivate(List<ExpiryCandidate> expired, LocalDate today, String note) {
+        List<Long> ids = expired.stream().map(ExpiryCandidate::getId).toList();
+        Integer updated = transactionTemplate.execute(tx -> {
+            int count = subscriptionRepository.deactivateExpired(ids, today, LocalDateTime.now(),
+                    NOTE_SEPARATOR, note);
+            userRepository.bumpEntitlementVersion(
+                    expired.stream().map(ExpiryCandidate::getUserId).distinct().toList());
+            for (ExpiryCandidate candidate : expired) {
+                Long userId = candidate.getUserId();
+                TransactionHooks.afterCommit(() -> entitlementCache.evict(userId));
+            }
+            return count;
+        });
+        return updated != null ? updated : 0;
+    }
+
+    /**
+     * Deliver one chunk's reminders; runs on a delivery thread
+     */
+    private void sendReminders(List<ExpiryCandidate> expiring, LocalDate today,
+                               AtomicInteger sent, AtomicInteger errors) {
+        Map<Long, User> usersById = new HashMap<>();
+        try {
+            for (User user : userRepository.findAllById(
+                    expiring.stream().map(ExpiryCandidate::getUserId).distinct().toList())) {
+                usersById.put(user.getId(), user);
+            }
+        } catch (Exception e) {
+            log.error("Failed to load users for {} subscription reminder(s)", expiring.size(), e);
+            errors.addAndGet(expiring.size());
+            return;
+        }
+
+        try {
+            notificationSettingsService.preloadSettings(usersById.values());
+        } catch (Exception e) {
+            // Not fatal: createNotification falls back to per-user lookups
+            log.warn("Failed to preload notification settings for {} user(s)", usersById.size(), e);
+        }
+
+        for (ExpiryCandidate candidate : expiring) {
+            User user = usersById.get(candidate.getUserId());
+            if (user == null) {
+                continue;
+            }
+            try {
+                if (!notificationDeduplicator.tryClaim(user.getId(), candidate.getId(),
+                        NotificationType.SUBSCRIPTION_EXPIRING, today)) {
+                    continue;
+                }
+                long daysLeft = ChronoUnit.DAYS.between(today, candidate.getEndDate());
+                String message = String.format(
+                        "Your %s subscription expires in %d day%s, on %s. %s",
+                        candidate.getPlanName() != null ? candidate.getPlanName() : "library",
+                        daysLeft,
+                        daysLeft == 1 ? "" : "s",
+                        candidate.getEndDate(),
+                        Boolean.TRUE.equals(candidate.getAutoRenew())
+                                ? "It will renew automatically."
+                                : "Renew now to keep borrowing books."
+                );
+                notificationService.createNotification(user, "Subscription Expiring Soon", message,
+                        NotificationType.SUBSCRIPTION_EXPIRING, candidate.getId());
+                sent.incrementAndGet();
+            } catch (Exception e) {
+                errors.incrementAndGet();
+                log.error("Failed to send expiry reminder for subscription ID: {}", candidate.getId(), e);
+            }
+        }
+    }
+
+    private void awaitDelivery(ThreadPoolExecutor deliveryPool) {
+        try {
+            while (!deliveryPool.awaitTermination(30, TimeUnit.SECONDS)) {
+                log.info("Waiting for {} subscription reminder batch(es) to finish",
+                        deliveryPool.getQueue().size() + deliveryPool.getActiveCount());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            deliveryPool.shutdownNow();
+        }
+    }
+
+    private static ThreadFactory namedThreads() {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, "subscription-reminder-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
@@ -6,17 +6,19 @@ import com.library.model.SubscriptionPlan;
 import com.library.payload.dto.SubscriptionPlanDTO;
 import com.library.repository.SubscriptionPlanRepository;
 import com.library.service.SubscriptionPlanService;
+import com.library.service.cache.SubscriptionPlanCatalog;
+import com.library.service.support.TransactionHooks;
 import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
-import java.util.stream.Collectors;
 
 /**
  * Implementation of SubscriptionPlanService
@@ -29,6 +31,7 @@ public class SubscriptionPlanServiceImpl implements SubscriptionPlanService {
 
     private final SubscriptionPlanRepository planRepository;
     private final SubscriptionPlanMapper planMapper;
+    private final SubscriptionPlanCatalog planCatalog;
 
     @Override
     public SubscriptionPlanDTO createPlan(SubscriptionPlanDTO planDTO) throws SubscriptionPlanException {
@@ -52,6 +55,7 @@ public class SubscriptionPlanServiceImpl implements SubscriptionPlanService {
         plan.setUpdatedBy(currentUser);
 
         plan = planRepository.save(plan);
+        refreshCatalogAfterCommit();
         log.info("Subscription plan created successfully with ID: {}", plan.getId());
 
         return planMapper.toDTO(plan);
@@ -81,6 +85,7 @@ public class SubscriptionPlanServiceImpl implements SubscriptionPlanService {
         existingPlan.setUpdatedBy(getCurrentUserEmail());
 
         existingPlan = planRepository.save(existingPlan);
+        refreshCatalogAfterCommit();
         log.info("Subscription plan updated successfully: {}", planId);
 
         return planMapper.toDTO(existingPlan);
@@ -97,6 +102,7 @@ public class SubscriptionPlanServiceImpl implements SubscriptionPlanService {
         plan.setIsActive(false);
         plan.setUpdatedBy(getCurrentUserEmail());
         planRepository.save(plan);
+        refreshCatalogAfterCommit();
 
         log.info("Subscription plan deactivated: {}", planId);
     }
@@ -111,6 +117,7 @@ public class SubscriptionPlanServiceImpl implements SubscriptionPlanService {
         plan.setIsActive(true);
         plan.setUpdatedBy(getCurrentUserEmail());
         plan = planRepository.save(plan);
+        refreshCatalogAfterCommit();
 
         log.info("Subscription plan activated: {}", planId);
         return planMapper.toDTO(plan);
@@ -126,72 +133,90 @@ public class SubscriptionPlanServiceImpl implements SubscriptionPlanService {
         plan.setIsActive(false);
         plan.setUpdatedBy(getCurrentUserEmail());
         plan = planRepository.save(plan);
+        refreshCatalogAfterCommit();
 
         log.info("Subscription plan deactivated: {}", planId);
         return planMapper.toDTO(plan);
     }
 
     @Override
+    @Transactional(Transactional.TxType.SUPPORTS)
     public SubscriptionPlanDTO getPlanById(Long planId) throws SubscriptionPlanException {
-        SubscriptionPlan plan = planRepository.findById(planId)
+        return planCatalog.findById(planId)
             .orElseThrow(() -> new SubscriptionPlanException("Subscription plan not found with ID: " + planId));
-
-        return planMapper.toDTO(plan);
     }
 
     @Override
+    @Transactional(Transactional.TxType.SUPPORTS)
     public SubscriptionPlan getPlanByCode(String planCode) throws SubscriptionPlanException {
-        SubscriptionPlan plan = planRepository.findByPlanCode(planCode)
+        return planCatalog.findPlanByCode(planCode)
             .orElseThrow(() -> new SubscriptionPlanException("Subscription plan not found with code: " + planCode));
-
-        return plan;
     }
 
     @Override
+    @Transactional(Transactional.TxType.SUPPORTS)
     public List<SubscriptionPlanDTO> getAllActivePlans() {
-        List<SubscriptionPlan> plans = planRepository.findAllActivePlans();
-        return plans.stream()
-            .map(planMapper::toDTO)
-            .collect(Collectors.toList());
+        return planCatalog.getActive();
     }
 
     @Override
+    @Transactional(Transactional.TxType.SUPPORTS)
     public Page<SubscriptionPlanDTO> getAllPlans(Pageable pageable) {
-        Page<SubscriptionPlan> plans = planRepository.findAllPlansOrdered(pageable);
-        return plans.map(planMapper::toDTO);
+        return page(planCatalog.getAll(), pageable);
     }
 
     @Override
+    @Transactional(Transactional.TxType.SUPPORTS)
     public Page<SubscriptionPlanDTO> getAllActivePlans(Pageable pageable) {
-        Page<SubscriptionPlan> plans = planRepository.findAllActivePlans(pageable);
-        return plans.map(planMapper::toDTO);
+        return page(planCatalog.getActive(), pageable);
     }
 
     @Override
+    @Transactional(Transactional.TxType.SUPPORTS)
     public List<SubscriptionPlanDTO> getFeaturedPlans() {
-        List<SubscriptionPlan> plans = planRepository.findFeaturedPlans();
-        return plans.stream()
-            .map(planMapper::toDTO)
-            .collect(Collectors.toList());
+        return planCatalog.getFeatured();
     }
 
     @Override
+    @Transactional(Transactional.TxType.SUPPORTS)
     public Page<SubscriptionPlanDTO> searchPlans(String searchTerm, Pageable pageable) {
-        Page<SubscriptionPlan> plans = planRepository.searchPlans(searchTerm, pageable);
-        return plans.map(planMapper::toDTO);
+        String term = searchTerm != null ? searchTerm.toLowerCase() : "";
+        List<SubscriptionPlanDTO> matches = planCatalog.getActive().stream()
+            .filter(plan -> contains(plan.getName(), term) || contains(plan.getDescription(), term))
+            .toList();
+        return page(matches, pageable);
     }
 
     @Override
+    @Transactional(Transactional.TxType.SUPPORTS)
     public List<SubscriptionPlanDTO> getPlansByCurrency(String currency) {
-        List<SubscriptionPlan> plans = planRepository.findActivePlansByCurrency(currency);
-        return plans.stream()
-            .map(planMapper::toDTO)
-            .collect(Collectors.toList());
+        return planCatalog.getActiveByCurrency(currency);
     }
 
     @Override
+    @Transactional(Transactional.TxType.SUPPORTS)
     public boolean planCodeExists(String planCode) {
-        return planRepository.existsByPlanCode(planCode);
+        return planCatalog.containsCode(planCode);
+    }
+
+    /**
+     * Rebuild the plan catalog once the current write commits
+     */
+    private void refreshCatalogAfterCommit() {
+        TransactionHooks.afterCommit(planCatalog::refresh);
+    }
+
+    private static Page<SubscriptionPlanDTO> page(List<SubscriptionPlanDTO> plans, Pageable pageable) {
+        if (pageable.isUnpaged()) {
+            return new PageImpl<>(plans);
+        }
+        int from = (int) Math.min(pageable.getOffset(), plans.size());
+        int to = Math.min(from + pageable.getPageSize(), plans.size());
+        return new PageImpl<>(plans.subList(from, to), pageable, plans.size());
+    }
+
+    private static boolean contains(String value, String term) {
+        return value != null && value.toLowerCase().contains(term);
     }
 
     /**
@@ -7,6 +7,7 @@ import java.util.Optional;
 
 import com.library.domain.PaymentGateway;
 import com.stripe.exception.StripeException;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
@@ -23,9 +24,13 @@ import com.library.model.Subscription;
 import com.library.model.SubscriptionPlan;
 import com.library.model.User;
 import com.library.payload.dto.SubscriptionDTO;
+import com.library.payload.dto.SubscriptionSummaryDTO;
 import com.library.payload.request.PaymentInitiateRequest;
 import com.library.payload.request.SubscribeRequest;
+import com.library.payload.request.SubscriptionSearchRequest;
+import com.library.payload.response.CursorPageResponse;
 import com.library.payload.response.PaymentInitiateResponse;
+import com.library.payload.response.SubscriptionExpiryReport;
 import com.library.repository.PaymentRepository;
 import com.library.repository.SubscriptionRepository;
 import com.library.repository.UserRepository;
@@ -33,7 +38,10 @@ import com.library.service.PaymentService;
 import com.library.service.SubscriptionService;
 import com.library.service.UserService;
 import com.library.service.gateway.RazorpayService;
+import com.library.service.cache.SubscriptionEntitlement;
+import com.library.service.cache.SubscriptionEntitlementCache;
 import com.library.service.gateway.StripeService;
+import com.library.service.support.TransactionHooks;
 
 import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
@@ -49,6 +57,8 @@ import lombok.extern.slf4j.Slf4j;
 @Slf4j
 public class SubscriptionServiceImpl implements SubscriptionService {
 
+    private static final int MAX_PAGE_SIZE = 100;
+
     private final SubscriptionRepository subscriptionRepository;
     private final UserRepository userRepository;
     private final PaymentRepository paymentRepository;
@@ -58,6 +68,8 @@ public class SubscriptionServiceImpl implements SubscriptionService {
     private final UserService userService;
     private final PaymentService paymentService;
     private final com.library.repository.SubscriptionPlanRepository subscriptionPlanRepository;
+    private final SubscriptionEntitlementCache entitlementCache;
+    private final SubscriptionExpiryService subscriptionExpiryService;
 
 
     @Override
@@ -88,6 +100,7 @@ public class SubscriptionServiceImpl implements SubscriptionService {
         subscription.calculateEndDate(); // YOU ALREADY HAVE THIS METHOD
 
         subscriptionRepository.save(subscription);
+        entitlementChanged(userId);
     }
 
 
@@ -191,6 +204,7 @@ public class SubscriptionServiceImpl implements SubscriptionService {
         }
 
         subscription = subscriptionRepository.save(subscription);
+        entitlementChanged(subscription.getUser().getId());
 
         log.info("Subscription activated successfully: {}", subscriptionId);
         return subscriptionMapper.toDTO(subscription);
@@ -217,6 +231,15 @@ public class SubscriptionServiceImpl implements SubscriptionService {
         return subscriptionMapper.toDTO(subscription);
     }
 
+    @Override
+    public SubscriptionEntitlement getActiveEntitlement(Long userId) throws SubscriptionException {
+        return entitlementCache.get(userId, () -> subscriptionRepository
+                .findActiveSubscriptionByUserId(userId, LocalDate.now())
+                .map(this::toEntitlement))
+            .orElseThrow(() -> new SubscriptionException(
+                "No active subscription found for user ID: " + userId));
+    }
+
     @Override
     public List<SubscriptionDTO> getUserSubscriptions(Long userId)
             throws SubscriptionException, UserException {
@@ -301,6 +324,7 @@ public class SubscriptionServiceImpl implements SubscriptionService {
         subscription.setCancellationReason(reason != null ? reason : "Cancelled by user");
 
         subscription = subscriptionRepository.save(subscription);
+        entitlementChanged(subscription.getUser().getId());
 
         log.info("Subscription cancelled successfully: {}", subscriptionId);
         return subscriptionMapper.toDTO(subscription);
@@ -316,8 +340,9 @@ public class SubscriptionServiceImpl implements SubscriptionService {
 
     @Override
     public List<SubscriptionDTO> getAllActiveSubscriptions(Pageable pageable) {
+        int size = Math.min(Math.max(pageable.getPageSize(), 1), MAX_PAGE_SIZE);
         List<Subscription> subscriptions = subscriptionRepository
-            .findAll();
+            .findActivePage(PageRequest.of(pageable.getPageNumber(), size));
 
         return subscriptions.stream().map(
                 subscriptionMapper::toDTO
@@ -325,26 +350,28 @@ public class SubscriptionServiceImpl implements SubscriptionService {
     }
 
     @Override
-    public void deactivateExpiredSubscriptions() {
-        log.info("Running subscription expiry check at {}", LocalDateTime.now());
-
-        List<Subscription> expiredSubscriptions = subscriptionRepository
-            .findExpiredActiveSubscriptions(LocalDate.now());
-
-        int deactivatedCount = 0;
-        for (Subscription subscription : expiredSubscriptions) {
-            subscription.setIsActive(false);
-            subscription.setNotes(
-                (subscription.getNotes() != null ? subscription.getNotes() + "\n" : "") +
-                "Auto-deactivated on " + LocalDate.now() + " due to expiry");
-            subscriptionRepository.save(subscription);
-            deactivatedCount++;
-
-            log.debug("Deactivated expired subscription ID: {} for user: {}",
-                subscription.getId(), subscription.getUser().getEmail());
-        }
+    public CursorPageResponse<SubscriptionSummaryDTO> searchSubscriptions(SubscriptionSearchRequest request) {
+        int size = Math.min(Math.max(request.getSize() != null ? request.getSize() : 20, 1), MAX_PAGE_SIZE);
+
+        // Fetch one extra row to know whether another page follows
+        List<SubscriptionSummaryDTO> rows = subscriptionRepository.findSummaryPage(
+                request.getPlanId(),
+                request.getActive(),
+                request.getExpiringBefore(),
+                request.getCursor(),
+                PageRequest.of(0, size + 1));
+
+        boolean hasMore = rows.size() > size;
+        List<SubscriptionSummaryDTO> content = hasMore ? rows.subList(0, size) : rows;
+        Long nextCursor = hasMore ? content.get(content.size() - 1).getId() : null;
+        return new CursorPageResponse<>(content, size, hasMore, nextCursor);
+    }
 
-        log.info("Deactivated {} expired subscriptions", deactivatedCount);
+    @Override
+    @Transactional(Transactional.TxType.NOT_SUPPORTED)
+    public SubscriptionExpiryReport deactivateExpiredSubscriptions() {
+        log.info("Running subscription expiry check at {}", LocalDateTime.now());
+        return subscriptionExpiryService.run();
     }
 
     @Override
@@ -393,6 +420,31 @@ public class SubscriptionServiceImpl implements SubscriptionService {
 
     // ==================== HELPER METHODS ====================
 
+    private SubscriptionEntitlement toEntitlement(Subscription subscription) {
+        String planCode = subscription.getPlanCode() != null
+                ? subscription.getPlanCode()
+                : subscription.getPlan().getPlanCode();
+        String planName = subscription.getPlanName() != null
+                ? subscription.getPlanName()
+                : subscription.getPlan().getName();
+        return new SubscriptionEntitlement(
+                subscription.getId(),
+                planCode,
+                planName,
+                subscription.getMaxBooksAllowed(),
+                subscription.getMaxDaysPerBook(),
+                subscription.getEndDate());
+    }
+
+    /**
+     * Invalidate the user's entitlement claims (with the change) and cached
+     * entitlement (once the change commits)
+     */
+    private void entitlementChanged(Long userId) {
+        userRepository.bumpEntitlementVersion(List.of(userId));
+        TransactionHooks.afterCommit(() -> entitlementCache.evict(userId));
+    }
+
     /**
      * Get currently authenticated user
      */
@@ -493,6 +545,7 @@ public class SubscriptionServiceImpl implements SubscriptionService {
 
 
         subscription = subscriptionRepository.save(subscription);
+        entitlementChanged(user.getId());
 
         // ✅ Create Stripe Checkout
         String checkoutUrl;
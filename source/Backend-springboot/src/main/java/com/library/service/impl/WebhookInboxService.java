@@ -0,0 +1,229 @@
+package com.library.service.impl;
+
+import com.library.domain.PaymentGateway;
+import com.library.exception.PaymentException;
+import com.library.model.WebhookEvent;
+import com.library.repository.WebhookEventRepository;
+import com.stripe.model.Event;
+import com.stripe.model.HasId;
+import com.stripe.model.StripeObject;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.json.JSONObject;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Inbox for payment gateway webhooks.
+ *
+ * The request thread only verifies/parses the event, stores the raw payload
+ * with INSERT IGNORE on (gateway, event_id) and returns. Gateway retries hit
+ * the unique key and are dropped there.
+ *
+ * Stored events are handed to a fixed set of single-threaded lanes; the lane
+ * is picked by the event's ordering key (the payment), so events for the same
+ * payment are applied in arrival order while different payments proceed in
+ * parallel. A worker must claim an event (RECEIVED/FAILED → PROCESSING)
+ * before running it, so an event is never processed twice concurrently.
+ *
+ * A sweep re-dispatches events that were never picked up (full lane, node
+ * restart) and retries failed ones up to a limit.
+ */
+@Service
+@Slf4j
+public class WebhookInboxService {
+
+    private static final int MAX_ERROR_LENGTH = 2000;
+
+    private final WebhookEventRepository webhookEventRepository;
+    private final PaymentServiceImpl paymentService;
+    private final ThreadPoolExecutor[] lanes;
+    private final int maxAttempts;
+    private final long retryDelaySeconds;
+    private final long claimTimeoutMinutes;
+    private final int sweepBatchSize;
+
+    public WebhookInboxService(WebhookEventRepository webhookEventRepository,
+                               PaymentServiceImpl paymentService,
+                               @Value("${payment.webhook.workers:4}") int workers,
+                               @Value("${payment.webhook.lane-capacity:1000}") int laneCapacity,
+                               @Value("${payment.webhook.max-attempts:5}") int maxAttempts,
+                               @Value("${payment.webhook.retry-delay-seconds:60}") long retryDelaySeconds,
+                               @Value("${payment.webhook.claim-timeout-minutes:10}") long claimTimeoutMinutes,
+                               @Value("${payment.webhook.sweep-batch-size:500}") int sweepBatchSize) {
+        this.webhookEventRepository = webhookEventRepository;
+        this.paymentService = paymentService;
+        this.maxAttempts = maxAttempts;
+        this.retryDelaySeconds = retryDelaySeconds;
+        this.claimTimeoutMinutes = claimTimeoutMinutes;
+        this.sweepBatchSize = sweepBatchSize;
+
+        this.lanes = new ThreadPoolExecutor[workers];
+        for (int i = 0; i < workers; i++) {
+            String threadName = "webhook-lane-" + i;
+            // A full lane rejects; the event stays RECEIVED and the sweep picks it up
+            lanes[i] = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+                    new ArrayBlockingQueue<>(laneCapacity),
+                    runnable -> {
+                        Thread thread = new Thread(runnable, threadName);
+                        thread.setDaemon(true);
+                        return thread;
+                    },
+                    new ThreadPoolExecutor.AbortPolicy());
+        }
+    }
+
+    /**
+     * Store a Razorpay webhook and queue it for processing
+     * @param body Raw request body
+     * @param eventIdHeader X-Razorpay-Event-Id header, may be null
+     * @return true if stored, false if it was a duplicate delivery
+     */
+    public boolean receiveRazorpay(String body, String eventIdHeader) {
+        JSONObject webhook = new JSONObject(body);
+        String eventType = webhook.optString("event", null);
+        JSONObject entity = findRazorpayEntity(webhook);
+        String entityId = entity != null ? entity.optString("id", null) : null;
+
+        // Without the header, the event type plus entity ID identifies a delivery
+        String eventId = eventIdHeader != null && !eventIdHeader.isBlank()
+                ? eventIdHeader
+                : eventType + ":" + entityId;
+
+        String orderingKey = entityId;
+        if (entity != null && entity.has("notes")) {
+            JSONObject notes = entity.optJSONObject("notes");
+            if (notes != null && notes.has("payment_id")) {
+                orderingKey = "payment:" + notes.get("payment_id");
+            }
+        }
+
+        return store(PaymentGateway.RAZORPAY, eventId, eventType, orderingKey, body, null);
+    }
+
+    /**
+     * Verify a Stripe webhook signature, then store and queue the event
+     * @param payload Raw request body
+     * @param sigHeader Stripe-Signature header
+     * @return true if stored, false if it was a duplicate delivery
+     * @throws PaymentException if the signature is invalid
+     */
+    public boolean receiveStripe(String payload, String sigHeader) throws PaymentException {
+        Event event = paymentService.verifyStripeWebhook(payload, sigHeader);
+
+        String orderingKey = event.getId();
+        StripeObject dataObject = event.getDataObjectDeserializer().getObject().orElse(null);
+        if (dataObject instanceof HasId hasId && hasId.getId() != null) {
+            orderingKey = hasId.getId();
+        }
+
+        return store(PaymentGateway.STRIPE, event.getId(), event.getType(), orderingKey, payload, sigHeader);
+    }
+
+    /**
+     * Re-dispatch events that were never picked up and retry failed ones.
+     * Runs every 30 seconds.
+     */
+    @Scheduled(fixedDelay = 30000)
+    public void sweep() {
+        LocalDateTime now = LocalDateTime.now();
+        int released = webhookEventRepository.releaseStaleClaims(now.minusMinutes(claimTimeoutMinutes));
+        if (released > 0) {
+            log.warn("Released {} webhook event(s) stuck in processing", released);
+        }
+
+        List<WebhookEvent> pending = webhookEventRepository.findPendingForRetry(
+                now.minusSeconds(retryDelaySeconds), maxAttempts, PageRequest.of(0, sweepBatchSize));
+        if (!pending.isEmpty()) {
+            log.info("Re-dispatching {} pending webhook event(s)", pending.size());
+        }
+        for (WebhookEvent event : pending) {
+            dispatch(event.getId(), event.getOrderingKey());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        for (ThreadPoolExecutor lane : lanes) {
+            lane.shutdown();
+        }
+    }
+
+    // ==================== HELPER METHODS ====================
+
+    private boolean store(PaymentGateway gateway, String eventId, String eventType,
+                          String orderingKey, String payload, String signature) {
+        int inserted = webhookEventRepository.insertIfAbsent(
+                gateway.name(), eventId, eventType, orderingKey, payload, signature);
+        if (inserted == 0) {
+            log.info("Dropping duplicate {} webhook {}", gateway, eventId);
+            return false;
+        }
+
+        webhookEventRepository.findIdByGatewayAndEventId(gateway, eventId)
+                .ifPresent(id -> dispatch(id, orderingKey));
+        log.debug("Stored {} webhook {} ({})", gateway, eventId, eventType);
+        return true;
+    }
+
+    private void dispatch(Long eventId, String orderingKey) {
+        String key = orderingKey != null ? orderingKey : String.valueOf(eventId);
+        ThreadPoolExecutor lane = lanes[Math.floorMod(key.hashCode(), lanes.length)];
+        try {
+            lane.execute(() -> process(eventId));
+        } catch (RejectedExecutionException e) {
+            log.warn("Webhook lane full, event {} left for the sweep", eventId);
+        }
+    }
+
+    private void process(Long id) {
+        if (webhookEventRepository.claim(id, LocalDateTime.now()) == 0) {
+            return;
+        }
+
+        WebhookEvent event = webhookEventRepository.findById(id).orElse(null);
+        if (event == null) {
+            return;
+        }
+
+        try {
+            switch (event.getGateway()) {
+                case RAZORPAY -> paymentService.processRazorpayEvent(new JSONObject(event.getPayload()));
+                case STRIPE -> paymentService.processStripeEvent(
+                        paymentService.parseStoredStripeWebhook(event.getPayload(), event.getSignature()));
+                default -> throw new IllegalStateException("Unsupported webhook gateway: " + event.getGateway());
+            }
+            webhookEventRepository.markProcessed(id, LocalDateTime.now());
+            log.info("Processed {} webhook {} ({})", event.getGateway(), event.getEventId(), event.getEventType());
+        } catch (Exception e) {
+            String error = e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName();
+            webhookEventRepository.markFailed(id,
+                    error.length() > MAX_ERROR_LENGTH ? error.substring(0, MAX_ERROR_LENGTH) : error);
+            log.error("Failed to process {} webhook {} (attempt {})",
+                    event.getGateway(), event.getEventId(), event.getAttempts(), e);
+        }
+    }
+
+    private JSONObject findRazorpayEntity(JSONObject webhook) {
+        JSONObject payload = webhook.optJSONObject("payload");
+        if (payload == null) {
+            return null;
+        }
+        for (String container : new String[]{"payment", "payment_link", "order"}) {
+            JSONObject wrapper = payload.optJSONObject(container);
+            if (wrapper != null && wrapper.optJSONObject("entity") != null) {
+                return wrapper.getJSONObject("entity");
+            }
+        }
+        return null;
+    }
+}
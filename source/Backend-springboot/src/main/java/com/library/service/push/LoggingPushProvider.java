@@ -0,0 +1,30 @@
+package com.library.service.push;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Local stub provider that only logs. Active unless another provider is
+ * selected with push.provider.
+ */
+@Component
+@ConditionalOnProperty(name = "push.provider", havingValue = "log", matchIfMissing = true)
+@Slf4j
+public class LoggingPushProvider implements PushProvider {
+
+    private static final int MAX_BATCH_SIZE = 500;
+
+    @Override
+    public int maxBatchSize() {
+        return MAX_BATCH_SIZE;
+    }
+
+    @Override
+    public PushBatchResult send(List<String> tokens, String title, String message) {
+        log.info("PUSH NOTIFICATION - Tokens: {}, Title: {}, Message: {}", tokens.size(), title, message);
+        return new PushBatchResult(tokens.size(), List.of());
+    }
+}
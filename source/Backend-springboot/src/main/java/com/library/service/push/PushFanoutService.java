@@ -0,0 +1,133 @@
+package com.library.service.push;
+
+import com.library.repository.PushTokenRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Fans one push message out to many users.
+ *
+ * Tokens are loaded for a chunk of users in one query, grouped into
+ * provider-sized multicast batches and sent on a small pool with a bounded
+ * number of batches in flight. Tokens the provider reports as invalid are
+ * deactivated in one update at the end of the run.
+ */
+@Service
+@Slf4j
+public class PushFanoutService {
+
+    private final PushTokenRepository pushTokenRepository;
+    private final PushProvider pushProvider;
+    private final int userChunkSize;
+    private final Semaphore inFlight;
+    private final ExecutorService sendPool;
+
+    public PushFanoutService(PushTokenRepository pushTokenRepository,
+                             PushProvider pushProvider,
+                             @Value("${push.fanout.user-chunk-size:1000}") int userChunkSize,
+                             @Value("${push.fanout.max-in-flight:8}") int maxInFlight) {
+        this.pushTokenRepository = pushTokenRepository;
+        this.pushProvider = pushProvider;
+        this.userChunkSize = userChunkSize;
+        this.inFlight = new Semaphore(maxInFlight);
+
+        AtomicInteger threadCount = new AtomicInteger();
+        this.sendPool = Executors.newFixedThreadPool(maxInFlight, runnable -> {
+            Thread thread = new Thread(runnable, "push-fanout-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Send one message to every active token of the given users
+     * @param userIds Recipient user IDs
+     * @param title Notification title
+     * @param message Notification body
+     * @return Totals for the run
+     */
+    public FanoutResult sendToUsers(Collection<Long> userIds, String title, String message) {
+        List<Long> ids = new ArrayList<>(userIds);
+        int batchSize = pushProvider.maxBatchSize();
+
+        ConcurrentLinkedQueue<String> invalidTokens = new ConcurrentLinkedQueue<>();
+        AtomicInteger delivered = new AtomicInteger();
+        AtomicInteger failedBatches = new AtomicInteger();
+        List<CountDownLatch> chunkLatches = new ArrayList<>();
+        int tokenCount = 0;
+        int batchCount = 0;
+
+        try {
+            for (int from = 0; from < ids.size(); from += userChunkSize) {
+                List<String> tokens = pushTokenRepository.findActiveTokensByUserIdIn(
+                        ids.subList(from, Math.min(from + userChunkSize, ids.size())));
+                tokenCount += tokens.size();
+
+                int batchesInChunk = (tokens.size() + batchSize - 1) / batchSize;
+                CountDownLatch latch = new CountDownLatch(batchesInChunk);
+                chunkLatches.add(latch);
+                batchCount += batchesInChunk;
+
+                for (int start = 0; start < tokens.size(); start += batchSize) {
+                    List<String> batch = tokens.subList(start, Math.min(start + batchSize, tokens.size()));
+                    inFlight.acquire();
+                    sendPool.execute(() -> {
+                        try {
+                            PushProvider.PushBatchResult result = pushProvider.send(batch, title, message);
+                            delivered.addAndGet(result.successCount());
+                            invalidTokens.addAll(result.invalidTokens());
+                        } catch (Exception e) {
+                            failedBatches.incrementAndGet();
+                            log.error("Push batch of {} token(s) failed: {}", batch.size(), e.getMessage());
+                        } finally {
+                            inFlight.release();
+                            latch.countDown();
+                        }
+                    });
+                }
+            }
+
+            for (CountDownLatch latch : chunkLatches) {
+                latch.await();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.warn("Push fan-out interrupted after {} batch(es)", batchCount);
+        }
+
+        int deactivated = 0;
+        if (!invalidTokens.isEmpty()) {
+            deactivated = pushTokenRepository.deactivateByTokenIn(List.copyOf(invalidTokens));
+            log.info("Deactivated {} invalid push token(s)", deactivated);
+        }
+
+        FanoutResult result = new FanoutResult(ids.size(), tokenCount, batchCount,
+                delivered.get(), failedBatches.get(), deactivated);
+        log.debug("Push fan-out completed: {}", result);
+        return result;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        sendPool.shutdown();
+    }
+
+    /**
+     * Totals for one fan-out run
+     */
+    public record FanoutResult(int users, int tokens, int batches,
+                               int delivered, int failedBatches, int deactivatedTokens) {
+    }
+}
@@ -0,0 +1,32 @@
+package com.library.service.push;
+
+import java.util.List;
+
+/**
+ * A push notification backend (FCM, APNs, ...) that can multicast one
+ * message to many device tokens in a single call.
+ */
+public interface PushProvider {
+
+    /**
+     * Largest number of tokens accepted by one send call (FCM: 500)
+     */
+    int maxBatchSize();
+
+    /**
+     * Send one message to a batch of tokens
+     * @param tokens Device tokens, at most maxBatchSize()
+     * @param title Notification title
+     * @param message Notification body
+     * @return Per-batch outcome, including tokens the provider reported as invalid
+     */
+    PushBatchResult send(List<String> tokens, String title, String message);
+
+    /**
+     * Outcome of one multicast call
+     * @param successCount Tokens the message was accepted for
+     * @param invalidTokens Tokens that are unregistered or malformed and should be deactivated
+     */
+    record PushBatchResult(int successCount, List<String> invalidTokens) {
+    }
+}
@@ -0,0 +1,163 @@
+package com.library.service.template;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A template that has been parsed once into literal segments and named slots.
+ * Slots are written as {@code {{name}}} in the source. Rendering walks the
+ * pre-split segments and appends them into a caller supplied buffer, so no
+ * parsing or format-string interpretation happens per render.
+ *
+ * Instances are immutable and safe to share between threads.
+ */
+public final class CompiledTemplate {
+
+    private static final String SLOT_OPEN = "{{";
+    private static final String SLOT_CLOSE = "}}";
+
+    private final String name;
+
+    // literals.length == slots.length + 1; output is literals[0] slot[0] literals[1] ... literals[n]
+    private final String[] literals;
+    private final String[] slots;
+    private final Set<String> slotNames;
+    private final int literalLength;
+
+    private CompiledTemplate(String name, String[] literals, String[] slots) {
+        this.name = name;
+        this.literals = literals;
+        this.slots = slots;
+
+        Set<String> names = new LinkedHashSet<>();
+        Collections.addAll(names, slots);
+        this.slotNames = Collections.unmodifiableSet(names);
+
+        int length = 0;
+        for (String literal : literals) {
+            length += literal.length();
+        }
+        this.literalLength = length;
+    }
+
+    /**
+     * Parse template source into its compiled form
+     * @param name Template name (used in error messages)
+     * @param source Raw template text
+     * @return Compiled template
+     * @throws IllegalArgumentException if a slot is not closed or has an empty name
+     */
+    public static CompiledTemplate compile(String name, String source) {
+        List<String> literals = new ArrayList<>();
+        List<String> slots = new ArrayList<>();
+
+        int position = 0;
+        while (true) {
+            int open = source.indexOf(SLOT_OPEN, position);
+            if (open < 0) {
+                literals.add(source.substring(position));
+                break;
+            }
+
+            int close = source.indexOf(SLOT_CLOSE, open + SLOT_OPEN.length());
+            if (close < 0) {
+                throw new IllegalArgumentException(
+                        "Unclosed slot in template '" + name + "' at offset " + open);
+            }
+
+            String slot = source.substring(open + SLOT_OPEN.length(), close).trim();
+            if (slot.isEmpty()) {
+                throw new IllegalArgumentException(
+                        "Empty slot name in template '" + name + "' at offset " + open);
+            }
+
+            literals.add(source.substring(position, open));
+            slots.add(slot);
+            position = close + SLOT_CLOSE.length();
+        }
+
+        return new CompiledTemplate(name, literals.toArray(new String[0]), slots.toArray(new String[0]));
+    }
+
+    /**
+     * Append the rendered template to the given buffer.
+     * Slot values are HTML-escaped unless wrapped in {@link Raw}; missing values
+     * render as an empty string.
+     * @param out Buffer to append to
+     * @param data Slot values keyed by slot name
+     */
+    public void renderTo(StringBuilder out, Map<String, ?> data) {
+        out.ensureCapacity(out.length() + literalLength + slots.length * 16);
+        for (int i = 0; i < slots.length; i++) {
+            out.append(literals[i]);
+            Object value = data.get(slots[i]);
+            if (value instanceof Raw raw) {
+                out.append(raw.html());
+            } else if (value != null) {
+                appendEscaped(out, value.toString());
+            }
+        }
+        out.append(literals[slots.length]);
+    }
+
+    /**
+     * Render the template into a new string
+     * @param data Slot values keyed by slot name
+     * @return Rendered text
+     */
+    public String render(Map<String, ?> data) {
+        StringBuilder out = new StringBuilder(literalLength + slots.length * 16);
+        renderTo(out, data);
+        return out.toString();
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Distinct slot names in order of first appearance
+     */
+    public Set<String> getSlotNames() {
+        return slotNames;
+    }
+
+    /**
+     * Slot value that is already HTML (e.g. a rendered list of items) and is
+     * appended as-is
+     */
+    public record Raw(CharSequence html) {
+    }
+
+    /**
+     * HTML-escape text the same way slot values are escaped
+     */
+    public static String escape(String value) {
+        StringBuilder out = new StringBuilder(value.length() + 16);
+        appendEscaped(out, value);
+        return out.toString();
+    }
+
+    private static void appendEscaped(StringBuilder out, String value) {
+        int start = 0;
+        for (int i = 0; i < value.length(); i++) {
+            String replacement = switch (value.charAt(i)) {
+                case '<' -> "&lt;";
+                case '>' -> "&gt;";
+                case '&' -> "&amp;";
+                case '"' -> "&quot;";
+                case '\'' -> "&#39;";
+                default -> null;
+            };
+            if (replacement != null) {
+                out.append(value, start, i).append(replacement);
+                start = i + 1;
+            }
+        }
+        out.append(value, start, value.length());
+    }
+}
@@ -0,0 +1,31 @@
+package com.library.service.template;
+
+/**
+ * Email templates bundled under {@code classpath:email-templates/}.
+ * Each template is compiled once at startup by {@link EmailTemplateEngine}.
+ */
+public enum EmailTemplate {
+
+    OVERDUE_REMINDER("overdue-reminder"),
+    DUE_DATE_REMINDER("due-date-reminder"),
+    RESERVATION_AVAILABLE("reservation-available"),
+    PAYMENT_INITIATED("payment-initiated"),
+    PAYMENT_SUCCESS("payment-success"),
+    PAYMENT_FAILED("payment-failed"),
+    DAILY_DIGEST("daily-digest"),
+    DAILY_DIGEST_ITEM("daily-digest-item");
+
+    private final String templateName;
+
+    EmailTemplate(String templateName) {
+        this.templateName = templateName;
+    }
+
+    public String getTemplateName() {
+        return templateName;
+    }
+
+    public String getResourcePath() {
+        return "email-templates/" + templateName + ".html";
+    }
+}
@@ -0,0 +1,116 @@
+package com.library.service.template;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Loads and compiles all {@link EmailTemplate}s once at startup.
+ * Rendering reuses a per-thread buffer, so steady-state renders only allocate
+ * the resulting string.
+ */
+@Component
+@Slf4j
+public class EmailTemplateEngine {
+
+    // Buffers that grew past this are dropped instead of being kept per thread
+    private static final int MAX_RETAINED_BUFFER = 64 * 1024;
+
+    private static final ThreadLocal<StringBuilder> BUFFER =
+            ThreadLocal.withInitial(() -> new StringBuilder(8 * 1024));
+
+    private final Map<EmailTemplate, CompiledTemplate> templates = new EnumMap<>(EmailTemplate.class);
+    private final Map<String, CompiledTemplate> templatesByName = new HashMap<>();
+
+    @PostConstruct
+    public void init() {
+        for (EmailTemplate template : EmailTemplate.values()) {
+            CompiledTemplate compiled = CompiledTemplate.compile(
+                    template.getTemplateName(), loadSource(template.getResourcePath()));
+            templates.put(template, compiled);
+            templatesByName.put(template.getTemplateName(), compiled);
+        }
+        log.info("Compiled {} email template(s)", templates.size());
+    }
+
+    /**
+     * Render a bundled template
+     * @param template Template to render
+     * @param data Slot values keyed by slot name
+     * @return Rendered HTML
+     */
+    public String render(EmailTemplate template, Map<String, ?> data) {
+        return render(templates.get(template), data);
+    }
+
+    /**
+     * Render a template by its name (e.g. "payment-success")
+     * @param templateName Template name
+     * @param data Slot values keyed by slot name
+     * @return Rendered HTML
+     * @throws IllegalArgumentException if no template has that name
+     */
+    public String render(String templateName, Map<String, ?> data) {
+        CompiledTemplate compiled = templatesByName.get(templateName);
+        if (compiled == null) {
+            throw new IllegalArgumentException("Unknown email template: " + templateName);
+        }
+        return render(compiled, data);
+    }
+
+    /**
+     * Render a template that contains a repeated section
+     * @param template Outer template
+     * @param data Slot values for the outer template
+     * @param listSlot Outer slot that receives the rendered items
+     * @param itemTemplate Template rendered once per item
+     * @param items Slot values for each item
+     * @return Rendered HTML
+     */
+    public String renderList(EmailTemplate template, Map<String, ?> data, String listSlot,
+                             EmailTemplate itemTemplate, List<? extends Map<String, ?>> items) {
+        CompiledTemplate compiledItem = templates.get(itemTemplate);
+        StringBuilder renderedItems = new StringBuilder(items.size() * 256);
+        for (Map<String, ?> item : items) {
+            compiledItem.renderTo(renderedItems, item);
+        }
+
+        Map<String, Object> outerData = new HashMap<>(data);
+        outerData.put(listSlot, new CompiledTemplate.Raw(renderedItems));
+        return render(templates.get(template), outerData);
+    }
+
+    public boolean hasTemplate(String templateName) {
+        return templatesByName.containsKey(templateName);
+    }
+
+    private String render(CompiledTemplate compiled, Map<String, ?> data) {
+        StringBuilder buffer = BUFFER.get();
+        buffer.setLength(0);
+        compiled.renderTo(buffer, data);
+        String result = buffer.toString();
+
+        if (buffer.capacity() > MAX_RETAINED_BUFFER) {
+            BUFFER.remove();
+        }
+        return result;
+    }
+
+    private String loadSource(String path) {
+        try (InputStream in = new ClassPathResource(path).getInputStream()) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to load email template: " + path, e);
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package com.library.service.cache;
+
+import com.library.model.NotificationSettings;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class NotificationSettingsCacheTest {
+
+    @Test
+    void putFromLoadStartedBeforeEvict_isDropped() {
+        NotificationSettingsCache cache = new NotificationSettingsCache(100, 300);
+        NotificationSettings stale = NotificationSettings.builder().emailEnabled(true).build();
+
+        long stamp = cache.stamp();
+        cache.evict(1L);
+        cache.put(1L, stale, stamp);
+
+        assertThat(cache.get(1L)).isNull();
+    }
+
+    @Test
+    void putFromLoadStartedAfterEvict_isCached() {
+        NotificationSettingsCache cache = new NotificationSettingsCache(100, 300);
+        NotificationSettings fresh = NotificationSettings.builder().emailEnabled(false).build();
+
+        cache.evict(1L);
+        long stamp = cache.stamp();
+        cache.putAll(Map.of(1L, fresh), stamp);
+
+        assertThat(cache.get(1L)).isSameAs(fresh);
+    }
+
+    @Test
+    void evictOfAnotherUser_doesNotBlockPut() {
+        NotificationSettingsCache cache = new NotificationSettingsCache(100, 300);
+        NotificationSettings settings = NotificationSettings.builder().build();
+
+        long stamp = cache.stamp();
+        cache.evict(2L);
+        cache.put(1L, settings, stamp);
+
+        assertThat(cache.get(1L)).isSameAs(settings);
+    }
+
+    @Test
+    void expiredEntry_isAMiss() {
+        NotificationSettingsCache cache = new NotificationSettingsCache(100, 0);
+
+        cache.put(1L, NotificationSettings.builder().build());
+
+        assertThat(cache.get(1L)).isNull();
+    }
+}
@@ -0,0 +1,68 @@
+package com.library.service.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class UnreadCountCacheTest {
+
+    @Test
+    void seed_isCachedAndMaintainedByAdd() {
+        UnreadCountCache cache = new UnreadCountCache(600);
+        AtomicInteger loads = new AtomicInteger();
+
+        assertThat(cache.get(1L, () -> loads.incrementAndGet() * 4L)).isEqualTo(4);
+        assertThat(cache.add(1L, 1)).isEqualTo(5);
+        assertThat(cache.get(1L, () -> loads.incrementAndGet() * 4L)).isEqualTo(5);
+        assertThat(loads).hasValue(1);
+    }
+
+    @Test
+    void addDuringLoad_dropsTheSeed() {
+        UnreadCountCache cache = new UnreadCountCache(600);
+
+        // The loader reads 3, then a new notification commits before the seed is stored
+        long seeded = cache.get(1L, () -> {
+            assertThat(cache.add(1L, 1)).isEqualTo(-1);
+            return 3L;
+        });
+
+        assertThat(seeded).isEqualTo(3);
+        assertThat(cache.add(1L, 1)).isEqualTo(-1);
+        assertThat(cache.get(1L, () -> 4L)).isEqualTo(4);
+    }
+
+    @Test
+    void setDuringLoad_wins() {
+        UnreadCountCache cache = new UnreadCountCache(600);
+
+        cache.get(1L, () -> {
+            cache.set(1L, 0);
+            return 7L;
+        });
+
+        assertThat(cache.get(1L, () -> 9L)).isZero();
+    }
+
+    @Test
+    void evictDuringLoad_dropsTheSeed() {
+        UnreadCountCache cache = new UnreadCountCache(600);
+
+        cache.get(1L, () -> {
+            cache.evict(1L);
+            return 7L;
+        });
+
+        assertThat(cache.get(1L, () -> 2L)).isEqualTo(2);
+    }
+
+    @Test
+    void add_skipsUnseededUser() {
+        UnreadCountCache cache = new UnreadCountCache(600);
+
+        assertThat(cache.add(1L, 1)).isEqualTo(-1);
+        assertThat(cache.get(1L, () -> 6L)).isEqualTo(6);
+    }
+}
@@ -0,0 +1,213 @@
+package com.library.service.gateway;
+
+import com.library.exception.PaymentException;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.json.JSONObject;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.client.ResourceAccessException;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * RazorpayApiClient against a local HTTP stub of the Razorpay API
+ */
+class RazorpayApiClientTest {
+
+    private static final String LINK_JSON =
+            "{\"id\":\"plink_1\",\"short_url\":\"https://rzp.test/plink_1\",\"status\":\"created\"}";
+    private static final String PAYMENT_JSON =
+            "{\"id\":\"pay_1\",\"status\":\"captured\",\"amount\":49900}";
+    private static final String ERROR_JSON =
+            "{\"error\":{\"code\":\"SERVER_ERROR\",\"description\":\"stub failure\"}}";
+
+    private HttpServer server;
+    private ExecutorService serverThreads;
+    private final AtomicInteger requests = new AtomicInteger();
+    private final AtomicReference<String> lastRequest = new AtomicReference<>();
+    private volatile Stub stub = exchange -> respond(exchange, 200, LINK_JSON);
+
+    @BeforeEach
+    void startStub() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        serverThreads = Executors.newCachedThreadPool();
+        server.setExecutor(serverThreads);
+        server.createContext("/", exchange -> {
+            requests.incrementAndGet();
+            lastRequest.set(exchange.getRequestMethod() + " " + exchange.getRequestURI().getPath() + " "
+                    + exchange.getRequestHeaders().getFirst("Authorization") + " "
+                    + new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8));
+            try {
+                stub.handle(exchange);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                exchange.close();
+            }
+        });
+        server.start();
+    }
+
+    @AfterEach
+    void stopStub() {
+        server.stop(0);
+        serverThreads.shutdownNow();
+    }
+
+    @Test
+    void createPaymentLink_postsRequestWithBasicAuth() throws Exception {
+        RazorpayApiClient client = client(1000, 5, 500, 5);
+
+        JSONObject link = client.createPaymentLink(new JSONObject().put("amount", 49900).put("currency", "INR"));
+
+        assertThat(link.getString("id")).isEqualTo("plink_1");
+        assertThat(link.getString("short_url")).isEqualTo("https://rzp.test/plink_1");
+        String credentials = Base64.getEncoder()
+                .encodeToString("rzp_test_key:rzp_test_secret".getBytes(StandardCharsets.UTF_8));
+        assertThat(lastRequest.get())
+                .startsWith("POST /v1/payment_links Basic " + credentials)
+                .contains("\"amount\":49900");
+        assertThat(client.getGuard().getState()).isEqualTo(GatewayGuard.State.CLOSED);
+    }
+
+    @Test
+    void fetchPayment_getsPaymentById() throws Exception {
+        stub = exchange -> respond(exchange, 200, PAYMENT_JSON);
+        RazorpayApiClient client = client(1000, 5, 500, 5);
+
+        JSONObject payment = client.fetchPayment("pay_1");
+
+        assertThat(payment.getString("status")).isEqualTo("captured");
+        assertThat(payment.getLong("amount")).isEqualTo(49900L);
+        assertThat(lastRequest.get()).startsWith("GET /v1/payments/pay_1 ");
+    }
+
+    @Test
+    void slowGateway_timesOutAndCountsAsFailure() {
+        CountDownLatch release = new CountDownLatch(1);
+        stub = exchange -> {
+            release.await(5, TimeUnit.SECONDS);
+            respond(exchange, 200, PAYMENT_JSON);
+        };
+        RazorpayApiClient client = client(200, 5, 500, 1);
+
+        long start = System.nanoTime();
+        assertThatThrownBy(() -> client.fetchPayment("pay_1"))
+                .isInstanceOf(PaymentException.class)
+                .hasCauseInstanceOf(ResourceAccessException.class);
+        release.countDown();
+
+        assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)).isLessThan(3000);
+        assertThat(client.getGuard().getState()).isEqualTo(GatewayGuard.State.OPEN);
+    }
+
+    @Test
+    void openCircuit_rejectsWithoutCallingGateway() {
+        stub = exchange -> respond(exchange, 500, ERROR_JSON);
+        RazorpayApiClient client = client(1000, 5, 500, 2);
+
+        for (int i = 0; i < 2; i++) {
+            assertThatThrownBy(() -> client.fetchPaymentLink("plink_1"))
+                    .isInstanceOf(PaymentException.class)
+                    .hasMessageContaining("stub failure");
+        }
+        assertThat(client.getGuard().getState()).isEqualTo(GatewayGuard.State.OPEN);
+        int callsBeforeRejection = requests.get();
+
+        assertThatThrownBy(() -> client.fetchPaymentLink("plink_1"))
+                .isInstanceOf(PaymentException.class)
+                .hasMessageContaining("temporarily unavailable");
+        assertThat(requests.get()).isEqualTo(callsBeforeRejection);
+    }
+
+    @Test
+    void rateLimit_countsAsFailure() {
+        stub = exchange -> respond(exchange, 429, ERROR_JSON);
+        RazorpayApiClient client = client(1000, 5, 500, 1);
+
+        assertThatThrownBy(() -> client.fetchPayment("pay_1"))
+                .isInstanceOf(PaymentException.class);
+        assertThat(client.getGuard().getState()).isEqualTo(GatewayGuard.State.OPEN);
+    }
+
+    @Test
+    void clientErrors_doNotOpenCircuit() {
+        stub = exchange -> respond(exchange, 400,
+                "{\"error\":{\"code\":\"BAD_REQUEST_ERROR\",\"description\":\"amount is required\"}}");
+        RazorpayApiClient client = client(1000, 5, 500, 1);
+
+        assertThatThrownBy(() -> client.createPaymentLink(new JSONObject()))
+                .isInstanceOf(PaymentException.class)
+                .hasMessage("Razorpay create payment link failed: amount is required");
+        assertThat(client.getGuard().getState()).isEqualTo(GatewayGuard.State.CLOSED);
+    }
+
+    @Test
+    void fullBulkhead_rejectsExtraCaller() throws Exception {
+        CountDownLatch inFlight = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        stub = exchange -> {
+            inFlight.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            respond(exchange, 200, PAYMENT_JSON);
+        };
+        RazorpayApiClient client = client(5000, 1, 50, 5);
+
+        ExecutorService caller = Executors.newSingleThreadExecutor();
+        try {
+            Future<JSONObject> first = caller.submit(() -> client.fetchPayment("pay_1"));
+            assertThat(inFlight.await(5, TimeUnit.SECONDS)).isTrue();
+
+            assertThatThrownBy(() -> client.fetchPayment("pay_2"))
+                    .isInstanceOf(PaymentException.class)
+                    .hasMessageContaining("busy");
+
+            release.countDown();
+            assertThat(first.get(5, TimeUnit.SECONDS).getString("id")).isEqualTo("pay_1");
+            assertThat(client.getGuard().getAvailablePermits()).isEqualTo(1);
+        } finally {
+            release.countDown();
+            caller.shutdownNow();
+        }
+    }
+
+    // ==================== HELPER METHODS ====================
+
+    private RazorpayApiClient client(int readTimeoutMillis, int maxConcurrent, long acquireTimeoutMillis,
+                                     int failureThreshold) {
+        String baseUrl = "http://localhost:" + server.getAddress().getPort();
+        return new RazorpayApiClient("rzp_test_key", "rzp_test_secret", baseUrl, 1000, readTimeoutMillis,
+                maxConcurrent, acquireTimeoutMillis, failureThreshold, 30);
+    }
+
+    private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    @FunctionalInterface
+    private interface Stub {
+        void handle(HttpExchange exchange) throws IOException, InterruptedException;
+    }
+}
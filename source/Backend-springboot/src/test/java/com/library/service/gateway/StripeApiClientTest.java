@@ -0,0 +1,185 @@
+package com.library.service.gateway;
+
+import com.library.exception.PaymentException;
+import com.stripe.exception.ApiConnectionException;
+import com.stripe.exception.StripeException;
+import com.stripe.model.checkout.Session;
+import com.stripe.param.checkout.SessionCreateParams;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * StripeApiClient against a local HTTP stub of the Stripe API
+ */
+class StripeApiClientTest {
+
+    private static final String SESSION_JSON =
+            "{\"id\":\"cs_test_1\",\"object\":\"checkout.session\",\"url\":\"https://checkout.stripe.test/cs_test_1\"}";
+    private static final String ERROR_JSON =
+            "{\"error\":{\"type\":\"api_error\",\"message\":\"stub failure\"}}";
+
+    private HttpServer server;
+    private ExecutorService serverThreads;
+    private final AtomicInteger requests = new AtomicInteger();
+    private volatile Stub stub = exchange -> respond(exchange, 200, SESSION_JSON);
+
+    @BeforeEach
+    void startStub() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        serverThreads = Executors.newCachedThreadPool();
+        server.setExecutor(serverThreads);
+        server.createContext("/", exchange -> {
+            requests.incrementAndGet();
+            try {
+                stub.handle(exchange);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                exchange.close();
+            }
+        });
+        server.start();
+    }
+
+    @AfterEach
+    void stopStub() {
+        server.stop(0);
+        serverThreads.shutdownNow();
+    }
+
+    @Test
+    void createCheckoutSession_returnsSessionFromGateway() throws Exception {
+        StripeApiClient client = client(1000, 5, 500, 5);
+
+        Session session = client.createCheckoutSession(params());
+
+        assertThat(session.getId()).isEqualTo("cs_test_1");
+        assertThat(session.getUrl()).isEqualTo("https://checkout.stripe.test/cs_test_1");
+        assertThat(client.getGuard().getState()).isEqualTo(GatewayGuard.State.CLOSED);
+    }
+
+    @Test
+    void slowGateway_timesOutAndCountsAsFailure() {
+        CountDownLatch release = new CountDownLatch(1);
+        stub = exchange -> {
+            release.await(5, TimeUnit.SECONDS);
+            respond(exchange, 200, SESSION_JSON);
+        };
+        StripeApiClient client = client(200, 5, 500, 1);
+
+        long start = System.nanoTime();
+        assertThatThrownBy(() -> client.createCheckoutSession(params()))
+                .isInstanceOf(ApiConnectionException.class);
+        release.countDown();
+
+        assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)).isLessThan(3000);
+        assertThat(client.getGuard().getState()).isEqualTo(GatewayGuard.State.OPEN);
+    }
+
+    @Test
+    void openCircuit_rejectsWithoutCallingGateway() {
+        stub = exchange -> respond(exchange, 500, ERROR_JSON);
+        StripeApiClient client = client(1000, 5, 500, 2);
+
+        for (int i = 0; i < 2; i++) {
+            assertThatThrownBy(() -> client.createCheckoutSession(params()))
+                    .isInstanceOf(StripeException.class);
+        }
+        assertThat(client.getGuard().getState()).isEqualTo(GatewayGuard.State.OPEN);
+        int callsBeforeRejection = requests.get();
+
+        assertThatThrownBy(() -> client.createCheckoutSession(params()))
+                .isInstanceOf(PaymentException.class)
+                .hasMessageContaining("temporarily unavailable");
+        assertThat(requests.get()).isEqualTo(callsBeforeRejection);
+    }
+
+    @Test
+    void clientErrors_doNotOpenCircuit() {
+        stub = exchange -> respond(exchange, 400,
+                "{\"error\":{\"type\":\"invalid_request_error\",\"message\":\"bad param\"}}");
+        StripeApiClient client = client(1000, 5, 500, 1);
+
+        assertThatThrownBy(() -> client.createCheckoutSession(params()))
+                .isInstanceOf(StripeException.class);
+        assertThat(client.getGuard().getState()).isEqualTo(GatewayGuard.State.CLOSED);
+    }
+
+    @Test
+    void fullBulkhead_rejectsExtraCaller() throws Exception {
+        CountDownLatch inFlight = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        stub = exchange -> {
+            inFlight.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            respond(exchange, 200, SESSION_JSON);
+        };
+        StripeApiClient client = client(5000, 1, 50, 5);
+
+        ExecutorService caller = Executors.newSingleThreadExecutor();
+        try {
+            Future<Session> first = caller.submit(() -> client.createCheckoutSession(params()));
+            assertThat(inFlight.await(5, TimeUnit.SECONDS)).isTrue();
+
+            assertThatThrownBy(() -> client.createCheckoutSession(params()))
+                    .isInstanceOf(PaymentException.class)
+                    .hasMessageContaining("busy");
+
+            release.countDown();
+            assertThat(first.get(5, TimeUnit.SECONDS).getId()).isEqualTo("cs_test_1");
+            assertThat(client.getGuard().getAvailablePermits()).isEqualTo(1);
+        } finally {
+            release.countDown();
+            caller.shutdownNow();
+        }
+    }
+
+    // ==================== HELPER METHODS ====================
+
+    private StripeApiClient client(int readTimeoutMillis, int maxConcurrent, long acquireTimeoutMillis,
+                                   int failureThreshold) {
+        String baseUrl = "http://localhost:" + server.getAddress().getPort();
+        return new StripeApiClient("sk_test_stub", baseUrl, 1000, readTimeoutMillis, 0,
+                maxConcurrent, acquireTimeoutMillis, failureThreshold, 30);
+    }
+
+    private static SessionCreateParams params() {
+        return SessionCreateParams.builder()
+                .setMode(SessionCreateParams.Mode.PAYMENT)
+                .setSuccessUrl("http://localhost/success")
+                .setCancelUrl("http://localhost/cancel")
+                .build();
+    }
+
+    private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    @FunctionalInterface
+    private interface Stub {
+        void handle(HttpExchange exchange) throws IOException, InterruptedException;
+    }
+}
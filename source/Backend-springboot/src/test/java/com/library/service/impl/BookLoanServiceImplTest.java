@@ -0,0 +1,96 @@
+package com.library.service.impl;
+
+import com.library.exception.BookLoanException;
+import com.library.mapper.BookLoanMapper;
+import com.library.model.Book;
+import com.library.model.User;
+import com.library.payload.request.CheckoutRequest;
+import com.library.repository.BookLoanRepository;
+import com.library.repository.BookRepository;
+import com.library.repository.UserRepository;
+import com.library.service.SubscriptionService;
+import com.library.service.cache.SubscriptionEntitlement;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDate;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class BookLoanServiceImplTest {
+
+    private static final Long USER_ID = 3L;
+    private static final Long BOOK_ID = 11L;
+
+    @Mock
+    private BookLoanRepository bookLoanRepository;
+    @Mock
+    private BookRepository bookRepository;
+    @Mock
+    private UserRepository userRepository;
+    @Mock
+    private BookLoanMapper bookLoanMapper;
+    @Mock
+    private FineCalculationService fineCalculationService;
+    @Mock
+    private FineAccrualService fineAccrualService;
+    @Mock
+    private FineBalanceService fineBalanceService;
+    @Mock
+    private SubscriptionService subscriptionService;
+
+    @InjectMocks
+    private BookLoanServiceImpl bookLoanService;
+
+    private CheckoutRequest checkoutRequest;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        User user = new User();
+        user.setId(USER_ID);
+        user.setEmail("reader@example.com");
+        when(userRepository.findById(USER_ID)).thenReturn(Optional.of(user));
+        when(subscriptionService.getActiveEntitlement(USER_ID)).thenReturn(new SubscriptionEntitlement(
+                5L, "SILVER", "Silver", 3, 21, LocalDate.now().plusMonths(1)));
+
+        Book book = new Book();
+        book.setId(BOOK_ID);
+        book.setActive(true);
+        book.setAvailableCopies(2);
+        when(bookRepository.findById(BOOK_ID)).thenReturn(Optional.of(book));
+
+        checkoutRequest = new CheckoutRequest();
+        checkoutRequest.setBookId(BOOK_ID);
+    }
+
+    @Test
+    void checkout_rejectsUserWithUnpaidFinesInMajorUnits() {
+        when(fineBalanceService.getOutstanding(USER_ID)).thenReturn(1250L);
+
+        assertThatThrownBy(() -> bookLoanService.checkoutBookForUser(USER_ID, checkoutRequest))
+                .isInstanceOf(BookLoanException.class)
+                .hasMessage("User has unpaid fines of $12.50. Cannot checkout until fines are paid.");
+        verify(bookLoanRepository, never()).save(any());
+    }
+
+    @Test
+    void checkout_rejectsUserAtPlanLimit() {
+        when(bookLoanRepository.countActiveBookLoansByUser(USER_ID)).thenReturn(3L);
+
+        assertThatThrownBy(() -> bookLoanService.checkoutBookForUser(USER_ID, checkoutRequest))
+                .isInstanceOf(BookLoanException.class)
+                .hasMessageContaining("subscription limit of 3")
+                .hasMessageContaining("Your current plan: Silver.");
+        verify(fineBalanceService, never()).getOutstanding(any());
+    }
+}
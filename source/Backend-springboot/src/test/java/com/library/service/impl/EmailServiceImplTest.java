@@ -0,0 +1,63 @@
+package com.library.service.impl;
+
+import com.library.payload.EmailNotificationDTO;
+import com.library.service.template.EmailTemplateEngine;
+import jakarta.mail.Session;
+import jakarta.mail.internet.MimeMessage;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.mail.javamail.JavaMailSender;
+
+import java.util.Map;
+import java.util.Properties;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class EmailServiceImplTest {
+
+    private JavaMailSender javaMailSender;
+    private EmailServiceImpl emailService;
+
+    @BeforeEach
+    void setUp() {
+        javaMailSender = mock(JavaMailSender.class);
+        when(javaMailSender.createMimeMessage()).thenAnswer(invocation ->
+                new MimeMessage(Session.getInstance(new Properties())));
+
+        EmailTemplateEngine engine = new EmailTemplateEngine();
+        engine.init();
+        emailService = new EmailServiceImpl(javaMailSender, engine);
+    }
+
+    @Test
+    void templatedEmails_acceptNullValues() {
+        assertThatCode(() -> {
+            emailService.sendOverdueReminder("a@example.com", null, null, null, 3, null);
+            emailService.sendDueDateReminder("a@example.com", null, null, null, 1);
+            emailService.sendReservationAvailableNotification("a@example.com", null, null, null, 48);
+            emailService.sendPaymentInitiatedEmail("a@example.com", null, null, null, null, null);
+            emailService.sendPaymentSuccessEmail("a@example.com", null, null, null, null, null);
+            emailService.sendPaymentFailedEmail("a@example.com", null, null, null, null, null);
+        }).doesNotThrowAnyException();
+
+        verify(javaMailSender, times(6)).send(any(MimeMessage.class));
+    }
+
+    @Test
+    void unknownTemplate_escapesPlainMessage() throws Exception {
+        emailService.sendTemplatedEmail(new EmailNotificationDTO("a@example.com", "Hello", "no-such-template",
+                Map.of("message", "<script>alert('x')</script> & more")));
+
+        ArgumentCaptor<MimeMessage> sent = ArgumentCaptor.forClass(MimeMessage.class);
+        verify(javaMailSender).send(sent.capture());
+        assertThat(sent.getValue().getContent().toString())
+                .isEqualTo("<html><body><p>&lt;script&gt;alert(&#39;x&#39;)&lt;/script&gt; &amp; more</p></body></html>");
+    }
+}
@@ -0,0 +1,130 @@
+package com.library.service.impl;
+
+import com.library.model.FinePolicy;
+import com.library.payload.response.FineAccrualReport;
+import com.library.repository.FinePolicyRepository;
+import com.library.repository.GenreRepository;
+import com.library.repository.SubscriptionRepository;
+import com.library.service.cache.FinePolicyTable;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.lang.reflect.Proxy;
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Throughput of the nightly accrual for 1M overdue loans: keyset chunking,
+ * policy evaluation, batch and ledger delta building. The database is a
+ * stub serving rows from memory, so this measures the service's own cost;
+ * statement time has to be measured against MySQL separately.
+ * Run with: mvn test -Dtest=FineAccrualBenchmark -Dbenchmark=true
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class FineAccrualBenchmark {
+
+    private static final int LOANS = 1_000_000;
+    private static final long TARGET_MILLIS = 60_000;
+
+    @Test
+    void accrue1mOverdueLoans() {
+        FinePolicyRepository policyRepository = mock(FinePolicyRepository.class);
+        GenreRepository genreRepository = mock(GenreRepository.class);
+        when(policyRepository.findByActiveTrue()).thenReturn(List.of(
+                FinePolicy.builder().planId(1L).finePerDay(50L).maxFine(3000L).gracePeriodDays(2)
+                        .lostBookPenalty(10000L).damagedBookPenalty(2500L).build(),
+                FinePolicy.builder().genreId(5L).finePerDay(200L).maxFine(8000L).gracePeriodDays(0)
+                        .lostBookPenalty(10000L).damagedBookPenalty(2500L).build()));
+        when(genreRepository.findParentLinks()).thenReturn(List.<Object[]>of(new Object[]{6L, 5L}));
+        FinePolicyTable finePolicyTable = new FinePolicyTable(policyRepository, genreRepository,
+                100, 5000, 0, 10000, 2500);
+        finePolicyTable.reload();
+
+        StubJdbcTemplate jdbcTemplate = new StubJdbcTemplate(LocalDate.now());
+        FineAccrualService service = new FineAccrualService(jdbcTemplate,
+                mock(FineCalculationService.class), finePolicyTable, mock(SubscriptionRepository.class),
+                mock(FineBalanceService.class), mock(PlatformTransactionManager.class), 5000);
+
+        FineAccrualReport report = service.run();
+
+        System.out.printf("Accrued %,d loans in %,d ms (%,.0f loans/s), %,d fines upserted%n",
+                report.getScanned(), report.getDurationMillis(),
+                report.getScanned() / (report.getDurationMillis() / 1e3), report.getFinesUpserted());
+
+        assertThat(report.getScanned()).isEqualTo(LOANS);
+        assertThat(jdbcTemplate.upsertedRows).isEqualTo(report.getFinesUpserted());
+        assertThat(report.getDurationMillis()).isLessThan(TARGET_MILLIS);
+    }
+
+    /**
+     * Serves LOANS overdue loans in ID order and swallows writes
+     */
+    private static final class StubJdbcTemplate extends JdbcTemplate {
+
+        private final LocalDate asOf;
+        private final ResultSet row;
+        private long rowId;
+        private int upsertedRows;
+
+        StubJdbcTemplate(LocalDate asOf) {
+            this.asOf = asOf;
+            this.row = (ResultSet) Proxy.newProxyInstance(ResultSet.class.getClassLoader(),
+                    new Class<?>[]{ResultSet.class}, (proxy, method, args) -> switch (method.getName()) {
+                        case "getLong" -> column((String) args[0]);
+                        case "getDate" -> Date.valueOf(asOf.minusDays(1 + rowId % 60));
+                        case "getString" -> rowId % 2 == 0 ? "CHECKED_OUT" : "OVERDUE";
+                        default -> throw new UnsupportedOperationException(method.getName());
+                    });
+        }
+
+        private long column(String name) {
+            return switch (name) {
+                case "id" -> rowId;
+                case "user_id" -> rowId % 50_000;
+                case "plan_id" -> rowId % 3;
+                case "genre_id" -> 1 + rowId % 8;
+                default -> throw new IllegalArgumentException(name);
+            };
+        }
+
+        @Override
+        public <T> List<T> query(String sql, RowMapper<T> rowMapper, Object... args) {
+            long afterId = (Long) args[1];
+            int limit = (Integer) args[2];
+            List<T> rows = new ArrayList<>(limit);
+            try {
+                for (rowId = afterId + 1; rowId <= LOANS && rows.size() < limit; rowId++) {
+                    rows.add(rowMapper.mapRow(row, rows.size()));
+                }
+            } catch (SQLException e) {
+                throw new IllegalStateException(e);
+            }
+            return rows;
+        }
+
+        @Override
+        public void query(String sql, RowCallbackHandler rch, Object... args) {
+            // No accrual fines yet: every overdue loan gets a new one
+        }
+
+        @Override
+        public int[] batchUpdate(String sql, List<Object[]> batchArgs) {
+            if (sql.contains("INSERT INTO fines")) {
+                upsertedRows += batchArgs.size();
+            }
+            return new int[batchArgs.size()];
+        }
+    }
+}
@@ -0,0 +1,233 @@
+package com.library.service.impl;
+
+import com.library.model.Book;
+import com.library.model.BookLoan;
+import com.library.model.Genre;
+import com.library.model.User;
+import com.library.payload.request.BulkFineRequest;
+import com.library.repository.SubscriptionRepository;
+import com.library.service.cache.FinePolicyTable;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.sql.ResultSet;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class FineAccrualServiceTest {
+
+    private static final long LOAN_ID = 7L;
+    private static final long USER_ID = 3L;
+    private static final LocalDate DUE_DATE = LocalDate.of(2026, 3, 1);
+    private static final LocalDate RETURN_DATE = LocalDate.of(2026, 3, 6);
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private FineCalculationService fineCalculationService;
+
+    @Mock
+    private FinePolicyTable finePolicyTable;
+
+    @Mock
+    private SubscriptionRepository subscriptionRepository;
+
+    @Mock
+    private FineBalanceService fineBalanceService;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private FineAccrualService fineAccrualService;
+    private BookLoan bookLoan;
+
+    @BeforeEach
+    void setUp() {
+        fineAccrualService = new FineAccrualService(jdbcTemplate, fineCalculationService, finePolicyTable,
+                subscriptionRepository, fineBalanceService, transactionManager, 5000);
+
+        User user = new User();
+        user.setId(USER_ID);
+        Genre genre = new Genre();
+        genre.setId(11L);
+        Book book = new Book();
+        book.setGenre(genre);
+        bookLoan = new BookLoan();
+        bookLoan.setId(LOAN_ID);
+        bookLoan.setUser(user);
+        bookLoan.setBook(book);
+        bookLoan.setDueDate(DUE_DATE);
+
+        when(subscriptionRepository.findActivePlanIds(eq(USER_ID), any(Pageable.class))).thenReturn(List.of(2L));
+    }
+
+    @Test
+    void accrueOnReturn_insertsNewFineAfterLockingTheLoan() throws Exception {
+        when(fineCalculationService.calculateOverdueFineMinor(2L, 11L, DUE_DATE, RETURN_DATE)).thenReturn(500L);
+
+        long amount = fineAccrualService.accrueOnReturn(bookLoan, RETURN_DATE);
+
+        assertThat(amount).isEqualTo(500L);
+        InOrder order = inOrder(jdbcTemplate, fineBalanceService);
+        order.verify(jdbcTemplate).queryForList(contains("FROM book_loans"), eq(Long.class), eq(LOAN_ID));
+        order.verify(jdbcTemplate).query(contains("FOR UPDATE"), any(RowCallbackHandler.class),
+                eq(LOAN_ID), eq(LOAN_ID));
+        ArgumentCaptor<List<Object[]>> upserts = upsertCaptor();
+        order.verify(jdbcTemplate).batchUpdate(contains("ON DUPLICATE KEY UPDATE"), upserts.capture());
+        order.verify(fineBalanceService).applyDeltas(deltas(new FineBalanceService.Contribution(500, 1)));
+
+        assertThat(upserts.getValue()).hasSize(1);
+        Object[] row = upserts.getValue().get(0);
+        assertThat(row[0]).isEqualTo(LOAN_ID);
+        assertThat(row[1]).isEqualTo(USER_ID);
+        assertThat(row[2]).isEqualTo(500L);
+        assertThat(row[3]).isEqualTo("Overdue by 5 days (due 2026-03-01)");
+    }
+
+    @Test
+    void accrueOnReturn_growsPendingFineByTheDifference() throws Exception {
+        when(fineCalculationService.calculateOverdueFineMinor(2L, 11L, DUE_DATE, RETURN_DATE)).thenReturn(500L);
+        existingFine(300L, "PENDING");
+
+        fineAccrualService.accrueOnReturn(bookLoan, RETURN_DATE);
+
+        verify(jdbcTemplate).batchUpdate(contains("ON DUPLICATE KEY UPDATE"), anyList());
+        verify(fineBalanceService).applyDeltas(deltas(new FineBalanceService.Contribution(200, 0)));
+    }
+
+    @Test
+    void accrueOnReturn_leavesFineAccruedByNightlyRunAlone() throws Exception {
+        when(fineCalculationService.calculateOverdueFineMinor(2L, 11L, DUE_DATE, RETURN_DATE)).thenReturn(500L);
+        existingFine(500L, "PENDING");
+
+        fineAccrualService.accrueOnReturn(bookLoan, RETURN_DATE);
+
+        verify(jdbcTemplate, never()).batchUpdate(anyString(), anyList());
+        verify(fineBalanceService, never()).applyDeltas(any());
+    }
+
+    @Test
+    void accrueOnReturn_leavesPaidFineAlone() throws Exception {
+        when(fineCalculationService.calculateOverdueFineMinor(2L, 11L, DUE_DATE, RETURN_DATE)).thenReturn(500L);
+        existingFine(300L, "PAID");
+
+        fineAccrualService.accrueOnReturn(bookLoan, RETURN_DATE);
+
+        verify(jdbcTemplate, never()).batchUpdate(anyString(), anyList());
+        verify(fineBalanceService, never()).applyDeltas(any());
+    }
+
+    @Test
+    void accrueOnReturn_writesNothingWithinGracePeriod() {
+        when(fineCalculationService.calculateOverdueFineMinor(anyLong(), anyLong(), any(), any())).thenReturn(0L);
+
+        assertThat(fineAccrualService.accrueOnReturn(bookLoan, RETURN_DATE)).isZero();
+
+        verifyNoInteractions(jdbcTemplate, fineBalanceService);
+    }
+
+    @Test
+    void accrueOnReturn_keepsBulkAdjustmentOfAccrualFine() throws Exception {
+        // Accrued at 1000, then an admin takes 300 off with a bulk adjustment
+        long[] fine = {1000L, 0L, 0L}; // amount, amount_paid, adjustment
+        ResultSet selected = mock(ResultSet.class);
+        when(selected.getLong("id")).thenReturn(50L);
+        when(selected.getLong("user_id")).thenReturn(USER_ID);
+        when(selected.getLong("amount")).thenAnswer(call -> fine[0]);
+        when(selected.getLong("amount_paid")).thenAnswer(call -> fine[1]);
+        doAnswer(invocation -> List.of(invocation.<RowMapper<?>>getArgument(1).mapRow(selected, 0)))
+                .when(jdbcTemplate).query(contains("FROM fines"), any(RowMapper.class), any(Object[].class));
+        doAnswer(invocation -> {
+            // ADJUST_SQL: adjustment records the change, amount never drops below what was paid
+            long delta = invocation.getArgument(1);
+            long newAmount = Math.max(fine[0] + delta, fine[1]);
+            fine[2] += newAmount - fine[0];
+            fine[0] = newAmount;
+            return 1;
+        }).when(jdbcTemplate).update(contains("adjustment = adjustment +"), any(Object[].class));
+
+        BulkFineRequest request = new BulkFineRequest();
+        request.setFineIds(List.of(50L));
+        request.setAmountDelta(-300L);
+        new FineBulkOperationService(jdbcTemplate, fineBalanceService, transactionManager, 500)
+                .execute(FineBulkOperationService.Operation.ADJUST, request, 99L);
+        assertThat(fine).containsExactly(700L, 0L, -300L);
+
+        // The loan comes back the same day: accrual computes 1000 again
+        ResultSet existing = mock(ResultSet.class);
+        when(existing.getLong("accrual_loan_id")).thenReturn(LOAN_ID);
+        when(existing.getLong("amount")).thenAnswer(call -> fine[0]);
+        when(existing.getLong("adjustment")).thenAnswer(call -> fine[2]);
+        when(existing.getString("status")).thenReturn("PENDING");
+        doAnswer(invocation -> {
+            invocation.<RowCallbackHandler>getArgument(1).processRow(existing);
+            return null;
+        }).when(jdbcTemplate).query(contains("FOR UPDATE"), any(RowCallbackHandler.class), eq(LOAN_ID), eq(LOAN_ID));
+        when(fineCalculationService.calculateOverdueFineMinor(2L, 11L, DUE_DATE, RETURN_DATE)).thenReturn(1000L);
+
+        fineAccrualService.accrueOnReturn(bookLoan, RETURN_DATE);
+
+        verify(jdbcTemplate, never()).batchUpdate(contains("INSERT INTO fines"), anyList());
+
+        // A day later it has grown by 200 and the adjustment still applies
+        when(fineCalculationService.calculateOverdueFineMinor(2L, 11L, DUE_DATE, RETURN_DATE.plusDays(1)))
+                .thenReturn(1200L);
+
+        fineAccrualService.accrueOnReturn(bookLoan, RETURN_DATE.plusDays(1));
+
+        verify(jdbcTemplate).batchUpdate(contains("GREATEST(amount, VALUES(amount) + adjustment)"), anyList());
+        verify(fineBalanceService).applyDeltas(deltas(new FineBalanceService.Contribution(200, 0)));
+    }
+
+    // ==================== HELPER METHODS ====================
+
+    private void existingFine(long amount, String status) throws Exception {
+        ResultSet rs = mock(ResultSet.class);
+        when(rs.getLong("accrual_loan_id")).thenReturn(LOAN_ID);
+        when(rs.getLong("amount")).thenReturn(amount);
+        when(rs.getString("status")).thenReturn(status);
+        doAnswer(invocation -> {
+            invocation.<RowCallbackHandler>getArgument(1).processRow(rs);
+            return null;
+        }).when(jdbcTemplate).query(contains("FOR UPDATE"), any(RowCallbackHandler.class), eq(LOAN_ID), eq(LOAN_ID));
+    }
+
+    private static SortedMap<Long, FineBalanceService.Contribution> deltas(FineBalanceService.Contribution delta) {
+        return new TreeMap<>(Map.of(USER_ID, delta));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static ArgumentCaptor<List<Object[]>> upsertCaptor() {
+        return ArgumentCaptor.forClass(List.class);
+    }
+}
@@ -0,0 +1,216 @@
+package com.library.service.impl;
+
+import com.library.domain.FineStatus;
+import com.library.model.Fine;
+import com.library.model.User;
+import com.library.model.UserFineBalance;
+import com.library.payload.response.FineBalanceReconciliationReport;
+import com.library.repository.UserFineBalanceRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.sql.ResultSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.TreeMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class FineBalanceServiceTest {
+
+    private static final long USER_ID = 3L;
+
+    @Mock
+    private UserFineBalanceRepository balanceRepository;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private FineBalanceService fineBalanceService;
+
+    @BeforeEach
+    void setUp() {
+        fineBalanceService = new FineBalanceService(balanceRepository, jdbcTemplate, transactionManager, 2000);
+    }
+
+    @Test
+    void contribution_countsOnlyUnpaidFines() {
+        assertThat(FineBalanceService.Contribution.of(fine(1000L, 0L, FineStatus.PENDING)))
+                .isEqualTo(new FineBalanceService.Contribution(1000, 1));
+        assertThat(FineBalanceService.Contribution.of(fine(1000L, 400L, FineStatus.PARTIALLY_PAID)))
+                .isEqualTo(new FineBalanceService.Contribution(600, 1));
+        assertThat(FineBalanceService.Contribution.of(fine(1000L, 1000L, FineStatus.PAID)))
+                .isEqualTo(FineBalanceService.Contribution.NONE);
+        assertThat(FineBalanceService.Contribution.of(fine(1000L, 0L, FineStatus.WAIVED)))
+                .isEqualTo(FineBalanceService.Contribution.NONE);
+    }
+
+    @Test
+    void recordCreated_addsTheFine() {
+        fineBalanceService.recordCreated(fine(1000L, 0L, FineStatus.PENDING));
+
+        verify(balanceRepository).applyDelta(USER_ID, 1000L, 1);
+    }
+
+    @Test
+    void recordChanged_appliesPartialPayment() {
+        Fine fine = fine(1000L, 0L, FineStatus.PENDING);
+        FineBalanceService.Contribution before = FineBalanceService.Contribution.of(fine);
+        fine.setAmountPaid(400L);
+        fine.setStatus(FineStatus.PARTIALLY_PAID);
+
+        fineBalanceService.recordChanged(fine, before);
+
+        verify(balanceRepository).applyDelta(USER_ID, -400L, 0);
+    }
+
+    @Test
+    void recordChanged_removesSettledFine() {
+        Fine fine = fine(1000L, 400L, FineStatus.PARTIALLY_PAID);
+        FineBalanceService.Contribution before = FineBalanceService.Contribution.of(fine);
+        fine.setAmountPaid(1000L);
+        fine.setStatus(FineStatus.PAID);
+
+        fineBalanceService.recordChanged(fine, before);
+
+        verify(balanceRepository).applyDelta(USER_ID, -600L, -1);
+    }
+
+    @Test
+    void recordChanged_skipsUnchangedFine() {
+        Fine fine = fine(1000L, 0L, FineStatus.PAID);
+
+        fineBalanceService.recordChanged(fine, FineBalanceService.Contribution.of(fine));
+
+        verify(balanceRepository, never()).applyDelta(anyLong(), anyLong(), anyInt());
+    }
+
+    @Test
+    void recordDeleted_subtractsTheFine() {
+        fineBalanceService.recordDeleted(fine(1000L, 250L, FineStatus.PARTIALLY_PAID));
+
+        verify(balanceRepository).applyDelta(USER_ID, -750L, -1);
+    }
+
+    @Test
+    void applyDeltas_batchesNonZeroDeltasInUserOrder() {
+        TreeMap<Long, FineBalanceService.Contribution> deltas = new TreeMap<>();
+        deltas.put(9L, new FineBalanceService.Contribution(500, 1));
+        deltas.put(4L, FineBalanceService.Contribution.NONE);
+        deltas.put(2L, new FineBalanceService.Contribution(-100, 0));
+
+        fineBalanceService.applyDeltas(deltas);
+
+        ArgumentCaptor<List<Object[]>> rows = rowsCaptor();
+        verify(jdbcTemplate).batchUpdate(contains("ON DUPLICATE KEY UPDATE"), rows.capture());
+        assertThat(rows.getValue()).extracting(row -> row[0]).containsExactly(2L, 9L);
+        assertThat(rows.getValue().get(0)[1]).isEqualTo(-100L);
+        assertThat(rows.getValue().get(1)[1]).isEqualTo(500L);
+        assertThat(rows.getValue().get(1)[2]).isEqualTo(1);
+    }
+
+    @Test
+    void applyDeltas_writesNothingForZeroDeltas() {
+        TreeMap<Long, FineBalanceService.Contribution> deltas = new TreeMap<>();
+        deltas.put(4L, FineBalanceService.Contribution.NONE);
+
+        fineBalanceService.applyDeltas(deltas);
+
+        verify(jdbcTemplate, never()).batchUpdate(anyString(), anyList());
+    }
+
+    @Test
+    void queries_readTheLedgerRow() {
+        when(balanceRepository.findById(USER_ID)).thenReturn(Optional.of(
+                UserFineBalance.builder().userId(USER_ID).outstandingAmount(1250L).unpaidCount(2).build()));
+        when(balanceRepository.findById(4L)).thenReturn(Optional.empty());
+
+        assertThat(fineBalanceService.getOutstanding(USER_ID)).isEqualTo(1250L);
+        assertThat(fineBalanceService.hasUnpaidFines(USER_ID)).isTrue();
+        assertThat(fineBalanceService.getOutstanding(4L)).isZero();
+        assertThat(fineBalanceService.hasUnpaidFines(4L)).isFalse();
+    }
+
+    @Test
+    void reconcile_correctsOnlyDriftedBalances() throws Exception {
+        when(jdbcTemplate.queryForList(contains("FROM users"), eq(Long.class), eq(0L), eq(2000)))
+                .thenReturn(List.of(1L, 2L, 3L));
+        // Stored: user 1 correct, user 2 off by 300, user 3 has no fines left
+        rows("FROM user_fine_balances", new Object[][]{
+                {1L, 500L, 1}, {2L, 700L, 2}, {3L, 200L, 1}});
+        rows("FROM fines", new Object[][]{
+                {1L, 500L, 1}, {2L, 1000L, 2}});
+
+        FineBalanceReconciliationReport report = fineBalanceService.reconcile();
+
+        assertThat(report.getUsersScanned()).isEqualTo(3);
+        assertThat(report.getBalancesCorrected()).isEqualTo(2);
+        assertThat(report.getDriftMinor()).isEqualTo(500L);
+
+        ArgumentCaptor<List<Object[]>> corrections = rowsCaptor();
+        verify(jdbcTemplate).batchUpdate(contains("outstanding_amount = VALUES(outstanding_amount)"),
+                corrections.capture());
+        assertThat(corrections.getValue())
+                .extracting(row -> List.of(row[0], row[1], row[2]))
+                .containsExactlyInAnyOrder(List.of(2L, 1000L, 2), List.of(3L, 0L, 0));
+    }
+
+    // ==================== HELPER METHODS ====================
+
+    private static Fine fine(long amount, long amountPaid, FineStatus status) {
+        User user = new User();
+        user.setId(USER_ID);
+        return Fine.builder()
+                .user(user)
+                .amount(amount)
+                .amountPaid(amountPaid)
+                .status(status)
+                .build();
+    }
+
+    /**
+     * Feed (user_id, amount, count) rows to the row handler of the query on
+     * the given table; the column names of both reconciliation queries are accepted
+     */
+    private void rows(String table, Object[][] rows) throws Exception {
+        doAnswer(invocation -> {
+            RowCallbackHandler handler = invocation.getArgument(1);
+            for (Object[] row : rows) {
+                ResultSet rs = mock(ResultSet.class);
+                when(rs.getLong(any(String.class))).thenAnswer(call ->
+                        "user_id".equals(call.getArgument(0)) ? row[0] : row[1]);
+                when(rs.getInt(any(String.class))).thenReturn((Integer) row[2]);
+                handler.processRow(rs);
+            }
+            return null;
+        }).when(jdbcTemplate).query(contains(table), any(RowCallbackHandler.class), eq(1L), eq(3L));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static ArgumentCaptor<List<Object[]>> rowsCaptor() {
+        return ArgumentCaptor.forClass(List.class);
+    }
+}
@@ -0,0 +1,212 @@
+package com.library.service.impl;
+
+import com.library.exception.FineException;
+import com.library.payload.request.BulkFineRequest;
+import com.library.payload.response.BulkFineOperationResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.sql.ResultSet;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class FineBulkOperationServiceTest {
+
+    private static final Long ADMIN_ID = 99L;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private FineBalanceService fineBalanceService;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private FineBulkOperationService bulkOperationService;
+    private final List<Object[]> updates = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        bulkOperationService = new FineBulkOperationService(jdbcTemplate, fineBalanceService, transactionManager, 500);
+    }
+
+    // ==================== validation ====================
+
+    @Test
+    void execute_requiresCriteria() {
+        BulkFineRequest request = new BulkFineRequest();
+        request.setReason("Amnesty");
+
+        assertThatThrownBy(() -> bulkOperationService.execute(FineBulkOperationService.Operation.WAIVE, request, ADMIN_ID))
+                .isInstanceOf(FineException.class)
+                .hasMessageContaining("At least one of");
+        verifyNoInteractions(jdbcTemplate, fineBalanceService);
+    }
+
+    @Test
+    void execute_rejectsInvertedDateRange() {
+        BulkFineRequest request = new BulkFineRequest();
+        request.setCreatedFrom(LocalDate.of(2026, 5, 2));
+        request.setCreatedTo(LocalDate.of(2026, 5, 1));
+
+        assertThatThrownBy(() -> bulkOperationService.execute(FineBulkOperationService.Operation.PAY, request, ADMIN_ID))
+                .isInstanceOf(FineException.class)
+                .hasMessage("createdFrom must not be after createdTo");
+        verifyNoInteractions(jdbcTemplate, fineBalanceService);
+    }
+
+    @Test
+    void execute_requiresWaiverReason() {
+        assertThatThrownBy(() -> bulkOperationService.execute(FineBulkOperationService.Operation.WAIVE,
+                request(List.of(1L), null, null), ADMIN_ID))
+                .isInstanceOf(FineException.class)
+                .hasMessage("Waiver reason is mandatory");
+        verifyNoInteractions(jdbcTemplate, fineBalanceService);
+    }
+
+    @Test
+    void execute_requiresNonZeroAdjustment() {
+        assertThatThrownBy(() -> bulkOperationService.execute(FineBulkOperationService.Operation.ADJUST,
+                request(List.of(1L), null, 0L), ADMIN_ID))
+                .isInstanceOf(FineException.class)
+                .hasMessage("A non-zero amountDelta is required");
+        verifyNoInteractions(jdbcTemplate, fineBalanceService);
+    }
+
+    // ==================== operations ====================
+
+    @Test
+    void waive_removesOutstandingFromEachUsersBalance() throws Exception {
+        selectRows(new long[][]{
+                {1L, 10L, 1000L, 0L},
+                {2L, 10L, 800L, 300L},
+                {3L, 20L, 400L, 0L}});
+        updateReturns(3);
+
+        BulkFineOperationResponse response = bulkOperationService.execute(FineBulkOperationService.Operation.WAIVE,
+                request(List.of(1L, 2L, 3L), "Amnesty", null), ADMIN_ID);
+
+        assertThat(response.getFinesUpdated()).isEqualTo(3);
+        assertThat(response.getUsersAffected()).isEqualTo(2);
+        assertThat(response.getOutstandingChange()).isEqualTo(-1900L);
+
+        Object[] update = updates.get(0);
+        assertThat((String) update[0]).startsWith("UPDATE fines SET status = 'WAIVED'").endsWith("id IN (?,?,?)");
+        assertThat(update[1]).isEqualTo(ADMIN_ID);
+        assertThat(update[3]).isEqualTo("Amnesty");
+        assertThat(Arrays.asList(update).subList(5, 8)).containsExactly(1L, 2L, 3L);
+
+        verify(fineBalanceService).applyDeltas(new TreeMap<>(Map.of(
+                10L, new FineBalanceService.Contribution(-1500, -2),
+                20L, new FineBalanceService.Contribution(-400, -1))));
+    }
+
+    @Test
+    void adjust_settlesFinesLoweredToWhatWasPaid() throws Exception {
+        selectRows(new long[][]{
+                {1L, 10L, 1000L, 0L},
+                {2L, 10L, 1000L, 800L}});
+        updateReturns(2);
+
+        BulkFineOperationResponse response = bulkOperationService.execute(FineBulkOperationService.Operation.ADJUST,
+                request(List.of(1L, 2L), "Goodwill", -300L), ADMIN_ID);
+
+        assertThat(response.getFinesUpdated()).isEqualTo(2);
+        assertThat(response.getOutstandingChange()).isEqualTo(-500L);
+        assertThat(updates.get(0)[1]).isEqualTo(-300L);
+        // Second fine drops to its paid amount: 200 less owed and no longer unpaid
+        verify(fineBalanceService).applyDeltas(new TreeMap<>(Map.of(
+                10L, new FineBalanceService.Contribution(-500, -1))));
+    }
+
+    @Test
+    void adjust_skipsFinesItCannotChange() throws Exception {
+        selectRows(new long[][]{{1L, 10L, 600L, 600L}});
+
+        BulkFineOperationResponse response = bulkOperationService.execute(FineBulkOperationService.Operation.ADJUST,
+                request(List.of(1L), null, -100L), ADMIN_ID);
+
+        assertThat(response.getFinesUpdated()).isZero();
+        assertThat(response.getFinesUnchanged()).isEqualTo(1);
+        assertThat(updates).isEmpty();
+        verify(fineBalanceService, never()).applyDeltas(any());
+    }
+
+    @Test
+    void pay_failsChunkWhenUpdateCountDoesNotMatch() throws Exception {
+        selectRows(new long[][]{
+                {1L, 10L, 1000L, 0L},
+                {2L, 10L, 500L, 0L}});
+        updateReturns(1);
+
+        assertThatThrownBy(() -> bulkOperationService.execute(FineBulkOperationService.Operation.PAY,
+                request(List.of(1L, 2L), null, null), ADMIN_ID))
+                .isInstanceOf(FineException.class)
+                .hasMessage("Bulk PAY updated 1 of 2 fine(s)");
+        verify(fineBalanceService, never()).applyDeltas(any());
+    }
+
+    // ==================== HELPER METHODS ====================
+
+    private static BulkFineRequest request(List<Long> fineIds, String reason, Long amountDelta) {
+        BulkFineRequest request = new BulkFineRequest();
+        request.setFineIds(fineIds);
+        request.setReason(reason);
+        request.setAmountDelta(amountDelta);
+        return request;
+    }
+
+    /**
+     * Serve (id, user_id, amount, amount_paid) rows to the chunk's locking select
+     */
+    @SuppressWarnings("unchecked")
+    private void selectRows(long[][] rows) throws Exception {
+        List<ResultSet> resultSets = new ArrayList<>();
+        for (long[] row : rows) {
+            ResultSet rs = mock(ResultSet.class);
+            when(rs.getLong("id")).thenReturn(row[0]);
+            when(rs.getLong("user_id")).thenReturn(row[1]);
+            when(rs.getLong("amount")).thenReturn(row[2]);
+            when(rs.getLong("amount_paid")).thenReturn(row[3]);
+            resultSets.add(rs);
+        }
+        doAnswer(invocation -> {
+            RowMapper<Object> mapper = invocation.getArgument(1);
+            List<Object> mapped = new ArrayList<>();
+            for (int i = 0; i < resultSets.size(); i++) {
+                mapped.add(mapper.mapRow(resultSets.get(i), i));
+            }
+            return mapped;
+        }).when(jdbcTemplate).query(anyString(), any(RowMapper.class), any(Object[].class));
+    }
+
+    private void updateReturns(int rows) {
+        doAnswer(invocation -> {
+            updates.add(invocation.getArguments());
+            return rows;
+        }).when(jdbcTemplate).update(anyString(), any(Object[].class));
+    }
+}
@@ -0,0 +1,70 @@
+package com.library.service.impl;
+
+import com.library.domain.NotificationType;
+import com.library.repository.NotificationDedupKeyRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class NotificationDeduplicatorTest {
+
+    private static final LocalDate TODAY = LocalDate.of(2026, 10, 19);
+
+    @Mock
+    private NotificationDedupKeyRepository dedupKeyRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private NotificationDeduplicator deduplicator;
+
+    @BeforeEach
+    void setUp() {
+        deduplicator = new NotificationDeduplicator(dedupKeyRepository, transactionManager, 7);
+    }
+
+    @Test
+    void tryClaim_answersRepeatedTriggerFromMemory() {
+        when(dedupKeyRepository.insertIfAbsent(3L, 7L, "DUE_DATE_ALERT", TODAY)).thenReturn(1);
+
+        assertThat(deduplicator.tryClaim(3L, 7L, NotificationType.DUE_DATE_ALERT, TODAY)).isTrue();
+        assertThat(deduplicator.tryClaim(3L, 7L, NotificationType.DUE_DATE_ALERT, TODAY)).isFalse();
+
+        verify(dedupKeyRepository, times(1)).insertIfAbsent(3L, 7L, "DUE_DATE_ALERT", TODAY);
+        verify(transactionManager, times(1)).getTransaction(any());
+    }
+
+    @Test
+    void tryClaim_remembersKeysClaimedByAnotherNode() {
+        when(dedupKeyRepository.insertIfAbsent(3L, 0L, "FINE_NOTIFICATION", TODAY)).thenReturn(0);
+
+        assertThat(deduplicator.tryClaim(3L, null, NotificationType.FINE_NOTIFICATION, TODAY)).isFalse();
+        assertThat(deduplicator.tryClaim(3L, null, NotificationType.FINE_NOTIFICATION, TODAY)).isFalse();
+
+        verify(dedupKeyRepository, times(1)).insertIfAbsent(3L, 0L, "FINE_NOTIFICATION", TODAY);
+    }
+
+    @Test
+    void tryClaim_asksDatabaseForUnseenKeys() {
+        when(dedupKeyRepository.insertIfAbsent(any(), any(), any(), any())).thenReturn(1);
+
+        assertThat(deduplicator.tryClaim(3L, 7L, NotificationType.DUE_DATE_ALERT, TODAY)).isTrue();
+        assertThat(deduplicator.tryClaim(3L, 8L, NotificationType.DUE_DATE_ALERT, TODAY)).isTrue();
+        assertThat(deduplicator.tryClaim(3L, 7L, NotificationType.BOOK_REMINDER, TODAY)).isTrue();
+        assertThat(deduplicator.tryClaim(3L, 7L, NotificationType.DUE_DATE_ALERT, TODAY.plusDays(1))).isTrue();
+
+        verify(dedupKeyRepository, times(4)).insertIfAbsent(any(), any(), any(), any());
+    }
+}
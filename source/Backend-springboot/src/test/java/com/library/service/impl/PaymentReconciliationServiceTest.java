@@ -0,0 +1,172 @@
+package com.library.service.impl;
+
+import com.library.domain.PaymentGateway;
+import com.library.domain.PaymentStatus;
+import com.library.domain.PaymentType;
+import com.library.model.Payment;
+import com.library.payload.response.PaymentReconciliationReport;
+import com.library.repository.PaymentRepository;
+import com.library.service.gateway.GatewayPaymentStatus;
+import com.library.service.gateway.RazorpayService;
+import com.library.service.gateway.StripeService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class PaymentReconciliationServiceTest {
+
+    @Mock
+    private PaymentRepository paymentRepository;
+    @Mock
+    private RazorpayService razorpayService;
+    @Mock
+    private StripeService stripeService;
+    @Mock
+    private PaymentServiceImpl paymentService;
+    @Mock
+    private RevenueRollupService revenueRollupService;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private PaymentReconciliationService reconciliationService;
+
+    @BeforeEach
+    void setUp() {
+        reconciliationService = new PaymentReconciliationService(paymentRepository, razorpayService, stripeService,
+                paymentService, revenueRollupService, transactionManager, 30, 72, 200, 2);
+    }
+
+    @Test
+    void paidAtGateway_forStoredMinorAmount_settlesAndRecordsRevenue() throws Exception {
+        Payment payment = openPayment(1L, PaymentGateway.RAZORPAY, 49900L);
+        givenStale(payment);
+        when(razorpayService.getPaymentLinkStatus("plink_1")).thenReturn(
+                new GatewayPaymentStatus(GatewayPaymentStatus.State.PAID, "pay_1", 49900L, "upi", null));
+        when(paymentRepository.markSucceededIfOpen(eq(1L), eq("pay_1"), eq("upi"), any())).thenReturn(1);
+
+        PaymentReconciliationReport report = reconciliationService.reconcile();
+
+        assertThat(report.getSucceeded()).isEqualTo(1);
+        assertThat(report.getMismatchCount()).isZero();
+        assertThat(payment.getStatus()).isEqualTo(PaymentStatus.SUCCESS);
+        verify(revenueRollupService).recordSuccessfulPayment(payment);
+        verify(paymentService).publishSettlementEvents(List.of(payment), List.of());
+    }
+
+    @Test
+    void paidAtGateway_forDifferentAmount_isReportedAndLeftOpen() throws Exception {
+        Payment payment = openPayment(2L, PaymentGateway.RAZORPAY, 49900L);
+        givenStale(payment);
+        when(razorpayService.getPaymentLinkStatus("plink_2")).thenReturn(
+                new GatewayPaymentStatus(GatewayPaymentStatus.State.PAID, "pay_2", 499L, "upi", null));
+
+        PaymentReconciliationReport report = reconciliationService.reconcile();
+
+        assertThat(report.getMismatchCount()).isEqualTo(1);
+        assertThat(report.getMismatches().get(0).getDetail()).contains("499").contains("49900");
+        verify(paymentRepository, never()).markSucceededIfOpen(anyLong(), any(), any(), any());
+        verify(revenueRollupService, never()).recordSuccessfulPayment(any());
+    }
+
+    @Test
+    void paidAtGateway_butSettledMeanwhile_recordsNothing() throws Exception {
+        Payment payment = openPayment(3L, PaymentGateway.STRIPE, 1999L);
+        givenStale(payment);
+        when(stripeService.getCheckoutSessionStatus("plink_3")).thenReturn(
+                new GatewayPaymentStatus(GatewayPaymentStatus.State.PAID, "pi_3", 1999L, null, null));
+        when(paymentRepository.existsByGatewayPaymentId("pi_3")).thenReturn(false);
+        when(paymentRepository.markSucceededIfOpen(eq(3L), eq("pi_3"), any(), any())).thenReturn(0);
+
+        PaymentReconciliationReport report = reconciliationService.reconcile();
+
+        assertThat(report.getSucceeded()).isZero();
+        verify(revenueRollupService, never()).recordSuccessfulPayment(any());
+        verify(paymentService).publishSettlementEvents(List.of(), List.of());
+    }
+
+    @Test
+    void stripePaymentAlreadyRecordedByWebhook_isCancelledNotCountedTwice() throws Exception {
+        Payment payment = openPayment(4L, PaymentGateway.STRIPE, 1999L);
+        givenStale(payment);
+        when(stripeService.getCheckoutSessionStatus("plink_4")).thenReturn(
+                new GatewayPaymentStatus(GatewayPaymentStatus.State.PAID, "pi_4", 1999L, null, null));
+        when(paymentRepository.existsByGatewayPaymentId("pi_4")).thenReturn(true);
+        when(paymentRepository.markClosedIfOpen(eq(4L), eq(PaymentStatus.CANCELLED), any())).thenReturn(1);
+
+        PaymentReconciliationReport report = reconciliationService.reconcile();
+
+        assertThat(report.getCancelled()).isEqualTo(1);
+        verify(paymentRepository, never()).markSucceededIfOpen(anyLong(), any(), any(), any());
+        verify(revenueRollupService, never()).recordSuccessfulPayment(any());
+    }
+
+    @Test
+    void failedAtGateway_closesPaymentAndPublishesFailure() throws Exception {
+        Payment payment = openPayment(5L, PaymentGateway.RAZORPAY, 49900L);
+        givenStale(payment);
+        when(razorpayService.getPaymentLinkStatus("plink_5")).thenReturn(
+                new GatewayPaymentStatus(GatewayPaymentStatus.State.FAILED, null, null, null, "Payment link expired"));
+        when(paymentRepository.markClosedIfOpen(5L, PaymentStatus.FAILED, "Payment link expired")).thenReturn(1);
+
+        PaymentReconciliationReport report = reconciliationService.reconcile();
+
+        assertThat(report.getFailed()).isEqualTo(1);
+        assertThat(payment.getStatus()).isEqualTo(PaymentStatus.FAILED);
+        verify(paymentService).publishSettlementEvents(List.of(), List.of(payment));
+    }
+
+    @Test
+    void gatewayLookupError_isCountedAndPassContinues() throws Exception {
+        Payment broken = openPayment(6L, PaymentGateway.RAZORPAY, 100L);
+        Payment paid = openPayment(7L, PaymentGateway.RAZORPAY, 200L);
+        when(paymentRepository.findStaleForReconciliation(anyCollection(), any(), eq(0L), any()))
+                .thenReturn(List.of(broken, paid));
+        when(razorpayService.getPaymentLinkStatus("plink_6")).thenThrow(new IllegalStateException("timeout"));
+        when(razorpayService.getPaymentLinkStatus("plink_7")).thenReturn(
+                new GatewayPaymentStatus(GatewayPaymentStatus.State.PAID, "pay_7", 200L, null, null));
+        when(paymentRepository.markSucceededIfOpen(eq(7L), eq("pay_7"), any(), any())).thenReturn(1);
+
+        PaymentReconciliationReport report = reconciliationService.reconcile();
+
+        assertThat(report.getScanned()).isEqualTo(2);
+        assertThat(report.getLookupErrors()).isEqualTo(1);
+        assertThat(report.getSucceeded()).isEqualTo(1);
+        verify(revenueRollupService).recordSuccessfulPayment(argThat(p -> p.getId().equals(7L)));
+    }
+
+    // ==================== HELPER METHODS ====================
+
+    private void givenStale(Payment payment) {
+        when(paymentRepository.findStaleForReconciliation(anyCollection(), any(), eq(0L), any()))
+                .thenReturn(List.of(payment));
+    }
+
+    private static Payment openPayment(Long id, PaymentGateway gateway, long amountMinor) {
+        Payment payment = new Payment();
+        payment.setId(id);
+        payment.setGateway(gateway);
+        payment.setPaymentType(PaymentType.MEMBERSHIP);
+        payment.setStatus(PaymentStatus.PROCESSING);
+        payment.setAmount(amountMinor);
+        payment.setGatewayOrderId("plink_" + id);
+        payment.setCreatedAt(LocalDateTime.now().minusHours(1));
+        return payment;
+    }
+}
@@ -0,0 +1,197 @@
+package com.library.service.impl;
+
+import com.library.domain.PaymentGateway;
+import com.library.domain.PaymentStatus;
+import com.library.domain.PaymentType;
+import com.library.event.publisher.PaymentEventPublisher;
+import com.library.mapper.PaymentMapper;
+import com.library.model.Payment;
+import com.library.model.User;
+import com.library.payload.request.PaymentVerifyRequest;
+import com.library.repository.PaymentRepository;
+import com.library.service.gateway.RazorpayService;
+import jakarta.persistence.EntityManager;
+import org.json.JSONObject;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class PaymentServiceImplTest {
+
+    private static final Long PAYMENT_ID = 7L;
+
+    @Mock
+    private PaymentRepository paymentRepository;
+    @Mock
+    private PaymentMapper paymentMapper;
+    @Mock
+    private RazorpayService razorpayService;
+    @Mock
+    private PaymentEventPublisher paymentEventPublisher;
+    @Mock
+    private RevenueRollupService revenueRollupService;
+    @Mock
+    private PaymentAwaitService paymentAwaitService;
+    @Mock
+    private EntityManager entityManager;
+
+    @InjectMocks
+    private PaymentServiceImpl paymentService;
+
+    private Payment payment;
+
+    @BeforeEach
+    void setUp() {
+        User user = new User();
+        user.setId(3L);
+        user.setEmail("reader@example.com");
+        user.setFullName("Reader");
+
+        payment = new Payment();
+        payment.setId(PAYMENT_ID);
+        payment.setUser(user);
+        payment.setAmount(49900L);
+        payment.setPaymentType(PaymentType.MEMBERSHIP);
+        payment.setGateway(PaymentGateway.RAZORPAY);
+        payment.setStatus(PaymentStatus.PENDING);
+    }
+
+    // ==================== verifyPayment ====================
+
+    @Test
+    void verifyPayment_settlesOpenPaymentAndRecordsRevenueOnce() throws Exception {
+        givenVerifiedRazorpayPayment(true);
+        when(paymentRepository.markSucceededIfOpen(eq(PAYMENT_ID), eq("pay_1"), isNull(), any())).thenReturn(1);
+
+        paymentService.verifyPayment(verifyRequest());
+
+        assertThat(payment.getStatus()).isEqualTo(PaymentStatus.SUCCESS);
+        assertThat(payment.getGatewayPaymentId()).isEqualTo("pay_1");
+        assertThat(payment.getGatewayOrderId()).isEqualTo("order_1");
+        verify(revenueRollupService).recordSuccessfulPayment(payment);
+        verify(paymentEventPublisher).publishPaymentSuccess(any());
+    }
+
+    @Test
+    void verifyPayment_skipsRevenueAndEventWhenSettledConcurrently() throws Exception {
+        givenVerifiedRazorpayPayment(true);
+        when(paymentRepository.markSucceededIfOpen(eq(PAYMENT_ID), anyString(), isNull(), any())).thenReturn(0);
+
+        paymentService.verifyPayment(verifyRequest());
+
+        verify(entityManager).refresh(payment);
+        verify(revenueRollupService, never()).recordSuccessfulPayment(any());
+        verify(paymentEventPublisher, never()).publishPaymentSuccess(any());
+    }
+
+    @Test
+    void verifyPayment_returnsEarlyForAlreadySucceededPayment() throws Exception {
+        payment.setStatus(PaymentStatus.SUCCESS);
+        when(razorpayService.fetchPaymentDetails("pay_1")).thenReturn(gatewayDetails());
+        when(paymentRepository.findById(PAYMENT_ID)).thenReturn(Optional.of(payment));
+
+        paymentService.verifyPayment(verifyRequest());
+
+        verify(paymentRepository, never()).markSucceededIfOpen(any(), any(), any(), any());
+        verify(revenueRollupService, never()).recordSuccessfulPayment(any());
+    }
+
+    @Test
+    void verifyPayment_invalidPaymentFailsOnlyOpenPayment() throws Exception {
+        givenVerifiedRazorpayPayment(false);
+        when(paymentRepository.markClosedIfOpen(PAYMENT_ID, PaymentStatus.FAILED, "Payment verification failed"))
+                .thenReturn(1);
+
+        paymentService.verifyPayment(verifyRequest());
+
+        assertThat(payment.getStatus()).isEqualTo(PaymentStatus.FAILED);
+        verify(paymentEventPublisher).publishPaymentFailed(any());
+        verify(paymentRepository, never()).markSucceededIfOpen(any(), any(), any(), any());
+        verify(revenueRollupService, never()).recordSuccessfulPayment(any());
+    }
+
+    // ==================== processRazorpayEvent ====================
+
+    @Test
+    void razorpayCaptured_settlesOpenPaymentOnce() throws Exception {
+        when(paymentRepository.findById(PAYMENT_ID)).thenReturn(Optional.of(payment));
+        when(paymentRepository.markSucceededIfOpen(eq(PAYMENT_ID), eq("pay_1"), eq("upi"), any())).thenReturn(1);
+
+        paymentService.processRazorpayEvent(webhook("payment.captured"));
+
+        assertThat(payment.getStatus()).isEqualTo(PaymentStatus.SUCCESS);
+        assertThat(payment.getPaymentMethod()).isEqualTo("upi");
+        verify(revenueRollupService).recordSuccessfulPayment(payment);
+        verify(paymentEventPublisher).publishPaymentSuccess(any());
+    }
+
+    @Test
+    void razorpayCaptured_redeliveryAfterSettlementIsNoOp() throws Exception {
+        when(paymentRepository.findById(PAYMENT_ID)).thenReturn(Optional.of(payment));
+        when(paymentRepository.markSucceededIfOpen(eq(PAYMENT_ID), anyString(), anyString(), any())).thenReturn(0);
+
+        paymentService.processRazorpayEvent(webhook("payment.captured"));
+
+        verify(revenueRollupService, never()).recordSuccessfulPayment(any());
+        verify(paymentEventPublisher, never()).publishPaymentSuccess(any());
+    }
+
+    @Test
+    void razorpayFailed_doesNotOverwriteSettledPayment() throws Exception {
+        when(paymentRepository.findById(PAYMENT_ID)).thenReturn(Optional.of(payment));
+        when(paymentRepository.markClosedIfOpen(eq(PAYMENT_ID), eq(PaymentStatus.FAILED), anyString())).thenReturn(0);
+
+        paymentService.processRazorpayEvent(webhook("payment.failed"));
+
+        verify(entityManager).refresh(payment);
+        verify(paymentEventPublisher, never()).publishPaymentFailed(any());
+    }
+
+    // ==================== HELPER METHODS ====================
+
+    private void givenVerifiedRazorpayPayment(boolean valid) throws Exception {
+        JSONObject details = gatewayDetails();
+        when(razorpayService.fetchPaymentDetails("pay_1")).thenReturn(details);
+        when(razorpayService.isValidPayment(details)).thenReturn(valid);
+        when(paymentRepository.findById(PAYMENT_ID)).thenReturn(Optional.of(payment));
+    }
+
+    private static JSONObject gatewayDetails() throws Exception {
+        return new JSONObject()
+                .put("amount", 49900)
+                .put("notes", new JSONObject().put("payment_id", String.valueOf(PAYMENT_ID)));
+    }
+
+    private static PaymentVerifyRequest verifyRequest() {
+        PaymentVerifyRequest request = new PaymentVerifyRequest();
+        request.setRazorpayPaymentId("pay_1");
+        request.setRazorpayOrderId("order_1");
+        request.setRazorpaySignature("sig_1");
+        return request;
+    }
+
+    private static JSONObject webhook(String event) throws Exception {
+        JSONObject entity = new JSONObject()
+                .put("id", "pay_1")
+                .put("method", "upi")
+                .put("notes", new JSONObject().put("payment_id", PAYMENT_ID));
+        return new JSONObject()
+                .put("event", event)
+                .put("payload", new JSONObject().put("payment", new JSONObject().put("entity", entity)));
+    }
+}
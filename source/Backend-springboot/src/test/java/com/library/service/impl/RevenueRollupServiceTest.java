@@ -0,0 +1,111 @@
+package com.library.service.impl;
+
+import com.library.repository.RevenueRollupRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.sql.ResultSet;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class RevenueRollupServiceTest {
+
+    @Mock
+    private RevenueRollupRepository revenueRollupRepository;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private RevenueRollupService revenueRollupService;
+
+    @BeforeEach
+    void setUp() {
+        revenueRollupService = new RevenueRollupService(revenueRollupRepository, jdbcTemplate, transactionManager);
+    }
+
+    @Test
+    void rebuild_locksYearThenWritesOnlyDriftedBuckets() throws Exception {
+        when(jdbcTemplate.queryForList(anyString(), eq(Integer.class))).thenReturn(List.of(2026));
+        // Stored: March bucket correct, April off by one payment, May has no payments left
+        rows("FOR UPDATE", new Object[][]{
+                {1L, 3, "USD", "FINE", "STRIPE", 2L, 1500L},
+                {2L, 4, "USD", "FINE", "STRIPE", 1L, 500L},
+                {3L, 5, "USD", "MEMBERSHIP", "RAZORPAY", 1L, 9900L}});
+        rows("FROM payments", new Object[][]{
+                {0L, 3, "USD", "FINE", "STRIPE", 2L, 1500L},
+                {0L, 4, "USD", "FINE", "STRIPE", 2L, 1200L}});
+
+        int buckets = revenueRollupService.rebuild();
+
+        assertThat(buckets).isEqualTo(2);
+        InOrder order = inOrder(jdbcTemplate);
+        order.verify(jdbcTemplate).query(contains("FOR UPDATE"), any(RowCallbackHandler.class), eq(2026));
+        order.verify(jdbcTemplate).query(contains("FROM payments"), any(RowCallbackHandler.class),
+                any(Object.class), any(Object.class));
+
+        ArgumentCaptor<List<Object[]>> upserts = rowsCaptor();
+        verify(jdbcTemplate).batchUpdate(contains("payment_count = VALUES(payment_count)"), upserts.capture());
+        assertThat(upserts.getValue())
+                .extracting(row -> List.of(row[0], row[1], row[5], row[6]))
+                .containsExactly(List.of(2026, 4, 2L, 1200L));
+
+        ArgumentCaptor<List<Object[]>> deletes = rowsCaptor();
+        verify(jdbcTemplate).batchUpdate(contains("DELETE FROM revenue_rollups"), deletes.capture());
+        assertThat(deletes.getValue()).extracting(row -> row[0]).containsExactly(3L);
+    }
+
+    // ==================== HELPER METHODS ====================
+
+    /**
+     * Feed (id, month, currency, type, gateway, count, total) rows to the row
+     * handler of the query containing the given fragment
+     */
+    private void rows(String fragment, Object[][] rows) throws Exception {
+        doAnswer(invocation -> {
+            RowCallbackHandler handler = invocation.getArgument(1);
+            for (Object[] row : rows) {
+                ResultSet rs = mock(ResultSet.class);
+                when(rs.getLong(any(String.class))).thenAnswer(call -> switch ((String) call.getArgument(0)) {
+                    case "id" -> row[0];
+                    case "payment_count" -> row[5];
+                    default -> row[6];
+                });
+                when(rs.getInt("period_month")).thenReturn((Integer) row[1]);
+                when(rs.getString(any(String.class))).thenAnswer(call -> switch ((String) call.getArgument(0)) {
+                    case "currency" -> row[2];
+                    case "payment_type" -> row[3];
+                    default -> row[4];
+                });
+                handler.processRow(rs);
+            }
+            return null;
+        }).when(jdbcTemplate).query(contains(fragment), any(RowCallbackHandler.class), any(Object[].class));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static ArgumentCaptor<List<Object[]>> rowsCaptor() {
+        return ArgumentCaptor.forClass(List.class);
+    }
+}
@@ -0,0 +1,51 @@
+package com.library.service.template;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Render throughput of the compiled email templates.
+ * Run with: mvn test -Dtest=EmailTemplateEngineBenchmark -Dbenchmark=true
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class EmailTemplateEngineBenchmark {
+
+    private static final int WARMUP_RENDERS = 20_000;
+    private static final int MEASURED_RENDERS = 100_000;
+
+    @Test
+    void render100kPaymentSuccessEmails() {
+        EmailTemplateEngine engine = new EmailTemplateEngine();
+        engine.init();
+
+        Map<String, Object> data = Map.of(
+                "userName", "Jane Reader",
+                "paymentType", "Library Membership",
+                "amount", "₹499.00",
+                "transactionId", "TXN-20261019-000042",
+                "completedAt", "19 Oct 2026, 10:15 AM");
+
+        long checksum = 0;
+        for (int i = 0; i < WARMUP_RENDERS; i++) {
+            checksum += engine.render(EmailTemplate.PAYMENT_SUCCESS, data).length();
+        }
+
+        long start = System.nanoTime();
+        for (int i = 0; i < MEASURED_RENDERS; i++) {
+            checksum += engine.render(EmailTemplate.PAYMENT_SUCCESS, data).length();
+        }
+        long elapsedNanos = System.nanoTime() - start;
+
+        double rendersPerSecond = MEASURED_RENDERS / (elapsedNanos / 1e9);
+        System.out.printf("%,d renders in %d ms (%,.0f renders/s, %.2f us/render)%n",
+                MEASURED_RENDERS, TimeUnit.NANOSECONDS.toMillis(elapsedNanos),
+                rendersPerSecond, elapsedNanos / 1e3 / MEASURED_RENDERS);
+
+        assertThat(checksum).isPositive();
+    }
+}